@@ -162,6 +162,21 @@ class BonitaDataSourceInitializer {
         return dataSource;
     }
 
+    BasicDataSource createLocalTransactionDataSource(BonitaDatabaseConfiguration configuration) {
+        BasicDataSource dataSource = createDataSource(configuration);
+        // connections are committed by the transaction manager, they stay out of auto commit mode in the pool
+        dataSource.setDefaultAutoCommit(false);
+        dataSource.setEnableAutoCommitOnReturn(false);
+        dataSource.setRemoveAbandonedOnBorrow(true);
+        dataSource.setRemoveAbandonedOnMaintenance(true);
+        dataSource.setLogAbandoned(true);
+        dataSource.setTestOnBorrow(true);
+        dataSource.setValidationQuery(defaultTestQueries.get(configuration.getDbVendor()));
+        // this pool replaces the XA one
+        configureDatasource(configuration.getXaDatasource(), dataSource);
+        return dataSource;
+    }
+
     private void configureDatasource(DatasourceConfiguration configuration, BasicDataSource dataSource) {
         if (configuration != null && configuration.getMaxPoolSize() > 0) {
             dataSource.setMaxTotal(configuration.getMaxPoolSize());
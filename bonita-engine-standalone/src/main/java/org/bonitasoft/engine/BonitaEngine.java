@@ -18,22 +18,25 @@ import java.util.HashMap;
 import java.util.Map;
 
 import javax.naming.NamingException;
+import javax.sql.DataSource;
 
 import com.arjuna.ats.jta.TransactionManager;
 import com.arjuna.ats.jta.UserTransaction;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.dbcp2.BasicDataSource;
-import org.apache.commons.dbcp2.managed.BasicManagedDataSource;
 import org.bonitasoft.engine.api.ApiAccessType;
 import org.bonitasoft.engine.api.PlatformAPI;
 import org.bonitasoft.engine.api.PlatformAPIAccessor;
 import org.bonitasoft.engine.exception.BonitaHomeNotSetException;
 import org.bonitasoft.engine.exception.ServerAPIException;
 import org.bonitasoft.engine.exception.UnknownAPITypeException;
+import org.bonitasoft.engine.persistence.LocalTransactionHibernateJtaPlatform;
 import org.bonitasoft.engine.platform.PlatformLoginException;
 import org.bonitasoft.engine.platform.PlatformLogoutException;
 import org.bonitasoft.engine.session.PlatformSession;
 import org.bonitasoft.engine.session.SessionNotFoundException;
+import org.bonitasoft.engine.transaction.LocalTransactionDataSource;
+import org.bonitasoft.engine.transaction.LocalTransactionManager;
 import org.bonitasoft.engine.util.APITypeManager;
 import org.bonitasoft.platform.setup.PlatformSetup;
 import org.bonitasoft.platform.setup.PlatformSetupAccessor;
@@ -47,14 +50,16 @@ public class BonitaEngine {
     private BonitaDatabaseConfiguration bonitaDatabaseConfiguration;
     private BonitaDatabaseConfiguration businessDataDatabaseConfiguration;
     private MemoryJNDISetup memoryJNDISetup;
-    private BasicManagedDataSource bonitaDataSource;
-    private BasicManagedDataSource businessDataDataSource;
+    private boolean localTransactions;
+    private DataSource bonitaDataSource;
+    private DataSource businessDataDataSource;
     private BasicDataSource bonitaSequenceManagerDataSource;
     private BasicDataSource notManagedBizDataSource;
     private javax.transaction.UserTransaction userTransaction;
-    private javax.transaction.TransactionManager arjunaTransactionManager;
+    private javax.transaction.TransactionManager transactionManager;
     public static final String BONITA_BDM_DB_VENDOR = "sysprop.bonita.bdm.db.vendor";
     public static final String BONITA_DB_VENDOR = "sysprop.bonita.db.vendor";
+    public static final String BONITA_JTA_PLATFORM = "sysprop.bonita.hibernate.transaction.jta_platform";
 
     public void initializeEnvironment() throws Exception {
         if (!initialized) {
@@ -62,18 +67,43 @@ public class BonitaEngine {
             APITypeManager.setAPITypeAndParams(ApiAccessType.LOCAL, Collections.emptyMap());
             initializeBonitaDatabaseConfiguration();
             initializeBusinessDataDatabaseConfiguration();
-            arjunaTransactionManager = TransactionManager.transactionManager();
-            userTransaction = UserTransaction.userTransaction();
-            bonitaDataSource = bonitaDataSourceInitializer.createManagedDataSource(bonitaDatabaseConfiguration,
-                    arjunaTransactionManager);
-            businessDataDataSource = bonitaDataSourceInitializer
-                    .createManagedDataSource(businessDataDatabaseConfiguration, arjunaTransactionManager);
+            if (localTransactions) {
+                initializeLocalTransactions();
+            } else {
+                transactionManager = TransactionManager.transactionManager();
+                userTransaction = UserTransaction.userTransaction();
+                bonitaDataSource = bonitaDataSourceInitializer.createManagedDataSource(bonitaDatabaseConfiguration,
+                        transactionManager);
+                businessDataDataSource = bonitaDataSourceInitializer
+                        .createManagedDataSource(businessDataDatabaseConfiguration, transactionManager);
+            }
             bonitaSequenceManagerDataSource = bonitaDataSourceInitializer.createDataSource(bonitaDatabaseConfiguration);
             notManagedBizDataSource = bonitaDataSourceInitializer.createDataSource(businessDataDatabaseConfiguration);
             initializeJNDI();
         }
     }
 
+    private void initializeLocalTransactions() {
+        LocalTransactionManager localTransactionManager = new LocalTransactionManager();
+        transactionManager = localTransactionManager;
+        userTransaction = localTransactionManager;
+        bonitaDataSource = new LocalTransactionDataSource(
+                bonitaDataSourceInitializer.createLocalTransactionDataSource(bonitaDatabaseConfiguration),
+                localTransactionManager);
+        if (businessDataDatabaseConfiguration.getUrl().equals(bonitaDatabaseConfiguration.getUrl())) {
+            // business data take part in the transaction using the connection of the engine
+            businessDataDataSource = bonitaDataSource;
+        } else {
+            log.warn("Business data are not stored in the database of the engine, with local transactions "
+                    + "the commit of their changes is not atomic with the one of the engine");
+            businessDataDataSource = new LocalTransactionDataSource(
+                    bonitaDataSourceInitializer.createLocalTransactionDataSource(businessDataDatabaseConfiguration),
+                    localTransactionManager);
+        }
+        setSystemPropertyIfNotSet(BONITA_JTA_PLATFORM, LocalTransactionHibernateJtaPlatform.class.getName());
+        log.info("Using local transactions, without XA");
+    }
+
     private void initializeBonitaDatabaseConfiguration() {
         if (bonitaDatabaseConfiguration == null || bonitaDatabaseConfiguration.isEmpty()) {
             bonitaDatabaseConfiguration = DefaultBonitaDatabaseConfigurations
@@ -106,7 +136,7 @@ public class BonitaEngine {
         jndiMapping.put("java:comp/env/bonitaSequenceManagerDS", bonitaSequenceManagerDataSource);
         jndiMapping.put("java:comp/env/BusinessDataDS", businessDataDataSource);
         jndiMapping.put("java:comp/env/NotManagedBizDataDS", notManagedBizDataSource);
-        jndiMapping.put("java:comp/env/TransactionManager", arjunaTransactionManager);
+        jndiMapping.put("java:comp/env/TransactionManager", transactionManager);
         jndiMapping.put("java:comp/UserTransaction", userTransaction);
         JndiTemplate jndiTemplate = new JndiTemplate();
         memoryJNDISetup = new MemoryJNDISetup(jndiTemplate, jndiMapping);
@@ -165,11 +195,26 @@ public class BonitaEngine {
         this.businessDataDatabaseConfiguration = businessDataDatabaseConfiguration;
     }
 
-    BasicManagedDataSource getBonitaDataSource() {
+    /**
+     * Use resource-local transactions on plain JDBC connections instead of XA transactions managed by Narayana.
+     * Transactions then skip the XA protocol, but they are only atomic when the business data are stored in the same
+     * database as the engine, or when business data are not used. Must be set before the engine is started.
+     *
+     * @param localTransactions true to use local transactions, false (the default) to use XA transactions
+     */
+    public void setLocalTransactions(boolean localTransactions) {
+        this.localTransactions = localTransactions;
+    }
+
+    public boolean isLocalTransactions() {
+        return localTransactions;
+    }
+
+    DataSource getBonitaDataSource() {
         return bonitaDataSource;
     }
 
-    BasicManagedDataSource getBusinessDataDataSource() {
+    DataSource getBusinessDataDataSource() {
         return businessDataDataSource;
     }
 }
@@ -15,6 +15,10 @@ package org.bonitasoft.engine;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.apache.commons.dbcp2.managed.BasicManagedDataSource;
+import org.bonitasoft.engine.persistence.LocalTransactionHibernateJtaPlatform;
+import org.bonitasoft.engine.transaction.LocalTransactionDataSource;
 import org.h2.jdbcx.JdbcDataSource;
 import org.junit.Rule;
 import org.junit.Test;
@@ -55,13 +59,46 @@ public class BonitaEngineTest {
 
         bonitaEngine.initializeEnvironment();
 
-        JdbcDataSource xaDataSourceInstance = (JdbcDataSource) bonitaEngine.getBonitaDataSource()
-                .getXaDataSourceInstance();
+        JdbcDataSource xaDataSourceInstance = (JdbcDataSource) ((BasicManagedDataSource) bonitaEngine
+                .getBonitaDataSource()).getXaDataSourceInstance();
         assertThat(xaDataSourceInstance.getURL()).contains("h2");
         assertThat(xaDataSourceInstance.getDescription()).contains("RawDataSource of h2");
 
     }
 
+    @Test
+    public void should_configure_non_xa_datasources_when_using_local_transactions() throws Exception {
+        BonitaEngine bonitaEngine = newBonitaEngine();
+        bonitaEngine.setLocalTransactions(true);
+
+        bonitaEngine.initializeEnvironment();
+
+        assertThat(bonitaEngine.getBonitaDataSource()).isInstanceOf(LocalTransactionDataSource.class);
+        BasicDataSource targetDataSource = (BasicDataSource) ((LocalTransactionDataSource) bonitaEngine
+                .getBonitaDataSource()).getTargetDataSource();
+        assertThat(targetDataSource.getUrl()).contains("h2");
+        assertThat(targetDataSource.getDefaultAutoCommit()).isFalse();
+        assertThat(System.getProperty(BonitaEngine.BONITA_JTA_PLATFORM))
+                .isEqualTo(LocalTransactionHibernateJtaPlatform.class.getName());
+    }
+
+    @Test
+    public void should_share_the_engine_datasource_with_business_data_stored_in_the_same_database() throws Exception {
+        BonitaEngine bonitaEngine = newBonitaEngine();
+        bonitaEngine.setLocalTransactions(true);
+        BonitaDatabaseConfiguration database = BonitaDatabaseConfiguration.builder()
+                .dbVendor("h2")
+                .url("jdbc:h2:mem:bonita")
+                .user("sa")
+                .build();
+        bonitaEngine.setBonitaDatabaseConfiguration(database);
+        bonitaEngine.setBusinessDataDatabaseConfiguration(database);
+
+        bonitaEngine.initializeEnvironment();
+
+        assertThat(bonitaEngine.getBusinessDataDataSource()).isSameAs(bonitaEngine.getBonitaDataSource());
+    }
+
     private BonitaEngine newBonitaEngine() {
         return new BonitaEngine();
     }
@@ -51,6 +51,7 @@ import org.bonitasoft.engine.exception.UpdateException;
 import org.bonitasoft.engine.identity.Group;
 import org.bonitasoft.engine.identity.Role;
 import org.bonitasoft.engine.identity.User;
+import org.bonitasoft.engine.identity.UserMembership;
 import org.bonitasoft.engine.test.BuildTestUtil;
 import org.junit.After;
 import org.junit.Test;
@@ -869,6 +870,36 @@ public class ProcessActorIT extends TestWithUser {
         disableAndDeleteProcess(definition);
     }
 
+    @Test
+    public void userGetsAPendingTaskWhenMembershipIsUpdatedToTheOneOfTheActor() throws Exception {
+        final ProcessDefinitionBuilder processBuilder = new ProcessDefinitionBuilder();
+        processBuilder.createNewInstance(PROCESS_NAME, PROCESS_VERSION);
+        processBuilder.addActor(ACTOR_NAME);
+        processBuilder.addUserTask("deliver", ACTOR_NAME);
+        final ProcessDefinition definition = deployProcess(new BusinessArchiveBuilder().createNewBusinessArchive()
+                .setProcessDefinition(processBuilder.done()).done());
+        final ActorInstance actor = checkActors(ACTOR_NAME, definition);
+
+        final Group group1 = getIdentityAPI().createGroup("group1", null);
+        final Group group2 = getIdentityAPI().createGroup("group2", null);
+        final Role role = getIdentityAPI().createRole("role1");
+        final UserMembership membership = getIdentityAPI().addUserMembership(user.getId(), group1.getId(),
+                role.getId());
+        getProcessAPI().addRoleAndGroupToActor(actor.getId(), role.getId(), group2.getId());
+        getProcessAPI().enableProcess(definition.getId());
+        final ProcessInstance processInstance = getProcessAPI().startProcess(definition.getId());
+        waitForUserTask(processInstance, "deliver");
+        assertEquals(0, getProcessAPI().getNumberOfPendingHumanTaskInstances(user.getId()));
+
+        getIdentityAPI().updateUserMembership(membership.getId(), group2.getId(), role.getId());
+
+        assertEquals(1, getProcessAPI().getNumberOfPendingHumanTaskInstances(user.getId()));
+
+        cleanUserGroupAndRole(group1, role);
+        getIdentityAPI().deleteGroup(group2.getId());
+        disableAndDeleteProcess(definition);
+    }
+
     @Test
     public void getNumberOfActors() throws Exception {
         final ProcessDefinitionBuilder processBuilder = new ProcessDefinitionBuilder().createNewInstance(PROCESS_NAME,
@@ -22,6 +22,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.api.Assertions;
 import org.bonitasoft.engine.archive.ArchiveService;
 import org.bonitasoft.engine.bpm.CommonBPMServicesTest;
@@ -82,7 +83,8 @@ public class DataInstanceServiceIT extends CommonBPMServicesTest {
         expressionService = getTenantAccessor().getExpressionService();
         parentContainerResolver = (ParentContainerResolverImpl) getTenantAccessor().getParentContainerResolver();
         dataInstanceService = new DataInstanceServiceImpl(recorder, persistenceService, archiveService,
-                technicalLoggerService);
+                technicalLoggerService, getTenantAccessor().getUserTransactionService(), new SimpleMeterRegistry(),
+                getTenantAccessor().getTenantId());
         parentContainerResolver.setAllowUnknownContainer(true);
         final CacheService cacheService = getTenantAccessor().getCacheService();
         if (cacheService.isStopped()) {
@@ -165,7 +165,8 @@ public class ExpressionServiceIT extends CommonBPMServicesTest {
         final String strContent = "return \"junit test checkGroovyScriptStrategyUsesCache\"";
         final SExpression strExpr = buildExpression(strContent, SExpression.TYPE_READ_ONLY_SCRIPT,
                 String.class.getName(), SExpression.GROOVY, null);
-        final String cacheKey = GroovyScriptExpressionExecutorCacheStrategy.SCRIPT_KEY + strContent.hashCode();
+        final String cacheKey = GroovyScriptExpressionExecutorCacheStrategy.getScriptKey(strContent,
+                DEFINITION_ID_VALUE);
         assertThat(cacheService.get(GroovyScriptExpressionExecutorCacheStrategy.GROOVY_SCRIPT_CACHE_NAME, cacheKey))
                 .as("should not contains key").isNull();
 
@@ -43,7 +43,6 @@ import org.bonitasoft.engine.core.process.instance.model.event.SIntermediateThro
 import org.bonitasoft.engine.core.process.instance.model.event.SStartEventInstance;
 import org.bonitasoft.engine.core.process.instance.model.event.trigger.STimerEventTriggerInstance;
 import org.bonitasoft.engine.persistence.PersistentObject;
-import org.bonitasoft.engine.persistence.QueryOptions;
 import org.bonitasoft.engine.test.persistence.repository.FlowNodeInstanceRepository;
 import org.junit.Before;
 import org.junit.Test;
@@ -145,14 +144,29 @@ public class FlowNodeInstanceTest {
                 .withStateCategory(SStateCategory.NORMAL).build());
 
         // when
-        final QueryOptions options = new QueryOptions(0, 10);
-        final List<Long> nodeToRestart = repository.getFlowNodeInstanceIdsToRestart(options);
+        final List<Long> nodeToRestart = repository.getFlowNodeInstanceIdsToRestart(Long.MIN_VALUE, 10);
 
         // then
         assertThat(nodeToRestart).containsOnly(executing.getId(), notStable.getId(), terminal.getId(),
                 abortingBoundary.getId(), cancellingBoundary.getId());
     }
 
+    @Test
+    public void getFlowNodeInstanceIdsToRestart_should_return_ids_greater_than_the_last_id_in_ascending_order() {
+        // given
+        repository.add(aUserTask().withId(30L).withName("task3").withStateExecuting(true).build());
+        repository.add(aUserTask().withId(10L).withName("task1").withStateExecuting(true).build());
+        repository.add(aUserTask().withId(20L).withName("task2").withStateExecuting(true).build());
+
+        // when
+        final List<Long> firstPage = repository.getFlowNodeInstanceIdsToRestart(Long.MIN_VALUE, 2);
+        final List<Long> secondPage = repository.getFlowNodeInstanceIdsToRestart(firstPage.get(1), 2);
+
+        // then
+        assertThat(firstPage).containsExactly(10L, 20L);
+        assertThat(secondPage).containsExactly(30L);
+    }
+
     // For
     @Test
     public void getNumberOfSHumanTaskInstanceAssignedAndPendingByRootProcessFor_should_return_number_of_process_definition_if_one_instance_has_assigned_tasks_to_the_user() {
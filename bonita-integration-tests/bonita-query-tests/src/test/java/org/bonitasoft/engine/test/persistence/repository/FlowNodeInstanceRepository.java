@@ -19,7 +19,6 @@ import org.bonitasoft.engine.core.process.instance.model.SFlowNodeInstance;
 import org.bonitasoft.engine.core.process.instance.model.SFlowNodeInstanceStateCounter;
 import org.bonitasoft.engine.core.process.instance.model.SGatewayInstance;
 import org.bonitasoft.engine.core.process.instance.model.SHumanTaskInstance;
-import org.bonitasoft.engine.persistence.QueryOptions;
 import org.hibernate.SessionFactory;
 import org.hibernate.query.Query;
 import org.springframework.stereotype.Repository;
@@ -41,11 +40,11 @@ public class FlowNodeInstanceRepository extends TestRepository {
     }
 
     @SuppressWarnings("unchecked")
-    public List<Long> getFlowNodeInstanceIdsToRestart(final QueryOptions queryOptions) {
+    public List<Long> getFlowNodeInstanceIdsToRestart(final long lastId, final int maxResults) {
         getSessionWithTenantFilter();
         final Query namedQuery = getNamedQuery("getFlowNodeInstanceIdsToRestart");
-        namedQuery.setMaxResults(queryOptions.getNumberOfResults());
-        namedQuery.setFirstResult(queryOptions.getFromIndex());
+        namedQuery.setParameter("lastId", lastId);
+        namedQuery.setMaxResults(maxResults);
         return (List<Long>) namedQuery.list();
     }
 
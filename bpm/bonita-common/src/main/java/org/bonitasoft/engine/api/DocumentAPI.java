@@ -13,6 +13,7 @@
  **/
 package org.bonitasoft.engine.api;
 
+import java.io.InputStream;
 import java.util.List;
 
 import org.bonitasoft.engine.bpm.document.ArchivedDocument;
@@ -186,6 +187,37 @@ public interface DocumentAPI {
             byte[] documentContent)
             throws ProcessInstanceNotFoundException, DocumentAttachmentException;
 
+    /**
+     * Attach the given document to the specified process instance, reading its content from a stream.
+     * <p>
+     * Unlike {@link #attachDocument(long, String, String, String, byte[])}, the content does not need to be loaded in
+     * memory when the engine is configured to keep document contents outside of the database. The stream is read
+     * during the call, so this method can only be used when the API is accessed locally (i.e. in the same JVM as the
+     * engine).
+     * </p>
+     *
+     * @param processInstanceId
+     *        The identifier of the process instance
+     * @param documentName
+     *        The name of the document
+     * @param fileName
+     *        The name of the file containing the document
+     * @param mimeType
+     *        The MimeType of the document content (optional)
+     * @param documentContent
+     *        The content of the document, read until its end but not closed
+     * @return a document object
+     * @throws ProcessInstanceNotFoundException
+     *         If the identifier does not refer to an existing process instance.
+     * @throws org.bonitasoft.engine.session.InvalidSessionException
+     *         Generic exception thrown if API Session is invalid, e.g session has expired.
+     * @throws DocumentAttachmentException
+     *         when an error occurs while attaching the document
+     */
+    Document attachDocument(long processInstanceId, String documentName, String fileName, String mimeType,
+            InputStream documentContent)
+            throws ProcessInstanceNotFoundException, DocumentAttachmentException;
+
     /**
      * Attach a new version of a document by reference to the specified process instance. The referenced document is
      * a new version of the named document.
@@ -321,6 +353,24 @@ public interface DocumentAPI {
      */
     byte[] getDocumentContent(String storageId) throws DocumentNotFoundException;
 
+    /**
+     * Get content of the document with the specified identifier as a stream.
+     * <p>
+     * The content is not loaded in memory when the engine is configured to keep document contents outside of the
+     * database. The stream can't be transferred to a remote client, so this method can only be used when the API is
+     * accessed locally (i.e. in the same JVM as the engine).
+     * </p>
+     *
+     * @param storageId
+     *        The identifier of the document to retrieve the content from
+     * @return a stream on the document content, to be closed by the caller, or null if the document has no content
+     * @throws DocumentNotFoundException
+     *         If the specified identifier does not refer to an existing document.
+     * @throws org.bonitasoft.engine.session.InvalidSessionException
+     *         when the session is note valid
+     */
+    InputStream getDocumentContentAsStream(String storageId) throws DocumentNotFoundException;
+
     /**
      * Get the last version of the named document for the specified process instance.
      * This method does not work on archived process instances.
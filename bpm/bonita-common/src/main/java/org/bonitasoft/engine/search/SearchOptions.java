@@ -77,4 +77,35 @@ public interface SearchOptions extends Serializable {
      */
     List<Sort> getSorts();
 
+    /**
+     * Whether the total number of matching results is computed. When it is not, {@link SearchResult#getCount()}
+     * returns {@link SearchResult#UNKNOWN_COUNT}.
+     *
+     * @return true if the count is not computed
+     * @see SearchOptionsBuilder#skipCount()
+     */
+    default boolean isCountSkipped() {
+        return false;
+    }
+
+    /**
+     * Whether results are paged using the value of the sort field of the last result of the previous page instead of
+     * the start index.
+     *
+     * @return true if keyset pagination is used
+     * @see SearchOptionsBuilder#keysetPagination(String)
+     */
+    default boolean isKeysetPagination() {
+        return false;
+    }
+
+    /**
+     * @return the token given by {@link SearchResult#getContinuationToken()} for the previous page, null for the
+     *         first page
+     * @see SearchOptionsBuilder#keysetPagination(String)
+     */
+    default String getContinuationToken() {
+        return null;
+    }
+
 }
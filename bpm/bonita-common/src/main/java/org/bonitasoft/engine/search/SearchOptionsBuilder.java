@@ -64,6 +64,9 @@ public class SearchOptionsBuilder {
         options.setFilters(searchOptions.getFilters());
         options.setSorts(searchOptions.getSorts());
         options.setSearchTerm(searchOptions.getSearchTerm());
+        options.setCountSkipped(searchOptions.isCountSkipped());
+        options.setKeysetPagination(searchOptions.isKeysetPagination());
+        options.setContinuationToken(searchOptions.getContinuationToken());
     }
 
     /**
@@ -228,6 +231,37 @@ public class SearchOptionsBuilder {
         return this;
     }
 
+    /**
+     * Do not compute the total number of matching results, {@link SearchResult#getCount()} will return
+     * {@link SearchResult#UNKNOWN_COUNT}. Counting can be much longer than retrieving a page on big tables, e.g.
+     * archives.
+     *
+     * @return this builder itself
+     */
+    public SearchOptionsBuilder skipCount() {
+        options.setCountSkipped(true);
+        return this;
+    }
+
+    /**
+     * Page results using the position of the last result of the previous page instead of the start index, which is
+     * then ignored. Retrieving a page then costs the same whatever its position, whereas the database has to go through
+     * all previous results when using a start index.
+     * <p>
+     * Exactly one sort must be given, results having the same value for this field are ordered by id. The sort field
+     * should never be null: results having a null value might be skipped, depending on how the database orders null
+     * values.
+     *
+     * @param continuationToken the token given by {@link SearchResult#getContinuationToken()} for the previous page,
+     *        null to retrieve the first page
+     * @return this builder itself
+     */
+    public SearchOptionsBuilder keysetPagination(final String continuationToken) {
+        options.setKeysetPagination(true);
+        options.setContinuationToken(continuationToken);
+        return this;
+    }
+
     /**
      * @return the <code>SearchOptions</code> finally built using this builder.
      */
@@ -33,6 +33,11 @@ import java.util.List;
  */
 public interface SearchResult<T extends Serializable> extends Serializable {
 
+    /**
+     * Count returned when the search was done with {@link SearchOptions#isCountSkipped()}
+     */
+    long UNKNOWN_COUNT = -1;
+
     /**
      * Get the total number of matching result in the data base. This number can be greater than the number of elements
      * retrieved in the search depending on
@@ -51,4 +56,15 @@ public interface SearchResult<T extends Serializable> extends Serializable {
      */
     List<T> getResult();
 
+    /**
+     * Get the token to give to {@link SearchOptionsBuilder#keysetPagination(String)} to retrieve the next page, when
+     * the search was done with {@link SearchOptions#isKeysetPagination()}.
+     *
+     * @return the token to retrieve the next page, null if this page is the last one or if keyset pagination is not
+     *         used
+     */
+    default String getContinuationToken() {
+        return null;
+    }
+
 }
@@ -42,6 +42,12 @@ public class SearchOptionsImpl implements SearchOptions {
 
     private List<Sort> sorts;
 
+    private boolean countSkipped;
+
+    private boolean keysetPagination;
+
+    private String continuationToken;
+
     public SearchOptionsImpl(final int startIndex, final int numberOfResults) {
         filters = new ArrayList<SearchFilter>(5);
         sorts = new ArrayList<Sort>(2);
@@ -150,6 +156,33 @@ public class SearchOptionsImpl implements SearchOptions {
         this.sorts = sorts;
     }
 
+    @Override
+    public boolean isCountSkipped() {
+        return countSkipped;
+    }
+
+    public void setCountSkipped(final boolean countSkipped) {
+        this.countSkipped = countSkipped;
+    }
+
+    @Override
+    public boolean isKeysetPagination() {
+        return keysetPagination;
+    }
+
+    public void setKeysetPagination(final boolean keysetPagination) {
+        this.keysetPagination = keysetPagination;
+    }
+
+    @Override
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    public void setContinuationToken(final String continuationToken) {
+        this.continuationToken = continuationToken;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -159,6 +192,9 @@ public class SearchOptionsImpl implements SearchOptions {
         result = prime * result + (searchTerm == null ? 0 : searchTerm.hashCode());
         result = prime * result + (sorts == null ? 0 : sorts.hashCode());
         result = prime * result + startIndex;
+        result = prime * result + (countSkipped ? 1231 : 1237);
+        result = prime * result + (keysetPagination ? 1231 : 1237);
+        result = prime * result + (continuationToken == null ? 0 : continuationToken.hashCode());
         return result;
     }
 
@@ -201,6 +237,16 @@ public class SearchOptionsImpl implements SearchOptions {
         if (startIndex != other.startIndex) {
             return false;
         }
+        if (countSkipped != other.countSkipped || keysetPagination != other.keysetPagination) {
+            return false;
+        }
+        if (continuationToken == null) {
+            if (other.continuationToken != null) {
+                return false;
+            }
+        } else if (!continuationToken.equals(other.continuationToken)) {
+            return false;
+        }
         return true;
     }
 
@@ -29,10 +29,17 @@ public class SearchResultImpl<T extends Serializable> implements SearchResult<T>
 
     private final List<T> list;
 
+    private final String continuationToken;
+
     public SearchResultImpl(final long count, final List<T> list) {
+        this(count, list, null);
+    }
+
+    public SearchResultImpl(final long count, final List<T> list, final String continuationToken) {
         super();
         this.count = count;
         this.list = list;
+        this.continuationToken = continuationToken;
     }
 
     @Override
@@ -45,12 +52,18 @@ public class SearchResultImpl<T extends Serializable> implements SearchResult<T>
         return list;
     }
 
+    @Override
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
         int result = 1;
         result = prime * result + (int) (count ^ count >>> 32);
         result = prime * result + (list == null ? 0 : list.hashCode());
+        result = prime * result + (continuationToken == null ? 0 : continuationToken.hashCode());
         return result;
     }
 
@@ -76,6 +89,13 @@ public class SearchResultImpl<T extends Serializable> implements SearchResult<T>
         } else if (!list.equals(other.list)) {
             return false;
         }
+        if (continuationToken == null) {
+            if (other.continuationToken != null) {
+                return false;
+            }
+        } else if (!continuationToken.equals(other.continuationToken)) {
+            return false;
+        }
         return true;
     }
 
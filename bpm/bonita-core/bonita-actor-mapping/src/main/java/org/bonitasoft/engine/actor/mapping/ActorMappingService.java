@@ -92,6 +92,17 @@ public interface ActorMappingService {
      */
     List<SActor> getActors(Set<Long> scopeIds, Long userId) throws SBonitaReadException;
 
+    /**
+     * Get the ids of all actors the user is a member of, directly or through one of its groups, roles or memberships.
+     * Actor ids of users are cached until actor members or user memberships change.
+     *
+     * @param userId
+     *        Id of the user
+     * @return the ids of the actors of the user, in no particular order
+     * @throws SBonitaReadException
+     */
+    List<Long> getActorIdsOfUser(long userId) throws SBonitaReadException;
+
     /**
      * Update actor by its id
      * If the actor by a given actorId is not found, it will throw processDefinitionNotFountExcetion
@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.actor.mapping.impl;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bonitasoft.engine.cache.CacheService;
+import org.bonitasoft.engine.cache.SCacheException;
+import org.bonitasoft.engine.events.model.SEvent;
+import org.bonitasoft.engine.events.model.SHandler;
+import org.bonitasoft.engine.events.model.SHandlerExecutionException;
+import org.bonitasoft.engine.log.technical.TechnicalLogSeverity;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.bonitasoft.engine.transaction.BonitaTransactionSynchronization;
+import org.bonitasoft.engine.transaction.STransactionNotFoundException;
+import org.bonitasoft.engine.transaction.TransactionState;
+import org.bonitasoft.engine.transaction.UserTransactionService;
+
+/**
+ * Ids of the actors each user is a member of, directly or through one of its groups, roles or memberships, kept in
+ * the {@value #CACHE_NAME} cache.
+ * <p>
+ * The whole cache is cleared when actor members change or when user memberships are created, updated or deleted:
+ * once when the change is made and once when its transaction completes, because transactions running meanwhile still
+ * resolve the previous members.
+ * Actor ids resolved while the cache was cleared are not kept.
+ */
+class ActorIdsOfUserCache implements SHandler<SEvent> {
+
+    static final String CACHE_NAME = "ACTOR_IDS_OF_USER";
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient CacheService cacheService;
+    private final transient UserTransactionService transactionService;
+    private final transient TechnicalLoggerService logger;
+    private final AtomicLong generation = new AtomicLong();
+    private final transient ThreadLocal<Boolean> clearRegistered = new ThreadLocal<>();
+
+    ActorIdsOfUserCache(final CacheService cacheService, final UserTransactionService transactionService,
+            final TechnicalLoggerService logger) {
+        this.cacheService = cacheService;
+        this.transactionService = transactionService;
+        this.logger = logger;
+    }
+
+    /**
+     * @return the current generation of the cache, to give to {@link #put(long, List, long)} once actor ids are
+     *         resolved
+     */
+    long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * @return the cached actor ids of the user or null when they must be resolved
+     */
+    @SuppressWarnings("unchecked")
+    List<Long> get(final long userId) {
+        try {
+            return (List<Long>) cacheService.get(CACHE_NAME, userId);
+        } catch (final SCacheException e) {
+            logCacheFailure(e);
+            return null;
+        }
+    }
+
+    /**
+     * Keep the actor ids of the user unless the cache was cleared since the given generation.
+     */
+    void put(final long userId, final List<Long> actorIds, final long resolvedAtGeneration) {
+        if (generation.get() != resolvedAtGeneration) {
+            return;
+        }
+        try {
+            cacheService.store(CACHE_NAME, userId, actorIds);
+            if (generation.get() != resolvedAtGeneration) {
+                // cleared while storing
+                cacheService.remove(CACHE_NAME, userId);
+            }
+        } catch (final SCacheException e) {
+            logCacheFailure(e);
+        }
+    }
+
+    /**
+     * Clear the cache now and once the current transaction is completed.
+     */
+    void invalidate() throws SCacheException {
+        clear();
+        if (clearRegistered.get() == null && transactionService.isTransactionActive()) {
+            try {
+                transactionService.registerBonitaSynchronization(new ClearOnCompletion());
+                clearRegistered.set(Boolean.TRUE);
+            } catch (final STransactionNotFoundException e) {
+                // no transaction to wait for: the cache was already cleared
+            }
+        }
+    }
+
+    private void clear() throws SCacheException {
+        generation.incrementAndGet();
+        cacheService.clear(CACHE_NAME);
+    }
+
+    private void logCacheFailure(final SCacheException e) {
+        if (logger.isLoggable(getClass(), TechnicalLogSeverity.WARNING)) {
+            logger.log(getClass(), TechnicalLogSeverity.WARNING,
+                    "Unable to use the cache " + CACHE_NAME + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void execute(final SEvent event) throws SHandlerExecutionException {
+        try {
+            invalidate();
+        } catch (final SCacheException e) {
+            throw new SHandlerExecutionException(e);
+        }
+    }
+
+    @Override
+    public boolean isInterested(final SEvent event) {
+        return true;
+    }
+
+    @Override
+    public String getIdentifier() {
+        return getClass().getName();
+    }
+
+    private final class ClearOnCompletion implements BonitaTransactionSynchronization {
+
+        @Override
+        public void afterCompletion(final TransactionState transactionState) {
+            clearRegistered.remove();
+            try {
+                clear();
+            } catch (final SCacheException e) {
+                logCacheFailure(e);
+            }
+        }
+    }
+
+}
@@ -34,10 +34,16 @@ import org.bonitasoft.engine.actor.mapping.model.SActorLogBuilderFactory;
 import org.bonitasoft.engine.actor.mapping.model.SActorMember;
 import org.bonitasoft.engine.actor.mapping.persistence.SelectDescriptorBuilder;
 import org.bonitasoft.engine.builder.BuilderFactory;
+import org.bonitasoft.engine.cache.CacheService;
+import org.bonitasoft.engine.cache.SCacheException;
 import org.bonitasoft.engine.events.EventService;
+import org.bonitasoft.engine.events.model.HandlerRegistrationException;
+import org.bonitasoft.engine.events.model.SEvent;
 import org.bonitasoft.engine.identity.IdentityService;
 import org.bonitasoft.engine.identity.SIdentityException;
 import org.bonitasoft.engine.identity.model.SGroup;
+import org.bonitasoft.engine.log.technical.TechnicalLogSeverity;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
 import org.bonitasoft.engine.persistence.OrderByType;
 import org.bonitasoft.engine.persistence.QueryOptions;
 import org.bonitasoft.engine.persistence.ReadPersistenceService;
@@ -59,6 +65,7 @@ import org.bonitasoft.engine.recorder.model.EntityUpdateDescriptor;
 import org.bonitasoft.engine.recorder.model.InsertRecord;
 import org.bonitasoft.engine.recorder.model.UpdateRecord;
 import org.bonitasoft.engine.services.QueriableLoggerService;
+import org.bonitasoft.engine.transaction.UserTransactionService;
 
 /**
  * @author Matthieu Chaffotte
@@ -79,14 +86,28 @@ public class ActorMappingServiceImpl implements ActorMappingService {
 
     private final IdentityService identityService;
 
+    private final ActorIdsOfUserCache actorIdsOfUserCache;
+
     public ActorMappingServiceImpl(final ReadPersistenceService persistenceService, final Recorder recorder,
             final EventService eventService,
-            final QueriableLoggerService queriableLoggerService, final IdentityService identityService) {
+            final QueriableLoggerService queriableLoggerService, final IdentityService identityService,
+            final CacheService cacheService, final UserTransactionService transactionService,
+            final TechnicalLoggerService logger) {
         this.persistenceService = persistenceService;
         this.recorder = recorder;
         this.eventService = eventService;
         this.queriableLoggerService = queriableLoggerService;
         this.identityService = identityService;
+        actorIdsOfUserCache = new ActorIdsOfUserCache(cacheService, transactionService, logger);
+        try {
+            eventService.addHandler(IdentityService.USERMEMBERSHIP + SEvent.CREATED, actorIdsOfUserCache);
+            eventService.addHandler(IdentityService.USERMEMBERSHIP + SEvent.UPDATED, actorIdsOfUserCache);
+            eventService.addHandler(IdentityService.USERMEMBERSHIP + SEvent.DELETED, actorIdsOfUserCache);
+        } catch (final HandlerRegistrationException e) {
+            if (logger.isLoggable(getClass(), TechnicalLogSeverity.WARNING)) {
+                logger.log(getClass(), TechnicalLogSeverity.WARNING, e.getMessage());
+            }
+        }
     }
 
     @Override
@@ -264,6 +285,18 @@ public class ActorMappingServiceImpl implements ActorMappingService {
         return persistenceService.selectList(descriptor);
     }
 
+    @Override
+    public List<Long> getActorIdsOfUser(final long userId) throws SBonitaReadException {
+        final long generation = actorIdsOfUserCache.getGeneration();
+        List<Long> actorIds = actorIdsOfUserCache.get(userId);
+        if (actorIds == null) {
+            actorIds = Collections.unmodifiableList(
+                    persistenceService.selectList(SelectDescriptorBuilder.getActorIdsOfUser(userId)));
+            actorIdsOfUserCache.put(userId, actorIds, generation);
+        }
+        return actorIds;
+    }
+
     @Override
     public SActorMember addUserToActor(final long actorId, final long userId) throws SActorMemberCreationException {
         final SActorMember actorMember = new SActorMember();
@@ -276,11 +309,12 @@ public class ActorMappingServiceImpl implements ActorMappingService {
         final SActorLogBuilder logBuilder = getQueriableLog(ActionType.CREATED, "Creating a new actor member");
         try {
             recorder.recordInsert(new InsertRecord(actorMember), ACTOR_MEMBER);
+            actorIdsOfUserCache.invalidate();
             initiateLogBuilder(actorMember.getId(), SQueriableLog.STATUS_OK, logBuilder, "addActorMember");
             return actorMember;
-        } catch (final SRecorderException re) {
+        } catch (final SRecorderException | SCacheException e) {
             initiateLogBuilder(actorMember.getId(), SQueriableLog.STATUS_FAIL, logBuilder, "addActorMember");
-            throw new SActorMemberCreationException(re);
+            throw new SActorMemberCreationException(e);
         }
     }
 
@@ -375,10 +409,11 @@ public class ActorMappingServiceImpl implements ActorMappingService {
         final long actorMemberId = sActorMember.getId();
         try {
             recorder.recordDelete(new DeleteRecord(sActorMember), ACTOR_MEMBER);
+            actorIdsOfUserCache.invalidate();
             initiateLogBuilder(actorMemberId, SQueriableLog.STATUS_OK, logBuilder, "removeActorMember");
-        } catch (final SRecorderException re) {
+        } catch (final SRecorderException | SCacheException e) {
             initiateLogBuilder(actorMemberId, SQueriableLog.STATUS_FAIL, logBuilder, "removeActorMember");
-            throw new SActorMemberDeletionException(re);
+            throw new SActorMemberDeletionException(e);
         }
     }
 
@@ -495,7 +530,8 @@ public class ActorMappingServiceImpl implements ActorMappingService {
         try {
             final DeleteAllRecord record = new DeleteAllRecord(SActorMember.class, null);
             recorder.recordDeleteAll(record);
-        } catch (final SRecorderException e) {
+            actorIdsOfUserCache.invalidate();
+        } catch (final SRecorderException | SCacheException e) {
             throw new SActorMemberDeletionException("Can't delete all actor members.", e);
         }
     }
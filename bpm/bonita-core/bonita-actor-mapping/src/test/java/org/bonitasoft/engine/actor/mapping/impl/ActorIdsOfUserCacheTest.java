@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.actor.mapping.impl;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.bonitasoft.engine.cache.CacheService;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.bonitasoft.engine.transaction.BonitaTransactionSynchronization;
+import org.bonitasoft.engine.transaction.TransactionState;
+import org.bonitasoft.engine.transaction.UserTransactionService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ActorIdsOfUserCacheTest {
+
+    private static final List<Long> ACTOR_IDS = Collections.singletonList(12L);
+
+    @Mock
+    private CacheService cacheService;
+    @Mock
+    private UserTransactionService transactionService;
+    @Mock
+    private TechnicalLoggerService logger;
+
+    private ActorIdsOfUserCache actorIdsOfUserCache;
+
+    @Before
+    public void before() {
+        actorIdsOfUserCache = new ActorIdsOfUserCache(cacheService, transactionService, logger);
+    }
+
+    @Test
+    public void should_store_actor_ids_resolved_at_current_generation() throws Exception {
+        actorIdsOfUserCache.put(5L, ACTOR_IDS, actorIdsOfUserCache.getGeneration());
+
+        verify(cacheService).store(ActorIdsOfUserCache.CACHE_NAME, 5L, ACTOR_IDS);
+    }
+
+    @Test
+    public void should_not_store_actor_ids_resolved_before_invalidation() throws Exception {
+        final long generation = actorIdsOfUserCache.getGeneration();
+
+        actorIdsOfUserCache.invalidate();
+        actorIdsOfUserCache.put(5L, ACTOR_IDS, generation);
+
+        verify(cacheService).clear(ActorIdsOfUserCache.CACHE_NAME);
+        verify(cacheService, never()).store(eq(ActorIdsOfUserCache.CACHE_NAME), anyLong(), any());
+    }
+
+    @Test
+    public void should_clear_again_once_when_transaction_completes() throws Exception {
+        doReturn(true).when(transactionService).isTransactionActive();
+
+        actorIdsOfUserCache.invalidate();
+        actorIdsOfUserCache.invalidate();
+
+        final ArgumentCaptor<BonitaTransactionSynchronization> synchronization = ArgumentCaptor
+                .forClass(BonitaTransactionSynchronization.class);
+        verify(transactionService).registerBonitaSynchronization(synchronization.capture());
+        synchronization.getValue().afterCompletion(TransactionState.COMMITTED);
+        verify(cacheService, times(3)).clear(ActorIdsOfUserCache.CACHE_NAME);
+    }
+
+}
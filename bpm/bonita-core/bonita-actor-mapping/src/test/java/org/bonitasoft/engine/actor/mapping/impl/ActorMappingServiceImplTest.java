@@ -16,6 +16,7 @@ package org.bonitasoft.engine.actor.mapping.impl;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 import java.util.ArrayList;
@@ -37,8 +38,12 @@ import org.bonitasoft.engine.actor.mapping.model.SActorUpdateBuilder;
 import org.bonitasoft.engine.actor.mapping.model.SActorUpdateBuilderFactory;
 import org.bonitasoft.engine.actor.mapping.persistence.SelectDescriptorBuilder;
 import org.bonitasoft.engine.builder.BuilderFactory;
+import org.bonitasoft.engine.cache.CacheService;
 import org.bonitasoft.engine.events.EventService;
+import org.bonitasoft.engine.events.model.SEvent;
+import org.bonitasoft.engine.events.model.SHandler;
 import org.bonitasoft.engine.identity.IdentityService;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
 import org.bonitasoft.engine.persistence.OrderByType;
 import org.bonitasoft.engine.persistence.QueryOptions;
 import org.bonitasoft.engine.persistence.ReadPersistenceService;
@@ -51,10 +56,13 @@ import org.bonitasoft.engine.recorder.SRecorderException;
 import org.bonitasoft.engine.recorder.model.DeleteAllRecord;
 import org.bonitasoft.engine.recorder.model.UpdateRecord;
 import org.bonitasoft.engine.services.QueriableLoggerService;
+import org.bonitasoft.engine.transaction.UserTransactionService;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -75,9 +83,26 @@ public class ActorMappingServiceImplTest {
     private QueriableLoggerService queriableLoggerService;
     @Mock
     private IdentityService identityService;
+    @Mock
+    private CacheService cacheService;
+    @Mock
+    private UserTransactionService transactionService;
+    @Mock
+    private TechnicalLoggerService technicalLoggerService;
+    @Captor
+    private ArgumentCaptor<SHandler<SEvent>> handler;
     @InjectMocks
     private ActorMappingServiceImpl actorMappingServiceImpl;
 
+    @Test
+    public void should_clear_actor_ids_of_users_when_a_user_membership_is_updated() throws Exception {
+        verify(eventService).addHandler(eq(IdentityService.USERMEMBERSHIP + SEvent.UPDATED), handler.capture());
+
+        handler.getValue().execute(mock(SEvent.class));
+
+        verify(cacheService).clear(ActorIdsOfUserCache.CACHE_NAME);
+    }
+
     /**
      * Test method for {@link org.bonitasoft.engine.actor.mapping.impl.ActorMappingServiceImpl#getActor(long)}.
      *
@@ -597,6 +622,25 @@ public class ActorMappingServiceImplTest {
         doNothing().when(recorder).recordDeleteAll(any(DeleteAllRecord.class));
 
         actorMappingServiceImpl.deleteAllActorMembers();
+
+        verify(cacheService).clear(ActorIdsOfUserCache.CACHE_NAME);
+    }
+
+    @Test
+    public final void getActorIdsOfUserShouldResolveAndCacheActorIdsOnCacheMiss() throws Exception {
+        final List<Long> actorIds = Arrays.asList(12L, 13L);
+        doReturn(actorIds).when(persistenceService).selectList(SelectDescriptorBuilder.getActorIdsOfUser(5L));
+
+        Assertions.assertThat(actorMappingServiceImpl.getActorIdsOfUser(5L)).containsExactly(12L, 13L);
+        verify(cacheService).store(eq(ActorIdsOfUserCache.CACHE_NAME), eq(5L), eq(actorIds));
+    }
+
+    @Test
+    public final void getActorIdsOfUserShouldNotQueryCachedActorIds() throws Exception {
+        doReturn(Collections.singletonList(12L)).when(cacheService).get(ActorIdsOfUserCache.CACHE_NAME, 5L);
+
+        Assertions.assertThat(actorMappingServiceImpl.getActorIdsOfUser(5L)).containsExactly(12L);
+        verifyZeroInteractions(persistenceService);
     }
 
     @Test(expected = SActorMemberDeletionException.class)
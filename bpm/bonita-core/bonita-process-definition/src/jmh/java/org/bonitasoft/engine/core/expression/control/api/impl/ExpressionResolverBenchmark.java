@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.core.expression.control.api.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.bonitasoft.engine.core.expression.control.model.SExpressionContext;
+import org.bonitasoft.engine.expression.ContainerState;
+import org.bonitasoft.engine.expression.ExpressionExecutorStrategy;
+import org.bonitasoft.engine.expression.ExpressionService;
+import org.bonitasoft.engine.expression.model.ExpressionKind;
+import org.bonitasoft.engine.expression.model.SExpression;
+import org.bonitasoft.engine.expression.model.impl.SExpressionImpl;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerSLF4JImpl;
+import org.bonitasoft.engine.tracking.TimeTracker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Resolve synthetic expression trees with {@link ExpressionResolverServiceImpl}, using an expression service that
+ * reads the results of the dependencies of each expression, like the list and groovy strategies do:
+ * <ul>
+ * <li>wide: a list expression having a given number of script dependencies, all using the same constant, like
+ * connector inputs or a big list expression</li>
+ * <li>deep: a chain of scripts of a given depth, each one depending on the previous one</li>
+ * </ul>
+ * Run with ./gradlew :bpm:bonita-core:bonita-process-definition:jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpressionResolverBenchmark {
+
+    @Param({ "wide", "deep" })
+    public String shape;
+
+    @Param({ "10", "100", "1000" })
+    public int size;
+
+    private ExpressionResolverServiceImpl resolverService;
+    private SExpression expression;
+
+    @Setup
+    public void setup() {
+        resolverService = new ExpressionResolverServiceImpl(new DependencyReadingExpressionService(), null, null,
+                new TimeTracker(new TechnicalLoggerSLF4JImpl(), false, null, 10, 1));
+        expression = "wide".equals(shape) ? wideTree(size) : deepTree(size);
+    }
+
+    private static SExpression wideTree(int size) {
+        final SExpression constant = new SExpressionImpl("constant", "constant", SExpression.TYPE_CONSTANT,
+                String.class.getName(), null, Collections.<SExpression> emptyList());
+        final List<SExpression> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(script("item" + i, Collections.singletonList(constant)));
+        }
+        return new SExpressionImpl("list", "list", SExpression.TYPE_LIST, List.class.getName(), null, items);
+    }
+
+    private static SExpression deepTree(int size) {
+        SExpression current = script("script0", Collections.<SExpression> emptyList());
+        for (int i = 1; i < size; i++) {
+            current = script("script" + i, Collections.singletonList(current));
+        }
+        return current;
+    }
+
+    private static SExpression script(String name, List<SExpression> dependencies) {
+        return new SExpressionImpl(name, "'" + name + "'", SExpression.TYPE_READ_ONLY_SCRIPT,
+                String.class.getName(), SExpression.GROOVY, dependencies);
+    }
+
+    @Benchmark
+    public Object resolve() throws Exception {
+        return resolverService.evaluate(expression, new SExpressionContext());
+    }
+
+    private static final class DependencyReadingExpressionService implements ExpressionService {
+
+        @Override
+        public Object evaluate(SExpression expression, Map<Integer, Object> resolvedExpressions,
+                ContainerState containerState) {
+            return evaluate(expression, Collections.<String, Object> emptyMap(), resolvedExpressions, containerState);
+        }
+
+        @Override
+        public Object evaluate(SExpression expression, Map<String, Object> dependencyValues,
+                Map<Integer, Object> resolvedExpressions, ContainerState containerState) {
+            int resolvedDependencies = 0;
+            for (final SExpression dependency : expression.getDependencies()) {
+                if (resolvedExpressions.containsKey(dependency.getDiscriminant())) {
+                    resolvedDependencies++;
+                }
+            }
+            return resolvedDependencies;
+        }
+
+        @Override
+        public List<Object> evaluate(ExpressionKind expressionKind, List<SExpression> expressions,
+                Map<String, Object> dependencyValues, Map<Integer, Object> resolvedExpressions,
+                ContainerState containerState) {
+            final List<Object> results = new ArrayList<>(expressions.size());
+            for (final SExpression expression : expressions) {
+                results.add(expression.getContent());
+            }
+            return results;
+        }
+
+        @Override
+        public boolean mustCheckExpressionReturnType() {
+            return false;
+        }
+
+        @Override
+        public boolean mustPutEvaluatedExpressionInContext(ExpressionKind expressionKind) {
+            return false;
+        }
+
+        @Override
+        public void setExpressionExecutorStrategy(List<ExpressionExecutorStrategy> expressionStrategies) {
+        }
+
+        @Override
+        public int precompile(Collection<SExpression> expressions, long definitionId) {
+            return 0;
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.core.expression.control.api.impl;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.bonitasoft.engine.expression.model.SExpression;
+
+/**
+ * Evaluation order of the dependencies of an expression: each dependency comes after its own dependencies, and
+ * dependencies having the same discriminant are only listed once.
+ * <p>
+ * The expression itself is not part of the plan, only its discriminant is kept, so that a plan can be cached
+ * weakly on the expression without preventing it from being garbage collected.
+ */
+final class ExpressionEvaluationPlan {
+
+    private final int discriminant;
+    private final SExpression[] dependencies;
+    private final int[] dependencyDiscriminants;
+
+    private ExpressionEvaluationPlan(int discriminant, SExpression[] dependencies, int[] dependencyDiscriminants) {
+        this.discriminant = discriminant;
+        this.dependencies = dependencies;
+        this.dependencyDiscriminants = dependencyDiscriminants;
+    }
+
+    static ExpressionEvaluationPlan of(SExpression expression) {
+        final List<SExpression> ordered = new ArrayList<>();
+        final List<Integer> discriminants = new ArrayList<>();
+        final Set<Integer> visited = new HashSet<>();
+        final int discriminant = expression.getDiscriminant();
+        visited.add(discriminant);
+        for (final SExpression dependency : expression.getDependencies()) {
+            addInEvaluationOrder(dependency, ordered, discriminants, visited);
+        }
+        final int[] dependencyDiscriminants = new int[discriminants.size()];
+        for (int i = 0; i < dependencyDiscriminants.length; i++) {
+            dependencyDiscriminants[i] = discriminants.get(i);
+        }
+        return new ExpressionEvaluationPlan(discriminant, ordered.toArray(new SExpression[0]),
+                dependencyDiscriminants);
+    }
+
+    private static void addInEvaluationOrder(SExpression expression, List<SExpression> ordered,
+            List<Integer> discriminants, Set<Integer> visited) {
+        if (expression == null) {
+            return;
+        }
+        final int discriminant = expression.getDiscriminant();
+        if (!visited.add(discriminant)) {
+            return;
+        }
+        for (final SExpression dependency : expression.getDependencies()) {
+            addInEvaluationOrder(dependency, ordered, discriminants, visited);
+        }
+        ordered.add(expression);
+        discriminants.add(discriminant);
+    }
+
+    int getDiscriminant() {
+        return discriminant;
+    }
+
+    int size() {
+        return dependencies.length;
+    }
+
+    SExpression getDependency(int index) {
+        return dependencies[index];
+    }
+
+    int getDependencyDiscriminant(int index) {
+        return dependencyDiscriminants[index];
+    }
+
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.core.expression.control.api.impl;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bonitasoft.engine.expression.model.SExpression;
+
+/**
+ * Keeps the {@link ExpressionEvaluationPlan} of expressions as long as the expression instance is alive.
+ * <p>
+ * Expressions are compared by identity: expressions of a process definition live as long as the definition is in the
+ * cache of the process definition service, so their plan is computed only once per loaded definition.
+ */
+class ExpressionEvaluationPlanCache {
+
+    private final ConcurrentHashMap<Key, ExpressionEvaluationPlan> plans = new ConcurrentHashMap<>();
+    private final ReferenceQueue<SExpression> collectedExpressions = new ReferenceQueue<>();
+
+    ExpressionEvaluationPlan get(SExpression expression) {
+        purgeCollectedExpressions();
+        ExpressionEvaluationPlan plan = plans.get(new Key(expression, null));
+        if (plan == null) {
+            plan = ExpressionEvaluationPlan.of(expression);
+            plans.putIfAbsent(new Key(expression, collectedExpressions), plan);
+        }
+        return plan;
+    }
+
+    int size() {
+        purgeCollectedExpressions();
+        return plans.size();
+    }
+
+    private void purgeCollectedExpressions() {
+        Reference<? extends SExpression> collected;
+        while ((collected = collectedExpressions.poll()) != null) {
+            plans.remove(collected);
+        }
+    }
+
+    private static final class Key extends WeakReference<SExpression> {
+
+        private final int hash;
+
+        Key(SExpression expression, ReferenceQueue<SExpression> queue) {
+            super(expression, queue);
+            hash = System.identityHashCode(expression);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final SExpression expression = get();
+            return expression != null && expression == ((Key) o).get();
+        }
+    }
+
+}
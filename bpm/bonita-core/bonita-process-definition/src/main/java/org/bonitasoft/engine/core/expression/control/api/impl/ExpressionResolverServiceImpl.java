@@ -14,12 +14,13 @@
 package org.bonitasoft.engine.core.expression.control.api.impl;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.bonitasoft.engine.classloader.ClassLoaderService;
 import org.bonitasoft.engine.classloader.SClassLoaderException;
@@ -53,6 +54,9 @@ public class ExpressionResolverServiceImpl implements ExpressionResolverService
 
     private static final SExpressionContext EMPTY_CONTEXT = new SExpressionContext();
 
+    private static final Set<ExpressionKind> NO_DEPENDENCY_EXPRESSION_KINDS = new HashSet<>(
+            ExpressionExecutorStrategy.NO_DEPENDENCY_EXPRESSION_EVALUATION_ORDER);
+
     private final ExpressionService expressionService;
 
     private final ProcessDefinitionService processDefinitionService;
@@ -61,6 +65,8 @@ public class ExpressionResolverServiceImpl implements ExpressionResolverService
 
     private final TimeTracker timeTracker;
 
+    private final ExpressionEvaluationPlanCache evaluationPlans = new ExpressionEvaluationPlanCache();
+
     public ExpressionResolverServiceImpl(final ExpressionService expressionService,
             final ProcessDefinitionService processDefinitionService,
             final ClassLoaderService classLoaderService, final TimeTracker timeTracker) {
@@ -114,25 +120,42 @@ public class ExpressionResolverServiceImpl implements ExpressionResolverService
 
             loadProcessClassLoader(newEvaluationContext);
 
-            final Map<SExpression, SExpression> dataReplacement = new HashMap<>();
-            // We incrementally build the Map of already resolved expressions:
+            // All expressions share the same table of results, each dependency is evaluated only once
             final Map<Integer, Object> resolvedExpressions = new HashMap<>();
-            // Let's evaluate all expressions with no dependencies first:
-            resolvedExpressions.putAll(evaluateAllExpressionsWithNoDependencies(dependencyValues, dataReplacement,
-                    expressions, newEvaluationContext));
-
-            for (final SExpression sExpression : expressions) {
+            final int[] discriminants = new int[expressions.size()];
+            final Map<ExpressionKind, List<SExpression>> noDependencyExpressionsByKind = new HashMap<>();
+            final List<SExpression> orderedExpressions = new ArrayList<>();
+            final List<Integer> orderedDiscriminants = new ArrayList<>();
+            final Set<Integer> scheduled = new HashSet<>();
+            for (int i = 0; i < expressions.size(); i++) {
+                final SExpression sExpression = expressions.get(i);
                 if (sExpression != null) {
-                    // Then evaluate recursively all remaining expressions:
-                    resolvedExpressions.putAll(evaluateExpressionWithResolvedDependencies(sExpression, dependencyValues,
-                            dataReplacement, resolvedExpressions,
-                            newEvaluationContext.getContainerState()));
+                    final ExpressionEvaluationPlan plan = evaluationPlans.get(sExpression);
+                    for (int j = 0; j < plan.size(); j++) {
+                        schedule(plan.getDependency(j), plan.getDependencyDiscriminant(j), scheduled,
+                                noDependencyExpressionsByKind, orderedExpressions, orderedDiscriminants);
+                    }
+                    schedule(sExpression, plan.getDiscriminant(), scheduled, noDependencyExpressionsByKind,
+                            orderedExpressions, orderedDiscriminants);
+                    discriminants[i] = plan.getDiscriminant();
                 }
             }
+            // Let's evaluate all expressions with no dependencies first:
+            evaluateAllExpressionsWithNoDependencies(dependencyValues, noDependencyExpressionsByKind,
+                    resolvedExpressions, newEvaluationContext);
+            // Then evaluate all remaining expressions, each one after its dependencies:
+            for (int i = 0; i < orderedExpressions.size(); i++) {
+                final SExpression sExpression = orderedExpressions.get(i);
+                final Object exprResult = expressionService.evaluate(sExpression, dependencyValues,
+                        resolvedExpressions, newEvaluationContext.getContainerState());
+                addResultToMap(resolvedExpressions, sExpression, orderedDiscriminants.get(i), exprResult,
+                        dependencyValues);
+            }
             final List<Object> results = new ArrayList<>(expressions.size());
-            for (final SExpression sExpression : expressions) {
+            for (int i = 0; i < expressions.size(); i++) {
+                final SExpression sExpression = expressions.get(i);
                 if (sExpression != null) {
-                    final int key = sExpression.getDiscriminant();
+                    final int key = discriminants[i];
                     final Object res = resolvedExpressions.get(key);
                     if (res == null && !resolvedExpressions.containsKey(key)) {
                         throw new SExpressionEvaluationException("No result found for the expression " + sExpression,
@@ -174,13 +197,27 @@ public class ExpressionResolverServiceImpl implements ExpressionResolverService
         return exception;
     }
 
-    private Map<Integer, Object> evaluateAllExpressionsWithNoDependencies(final Map<String, Object> dependencyValues,
-            final Map<SExpression, SExpression> dataReplacement, final List<SExpression> expressions,
-            final SExpressionContext evaluationContext)
+    private void schedule(final SExpression expression, final int discriminant, final Set<Integer> scheduled,
+            final Map<ExpressionKind, List<SExpression>> noDependencyExpressionsByKind,
+            final List<SExpression> orderedExpressions, final List<Integer> orderedDiscriminants) {
+        if (!scheduled.add(discriminant)) {
+            // same expression already planned, e.g. a dependency shared by several expressions
+            return;
+        }
+        final ExpressionKind expressionKind = expression.getExpressionKind();
+        if (NO_DEPENDENCY_EXPRESSION_KINDS.contains(expressionKind)) {
+            noDependencyExpressionsByKind.computeIfAbsent(expressionKind, k -> new ArrayList<>()).add(expression);
+        } else {
+            orderedExpressions.add(expression);
+            orderedDiscriminants.add(discriminant);
+        }
+    }
+
+    private void evaluateAllExpressionsWithNoDependencies(final Map<String, Object> dependencyValues,
+            final Map<ExpressionKind, List<SExpression>> expressionMapByKind,
+            final Map<Integer, Object> resolvedExpressions, final SExpressionContext evaluationContext)
             throws SExpressionTypeUnknownException, SExpressionEvaluationException,
             SExpressionDependencyMissingException, SInvalidExpressionException {
-        final Map<Integer, Object> resolvedExpressions = new HashMap<>();
-        final Map<ExpressionKind, List<SExpression>> expressionMapByKind = flattenDependencies(expressions);
         final List<SExpression> variableExpressions = expressionMapByKind
                 .get(new ExpressionKind(ExpressionType.TYPE_VARIABLE.name()));
 
@@ -195,12 +232,9 @@ public class ExpressionResolverServiceImpl implements ExpressionResolverService
             }
         }
         for (final ExpressionKind kind : ExpressionExecutorStrategy.NO_DEPENDENCY_EXPRESSION_EVALUATION_ORDER) {
-            resolvedExpressions.putAll(evaluateExpressionsOfKind(dependencyValues, expressionMapByKind.get(kind), kind,
-                    dataReplacement, resolvedExpressions,
-                    evaluationContext.getContainerState()));
-            expressionMapByKind.remove(kind);
+            evaluateExpressionsOfKind(dependencyValues, expressionMapByKind.get(kind), kind, resolvedExpressions,
+                    evaluationContext.getContainerState());
         }
-        return resolvedExpressions;
     }
 
     private SExpression variablesAreAllProvided(final List<SExpression> variableExpressions,
@@ -216,87 +250,30 @@ public class ExpressionResolverServiceImpl implements ExpressionResolverService
         return null;
     }
 
-    private Map<? extends Integer, ? extends Object> evaluateExpressionWithResolvedDependencies(
-            final SExpression sExpression,
-            final Map<String, Object> dependencyValues, final Map<SExpression, SExpression> dataReplacement,
-            final Map<Integer, Object> alreadyResolvedExpressions, final ContainerState containerState)
-            throws SExpressionTypeUnknownException,
-            SExpressionEvaluationException, SExpressionDependencyMissingException, SInvalidExpressionException {
-        final Map<Integer, Object> resolvedExpressions = new HashMap<>(alreadyResolvedExpressions);
-        // Evaluate the dependencies first:
-        for (final SExpression dep : sExpression.getDependencies()) {
-            resolvedExpressions.putAll(evaluateExpressionWithResolvedDependencies(dep, dependencyValues,
-                    dataReplacement, resolvedExpressions, containerState));
-        }
-        // Then evaluate the expression itself:
-        if (!resolvedExpressions.containsKey(sExpression.getDiscriminant())) {
-            // Let's evaluate the expression only if it is not already in the list of resolved dependencies:
-            final Object exprResult = expressionService.evaluate(sExpression, dependencyValues, resolvedExpressions,
-                    containerState);
-            addResultToMap(resolvedExpressions, dataReplacement, sExpression, exprResult, dependencyValues);
-        }
-        return resolvedExpressions;
-    }
-
-    private Map<Integer, Object> evaluateExpressionsOfKind(final Map<String, Object> dependencyValues,
-            final List<SExpression> expressionsOfKind,
-            final ExpressionKind kind, final Map<SExpression, SExpression> dataReplacement,
-            final Map<Integer, Object> alreadyResolvedExpressions,
+    private void evaluateExpressionsOfKind(final Map<String, Object> dependencyValues,
+            final List<SExpression> expressionsOfKind, final ExpressionKind kind,
+            final Map<Integer, Object> resolvedExpressions,
             final ContainerState containerState) throws SExpressionTypeUnknownException, SExpressionEvaluationException,
             SExpressionDependencyMissingException, SInvalidExpressionException {
-        final Map<Integer, Object> resolvedExpressions = new HashMap<>();
         if (expressionsOfKind != null) {
             final List<Object> evaluationResults = expressionService.evaluate(kind, expressionsOfKind, dependencyValues,
-                    alreadyResolvedExpressions,
-                    containerState);
+                    resolvedExpressions, containerState);
             final Iterator<SExpression> variableIterator = expressionsOfKind.iterator();
             for (final Object evaluationResult : evaluationResults) {
                 final SExpression expression = variableIterator.next();
-                addResultToMap(resolvedExpressions, dataReplacement, expression, evaluationResult, dependencyValues);
+                // expressions of these kinds have no dependencies, their discriminant is cheap to compute
+                addResultToMap(resolvedExpressions, expression, expression.getDiscriminant(), evaluationResult,
+                        dependencyValues);
             }
         }
-        return resolvedExpressions;
     }
 
-    private void addResultToMap(final Map<Integer, Object> resolvedExpressions,
-            final Map<SExpression, SExpression> dataReplacement,
-            final SExpression expression, final Object expressionResult, final Map<String, Object> dependencyValues) {
-        resolvedExpressions.put(expression.getDiscriminant(), expressionResult);
+    private void addResultToMap(final Map<Integer, Object> resolvedExpressions, final SExpression expression,
+            final int discriminant, final Object expressionResult, final Map<String, Object> dependencyValues) {
+        resolvedExpressions.put(discriminant, expressionResult);
         if (expressionService.mustPutEvaluatedExpressionInContext(expression.getExpressionKind())) {
             dependencyValues.put(expression.getContent(), expressionResult);
         }
-        final SExpression replacement = dataReplacement.get(expression);
-        if (replacement != null) {
-            resolvedExpressions.put(replacement.getDiscriminant(), expressionResult);
-            if (expressionService.mustPutEvaluatedExpressionInContext(expression.getExpressionKind())) {
-                dependencyValues.put(replacement.getContent(), expressionResult);
-            }
-        }
-    }
-
-    private Map<ExpressionKind, List<SExpression>> flattenDependencies(final Collection<SExpression> collection) {
-        final Map<ExpressionKind, List<SExpression>> expressionMapByKind = new HashMap<>();
-        for (final SExpression sExpression : collection) {
-            if (sExpression == null) {
-                continue;
-            }
-            final ExpressionKind expressionKind = sExpression.getExpressionKind();
-            // Get from the map the list of expressions of given ExpressionKind
-            List<SExpression> exprList = expressionMapByKind.get(expressionKind);
-
-            // If no present, put it in the map
-            if (exprList == null) {
-                exprList = new ArrayList<>();
-                expressionMapByKind.put(expressionKind, exprList);
-            }
-            if (!exprList.contains(sExpression)) {
-                exprList.add(sExpression);
-            }
-            if (sExpression.getDependencies() != null) {
-                expressionMapByKind.putAll(flattenDependencies(sExpression.getDependencies()));
-            }
-        }
-        return expressionMapByKind;
     }
 
     private void fillContext(final SExpressionContext evaluationContext, final Map<String, Object> dependencyValues)
@@ -0,0 +1,250 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.core.process.definition;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.bonitasoft.engine.core.operation.model.SOperation;
+import org.bonitasoft.engine.core.process.definition.model.SActivityDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SBusinessDataDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SCallActivityDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SConnectorDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SContextEntry;
+import org.bonitasoft.engine.core.process.definition.model.SDocumentDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SDocumentListDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SFlowElementContainerDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SFlowNodeDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SHumanTaskDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SLoopCharacteristics;
+import org.bonitasoft.engine.core.process.definition.model.SMultiInstanceLoopCharacteristics;
+import org.bonitasoft.engine.core.process.definition.model.SProcessDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SReceiveTaskDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SSendTaskDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SStandardLoopCharacteristics;
+import org.bonitasoft.engine.core.process.definition.model.SSubProcessDefinition;
+import org.bonitasoft.engine.core.process.definition.model.STransitionDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SUserFilterDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SUserTaskDefinition;
+import org.bonitasoft.engine.core.process.definition.model.event.SCatchEventDefinition;
+import org.bonitasoft.engine.core.process.definition.model.event.SThrowEventDefinition;
+import org.bonitasoft.engine.core.process.definition.model.event.trigger.SCatchMessageEventTriggerDefinition;
+import org.bonitasoft.engine.core.process.definition.model.event.trigger.SCorrelationDefinition;
+import org.bonitasoft.engine.core.process.definition.model.event.trigger.SMessageEventTriggerDefinition;
+import org.bonitasoft.engine.core.process.definition.model.event.trigger.SThrowMessageEventTriggerDefinition;
+import org.bonitasoft.engine.core.process.definition.model.event.trigger.STimerEventTriggerDefinition;
+import org.bonitasoft.engine.data.definition.model.SDataDefinition;
+import org.bonitasoft.engine.expression.model.SExpression;
+
+/**
+ * Collects the expressions declared in a process definition: on the process itself, its flow nodes (including the ones
+ * of event sub-processes), transitions, connectors, operations, data, documents, events and loops.
+ * Dependencies of the collected expressions are not included.
+ */
+public class ProcessDefinitionExpressionCollector {
+
+    private final List<SExpression> expressions = new ArrayList<>();
+    private final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private ProcessDefinitionExpressionCollector() {
+    }
+
+    public static List<SExpression> collect(SProcessDefinition processDefinition) {
+        ProcessDefinitionExpressionCollector collector = new ProcessDefinitionExpressionCollector();
+        for (int index = 1; index <= 5; index++) {
+            collector.add(processDefinition.getStringIndexValue(index));
+        }
+        collector.addContext(processDefinition.getContext());
+        collector.addContainer(processDefinition.getProcessContainer());
+        return collector.expressions;
+    }
+
+    private void add(SExpression expression) {
+        if (expression != null) {
+            expressions.add(expression);
+        }
+    }
+
+    private void addAll(Collection<SExpression> expressions) {
+        if (expressions != null) {
+            expressions.forEach(this::add);
+        }
+    }
+
+    private void addContainer(SFlowElementContainerDefinition container) {
+        if (container == null || !visited.add(container)) {
+            return;
+        }
+        addData(container.getDataDefinitions());
+        addBusinessData(container.getBusinessDataDefinitions());
+        addConnectors(container.getConnectors());
+        for (SDocumentDefinition document : container.getDocumentDefinitions()) {
+            add(document.getInitialValue());
+        }
+        for (SDocumentListDefinition documentList : container.getDocumentListDefinitions()) {
+            add(documentList.getExpression());
+        }
+        for (STransitionDefinition transition : container.getTransitions()) {
+            add(transition.getCondition());
+        }
+        container.getFlowNodes().forEach(this::addFlowNode);
+        container.getBoundaryEvents().forEach(this::addFlowNode);
+    }
+
+    private void addFlowNode(SFlowNodeDefinition flowNode) {
+        if (!visited.add(flowNode)) {
+            return;
+        }
+        add(flowNode.getDisplayName());
+        add(flowNode.getDisplayDescription());
+        add(flowNode.getDisplayDescriptionAfterCompletion());
+        addConnectors(flowNode.getConnectors());
+        if (flowNode.getDefaultTransition() != null) {
+            add(flowNode.getDefaultTransition().getCondition());
+        }
+        if (flowNode instanceof SActivityDefinition) {
+            addActivity((SActivityDefinition) flowNode);
+        }
+        if (flowNode instanceof SCatchEventDefinition) {
+            SCatchEventDefinition catchEvent = (SCatchEventDefinition) flowNode;
+            for (STimerEventTriggerDefinition timerTrigger : catchEvent.getTimerEventTriggerDefinitions()) {
+                add(timerTrigger.getTimerExpression());
+            }
+            catchEvent.getMessageEventTriggerDefinitions().forEach(this::addCatchMessageTrigger);
+        }
+        if (flowNode instanceof SThrowEventDefinition) {
+            ((SThrowEventDefinition) flowNode).getMessageEventTriggerDefinitions()
+                    .forEach(this::addThrowMessageTrigger);
+        }
+    }
+
+    private void addActivity(SActivityDefinition activity) {
+        addData(activity.getSDataDefinitions());
+        addBusinessData(activity.getBusinessDataDefinitions());
+        addOperations(activity.getSOperations());
+        addLoop(activity.getLoopCharacteristics());
+        activity.getBoundaryEventDefinitions().forEach(this::addFlowNode);
+        if (activity instanceof SHumanTaskDefinition) {
+            SHumanTaskDefinition humanTask = (SHumanTaskDefinition) activity;
+            add(humanTask.getExpectedDuration());
+            SUserFilterDefinition userFilter = humanTask.getSUserFilterDefinition();
+            if (userFilter != null) {
+                addAll(userFilter.getInputs().values());
+            }
+        }
+        if (activity instanceof SUserTaskDefinition) {
+            addContext(((SUserTaskDefinition) activity).getContext());
+        }
+        if (activity instanceof SCallActivityDefinition) {
+            SCallActivityDefinition callActivity = (SCallActivityDefinition) activity;
+            add(callActivity.getCallableElement());
+            add(callActivity.getCallableElementVersion());
+            addOperations(callActivity.getDataInputOperations());
+            addOperations(callActivity.getDataOutputOperations());
+            if (callActivity.getProcessStartContractInputs() != null) {
+                addAll(callActivity.getProcessStartContractInputs().values());
+            }
+        }
+        if (activity instanceof SSendTaskDefinition) {
+            addThrowMessageTrigger(((SSendTaskDefinition) activity).getMessageTrigger());
+        }
+        if (activity instanceof SReceiveTaskDefinition) {
+            addCatchMessageTrigger(((SReceiveTaskDefinition) activity).getTrigger());
+        }
+        if (activity instanceof SSubProcessDefinition) {
+            addContainer(((SSubProcessDefinition) activity).getSubProcessContainer());
+        }
+    }
+
+    private void addLoop(SLoopCharacteristics loopCharacteristics) {
+        if (loopCharacteristics instanceof SStandardLoopCharacteristics) {
+            SStandardLoopCharacteristics standardLoop = (SStandardLoopCharacteristics) loopCharacteristics;
+            add(standardLoop.getLoopCondition());
+            add(standardLoop.getLoopMax());
+        } else if (loopCharacteristics instanceof SMultiInstanceLoopCharacteristics) {
+            SMultiInstanceLoopCharacteristics multiInstance = (SMultiInstanceLoopCharacteristics) loopCharacteristics;
+            add(multiInstance.getLoopCardinality());
+            add(multiInstance.getCompletionCondition());
+        }
+    }
+
+    private void addCatchMessageTrigger(SCatchMessageEventTriggerDefinition trigger) {
+        if (trigger != null) {
+            addCorrelations(trigger);
+            addOperations(trigger.getOperations());
+        }
+    }
+
+    private void addThrowMessageTrigger(SThrowMessageEventTriggerDefinition trigger) {
+        if (trigger != null) {
+            addCorrelations(trigger);
+            add(trigger.getTargetProcess());
+            add(trigger.getTargetFlowNode());
+            addData(trigger.getDataDefinitions());
+        }
+    }
+
+    private void addCorrelations(SMessageEventTriggerDefinition trigger) {
+        for (SCorrelationDefinition correlation : trigger.getCorrelations()) {
+            add(correlation.getKey());
+            add(correlation.getValue());
+        }
+    }
+
+    private void addConnectors(List<SConnectorDefinition> connectors) {
+        if (connectors != null) {
+            for (SConnectorDefinition connector : connectors) {
+                addAll(connector.getInputs().values());
+                addOperations(connector.getOutputs());
+            }
+        }
+    }
+
+    private void addOperations(List<SOperation> operations) {
+        if (operations != null) {
+            for (SOperation operation : operations) {
+                add(operation.getRightOperand());
+            }
+        }
+    }
+
+    private void addData(List<SDataDefinition> dataDefinitions) {
+        if (dataDefinitions != null) {
+            for (SDataDefinition dataDefinition : dataDefinitions) {
+                add(dataDefinition.getDefaultValueExpression());
+            }
+        }
+    }
+
+    private void addBusinessData(List<SBusinessDataDefinition> businessDataDefinitions) {
+        if (businessDataDefinitions != null) {
+            for (SBusinessDataDefinition businessDataDefinition : businessDataDefinitions) {
+                add(businessDataDefinition.getDefaultValueExpression());
+            }
+        }
+    }
+
+    private void addContext(List<SContextEntry> context) {
+        if (context != null) {
+            for (SContextEntry contextEntry : context) {
+                add(contextEntry.getExpression());
+            }
+        }
+    }
+
+}
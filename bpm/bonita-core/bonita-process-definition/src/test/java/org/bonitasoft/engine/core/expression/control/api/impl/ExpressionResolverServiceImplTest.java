@@ -13,19 +13,31 @@
  **/
 package org.bonitasoft.engine.core.expression.control.api.impl;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import org.bonitasoft.engine.classloader.ClassLoaderService;
 import org.bonitasoft.engine.core.expression.control.model.SExpressionContext;
 import org.bonitasoft.engine.core.process.definition.ProcessDefinitionService;
 import org.bonitasoft.engine.expression.ExpressionService;
 import org.bonitasoft.engine.expression.model.SExpression;
+import org.bonitasoft.engine.expression.model.impl.SExpressionImpl;
 import org.bonitasoft.engine.tracking.TimeTracker;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -82,4 +94,50 @@ public class ExpressionResolverServiceImplTest {
         verify(classLoaderService, never()).getLocalClassLoader(anyString(), anyLong());
     }
 
+    private static SExpression script(String name, SExpression... dependencies) {
+        return new SExpressionImpl(name, "'" + name + "'", SExpression.TYPE_READ_ONLY_SCRIPT, String.class.getName(),
+                SExpression.GROOVY, Arrays.asList(dependencies));
+    }
+
+    private void evaluateScriptsToTheirName() throws Exception {
+        when(expressionService.evaluate(any(SExpression.class), anyMap(), anyMap(), any()))
+                .thenAnswer(invocation -> ((SExpression) invocation.getArgument(0)).getName());
+    }
+
+    @Test
+    public void evaluate_should_evaluate_a_dependency_shared_by_several_expressions_only_once() throws Exception {
+        evaluateScriptsToTheirName();
+        final SExpression shared = script("shared");
+        final SExpression first = script("first", shared);
+        final SExpression second = script("second", shared, first);
+
+        final List<Object> results = resolverService.evaluate(Arrays.asList(first, second), new SExpressionContext());
+
+        assertThat(results).containsExactly("first", "second");
+        verify(expressionService).evaluate(eq(shared), anyMap(), anyMap(), any());
+        verify(expressionService).evaluate(eq(first), anyMap(), anyMap(), any());
+    }
+
+    @Test
+    public void evaluate_should_evaluate_dependencies_before_the_expressions_using_them() throws Exception {
+        evaluateScriptsToTheirName();
+        final SExpression leaf = script("leaf");
+        final SExpression middle = script("middle", leaf);
+        final SExpression root = script("root", middle, leaf);
+
+        final Object result = resolverService.evaluate(root, new SExpressionContext());
+
+        assertThat(result).isEqualTo("root");
+        final InOrder inOrder = inOrder(expressionService);
+        inOrder.verify(expressionService).evaluate(eq(leaf), anyMap(), anyMap(), any());
+        inOrder.verify(expressionService).evaluate(eq(middle), anyMap(), anyMap(), any());
+        inOrder.verify(expressionService).evaluate(eq(root), anyMap(), anyMap(), any());
+    }
+
+    @Test
+    public void evaluate_should_return_null_for_null_expressions() throws Exception {
+        assertThat(resolverService.evaluate(Collections.singletonList(null), new SExpressionContext()))
+                .containsExactly((Object) null);
+    }
+
 }
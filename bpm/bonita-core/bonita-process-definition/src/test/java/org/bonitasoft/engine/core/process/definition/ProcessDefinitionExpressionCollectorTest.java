@@ -0,0 +1,63 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.core.process.definition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.bonitasoft.engine.bpm.connector.ConnectorEvent;
+import org.bonitasoft.engine.bpm.process.impl.ProcessDefinitionBuilder;
+import org.bonitasoft.engine.core.process.definition.model.impl.SProcessDefinitionImpl;
+import org.bonitasoft.engine.expression.Expression;
+import org.bonitasoft.engine.expression.ExpressionBuilder;
+import org.bonitasoft.engine.expression.model.SExpression;
+import org.bonitasoft.engine.operation.OperationBuilder;
+import org.junit.Test;
+
+public class ProcessDefinitionExpressionCollectorTest {
+
+    private static Expression groovy(String name) throws Exception {
+        return new ExpressionBuilder().createGroovyScriptExpression(name, "'" + name + "'", String.class.getName());
+    }
+
+    @Test
+    public void should_collect_expressions_of_process_flow_nodes_transitions_connectors_and_operations()
+            throws Exception {
+        ProcessDefinitionBuilder builder = new ProcessDefinitionBuilder().createNewInstance("process", "1.0");
+        builder.addData("data", String.class.getName(), groovy("dataDefaultValue"));
+        builder.addConnector("connector", "connectorId", "1.0", ConnectorEvent.ON_ENTER)
+                .addInput("input", groovy("connectorInput"));
+        builder.addAutomaticTask("step1")
+                .addOperation(new OperationBuilder().createSetDataOperation("data", groovy("operation")));
+        builder.addAutomaticTask("step2");
+        builder.addTransition("step1", "step2", groovy("transitionCondition"));
+
+        List<SExpression> expressions = ProcessDefinitionExpressionCollector
+                .collect(new SProcessDefinitionImpl(builder.done()));
+
+        assertThat(expressions).extracting(SExpression::getName).containsOnly("dataDefaultValue", "connectorInput",
+                "operation", "transitionCondition");
+    }
+
+    @Test
+    public void should_collect_nothing_on_empty_process() throws Exception {
+        ProcessDefinitionBuilder builder = new ProcessDefinitionBuilder().createNewInstance("process", "1.0");
+        builder.addAutomaticTask("step1");
+
+        assertThat(ProcessDefinitionExpressionCollector.collect(new SProcessDefinitionImpl(builder.done())))
+                .isEmpty();
+    }
+
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.api.impl;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.bonitasoft.engine.api.NoSessionRequired;
+import org.bonitasoft.engine.api.impl.transaction.CustomTransactions;
+import org.bonitasoft.engine.commons.ClassReflector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per call overhead of the dispatch done by {@link ServerAPIImpl} on an API method, without the session and
+ * transaction handling: resolve the API interface and the method from their names, read the annotations of the method
+ * then call it, either by reflection as it was done before or through the {@link APIDispatchTable}.
+ * Run with ./gradlew :bpm:bonita-core:bonita-process-engine:jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class APIDispatchBenchmark {
+
+    private static final String API_INTERFACE_NAME = BenchmarkAPI.class.getName();
+    private static final String METHOD_NAME = "getName";
+    private static final List<String> PARAMETER_TYPES = Arrays.asList("long", String.class.getName());
+
+    private final Object api = new BenchmarkAPIImpl();
+    private final Object[] parameters = new Object[] { 42L, "task" };
+
+    @Benchmark
+    public Object reflection() throws Throwable {
+        final Class<?> apiInterface = Class.forName(API_INTERFACE_NAME);
+        final Class<?>[] parameterTypes = new Class<?>[PARAMETER_TYPES.size()];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            final String className = PARAMETER_TYPES.get(i);
+            parameterTypes[i] = "long".equals(className) ? long.class : Class.forName(className);
+        }
+        final Method method = ClassReflector.getMethod(api.getClass(), METHOD_NAME, parameterTypes);
+        boolean inTransaction = !method.isAnnotationPresent(CustomTransactions.class)
+                && !apiInterface.isAnnotationPresent(NoSessionRequired.class);
+        boolean availableWhenPaused = Optional.ofNullable(method.getAnnotation(AvailableWhenTenantIsPaused.class))
+                .orElseGet(() -> api.getClass().getAnnotation(AvailableWhenTenantIsPaused.class)) != null;
+        boolean availableOnStoppedNode = method.getAnnotation(AvailableOnStoppedNode.class) != null;
+        if (!inTransaction || availableWhenPaused || availableOnStoppedNode) {
+            throw new IllegalStateException();
+        }
+        try {
+            return method.invoke(api, parameters);
+        } catch (final InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Benchmark
+    public Object dispatchTable() throws Throwable {
+        APIDispatchTable.getAPIInterface(API_INTERFACE_NAME);
+        final APIDispatchTable.APIMethod apiMethod = APIDispatchTable.getAPIMethod(api.getClass(),
+                API_INTERFACE_NAME, METHOD_NAME, PARAMETER_TYPES);
+        final ServerAPIImpl.MethodAvailability availability = apiMethod.getAvailability();
+        if (!apiMethod.isInTransaction() || availability.isAvailableOnPausedTenant
+                || availability.isAvailableWhenPlatformIsStopped) {
+            throw new IllegalStateException();
+        }
+        return apiMethod.invoke(api, parameters);
+    }
+
+    public interface BenchmarkAPI {
+
+        String getName(long id, String prefix);
+    }
+
+    public static class BenchmarkAPIImpl implements BenchmarkAPI {
+
+        @Override
+        public String getName(long id, String prefix) {
+            return prefix;
+        }
+    }
+
+}
@@ -0,0 +1,198 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.api.impl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bonitasoft.engine.api.NoSessionRequired;
+import org.bonitasoft.engine.api.impl.transaction.CustomTransactions;
+
+/**
+ * API interfaces and methods called through {@link ServerAPIImpl}, resolved on their first call and kept for the
+ * following ones.
+ * <p>
+ * Methods are looked up by API implementation class, API interface name, method name and parameter type names. Each
+ * entry holds a {@link MethodHandle} taking the parameters as an array, and everything the server API reads from the
+ * annotations of the method before calling it, so that no reflection is done on each call.
+ */
+final class APIDispatchTable {
+
+    private static final MethodType GENERIC_INVOCATION = MethodType.methodType(Object.class, Object.class,
+            Object[].class);
+
+    private static final ConcurrentHashMap<String, Class<?>> apiInterfaces = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Key, APIMethod> apiMethods = new ConcurrentHashMap<>();
+
+    private APIDispatchTable() {
+    }
+
+    static Class<?> getAPIInterface(final String apiInterfaceName) throws ClassNotFoundException {
+        Class<?> apiInterface = apiInterfaces.get(apiInterfaceName);
+        if (apiInterface == null) {
+            apiInterface = Class.forName(apiInterfaceName);
+            apiInterfaces.putIfAbsent(apiInterfaceName, apiInterface);
+        }
+        return apiInterface;
+    }
+
+    static APIMethod getAPIMethod(final Class<?> apiImplementation, final String apiInterfaceName,
+            final String methodName, final List<String> parameterTypeNames)
+            throws ClassNotFoundException, NoSuchMethodException, IllegalAccessException {
+        final Key key = new Key(apiImplementation, apiInterfaceName, methodName, parameterTypeNames);
+        APIMethod apiMethod = apiMethods.get(key);
+        if (apiMethod == null) {
+            apiMethod = new APIMethod(apiImplementation, getAPIInterface(apiInterfaceName),
+                    apiImplementation.getMethod(methodName, getParameterTypes(parameterTypeNames)));
+            // the key of the table must not share the list of the caller
+            final APIMethod existing = apiMethods.putIfAbsent(new Key(apiImplementation, apiInterfaceName,
+                    methodName, new ArrayList<>(key.parameterTypeNames)), apiMethod);
+            if (existing != null) {
+                apiMethod = existing;
+            }
+        }
+        return apiMethod;
+    }
+
+    static boolean isSessionRequired(final Class<?> apiImplementation) {
+        //require a session if "NoSessionRequired" is not present
+        for (final Class<?> anInterface : apiImplementation.getInterfaces()) {
+            if (anInterface.isAnnotationPresent(NoSessionRequired.class)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Class<?>[] getParameterTypes(final List<String> classNameParameters)
+            throws ClassNotFoundException {
+        if (classNameParameters == null || classNameParameters.isEmpty()) {
+            return new Class<?>[0];
+        }
+        final Class<?>[] parameterTypes = new Class<?>[classNameParameters.size()];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            final String className = classNameParameters.get(i);
+            Class<?> classType;
+            if ("int".equals(className)) {
+                classType = int.class;
+            } else if ("long".equals(className)) {
+                classType = long.class;
+            } else if ("boolean".equals(className)) {
+                classType = boolean.class;
+            } else {
+                classType = Class.forName(className);
+            }
+            parameterTypes[i] = classType;
+        }
+        return parameterTypes;
+    }
+
+    static final class APIMethod {
+
+        private final Method method;
+        private final MethodHandle methodHandle;
+        private final boolean sessionRequired;
+        private final boolean inTransaction;
+        private final ServerAPIImpl.MethodAvailability availability;
+
+        APIMethod(final Class<?> apiImplementation, final Class<?> apiInterface, final Method method)
+                throws IllegalAccessException {
+            this.method = method;
+            this.methodHandle = toGenericMethodHandle(method);
+            this.sessionRequired = APIDispatchTable.isSessionRequired(apiImplementation);
+            // No session required means that there is no transaction
+            this.inTransaction = !method.isAnnotationPresent(CustomTransactions.class)
+                    && !apiInterface.isAnnotationPresent(NoSessionRequired.class);
+            this.availability = ServerAPIImpl.getMethodAvailability(apiImplementation, method);
+        }
+
+        private static MethodHandle toGenericMethodHandle(final Method method) throws IllegalAccessException {
+            MethodHandle methodHandle;
+            try {
+                methodHandle = MethodHandles.lookup().unreflect(method);
+            } catch (final IllegalAccessException e) {
+                // public method of a class that is not visible from here
+                method.setAccessible(true);
+                methodHandle = MethodHandles.lookup().unreflect(method);
+            }
+            return methodHandle.asSpreader(Object[].class, method.getParameterCount()).asType(GENERIC_INVOCATION);
+        }
+
+        Object invoke(final Object apiImplementation, final Object[] parametersValues) throws Throwable {
+            return (Object) methodHandle.invokeExact(apiImplementation, parametersValues);
+        }
+
+        Method getMethod() {
+            return method;
+        }
+
+        boolean isSessionRequired() {
+            return sessionRequired;
+        }
+
+        boolean isInTransaction() {
+            return inTransaction;
+        }
+
+        ServerAPIImpl.MethodAvailability getAvailability() {
+            return availability;
+        }
+    }
+
+    private static final class Key {
+
+        private final Class<?> apiImplementation;
+        private final String apiInterfaceName;
+        private final String methodName;
+        private final List<String> parameterTypeNames;
+        private final int hash;
+
+        Key(final Class<?> apiImplementation, final String apiInterfaceName, final String methodName,
+                final List<String> parameterTypeNames) {
+            this.apiImplementation = apiImplementation;
+            this.apiInterfaceName = apiInterfaceName;
+            this.methodName = methodName;
+            this.parameterTypeNames = parameterTypeNames != null ? parameterTypeNames
+                    : Collections.<String> emptyList();
+            this.hash = Arrays.hashCode(new Object[] { apiImplementation, apiInterfaceName, methodName,
+                    this.parameterTypeNames });
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return apiImplementation == key.apiImplementation && apiInterfaceName.equals(key.apiInterfaceName)
+                    && methodName.equals(key.methodName) && parameterTypeNames.equals(key.parameterTypeNames);
+        }
+    }
+
+}
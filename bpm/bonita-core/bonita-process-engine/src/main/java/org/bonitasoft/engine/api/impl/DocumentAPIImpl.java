@@ -13,6 +13,7 @@
  **/
 package org.bonitasoft.engine.api.impl;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -90,14 +91,19 @@ public class DocumentAPIImpl implements DocumentAPI {
     public Document addDocument(final long processInstanceId, final String documentName, final String description,
             final DocumentValue documentValue)
             throws DocumentAttachmentException, AlreadyExistsException {
+        return addDocument(processInstanceId, documentName, description, buildSDocument(documentValue),
+                documentValue.getIndex());
+    }
+
+    private Document addDocument(final long processInstanceId, final String documentName, final String description,
+            final SDocument sDocument, int index)
+            throws DocumentAttachmentException, AlreadyExistsException {
         final TenantServiceAccessor tenantAccessor = getTenantAccessor();
         final DocumentService documentService = tenantAccessor.getDocumentService();
 
         final DocumentHelper documentHelper = new DocumentHelper(documentService,
                 tenantAccessor.getProcessDefinitionService(),
                 tenantAccessor.getProcessInstanceService());
-        final SDocument sDocument = buildSDocument(documentValue);
-        int index = documentValue.getIndex();
         try {
             if (documentHelper.isListDefinedInDefinition(documentName, processInstanceId)) {
                 final List<AbstractSMappedDocument> allDocumentOfTheList = documentHelper
@@ -183,6 +189,19 @@ public class DocumentAPIImpl implements DocumentAPI {
         }
     }
 
+    @Override
+    public Document attachDocument(final long processInstanceId, final String documentName, final String fileName,
+            final String mimeType, final InputStream documentContent) throws DocumentAttachmentException {
+        final DocumentService documentService = getTenantAccessor().getDocumentService();
+        final SDocument sDocument = buildProcessDocument(fileName, mimeType, getUserId(), null);
+        try {
+            documentService.setContent(sDocument, documentContent);
+            return addDocument(processInstanceId, documentName, null, sDocument, -1);
+        } catch (final BonitaException | SBonitaException e) {
+            throw new DocumentAttachmentException(e);
+        }
+    }
+
     TenantServiceAccessor getTenantAccessor() {
         return APIUtils.getTenantAccessor();
     }
@@ -264,6 +283,16 @@ public class DocumentAPIImpl implements DocumentAPI {
         }
     }
 
+    @Override
+    public InputStream getDocumentContentAsStream(final String documentStorageId) throws DocumentNotFoundException {
+        final DocumentService documentService = getTenantAccessor().getDocumentService();
+        try {
+            return documentService.getDocumentContentAsStream(documentStorageId);
+        } catch (final SObjectNotFoundException sbe) {
+            throw new DocumentNotFoundException(sbe);
+        }
+    }
+
     @Override
     public Document getLastDocument(final long processInstanceId, final String documentName)
             throws DocumentNotFoundException {
@@ -20,6 +20,7 @@ import static org.bonitasoft.engine.search.AbstractSearchEntity.search;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serializable;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
@@ -660,7 +661,8 @@ public class ProcessAPIImpl implements ProcessAPI {
             final EnableProcess enableProcess = new EnableProcess(processDefinitionService, configurationService,
                     processResourcesService, processDefinitionId,
                     eventsHandler,
-                    tenantAccessor.getTechnicalLoggerService(), getUserNameFromSession(), getSession().getTenantId());
+                    tenantAccessor.getTechnicalLoggerService(), tenantAccessor.getExpressionService(),
+                    getUserNameFromSession(), getSession().getTenantId());
             enableProcess.execute();
         } catch (final SProcessDefinitionNotFoundException e) {
             throw new ProcessDefinitionNotFoundException(e);
@@ -1340,7 +1342,8 @@ public class ProcessAPIImpl implements ProcessAPI {
             if (actorIds.isEmpty()) {
                 return 0L;
             }
-            return activityInstanceService.getNumberOfPendingTasksForUser(userId, QueryOptions.countQueryOptions());
+            return activityInstanceService.getNumberOfPendingTasksForUser(userId,
+                    actorMappingService.getActorIdsOfUser(userId), QueryOptions.countQueryOptions());
         } catch (final SBonitaException e) {
             throw new RetrieveException(e);
         }
@@ -4570,22 +4573,31 @@ public class ProcessAPIImpl implements ProcessAPI {
         final ActivityInstanceService activityInstanceService = tenantAccessor.getActivityInstanceService();
         final FlowNodeStateManager flowNodeStateManager = tenantAccessor.getFlowNodeStateManager();
         final SearchEntitiesDescriptor searchEntitiesDescriptor = tenantAccessor.getSearchEntitiesDescriptor();
+        final List<Long> actorIds;
+        try {
+            actorIds = tenantAccessor.getActorMappingService().getActorIdsOfUser(userId);
+        } catch (final SBonitaReadException e) {
+            throw new SearchException(e);
+        }
         if (orAssignedToUser) {
             return AbstractHumanTaskInstanceSearchEntity.searchHumanTaskInstance(
                     searchEntitiesDescriptor.getSearchHumanTaskInstanceDescriptor(),
                     searchOptions,
                     flowNodeStateManager,
-                    (queryOptions) -> activityInstanceService.getNumberOfPendingOrAssignedTasks(userId, queryOptions),
-                    (queryOptions) -> activityInstanceService.searchPendingOrAssignedTasks(userId, queryOptions))
+                    (queryOptions) -> activityInstanceService.getNumberOfPendingOrAssignedTasks(userId, actorIds,
+                            queryOptions),
+                    (queryOptions) -> activityInstanceService.searchPendingOrAssignedTasks(userId, actorIds,
+                            queryOptions))
                     .search();
         } else {
             return AbstractHumanTaskInstanceSearchEntity
                     .searchHumanTaskInstance(searchEntitiesDescriptor.getSearchHumanTaskInstanceDescriptor(),
                             searchOptions,
                             flowNodeStateManager,
-                            (queryOptions) -> activityInstanceService.getNumberOfPendingTasksForUser(userId,
+                            (queryOptions) -> activityInstanceService.getNumberOfPendingTasksForUser(userId, actorIds,
                                     queryOptions),
-                            (queryOptions) -> activityInstanceService.searchPendingTasksForUser(userId, queryOptions))
+                            (queryOptions) -> activityInstanceService.searchPendingTasksForUser(userId, actorIds,
+                                    queryOptions))
                     .search();
         }
     }
@@ -4700,6 +4712,13 @@ public class ProcessAPIImpl implements ProcessAPI {
         return documentAPI.attachDocument(processInstanceId, documentName, fileName, mimeType, documentContent);
     }
 
+    @Override
+    public Document attachDocument(final long processInstanceId, final String documentName, final String fileName,
+            final String mimeType, final InputStream documentContent)
+            throws DocumentAttachmentException, ProcessInstanceNotFoundException {
+        return documentAPI.attachDocument(processInstanceId, documentName, fileName, mimeType, documentContent);
+    }
+
     @Override
     public Document attachNewDocumentVersion(final long processInstanceId, final String documentName,
             final String fileName, final String mimeType,
@@ -4732,6 +4751,11 @@ public class ProcessAPIImpl implements ProcessAPI {
         return documentAPI.getDocumentContent(documentStorageId);
     }
 
+    @Override
+    public InputStream getDocumentContentAsStream(final String documentStorageId) throws DocumentNotFoundException {
+        return documentAPI.getDocumentContentAsStream(documentStorageId);
+    }
+
     @Override
     public Document getLastDocument(final long processInstanceId, final String documentName)
             throws DocumentNotFoundException {
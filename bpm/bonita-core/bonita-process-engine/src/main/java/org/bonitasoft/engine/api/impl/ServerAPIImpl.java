@@ -15,7 +15,6 @@ package org.bonitasoft.engine.api.impl;
 
 import java.io.IOException;
 import java.io.Serializable;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.UndeclaredThrowableException;
 import java.text.MessageFormat;
@@ -24,15 +23,13 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Callable;
 
-import org.bonitasoft.engine.api.NoSessionRequired;
 import org.bonitasoft.engine.api.PlatformAPI;
 import org.bonitasoft.engine.api.TenantAdministrationAPI;
-import org.bonitasoft.engine.api.impl.transaction.CustomTransactions;
+import org.bonitasoft.engine.api.impl.APIDispatchTable.APIMethod;
 import org.bonitasoft.engine.api.internal.ServerAPI;
 import org.bonitasoft.engine.api.internal.ServerWrappedException;
 import org.bonitasoft.engine.classloader.ClassLoaderService;
 import org.bonitasoft.engine.classloader.SClassLoaderException;
-import org.bonitasoft.engine.commons.ClassReflector;
 import org.bonitasoft.engine.commons.exceptions.SBonitaException;
 import org.bonitasoft.engine.core.login.LoginService;
 import org.bonitasoft.engine.core.platform.login.PlatformLoginService;
@@ -114,11 +111,13 @@ public class ServerAPIImpl implements ServerAPI {
         SessionAccessor sessionAccessor = null;
         Session session = null;
         try {
-            final Object api = accessResolver.getAPIImplementation(Class.forName(apiInterfaceName));
+            final Object api = accessResolver.getAPIImplementation(APIDispatchTable.getAPIInterface(apiInterfaceName));
             try {
                 session = (Session) options.get(SESSION);
-                sessionAccessor = beforeInvokeMethod(session, api);
-                return invokeAPI(api, apiInterfaceName, methodName, classNameParameters, parametersValues, session);
+                final APIMethod apiMethod = APIDispatchTable.getAPIMethod(api.getClass(), apiInterfaceName,
+                        methodName, classNameParameters);
+                sessionAccessor = beforeInvokeMethod(session, apiMethod.isSessionRequired());
+                return invokeAPI(api, apiInterfaceName, apiMethod, parametersValues, session);
             } catch (final ServerAPIRuntimeException e) {
                 throw e.getCause();
             }
@@ -169,7 +168,7 @@ public class ServerAPIImpl implements ServerAPI {
         }
     }
 
-    private SessionAccessor beforeInvokeMethod(final Session session, final Object api)
+    private SessionAccessor beforeInvokeMethod(final Session session, final boolean sessionRequired)
             throws BonitaHomeNotSetException,
             InstantiationException, IllegalAccessException, ClassNotFoundException, BonitaHomeConfigurationException,
             IOException,
@@ -197,7 +196,7 @@ public class ServerAPIImpl implements ServerAPI {
                 default:
                     throw new InvalidSessionException("Unknown session type: " + session.getClass().getName());
             }
-        } else if (needSession(api)) {
+        } else if (sessionRequired) {
             throw new InvalidSessionException("Session is null!");
         }
         if (serverClassLoader != null) {
@@ -206,17 +205,6 @@ public class ServerAPIImpl implements ServerAPI {
         return sessionAccessor;
     }
 
-    private boolean needSession(Object api) {
-        //require a session if "NoSessionRequired" is not present
-        Class<?>[] interfaces = api.getClass().getInterfaces();
-        for (Class<?> anInterface : interfaces) {
-            if (anInterface.isAnnotationPresent(NoSessionRequired.class)) {
-                return false;
-            }
-        }
-        return true;
-    }
-
     private ClassLoader beforeInvokeMethodForAPISession(SessionAccessor sessionAccessor,
             PlatformServiceAccessor platformServiceAccessor, Session session) throws SBonitaException {
         checkTenantSession(platformServiceAccessor, session);
@@ -251,32 +239,32 @@ public class ServerAPIImpl implements ServerAPI {
         return sessionType;
     }
 
-    private Object invokeAPI(Object api, String apiInterfaceName, final String methodName,
-            final List<String> classNameParameters, final Object[] parametersValues,
-            final Session session) throws Throwable {
-        final Class<?>[] parameterTypes = getParameterTypes(classNameParameters);
-
-        final Method method = ClassReflector.getMethod(api.getClass(), methodName, parameterTypes);
-        // No session required means that there is no transaction
-        if (method.isAnnotationPresent(CustomTransactions.class)
-                || Class.forName(apiInterfaceName).isAnnotationPresent(NoSessionRequired.class)) {
-            return invokeAPIOutsideTransaction(parametersValues, api, method, apiInterfaceName, session);
+    private Object invokeAPI(Object api, String apiInterfaceName, final APIMethod apiMethod,
+            final Object[] parametersValues, final Session session) throws Throwable {
+        if (apiMethod.isInTransaction()) {
+            return invokeAPIInTransaction(parametersValues, api, apiMethod, session, apiInterfaceName);
         } else {
-            return invokeAPIInTransaction(parametersValues, api, method, session, apiInterfaceName);
+            return invokeAPIOutsideTransaction(parametersValues, api, apiMethod, apiInterfaceName, session);
         }
     }
 
-    private Object invokeAPIOutsideTransaction(Object[] parametersValues, Object apiImpl, Method method,
+    private Object invokeAPIOutsideTransaction(Object[] parametersValues, Object apiImpl, APIMethod apiMethod,
             String apiInterfaceName, Session session)
             throws Throwable {
-        checkMethodAccessibility(apiImpl, apiInterfaceName, method, session, /* Not in transaction */false);
-        return invokeAPI(method, apiImpl, parametersValues);
+        checkMethodAccessibility(apiMethod.getAvailability(), apiInterfaceName, apiMethod.getMethod(), session,
+                /* Not in transaction */false);
+        return invokeAPI(apiMethod, apiImpl, parametersValues);
     }
 
     protected void checkMethodAccessibility(final Object apiImpl, final String apiInterfaceName, final Method method,
             final Session session,
             boolean isAlreadyInTransaction) {
-        final MethodAvailability methodAvailability = getMethodAvailability(apiImpl, method);
+        checkMethodAccessibility(getMethodAvailability(apiImpl.getClass(), method), apiInterfaceName, method, session,
+                isAlreadyInTransaction);
+    }
+
+    private void checkMethodAccessibility(final MethodAvailability methodAvailability, final String apiInterfaceName,
+            final Method method, final Session session, boolean isAlreadyInTransaction) {
         if (methodAvailability.isDeprecated) {
             logger.warn("The API method {}.{} is deprecated. It will be deleted in a future release. " +
                     "Please plan to update your code to use the replacement method instead. Check the Javadoc for more details.",
@@ -313,7 +301,7 @@ public class ServerAPIImpl implements ServerAPI {
         }
     }
 
-    private static class MethodAvailability {
+    static class MethodAvailability {
 
         boolean isDeprecated;
         boolean isAvailableOnRunningTenant = true;
@@ -321,10 +309,10 @@ public class ServerAPIImpl implements ServerAPI {
         boolean isAvailableWhenPlatformIsStopped;
     }
 
-    private MethodAvailability getMethodAvailability(Object apiInstance, Method method) {
+    static MethodAvailability getMethodAvailability(Class<?> apiClass, Method method) {
         AvailableWhenTenantIsPaused availableWhenTenantIsPaused = Optional
                 .ofNullable(method.getAnnotation(AvailableWhenTenantIsPaused.class))
-                .orElseGet(() -> apiInstance.getClass().getAnnotation(AvailableWhenTenantIsPaused.class));
+                .orElseGet(() -> apiClass.getAnnotation(AvailableWhenTenantIsPaused.class));
         AvailableOnStoppedNode availableOnStoppedNode = method.getAnnotation(AvailableOnStoppedNode.class);
         MethodAvailability methodAvailability = new MethodAvailability();
         // Deprecation
@@ -379,8 +367,8 @@ public class ServerAPIImpl implements ServerAPI {
         }
     }
 
-    protected Object invokeAPIInTransaction(final Object[] parametersValues, final Object apiImpl, final Method method,
-            final Session session,
+    protected Object invokeAPIInTransaction(final Object[] parametersValues, final Object apiImpl,
+            final APIMethod apiMethod, final Session session,
             final String apiInterfaceName) throws Throwable {
         if (session == null) {
             throw new BonitaRuntimeException("session is null");
@@ -390,9 +378,9 @@ public class ServerAPIImpl implements ServerAPI {
 
         return userTransactionService.executeInTransaction(() -> {
             try {
-                checkMethodAccessibility(apiImpl, apiInterfaceName, method, session,
-                        /* Already in a transaction */true);
-                return invokeAPI(method, apiImpl, parametersValues);
+                checkMethodAccessibility(apiMethod.getAvailability(), apiInterfaceName, apiMethod.getMethod(),
+                        session, /* Already in a transaction */true);
+                return invokeAPI(apiMethod, apiImpl, parametersValues);
             } catch (final Throwable cause) {
                 throw new ServerAPIRuntimeException(cause);
             }
@@ -421,35 +409,9 @@ public class ServerAPIImpl implements ServerAPI {
         return transactionService;
     }
 
-    protected Object invokeAPI(final Method method, final Object apiImpl, final Object... parametersValues)
+    protected Object invokeAPI(final APIMethod apiMethod, final Object apiImpl, final Object... parametersValues)
             throws Throwable {
-        try {
-            return method.invoke(apiImpl, parametersValues);
-        } catch (final InvocationTargetException e) {
-            throw e.getCause();
-        }
-    }
-
-    private Class<?>[] getParameterTypes(final List<String> classNameParameters) throws ClassNotFoundException {
-        Class<?>[] parameterTypes = null;
-        if (classNameParameters != null && !classNameParameters.isEmpty()) {
-            parameterTypes = new Class<?>[classNameParameters.size()];
-            for (int i = 0; i < parameterTypes.length; i++) {
-                final String className = classNameParameters.get(i);
-                Class<?> classType;
-                if ("int".equals(className)) {
-                    classType = int.class;
-                } else if ("long".equals(className)) {
-                    classType = long.class;
-                } else if ("boolean".equals(className)) {
-                    classType = boolean.class;
-                } else {
-                    classType = Class.forName(className);
-                }
-                parameterTypes[i] = classType;
-            }
-        }
-        return parameterTypes;
+        return apiMethod.invoke(apiImpl, parametersValues);
     }
 
     private void checkTenantSession(final PlatformServiceAccessor platformAccessor, final Session session)
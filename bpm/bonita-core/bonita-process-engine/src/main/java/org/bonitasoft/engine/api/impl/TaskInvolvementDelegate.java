@@ -107,14 +107,16 @@ public class TaskInvolvementDelegate {
     }
 
     public boolean hasUserPendingOrAssignedTasks(long userId, Long processInstanceId) throws SExecutionException {
-        final ActivityInstanceService activityInstanceService = getTenantServiceAccessor().getActivityInstanceService();
+        final TenantServiceAccessor tenantServiceAccessor = getTenantServiceAccessor();
+        final ActivityInstanceService activityInstanceService = tenantServiceAccessor.getActivityInstanceService();
         // is user assigned or has pending tasks on this process instance:
         final QueryOptions queryOptions = new QueryOptions(0, 1, Collections.EMPTY_LIST,
                 Arrays.asList(new FilterOption(SHumanTaskInstance.class,
                         "logicalGroup2", processInstanceId)),
                 null);
         try {
-            return activityInstanceService.getNumberOfPendingOrAssignedTasks(userId, queryOptions) > 0;
+            final List<Long> actorIds = tenantServiceAccessor.getActorMappingService().getActorIdsOfUser(userId);
+            return activityInstanceService.getNumberOfPendingOrAssignedTasks(userId, actorIds, queryOptions) > 0;
         } catch (SBonitaReadException e) {
             throw new SExecutionException(e);
         }
@@ -19,12 +19,14 @@ import java.util.Properties;
 
 import org.bonitasoft.engine.commons.exceptions.SBonitaException;
 import org.bonitasoft.engine.commons.transaction.TransactionContent;
+import org.bonitasoft.engine.core.process.definition.ProcessDefinitionExpressionCollector;
 import org.bonitasoft.engine.core.process.definition.ProcessDefinitionService;
 import org.bonitasoft.engine.core.process.definition.exception.SProcessEnablementException;
 import org.bonitasoft.engine.core.process.definition.model.SFlowElementContainerDefinition;
 import org.bonitasoft.engine.core.process.definition.model.SProcessDefinition;
 import org.bonitasoft.engine.core.process.definition.model.event.SStartEventDefinition;
 import org.bonitasoft.engine.execution.event.EventsHandler;
+import org.bonitasoft.engine.expression.ExpressionService;
 import org.bonitasoft.engine.log.technical.TechnicalLogSeverity;
 import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
 import org.bonitasoft.engine.persistence.SBonitaReadException;
@@ -53,6 +55,8 @@ public final class EnableProcess implements TransactionContent {
 
     private final TechnicalLoggerService logger;
 
+    private final ExpressionService expressionService;
+
     private final String userName;
     private final long tenantId;
 
@@ -60,13 +64,15 @@ public final class EnableProcess implements TransactionContent {
             ConfigurationService configurationService,
             ProcessResourcesService processResourcesService, final long processId,
             final EventsHandler eventsHandler,
-            final TechnicalLoggerService logger, final String userName, long tenantId) {
+            final TechnicalLoggerService logger, ExpressionService expressionService, final String userName,
+            long tenantId) {
         this.processDefinitionService = processDefinitionService;
         this.configurationService = configurationService;
         this.processResourcesService = processResourcesService;
         this.processId = processId;
         this.eventsHandler = eventsHandler;
         this.logger = logger;
+        this.expressionService = expressionService;
         this.userName = userName;
         this.tenantId = tenantId;
     }
@@ -77,6 +83,7 @@ public final class EnableProcess implements TransactionContent {
         handleAutoLoginConfiguration(sProcessDefinition);
         handleStartEvents(sProcessDefinition);
         processDefinitionService.enableProcessDeploymentInfo(processId);
+        precompileExpressions(sProcessDefinition);
 
         if (logger.isLoggable(this.getClass(), TechnicalLogSeverity.INFO)) {
             logger.log(this.getClass(), TechnicalLogSeverity.INFO,
@@ -86,6 +93,20 @@ public final class EnableProcess implements TransactionContent {
         }
     }
 
+    /**
+     * compile scripts of the process now so that its first instances do not pay for it.
+     * Scripts that can not be compiled are only logged, they will fail when evaluated.
+     */
+    private void precompileExpressions(SProcessDefinition sProcessDefinition) {
+        final int precompiled = expressionService.precompile(
+                ProcessDefinitionExpressionCollector.collect(sProcessDefinition), sProcessDefinition.getId());
+        if (logger.isLoggable(this.getClass(), TechnicalLogSeverity.DEBUG)) {
+            logger.log(this.getClass(), TechnicalLogSeverity.DEBUG, "Precompiled " + precompiled
+                    + " expressions of process <" + sProcessDefinition.getName() + "> in version <"
+                    + sProcessDefinition.getVersion() + ">");
+        }
+    }
+
     private void handleAutoLoginConfiguration(SProcessDefinition sProcessDefinition) throws SBonitaReadException {
         AutoLoginConfigurationHelper autoLoginConfigurationHelper = new AutoLoginConfigurationHelper(
                 configurationService, tenantId, sProcessDefinition);
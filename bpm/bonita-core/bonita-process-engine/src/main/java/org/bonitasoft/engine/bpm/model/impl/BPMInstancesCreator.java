@@ -224,6 +224,32 @@ public class BPMInstancesCreator {
         return flownNodeInstance;
     }
 
+    /**
+     * Create the given number of inner instances of a multi-instance activity at once: all instances are inserted in
+     * one batch, and their connector instances are created afterwards.
+     *
+     * @param firstLoopCounter loop counter of the first instance to create, the following ones are incremented
+     */
+    public List<SActivityInstance> createInnerInstances(final long processDefinitionId, final long rootContainerId,
+            final long multiInstanceId, final SActivityDefinition activityDefinition, final long rootProcessInstanceId,
+            final long parentProcessInstanceId, final int firstLoopCounter, final int numberOfInstances)
+            throws SBonitaException {
+        final List<SActivityInstance> innerInstances = new ArrayList<>(numberOfInstances);
+        for (int loopCounter = firstLoopCounter; loopCounter < firstLoopCounter + numberOfInstances; loopCounter++) {
+            innerInstances.add((SActivityInstance) toFlowNodeInstance(processDefinitionId, rootContainerId,
+                    multiInstanceId, SFlowElementsContainerType.FLOWNODE, activityDefinition, rootProcessInstanceId,
+                    parentProcessInstanceId, true, loopCounter, SStateCategory.NORMAL, -1));
+        }
+        activityInstanceService.createActivityInstances(innerInstances);
+        if (!activityDefinition.getConnectors().isEmpty()) {
+            for (final SActivityInstance innerInstance : innerInstances) {
+                createConnectorInstances(innerInstance, activityDefinition.getConnectors(),
+                        SConnectorInstance.FLOWNODE_TYPE);
+            }
+        }
+        return innerInstances;
+    }
+
     public SFlowNodeInstance toFlowNodeInstance(final long processDefinitionId, final long rootContainerId,
             final long parentContainerId,
             final SFlowElementsContainerType parentContainerType, final SFlowNodeDefinition sFlowNodeDefinition,
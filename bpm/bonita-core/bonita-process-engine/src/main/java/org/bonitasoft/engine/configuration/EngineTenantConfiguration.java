@@ -15,8 +15,10 @@ package org.bonitasoft.engine.configuration;
 
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 
 @Configuration
+@Import(WorkConfiguration.class)
 @ComponentScan({
         "org.bonitasoft.engine.tenant"
 })
@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bonitasoft.engine.commons.time.EngineClock;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.bonitasoft.engine.monitoring.ExecutorServiceMetricsProvider;
+import org.bonitasoft.engine.work.AffinityBonitaExecutorServiceFactory;
+import org.bonitasoft.engine.work.BonitaExecutorServiceFactory;
+import org.bonitasoft.engine.work.DefaultBonitaExecutorServiceFactory;
+import org.bonitasoft.engine.work.ElasticBonitaExecutorServiceFactory;
+import org.bonitasoft.engine.work.WorkFactory;
+import org.bonitasoft.engine.work.audit.WorkExecutionAuditor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Select the executor used by the work service of the tenant:
+ * <ul>
+ * <li>when 'bonita.tenant.work.elastic.maxConcurrency' is greater than 0, the number of works executing at the same
+ * time is limited by this value and threads are only created when needed</li>
+ * <li>when 'bonita.tenant.work.affinity.enable' is true, all works of a process instance are executed on the same
+ * thread instead of being spread on the whole pool</li>
+ * <li>otherwise works are executed by a fixed size thread pool</li>
+ * </ul>
+ */
+@Configuration
+public class WorkConfiguration {
+
+    @Value("${tenantId}")
+    private long tenantId;
+    @Value("${bonita.tenant.work.corePoolSize}")
+    private int corePoolSize;
+    @Value("${bonita.tenant.work.maximumPoolSize}")
+    private int maximumPoolSize;
+    @Value("${bonita.tenant.work.keepAliveTimeSeconds}")
+    private long keepAliveTimeSeconds;
+    @Value("${bonita.tenant.work.queueCapacity}")
+    private int queueCapacity;
+    @Value("${bonita.tenant.work.elastic.maxConcurrency:0}")
+    private int elasticMaxConcurrency;
+    @Value("${bonita.tenant.work.affinity.enable:false}")
+    private boolean affinityEnabled;
+    @Value("${bonita.tenant.work.affinity.lanes:${bonita.tenant.work.maximumPoolSize}}")
+    private int numberOfLanes;
+    @Value("${bonita.tenant.work.affinity.routingParameter:processInstanceId}")
+    private String routingParameter;
+
+    @Bean
+    public BonitaExecutorServiceFactory bonitaExecutorServiceFactory(
+            @Qualifier("tenantTechnicalLoggerService") TechnicalLoggerService logger, WorkFactory workFactory,
+            EngineClock engineClock, WorkExecutionAuditor workExecutionAuditor,
+            @Qualifier("meterRegistry") MeterRegistry meterRegistry,
+            ExecutorServiceMetricsProvider executorServiceMetricsProvider) {
+        if (elasticMaxConcurrency > 0) {
+            return new ElasticBonitaExecutorServiceFactory(logger, workFactory, tenantId, elasticMaxConcurrency,
+                    keepAliveTimeSeconds, engineClock, workExecutionAuditor, meterRegistry,
+                    executorServiceMetricsProvider);
+        }
+        if (affinityEnabled) {
+            return new AffinityBonitaExecutorServiceFactory(logger, workFactory, tenantId, numberOfLanes,
+                    queueCapacity, routingParameter, engineClock, workExecutionAuditor, meterRegistry,
+                    executorServiceMetricsProvider);
+        }
+        return new DefaultBonitaExecutorServiceFactory(logger, workFactory, tenantId, corePoolSize, queueCapacity,
+                maximumPoolSize, keepAliveTimeSeconds, engineClock, workExecutionAuditor, meterRegistry,
+                executorServiceMetricsProvider);
+    }
+
+}
@@ -13,7 +13,9 @@
  **/
 package org.bonitasoft.engine.execution;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.bonitasoft.engine.commons.exceptions.SBonitaException;
@@ -23,6 +25,7 @@ import org.bonitasoft.engine.core.process.instance.api.exceptions.SFlowNodeReadE
 import org.bonitasoft.engine.core.process.instance.model.SFlowNodeInstance;
 import org.bonitasoft.engine.execution.work.BPMWorkFactory;
 import org.bonitasoft.engine.work.SWorkRegisterException;
+import org.bonitasoft.engine.work.WorkDescriptor;
 import org.bonitasoft.engine.work.WorkService;
 
 /**
@@ -72,6 +75,14 @@ public class ContainerRegistry {
         workService.registerWork(workFactory.createExecuteFlowNodeWorkDescriptor(flowNodeInstance));
     }
 
+    public void executeFlowNodes(List<? extends SFlowNodeInstance> flowNodeInstances) throws SWorkRegisterException {
+        final List<WorkDescriptor> workDescriptors = new ArrayList<>(flowNodeInstances.size());
+        for (final SFlowNodeInstance flowNodeInstance : flowNodeInstances) {
+            workDescriptors.add(workFactory.createExecuteFlowNodeWorkDescriptor(flowNodeInstance));
+        }
+        workService.registerWorks(workDescriptors);
+    }
+
     public void executeFlowNodeInSameThread(final SFlowNodeInstance flowNodeInstance,
             final String containerType) throws SFlowNodeReadException, SFlowNodeExecutionException {
         final ContainerExecutor containerExecutor = getContainerExecutor(containerType);
@@ -134,7 +134,7 @@ import org.bonitasoft.engine.work.WorkService;
  */
 public class StateBehaviors {
 
-    private static final int BATCH_SIZE = 20;
+    private static final int BATCH_SIZE = 500;
     protected final ParentContainerResolver parentContainerResolver;
     private final BPMInstancesCreator bpmInstancesCreator;
     private final EventsHandler eventsHandler;
@@ -159,6 +159,8 @@ public class StateBehaviors {
     private final BPMWorkFactory workFactory;
     private ProcessInstanceInterruptor processInstanceInterruptor;
     private final UserTransactionService userTransactionService;
+    // 0 means that all children of a parallel multi-instance are created when it starts
+    private int maxMultiInstanceChildrenCreatedAhead;
 
     public StateBehaviors(final BPMInstancesCreator bpmInstancesCreator, final EventsHandler eventsHandler,
             final ActivityInstanceService activityInstanceService, final UserFilterService userFilterService,
@@ -203,6 +205,34 @@ public class StateBehaviors {
         this.processExecutor = processExecutor;
     }
 
+    /**
+     * Limit the number of children of a parallel multi-instance that exist without being completed: the next children
+     * are created only when previous ones complete.
+     * <p>
+     * As for a sequential multi-instance, the {@code numberOfInstances} given to the completion condition is then the
+     * number of children created so far, not the number of children the multi-instance will have in the end.
+     *
+     * @param maxMultiInstanceChildrenCreatedAhead maximum number of children created ahead, 0 for no limit
+     */
+    public void setMaxMultiInstanceChildrenCreatedAhead(final int maxMultiInstanceChildrenCreatedAhead) {
+        this.maxMultiInstanceChildrenCreatedAhead = Math.max(0, maxMultiInstanceChildrenCreatedAhead);
+    }
+
+    public boolean isMultiInstanceChildrenCreationLimited() {
+        return maxMultiInstanceChildrenCreatedAhead > 0;
+    }
+
+    /**
+     * @return the number of children to create when a parallel multi-instance having the given number of instances
+     *         starts
+     */
+    public int getNumberOfInstancesToCreateAhead(final int numberOfInstances) {
+        if (isMultiInstanceChildrenCreationLimited()) {
+            return Math.min(numberOfInstances, maxMultiInstanceChildrenCreatedAhead);
+        }
+        return numberOfInstances;
+    }
+
     public DataInstanceContainer getParentContainerType(final SFlowNodeInstance flowNodeInstance) {
         DataInstanceContainer parentContainerType;
         if (flowNodeInstance.getLogicalGroup(2) <= 0) {
@@ -685,9 +715,7 @@ public class StateBehaviors {
             do {
                 childrenOfAnActivity = activityInstanceService.getChildrenOfAnActivity(flowNodeInstance.getId(), i,
                         BATCH_SIZE);
-                for (final SActivityInstance sActivityInstance : childrenOfAnActivity) {
-                    containerRegistry.executeFlowNode(sActivityInstance);
-                }
+                containerRegistry.executeFlowNodes(childrenOfAnActivity);
                 i += BATCH_SIZE;
             } while (childrenOfAnActivity.size() == BATCH_SIZE);
         } catch (final SBonitaException e) {
@@ -859,17 +887,11 @@ public class StateBehaviors {
         final long rootProcessInstanceId = flowNodeInstance.getLogicalGroup(keyProvider.getRootProcessInstanceIndex());
         final long parentProcessInstanceId = flowNodeInstance
                 .getLogicalGroup(keyProvider.getParentProcessInstanceIndex());
-        int nbOfcreatedInstances = 0;
-        final int nbOfInstances = flowNodeInstance.getNumberOfInstances();
-        final List<SFlowNodeInstance> createdInstances = new ArrayList<>();
-        for (int i = nbOfInstances; i < nbOfInstances + numberOfInstanceToCreate; i++) {
-            createdInstances.add(bpmInstancesCreator.createFlowNodeInstance(processDefinitionId,
-                    flowNodeInstance.getRootContainerId(),
-                    flowNodeInstance.getId(), SFlowElementsContainerType.FLOWNODE, activity, rootProcessInstanceId,
-                    parentProcessInstanceId, true, i,
-                    SStateCategory.NORMAL, -1));
-            nbOfcreatedInstances++;
-        }
+        final List<SFlowNodeInstance> createdInstances = new ArrayList<>(
+                bpmInstancesCreator.createInnerInstances(processDefinitionId, flowNodeInstance.getRootContainerId(),
+                        flowNodeInstance.getId(), activity, rootProcessInstanceId, parentProcessInstanceId,
+                        flowNodeInstance.getNumberOfInstances(), numberOfInstanceToCreate));
+        final int nbOfcreatedInstances = createdInstances.size();
         activityInstanceService.addMultiInstanceNumberOfActiveActivities(flowNodeInstance, nbOfcreatedInstances);
         final int tokenCount = flowNodeInstance.getTokenCount() + nbOfcreatedInstances;
         activityInstanceService.setTokenCount(flowNodeInstance, tokenCount);
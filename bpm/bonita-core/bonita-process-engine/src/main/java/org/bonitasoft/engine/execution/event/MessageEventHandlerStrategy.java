@@ -137,7 +137,7 @@ public class MessageEventHandlerStrategy extends CoupleEventHandlerStrategy {
         }
         fillCorrelation(builder, messageTrigger.getCorrelations(), expressionContext);
         getEventInstanceService().createWaitingEvent(builder.done());
-        messagesHandlingService.triggerMatchingOfMessages();
+        messagesHandlingService.triggerMatchingOfMessages(messageName);
 
     }
 
@@ -162,7 +162,7 @@ public class MessageEventHandlerStrategy extends CoupleEventHandlerStrategy {
 
         fillCorrelation(builder, messageTrigger.getCorrelations(), expressionContext);
         getEventInstanceService().createWaitingEvent(builder.done());
-        messagesHandlingService.triggerMatchingOfMessages();
+        messagesHandlingService.triggerMatchingOfMessages(messageName);
     }
 
     @Override
@@ -210,7 +210,7 @@ public class MessageEventHandlerStrategy extends CoupleEventHandlerStrategy {
         final SMessageInstance messageInstance = builder.done();
         // evaluate and add correlations
         getEventInstanceService().createMessageInstance(messageInstance);
-        messagesHandlingService.triggerMatchingOfMessages();
+        messagesHandlingService.triggerMatchingOfMessages(messageName);
 
         // create data
         if (!messageTrigger.getDataDefinitions().isEmpty()) {
@@ -318,7 +318,7 @@ public class MessageEventHandlerStrategy extends CoupleEventHandlerStrategy {
                 processDefinition.getId());
         fillCorrelation(builder, messageEventTriggerDefinition.getCorrelations(), expressionContext);
         getEventInstanceService().createWaitingEvent(builder.done());
-        messagesHandlingService.triggerMatchingOfMessages();
+        messagesHandlingService.triggerMatchingOfMessages(messageEventTriggerDefinition.getMessageName());
     }
 
     @Override
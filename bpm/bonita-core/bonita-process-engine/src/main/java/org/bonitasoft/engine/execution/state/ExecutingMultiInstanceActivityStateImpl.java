@@ -107,6 +107,7 @@ public class ExecutingMultiInstanceActivityStateImpl implements FlowNodeState {
                 return true;
             }
 
+            boolean completionConditionMet = false;
             if (childInstance.isAborting() || childInstance.isCanceling()) {
                 // TODO add synchronization
                 activityInstanceService.addMultiInstanceNumberOfTerminatedActivities(miActivity, 1);
@@ -136,6 +137,7 @@ public class ExecutingMultiInstanceActivityStateImpl implements FlowNodeState {
                         if (miActivity.isSequential()) {
                             return true;
                         }
+                        completionConditionMet = true;
                     }
                 }
             }
@@ -157,6 +159,15 @@ public class ExecutingMultiInstanceActivityStateImpl implements FlowNodeState {
                 return numberOfActiveInstances == 0
                         && (createInnerInstances == null || createInnerInstances.size() == 0);
             }
+            if (!completionConditionMet && !childInstance.isAborting() && !childInstance.isCanceling()
+                    && stateBehaviors.isMultiInstanceChildrenCreationLimited()
+                    && stateBehaviors.shouldCreateANewInstance(loopCharacteristics, numberOfInstances, miActivity)) {
+                // children are created ahead up to a limit: replace the completed child by the next one
+                final List<SFlowNodeInstance> createdInstances = stateBehaviors.createInnerInstances(
+                        processDefinition.getId(), activityDefinition, miActivity, 1);
+                containerRegistry.executeFlowNodes(createdInstances);
+                return false;
+            }
             return numberOfActiveInstances == 0
                     || numberOfInstances == numberOfCompletedInstances + numberOfTerminatedInstances;
         } catch (final SBonitaException e) {
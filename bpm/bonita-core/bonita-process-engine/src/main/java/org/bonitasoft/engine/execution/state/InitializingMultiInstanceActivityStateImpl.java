@@ -88,7 +88,7 @@ public class InitializingMultiInstanceActivityStateImpl implements FlowNodeState
                 if (numberOfInstanceMax > 0) {
                     stateBehaviors.createInnerInstances(processDefinition.getId(), activity,
                             multiInstanceActivityInstance, miLoop.isSequential() ? 1
-                                    : numberOfInstanceMax);
+                                    : stateBehaviors.getNumberOfInstancesToCreateAhead(numberOfInstanceMax));
                 }
             }
         } catch (final SActivityStateExecutionException e) {
@@ -24,6 +24,7 @@ import org.bonitasoft.engine.lock.SLockException;
 import org.bonitasoft.engine.log.technical.TechnicalLogger;
 import org.bonitasoft.engine.work.BonitaWork;
 import org.bonitasoft.engine.work.LockException;
+import org.bonitasoft.engine.work.LockRetryHandler;
 import org.bonitasoft.engine.work.LockTimeoutException;
 
 /**
@@ -53,6 +54,7 @@ public class LockProcessInstanceWork extends WrappingBonitaWork {
                 .asLogger(LockProcessInstanceWork.class);
         final LockService lockService = getTenantAccessor(context).getLockService();
         final String objectType = SFlowElementsContainerType.PROCESS.name();
+        final String lockKey = objectType + "_" + processInstanceId;
 
         BonitaLock lock = null;
         try {
@@ -61,8 +63,10 @@ public class LockProcessInstanceWork extends WrappingBonitaWork {
             lock = lockService.tryLock(processInstanceId, objectType, TIMEOUT, timeUnit, getTenantId());
             if (lock == null) {
                 throw new LockTimeoutException(
-                        "Unable to lock process instance " + processInstanceId + ": " + getDescription());
+                        "Unable to lock process instance " + processInstanceId + ": " + getDescription(), lockKey);
             }
+            // let the work executor know which lock is released when this work completes
+            context.put(LockRetryHandler.ACQUIRED_LOCK_KEY, lockKey);
             logger.debug("{} obtained lock for instance {}: {}", Thread.currentThread().getName(), processInstanceId,
                     getDescription());
             return getWrappedWork().work(context);
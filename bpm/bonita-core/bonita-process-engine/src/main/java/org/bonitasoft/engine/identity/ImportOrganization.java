@@ -14,9 +14,13 @@
 package org.bonitasoft.engine.identity;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.xml.bind.JAXBException;
 
@@ -35,23 +39,41 @@ import org.bonitasoft.engine.identity.xml.ExportedGroup;
 import org.bonitasoft.engine.identity.xml.ExportedRole;
 import org.bonitasoft.engine.identity.xml.ExportedUser;
 import org.bonitasoft.engine.identity.xml.ExportedUserMembership;
-import org.bonitasoft.engine.identity.xml.Organization;
 import org.bonitasoft.engine.log.technical.TechnicalLogSeverity;
 import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
 import org.bonitasoft.engine.service.ModelConvertor;
 import org.bonitasoft.engine.service.TenantServiceAccessor;
+import org.bonitasoft.engine.services.SPersistenceException;
+import org.bonitasoft.engine.services.TenantPersistenceService;
 
 /**
+ * Import an organization while it is read by the {@link OrganizationParser}: elements are imported by batches of
+ * {@link #BATCH_SIZE}, checking which users and memberships already exist with one query per batch. The persistence
+ * session is flushed and cleared after each batch of users and memberships, and managers are set by reading the users
+ * of the file a second time once all of them exist, so that neither the memory used nor the cost of each batch grows
+ * with the number of users and memberships in the file. Only the ids of roles and groups and the custom user info
+ * definitions are kept in memory during the whole import.
+ *
  * @author Matthieu Chaffotte
  */
-public class ImportOrganization {
+public class ImportOrganization implements OrganizationHandler {
 
     private static final String LEGACY_NS = "xmlns:organization=\"http://documentation.bonitasoft.com/organization-xml-schema\"";
 
     private static final String VERSIONED_NS = "xmlns:organization=\"http://documentation.bonitasoft.com/organization-xml-schema/1.1\"";
 
+    /**
+     * Number of elements imported together, memberships of a batch may reference twice as many user names: it stays
+     * below the maximum number of values of an IN clause on Oracle.
+     */
+    static final int BATCH_SIZE = 500;
+
+    private static final int PROGRESS_LOG_INTERVAL = 10000;
+
     final IdentityService identityService;
 
+    private final TenantPersistenceService persistenceService;
+
     private final TechnicalLoggerService logger;
 
     private final String organizationContent;
@@ -64,12 +86,27 @@ public class ImportOrganization {
 
     private final SCustomUserInfoValueAPI userInfoValueAPI;
 
+    private final Map<String, SCustomUserInfoDefinition> customUserInfoDefinitions = new HashMap<>();
+
+    private final Map<String, Long> roleNameToIdMap = new HashMap<>();
+
+    private final Map<String, Long> groupPathToIdMap = new HashMap<>();
+
+    private boolean hasUsersWithManager;
+
+    private UserImporter userImporter;
+
+    private long numberOfUsers;
+
+    private long numberOfMemberships;
+
     public ImportOrganization(final TenantServiceAccessor serviceAccessor, final String organizationContent,
             final ImportPolicy policy, final SCustomUserInfoValueAPI userInfoValueAPI)
             throws OrganizationImportException {
         this.serviceAccessor = serviceAccessor;
         this.userInfoValueAPI = userInfoValueAPI;
         identityService = serviceAccessor.getIdentityService();
+        persistenceService = serviceAccessor.getTenantPersistenceService();
         this.organizationContent = updateNamespace(organizationContent);
         logger = serviceAccessor.getTechnicalLoggerService();
         warnings = new ArrayList<>();
@@ -88,16 +125,14 @@ public class ImportOrganization {
         }
     }
 
-    private void excludeGroupsWithInvalidCharactersInName(List<ExportedGroup> groups)
-            throws OrganizationImportException {
-        for (ExportedGroup group : groups) {
-            String groupName = group.getName();
-            if (groupName.contains("/")) {
-                groups.remove(group);
-                warnings.add("The group name " + groupName
-                        + " contains the character '/' which is not supported. The group has not been imported");
-            }
+    private boolean hasInvalidCharactersInName(ExportedGroup group) {
+        String groupName = group.getName();
+        if (groupName.contains("/")) {
+            warnings.add("The group name " + groupName
+                    + " contains the character '/' which is not supported. The group has not been imported");
+            return true;
         }
+        return false;
     }
 
     private String updateNamespace(String content) {
@@ -111,26 +146,19 @@ public class ImportOrganization {
 
     public List<String> execute() throws SBonitaException, JAXBException {
         try {
-            final Organization organization = new OrganizationParser().convert(organizationContent);
-            final List<ExportedUser> users = organization.getUsers();
-            final List<ExportedRole> roles = organization.getRoles();
-            final List<ExportedGroup> groups = organization.getGroups();
-            //checking if the Group names contain illegal characters
-            excludeGroupsWithInvalidCharactersInName(groups);
-            final List<ExportedUserMembership> memberships = organization.getMemberships();
-            // custom user info definitions
-            final Map<String, SCustomUserInfoDefinition> customUserInfoDefinitions = importCustomUserInfoDefinitions(
-                    organization
-                            .getCustomUserInfoDefinition());
-            // Users
-            final Map<String, SUser> userNameToSUsers = importUsers(users, customUserInfoDefinitions);
-            updateManagerId(users, userNameToSUsers);
-            // Roles
-            final Map<String, Long> roleNameToIdMap = importRoles(roles);
-            // Groups
-            final Map<String, Long> groupPathToIdMap = importGroups(groups);
-            // UserMemberships
-            importMemberships(memberships, userNameToSUsers, roleNameToIdMap, groupPathToIdMap);
+            final CustomUserInfoValueImporter userInfoValueImporter = new CustomUserInfoValueImporter(userInfoValueAPI,
+                    customUserInfoDefinitions);
+            userImporter = new UserImporter(serviceAccessor, strategy, SessionInfos.getUserIdFromSession(),
+                    userInfoValueImporter);
+            new OrganizationParser().parse(organizationContent, BATCH_SIZE, this);
+            if (hasUsersWithManager) {
+                new OrganizationParser().parse(organizationContent, BATCH_SIZE, new ManagerUpdater());
+            }
+            if (logger.isLoggable(getClass(), TechnicalLogSeverity.INFO)) {
+                logger.log(getClass(), TechnicalLogSeverity.INFO, "Organization imported: " + numberOfUsers
+                        + " users, " + roleNameToIdMap.size() + " roles, " + groupPathToIdMap.size() + " groups and "
+                        + numberOfMemberships + " memberships");
+            }
             return warnings;
         } catch (final SBonitaException | JAXBException e) {
             throw e;
@@ -139,30 +167,79 @@ public class ImportOrganization {
         }
     }
 
-    private Map<String, SCustomUserInfoDefinition> importCustomUserInfoDefinitions(
+    @Override
+    public void handleCustomUserInfoDefinitions(
             final List<ExportedCustomUserInfoDefinition> customUserInfoDefinitionCreators)
             throws SIdentityException, ImportDuplicateInOrganizationException {
         final CustomUserInfoDefinitionImporter importer = new CustomUserInfoDefinitionImporter(serviceAccessor,
                 strategy);
-        return importer.importCustomUserInfoDefinitions(customUserInfoDefinitionCreators);
+        customUserInfoDefinitions.putAll(importer.importCustomUserInfoDefinitions(customUserInfoDefinitionCreators));
     }
 
-    private void importMemberships(final List<ExportedUserMembership> memberships,
-            final Map<String, SUser> userNameToSUsers,
-            final Map<String, Long> roleNameToIdMap,
-            final Map<String, Long> groupPathToIdMap)
-            throws SIdentityException, ImportDuplicateInOrganizationException {
+    @Override
+    public void handleUsers(final List<ExportedUser> users) throws SBonitaException {
+        userImporter.importUsers(users);
+        hasUsersWithManager = hasUsersWithManager || !getManagerUserNames(users).isEmpty();
+        persistenceService.flushStatementsAndClear();
+        numberOfUsers = logProgress("users", numberOfUsers, users.size());
+    }
+
+    @Override
+    public void handleRoles(final List<ExportedRole> roleCreators)
+            throws ImportDuplicateInOrganizationException, SIdentityException {
+        for (final ExportedRole roleCreator : roleCreators) {
+            SRole sRole;
+            try {
+                sRole = identityService.getRoleByName(roleCreator.getName());
+                strategy.foundExistingRole(sRole, roleCreator);
+            } catch (final SRoleNotFoundException e) {
+                sRole = addRole(roleCreator);
+            }
+            roleNameToIdMap.put(sRole.getName(), sRole.getId());
+        }
+    }
+
+    @Override
+    public void handleGroups(final List<ExportedGroup> groupCreators)
+            throws ImportDuplicateInOrganizationException, SIdentityException {
+        for (final ExportedGroup groupCreator : groupCreators) {
+            if (hasInvalidCharactersInName(groupCreator)) {
+                continue;
+            }
+            SGroup sGroup;
+            try {
+                final String groupPath = getGroupPath(groupCreator);
+                sGroup = identityService.getGroupByPath(groupPath);
+                strategy.foundExistingGroup(sGroup, groupCreator);
+            } catch (final SGroupNotFoundException e) {
+                sGroup = addGroup(groupCreator);
+            }
+            groupPathToIdMap.put(sGroup.getPath(), sGroup.getId());
+        }
+    }
+
+    @Override
+    public void handleMemberships(final List<ExportedUserMembership> memberships)
+            throws SIdentityException, ImportDuplicateInOrganizationException, SPersistenceException {
+        final Map<String, SUser> userNameToSUsers = getUsersReferencedBy(memberships);
+        final Map<String, SUserMembership> existingMemberships = getExistingMemberships(memberships,
+                userNameToSUsers);
         for (final ExportedUserMembership newMembership : memberships) {
             final Long userId = getUserId(userNameToSUsers, newMembership);
             final Long groupId = getGroupId(groupPathToIdMap, newMembership);
             final Long roleId = getRoleId(roleNameToIdMap, newMembership);
             if (userId != null && groupId != null && roleId != null) {
-                try {
-                    final SUserMembership sUserMembership = identityService.getUserMembership(userId, groupId, roleId);
+                final String key = getMembershipKey(userId, groupId, roleId);
+                final SUserMembership sUserMembership = existingMemberships.get(key);
+                if (sUserMembership != null) {
+                    sUserMembership.setUsername(newMembership.getUserName());
+                    sUserMembership.setRoleName(newMembership.getRoleName());
+                    sUserMembership.setGroupName(newMembership.getGroupName());
+                    sUserMembership.setGroupParentPath(newMembership.getGroupParentPath());
                     strategy.foundExistingMembership(sUserMembership);
-                } catch (final SIdentityException e) {
+                } else {
                     final Long assignedBy = getAssignedBy(userNameToSUsers, newMembership);
-                    addMembership(newMembership, userId, groupId, roleId, assignedBy);
+                    existingMemberships.put(key, addMembership(newMembership, userId, groupId, roleId, assignedBy));
                 }
             } else {
                 if (logger.isLoggable(getClass(), TechnicalLogSeverity.WARNING)) {
@@ -172,6 +249,64 @@ public class ImportOrganization {
                 }
             }
         }
+        persistenceService.flushStatementsAndClear();
+        numberOfMemberships = logProgress("memberships", numberOfMemberships, memberships.size());
+    }
+
+    private Map<String, SUser> getUsersReferencedBy(final List<ExportedUserMembership> memberships)
+            throws SIdentityException {
+        final Set<String> userNames = new HashSet<>();
+        for (final ExportedUserMembership membership : memberships) {
+            addIfNotEmpty(userNames, membership.getUserName());
+            addIfNotEmpty(userNames, membership.getAssignedBy());
+        }
+        return getUsersByUserName(userNames);
+    }
+
+    private void addIfNotEmpty(final Set<String> userNames, final String userName) {
+        if (userName != null && !userName.isEmpty()) {
+            userNames.add(userName);
+        }
+    }
+
+    private Map<String, SUser> getUsersByUserName(final Collection<String> userNames) throws SIdentityException {
+        final Map<String, SUser> userNameToSUsers = new HashMap<>(userNames.size());
+        for (final SUser sUser : identityService.getUsersByUsername(new ArrayList<>(userNames))) {
+            userNameToSUsers.put(sUser.getUserName(), sUser);
+        }
+        return userNameToSUsers;
+    }
+
+    private Map<String, SUserMembership> getExistingMemberships(final List<ExportedUserMembership> memberships,
+            final Map<String, SUser> userNameToSUsers) throws SIdentityException {
+        final Set<Long> userIds = new HashSet<>();
+        for (final ExportedUserMembership membership : memberships) {
+            final Long userId = getUserId(userNameToSUsers, membership);
+            if (userId != null) {
+                userIds.add(userId);
+            }
+        }
+        final Map<String, SUserMembership> existingMemberships = new HashMap<>();
+        for (final SUserMembership membership : identityService
+                .getLightUserMembershipsOfUsers(new ArrayList<>(userIds))) {
+            existingMemberships.put(getMembershipKey(membership.getUserId(), membership.getGroupId(),
+                    membership.getRoleId()), membership);
+        }
+        return existingMemberships;
+    }
+
+    private String getMembershipKey(final long userId, final long groupId, final long roleId) {
+        return userId + "/" + groupId + "/" + roleId;
+    }
+
+    private long logProgress(final String elements, final long numberOfElementsBefore, final int numberOfNewElements) {
+        final long numberOfElements = numberOfElementsBefore + numberOfNewElements;
+        if (numberOfElementsBefore / PROGRESS_LOG_INTERVAL != numberOfElements / PROGRESS_LOG_INTERVAL
+                && logger.isLoggable(getClass(), TechnicalLogSeverity.INFO)) {
+            logger.log(getClass(), TechnicalLogSeverity.INFO,
+                    "Organization import in progress: " + numberOfElements + " " + elements + " imported");
+        }
+        return numberOfElements;
     }
 
     private Long getUserId(final Map<String, SUser> userNameToSUsers, final ExportedUserMembership newMembership) {
@@ -218,23 +353,6 @@ public class ImportOrganization {
         return -1L;
     }
 
-    private Map<String, Long> importGroups(final List<ExportedGroup> groupCreators)
-            throws ImportDuplicateInOrganizationException, SIdentityException {
-        final Map<String, Long> groupPathToIdMap = new HashMap<>(groupCreators.size());
-        for (final ExportedGroup groupCreator : groupCreators) {
-            SGroup sGroup;
-            try {
-                final String groupPath = getGroupPath(groupCreator);
-                sGroup = identityService.getGroupByPath(groupPath);
-                strategy.foundExistingGroup(sGroup, groupCreator);
-            } catch (final SGroupNotFoundException e) {
-                sGroup = addGroup(groupCreator);
-            }
-            groupPathToIdMap.put(sGroup.getPath(), sGroup.getId());
-        }
-        return groupPathToIdMap;
-    }
-
     private String getGroupPath(final ExportedGroup exportedGroup) {
         final String name = exportedGroup.getName();
         final String parentPath = exportedGroup.getParentPath();
@@ -244,58 +362,48 @@ public class ImportOrganization {
         return parentPath + "/" + name;
     }
 
-    private Map<String, Long> importRoles(final List<ExportedRole> roleCreators)
-            throws ImportDuplicateInOrganizationException, SIdentityException {
-        final Map<String, Long> roleNameToIdMap = new HashMap<>(roleCreators.size());
-        for (final ExportedRole roleCreator : roleCreators) {
-            SRole sRole;
-            try {
-                sRole = identityService.getRoleByName(roleCreator.getName());
-                strategy.foundExistingRole(sRole, roleCreator);
-            } catch (final SRoleNotFoundException e) {
-                sRole = addRole(roleCreator);
-            }
-            roleNameToIdMap.put(sRole.getName(), sRole.getId());
-        }
-        return roleNameToIdMap;
-    }
-
-    private void updateManagerId(final List<ExportedUser> users, final Map<String, SUser> userNameToSUsers)
-            throws SUserUpdateException {
+    private Map<String, String> getManagerUserNames(final List<ExportedUser> users) {
+        final Map<String, String> userNameToManagerUserName = new LinkedHashMap<>();
         for (final ExportedUser user : users) {
             final String managerUserName = user.getManagerUserName();
             if (managerUserName != null && managerUserName.trim().length() > 0) {
-                SUser manager = userNameToSUsers.get(managerUserName.trim());
-                if (manager != null) {
-                    identityService.updateUser(userNameToSUsers.get(user.getUserName()),
-                            BuilderFactory.get(SUserUpdateBuilderFactory.class).createNewInstance()
-                                    .updateManagerUserId(manager.getId()).done());
-                } else {
-                    logger.log(this.getClass(), TechnicalLogSeverity.WARNING,
-                            "The user " + user.getUserName() + " has a manager with username "
-                                    + managerUserName + ", but this one does not exist. Please set it manually.");
-                }
+                userNameToManagerUserName.put(user.getUserName(), managerUserName.trim());
             }
         }
+        return userNameToManagerUserName;
     }
 
-    private Map<String, SUser> importUsers(final List<ExportedUser> users,
-            final Map<String, SCustomUserInfoDefinition> customUserInfoDefinitions)
-            throws SBonitaException {
-        final CustomUserInfoValueImporter userInfoValueImporter = new CustomUserInfoValueImporter(userInfoValueAPI,
-                customUserInfoDefinitions);
-        final UserImporter userImporter = new UserImporter(serviceAccessor, strategy,
-                SessionInfos.getUserIdFromSession(), userInfoValueImporter);
-        return userImporter.importUsers(users);
+    private void updateManagerIds(final List<ExportedUser> users) throws SIdentityException {
+        final Map<String, String> userNameToManagerUserName = getManagerUserNames(users);
+        if (userNameToManagerUserName.isEmpty()) {
+            return;
+        }
+        final Set<String> userNames = new HashSet<>(userNameToManagerUserName.keySet());
+        userNames.addAll(userNameToManagerUserName.values());
+        final Map<String, SUser> userNameToSUsers = getUsersByUserName(userNames);
+        for (final Map.Entry<String, String> userNameAndManagerUserName : userNameToManagerUserName.entrySet()) {
+            final SUser manager = userNameToSUsers.get(userNameAndManagerUserName.getValue());
+            if (manager != null) {
+                identityService.updateUser(userNameToSUsers.get(userNameAndManagerUserName.getKey()),
+                        BuilderFactory.get(SUserUpdateBuilderFactory.class).createNewInstance()
+                                .updateManagerUserId(manager.getId()).done());
+            } else {
+                logger.log(this.getClass(), TechnicalLogSeverity.WARNING,
+                        "The user " + userNameAndManagerUserName.getKey() + " has a manager with username "
+                                + userNameAndManagerUserName.getValue()
+                                + ", but this one does not exist. Please set it manually.");
+            }
+        }
     }
 
-    private void addMembership(final ExportedUserMembership newMembership, final Long userId, final Long groupId,
-            final Long roleId, final Long assignedBy)
+    private SUserMembership addMembership(final ExportedUserMembership newMembership, final Long userId,
+            final Long groupId, final Long roleId, final Long assignedBy)
             throws SUserMembershipCreationException {
         final long assignedDateAsLong = getAssignedDate(newMembership);
         final SUserMembership sUserMembership = SUserMembership.builder().userId(userId).groupId(groupId).roleId(roleId)
                 .assignedBy(assignedBy).assignedDate(assignedDateAsLong).build();
         identityService.createUserMembership(sUserMembership);
+        return sUserMembership;
     }
 
     private long getAssignedDate(final ExportedUserMembership newMembership) {
@@ -318,4 +426,39 @@ public class ImportOrganization {
         return sRole;
     }
 
+    /**
+     * Sets the managers of the users, read again from the file once all users are imported since a manager may be
+     * declared after the users they manage.
+     */
+    class ManagerUpdater implements OrganizationHandler {
+
+        @Override
+        public void handleCustomUserInfoDefinitions(
+                final List<ExportedCustomUserInfoDefinition> customUserInfoDefinitions) {
+            // already imported
+        }
+
+        @Override
+        public void handleUsers(final List<ExportedUser> users) throws SBonitaException {
+            updateManagerIds(users);
+            persistenceService.flushStatementsAndClear();
+        }
+
+        @Override
+        public void handleRoles(final List<ExportedRole> roles) {
+            // already imported
+        }
+
+        @Override
+        public void handleGroups(final List<ExportedGroup> groups) {
+            // already imported
+        }
+
+        @Override
+        public void handleMemberships(final List<ExportedUserMembership> memberships) {
+            // already imported
+        }
+
+    }
+
 }
@@ -0,0 +1,42 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.identity;
+
+import java.util.List;
+
+import org.bonitasoft.engine.commons.exceptions.SBonitaException;
+import org.bonitasoft.engine.identity.xml.ExportedCustomUserInfoDefinition;
+import org.bonitasoft.engine.identity.xml.ExportedGroup;
+import org.bonitasoft.engine.identity.xml.ExportedRole;
+import org.bonitasoft.engine.identity.xml.ExportedUser;
+import org.bonitasoft.engine.identity.xml.ExportedUserMembership;
+
+/**
+ * Receives the elements of an organization read by {@link OrganizationParser#parse(String, int, OrganizationHandler)},
+ * in batches, in the order of the file: custom user info definitions, users, roles, groups then memberships.
+ */
+public interface OrganizationHandler {
+
+    void handleCustomUserInfoDefinitions(List<ExportedCustomUserInfoDefinition> customUserInfoDefinitions)
+            throws SBonitaException;
+
+    void handleUsers(List<ExportedUser> users) throws SBonitaException;
+
+    void handleRoles(List<ExportedRole> roles) throws SBonitaException;
+
+    void handleGroups(List<ExportedGroup> groups) throws SBonitaException;
+
+    void handleMemberships(List<ExportedUserMembership> memberships) throws SBonitaException;
+
+}
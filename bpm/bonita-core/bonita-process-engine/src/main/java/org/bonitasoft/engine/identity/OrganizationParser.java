@@ -13,20 +13,35 @@
  **/
 package org.bonitasoft.engine.identity;
 
+import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.xml.XMLConstants;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
+import javax.xml.bind.UnmarshalException;
 import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 
+import org.bonitasoft.engine.commons.exceptions.SBonitaException;
 import org.bonitasoft.engine.exception.BonitaRuntimeException;
+import org.bonitasoft.engine.identity.xml.ExportedCustomUserInfoDefinition;
+import org.bonitasoft.engine.identity.xml.ExportedGroup;
+import org.bonitasoft.engine.identity.xml.ExportedRole;
+import org.bonitasoft.engine.identity.xml.ExportedUser;
+import org.bonitasoft.engine.identity.xml.ExportedUserMembership;
 import org.bonitasoft.engine.identity.xml.Organization;
+import org.xml.sax.SAXException;
 
 /**
  * @author Baptiste Mesta
@@ -48,16 +63,47 @@ public class OrganizationParser {
     }
 
     public Organization convert(String organizationContent) throws JAXBException {
+        Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+        unmarshaller.setSchema(schema);
+        return (Organization) unmarshaller.unmarshal(new StringReader(updateNamespace(organizationContent)));
+
+    }
+
+    /**
+     * Read the organization element by element instead of unmarshalling it as a whole: the content is first validated
+     * against the schema, then each user, role, group, membership... is unmarshalled on its own and given to the
+     * handler by batches of at most batchSize elements, so that only one batch is kept in memory at a time.
+     */
+    public void parse(String organizationContent, int batchSize, OrganizationHandler handler)
+            throws JAXBException, SBonitaException {
+        final String content = updateNamespace(organizationContent);
+        try {
+            schema.newValidator().validate(new StreamSource(new StringReader(content)));
+        } catch (final SAXException | IOException e) {
+            throw new UnmarshalException(e);
+        }
+        final Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+        final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        try {
+            final XMLStreamReader reader = inputFactory.createXMLStreamReader(new StringReader(content));
+            try {
+                new BatchReader(unmarshaller, batchSize, handler).read(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (final XMLStreamException e) {
+            throw new UnmarshalException(e);
+        }
+    }
 
+    private static String updateNamespace(String organizationContent) {
         if (!organizationContent.contains("http://documentation.bonitasoft.com/organization-xml-schema/1.1")) {
             organizationContent = organizationContent.replace(
                     "http://documentation.bonitasoft.com/organization-xml-schema",
                     "http://documentation.bonitasoft.com/organization-xml-schema/1.1");
         }
-        Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-        unmarshaller.setSchema(schema);
-        return (Organization) unmarshaller.unmarshal(new StringReader(organizationContent));
-
+        return organizationContent;
     }
 
     private Marshaller getMarshaller() throws JAXBException {
@@ -72,4 +118,114 @@ public class OrganizationParser {
         getMarshaller().marshal(organization, writer);
         return writer.toString();
     }
+
+    private static final class BatchReader {
+
+        private static final int SECTION_DEPTH = 2;
+        private static final int ELEMENT_DEPTH = 3;
+
+        private final Unmarshaller unmarshaller;
+        private final int batchSize;
+        private final OrganizationHandler handler;
+        private final List<ExportedCustomUserInfoDefinition> customUserInfoDefinitions = new ArrayList<>();
+        private final List<ExportedUser> users = new ArrayList<>();
+        private final List<ExportedRole> roles = new ArrayList<>();
+        private final List<ExportedGroup> groups = new ArrayList<>();
+        private final List<ExportedUserMembership> memberships = new ArrayList<>();
+
+        BatchReader(Unmarshaller unmarshaller, int batchSize, OrganizationHandler handler) {
+            this.unmarshaller = unmarshaller;
+            this.batchSize = batchSize;
+            this.handler = handler;
+        }
+
+        void read(XMLStreamReader reader) throws XMLStreamException, JAXBException, SBonitaException {
+            int depth = 0;
+            String section = null;
+            while (reader.hasNext()) {
+                if (reader.isStartElement()) {
+                    depth++;
+                    if (depth == SECTION_DEPTH) {
+                        section = reader.getLocalName();
+                    } else if (depth == ELEMENT_DEPTH) {
+                        // unmarshalling moves the reader after the end of the element
+                        if (add(section, reader) >= batchSize) {
+                            flush(section);
+                        }
+                        depth--;
+                        continue;
+                    }
+                } else if (reader.isEndElement()) {
+                    if (depth == SECTION_DEPTH) {
+                        flush(section);
+                    }
+                    depth--;
+                }
+                reader.next();
+            }
+        }
+
+        private int add(String section, XMLStreamReader reader) throws JAXBException {
+            switch (section) {
+                case "customUserInfoDefinitions":
+                    customUserInfoDefinitions.add(unmarshal(reader, ExportedCustomUserInfoDefinition.class));
+                    return customUserInfoDefinitions.size();
+                case "users":
+                    users.add(unmarshal(reader, ExportedUser.class));
+                    return users.size();
+                case "roles":
+                    roles.add(unmarshal(reader, ExportedRole.class));
+                    return roles.size();
+                case "groups":
+                    groups.add(unmarshal(reader, ExportedGroup.class));
+                    return groups.size();
+                case "memberships":
+                    memberships.add(unmarshal(reader, ExportedUserMembership.class));
+                    return memberships.size();
+                default:
+                    throw new UnmarshalException("Unexpected element " + reader.getLocalName() + " in " + section);
+            }
+        }
+
+        private <T> T unmarshal(XMLStreamReader reader, Class<T> type) throws JAXBException {
+            return unmarshaller.unmarshal(reader, type).getValue();
+        }
+
+        private void flush(String section) throws SBonitaException {
+            switch (section) {
+                case "customUserInfoDefinitions":
+                    if (!customUserInfoDefinitions.isEmpty()) {
+                        handler.handleCustomUserInfoDefinitions(customUserInfoDefinitions);
+                        customUserInfoDefinitions.clear();
+                    }
+                    break;
+                case "users":
+                    if (!users.isEmpty()) {
+                        handler.handleUsers(users);
+                        users.clear();
+                    }
+                    break;
+                case "roles":
+                    if (!roles.isEmpty()) {
+                        handler.handleRoles(roles);
+                        roles.clear();
+                    }
+                    break;
+                case "groups":
+                    if (!groups.isEmpty()) {
+                        handler.handleGroups(groups);
+                        groups.clear();
+                    }
+                    break;
+                case "memberships":
+                    if (!memberships.isEmpty()) {
+                        handler.handleMemberships(memberships);
+                        memberships.clear();
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
 }
@@ -13,7 +13,7 @@
  **/
 package org.bonitasoft.engine.identity;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,9 +22,6 @@ import org.bonitasoft.engine.commons.exceptions.SBonitaException;
 import org.bonitasoft.engine.identity.model.SContactInfo;
 import org.bonitasoft.engine.identity.model.SUser;
 import org.bonitasoft.engine.identity.xml.ExportedUser;
-import org.bonitasoft.engine.persistence.FilterOption;
-import org.bonitasoft.engine.persistence.QueryOptions;
-import org.bonitasoft.engine.persistence.SBonitaReadException;
 import org.bonitasoft.engine.service.ModelConvertor;
 import org.bonitasoft.engine.service.TenantServiceAccessor;
 
@@ -50,27 +47,35 @@ public class UserImporter {
         identityService = serviceAccessor.getIdentityService();
     }
 
+    /**
+     * Import the given users, checking which ones already exist with one query.
+     *
+     * @return the imported users, by user name
+     */
     public Map<String, SUser> importUsers(final List<ExportedUser> usersToImport) throws SBonitaException {
-        final Map<String, SUser> userNameToSUsers = new HashMap<>(
-                (int) Math.min(Integer.MAX_VALUE, identityService.getNumberOfUsers()));
+        final Map<String, SUser> userNameToSUsers = getExistingUsers(usersToImport);
         for (final ExportedUser userToImport : usersToImport) {
-            SUser sUser;
-            if (hasUserWithUserName(userToImport.getUserName())) {
-                sUser = identityService.getUserByUserName(userToImport.getUserName());
+            SUser sUser = userNameToSUsers.get(userToImport.getUserName());
+            if (sUser != null) {
                 strategy.foundExistingUser(sUser, userToImport);
             } else {
                 sUser = addAllUserInfo(userToImport);
             }
-            userNameToSUsers.put(sUser.getUserName(), sUser);
+            userNameToSUsers.put(userToImport.getUserName(), sUser);
         }
         return userNameToSUsers;
     }
 
-    private boolean hasUserWithUserName(String userName) throws SBonitaReadException {
-        final FilterOption filter = new FilterOption(SUser.class, SUser.USER_NAME, userName);
-        final QueryOptions queryOptions = new QueryOptions(Collections.singletonList(filter), null);
-        final long numberOfUsers = identityService.getNumberOfUsers(queryOptions);
-        return numberOfUsers > 0;
+    private Map<String, SUser> getExistingUsers(final List<ExportedUser> usersToImport) throws SIdentityException {
+        final List<String> userNames = new ArrayList<>(usersToImport.size());
+        for (final ExportedUser userToImport : usersToImport) {
+            userNames.add(userToImport.getUserName());
+        }
+        final Map<String, SUser> existingUsers = new HashMap<>(usersToImport.size());
+        for (final SUser existingUser : identityService.getUsersByUsername(userNames)) {
+            existingUsers.put(existingUser.getUserName(), existingUser);
+        }
+        return existingUsers;
     }
 
     private SUser addAllUserInfo(final ExportedUser userToImport) throws SBonitaException {
@@ -14,15 +14,21 @@
 package org.bonitasoft.engine.message;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import org.bonitasoft.engine.api.utils.VisibleForTesting;
 import org.bonitasoft.engine.builder.BuilderFactory;
 import org.bonitasoft.engine.commons.TenantLifecycleService;
@@ -53,16 +59,31 @@ import org.bonitasoft.engine.work.SWorkRegisterException;
 import org.bonitasoft.engine.work.WorkService;
 
 /**
+ * Match messages with waiting events and register the works executing the matched couples.
+ * <p>
+ * A message can only match waiting events having the same message name, so the matching is sharded by message name:
+ * each shard has its own thread and its own cluster wide lock, and only matches the messages whose name belongs to it.
+ * The number of couples matched in one transaction adapts to the backlog of each shard, between MIN_COUPLES and
+ * MAX_COUPLES.
+ *
  * @author Baptiste Mesta
  */
 public class MessagesHandlingService implements TenantLifecycleService {
 
-    private static final int MAX_COUPLES = 100;
+    static final int MIN_COUPLES = 100;
+    static final int MAX_COUPLES = 1000;
+    static final int MESSAGE_NAMES_PAGE_SIZE = 1000;
     private static final String LOCK_TYPE = "EVENTS";
     public static final String NUMBER_OF_MESSAGES_EXECUTED = "bonita.bpmengine.message.executed";
     public static final String NUMBER_OF_MESSAGES_POTENTIAL_MATCHED = "bonita.bpmengine.message.potential";
     public static final String NUMBER_OF_MESSAGES_MATCHING_RETRIGGERED_TASKS = "bonita.bpmengine.message.retriggeredtasks";
-    private ThreadPoolExecutor threadPoolExecutor;
+    public static final String MESSAGES_MATCHING_DURATION = "bonita.bpmengine.message.matching.duration";
+    public static final String MESSAGES_MATCHING_BATCH_SIZE = "bonita.bpmengine.message.matching.batchsize";
+    private final int numberOfShards;
+    private ThreadPoolExecutor[] shardExecutors;
+    private final AtomicBoolean[] shardScheduled;
+    private final AtomicInteger[] shardBatchSizes;
+    private final Timer[] shardMatchingTimers;
     private EventInstanceService eventInstanceService;
     private WorkService workService;
     private TechnicalLogger logger;
@@ -79,7 +100,8 @@ public class MessagesHandlingService implements TenantLifecycleService {
     public MessagesHandlingService(EventInstanceService eventInstanceService, WorkService workService,
             TechnicalLoggerService loggerService,
             LockService lockService, Long tenantId, UserTransactionService userTransactionService,
-            SessionAccessor sessionAccessor, BPMWorkFactory workFactory, MeterRegistry meterRegistry) {
+            SessionAccessor sessionAccessor, BPMWorkFactory workFactory, MeterRegistry meterRegistry,
+            int numberOfShards) {
         this.eventInstanceService = eventInstanceService;
         this.workService = workService;
         this.logger = loggerService.asLogger(MessagesHandlingService.class);
@@ -88,6 +110,24 @@ public class MessagesHandlingService implements TenantLifecycleService {
         this.userTransactionService = userTransactionService;
         this.sessionAccessor = sessionAccessor;
         this.workFactory = workFactory;
+        this.numberOfShards = Math.max(1, numberOfShards);
+        this.shardScheduled = new AtomicBoolean[this.numberOfShards];
+        this.shardBatchSizes = new AtomicInteger[this.numberOfShards];
+        this.shardMatchingTimers = new Timer[this.numberOfShards];
+        for (int shard = 0; shard < this.numberOfShards; shard++) {
+            Tags shardTags = Tags.of("tenant", String.valueOf(tenantId), "shard", String.valueOf(shard));
+            shardScheduled[shard] = new AtomicBoolean();
+            shardBatchSizes[shard] = new AtomicInteger(MIN_COUPLES);
+            shardMatchingTimers[shard] = Timer.builder(MESSAGES_MATCHING_DURATION)
+                    .tags(shardTags)
+                    .description("Duration of the matching of a batch of BPMN message couples")
+                    .register(meterRegistry);
+            Gauge.builder(MESSAGES_MATCHING_BATCH_SIZE, shardBatchSizes[shard], AtomicInteger::get)
+                    .tags(shardTags)
+                    .baseUnit("couples")
+                    .description("Maximum number of BPMN message couples matched in one transaction")
+                    .register(meterRegistry);
+        }
         executedMessagesCounter = Counter.builder(NUMBER_OF_MESSAGES_EXECUTED)
                 .tags(Tags.of("tenant", String.valueOf(tenantId)))
                 .baseUnit("messages")
@@ -107,32 +147,45 @@ public class MessagesHandlingService implements TenantLifecycleService {
 
     @Override
     public void start() {
-        logger.info("Starting BPMN messages matcher thread");
-        threadPoolExecutor = new ThreadPoolExecutor(1, 1, 1L, TimeUnit.HOURS,
-                new ArrayBlockingQueue<>(5),
-                r -> new Thread(r, "Bonita-Message-Matching"),
-                (r, executor) -> logger.debug("Message matching queue capacity reached"));
-        logger.info("Thread that handle messages matching successfully started");
+        logger.info("Starting {} BPMN messages matcher threads", numberOfShards);
+        ThreadPoolExecutor[] executors = new ThreadPoolExecutor[numberOfShards];
+        for (int shard = 0; shard < numberOfShards; shard++) {
+            String threadName = numberOfShards == 1 ? "Bonita-Message-Matching" : "Bonita-Message-Matching-" + shard;
+            shardScheduled[shard].set(false);
+            // a shard has at most one task waiting: the queue does not need to be bounded
+            executors[shard] = new ThreadPoolExecutor(1, 1, 1L, TimeUnit.HOURS, new LinkedBlockingQueue<>(),
+                    r -> new Thread(r, threadName));
+        }
+        shardExecutors = executors;
+        logger.info("Threads that handle messages matching successfully started");
     }
 
     @Override
     public void stop() {
-        logger.info("Stopping BPMN messages matcher thread");
-        if (threadPoolExecutor == null) {
-            logger.info("BPMN messages matcher thread is already stopped");
+        logger.info("Stopping BPMN messages matcher threads");
+        ThreadPoolExecutor[] executors = shardExecutors;
+        if (executors == null) {
+            logger.info("BPMN messages matcher threads are already stopped");
             return;
         }
-        threadPoolExecutor.shutdown();
+        shardExecutors = null;
+        for (ThreadPoolExecutor executor : executors) {
+            executor.shutdown();
+        }
         try {
-            boolean termination = threadPoolExecutor.awaitTermination(5000, TimeUnit.MILLISECONDS);
-            if (!termination) {
-                logger.warn("Failed to terminate the BPMN messages matcher thread." +
-                        " This will not have functional impacts but it might produce warnings on server shutdown");
+            long deadline = System.currentTimeMillis() + 5000;
+            for (ThreadPoolExecutor executor : executors) {
+                boolean termination = executor.awaitTermination(
+                        Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                if (!termination) {
+                    logger.warn("Failed to terminate the BPMN messages matcher threads." +
+                            " This will not have functional impacts but it might produce warnings on server shutdown");
+                    break;
+                }
             }
         } catch (InterruptedException ignored) {
         }
-        threadPoolExecutor = null;
-        logger.info("BPMN messages matcher thread successfully stopped");
+        logger.info("BPMN messages matcher threads successfully stopped");
     }
 
     @Override
@@ -145,22 +198,60 @@ public class MessagesHandlingService implements TenantLifecycleService {
         start();
     }
 
+    /**
+     * Trigger the matching of all messages, once the current transaction is completed
+     */
     public void triggerMatchingOfMessages() throws STransactionNotFoundException {
-        if (threadPoolExecutor == null) {
+        if (shardExecutors == null) {
+            logger.warn("Cannot match messages when service is stopped. Maybe the engine is not yet started");
+            return;
+        }
+        userTransactionService.registerBonitaSynchronization(new RegisterMessagesMatchingSynchronization(-1));
+    }
+
+    /**
+     * Trigger the matching of the messages having the given name, once the current transaction is completed
+     */
+    public void triggerMatchingOfMessages(String messageName) throws STransactionNotFoundException {
+        if (shardExecutors == null) {
             logger.warn("Cannot match messages when service is stopped. Maybe the engine is not yet started");
             return;
         }
-        userTransactionService.registerBonitaSynchronization(new RegisterMessagesMatchingSynchronization());
+        userTransactionService
+                .registerBonitaSynchronization(new RegisterMessagesMatchingSynchronization(getShard(messageName)));
+    }
+
+    @VisibleForTesting
+    int getShard(String messageName) {
+        return Math.floorMod(messageName.hashCode(), numberOfShards);
+    }
+
+    private void scheduleMatching(int shard) {
+        ThreadPoolExecutor[] executors = shardExecutors;
+        if (executors == null) {
+            return;
+        }
+        // coalesce triggers: a shard never has more than one matching task waiting to be executed
+        if (shardScheduled[shard].compareAndSet(false, true)) {
+            executors[shard].submit(new MessagesMatchingTask(shard));
+        }
     }
 
     @VisibleForTesting
     void matchEventCoupleAndTriggerExecution() throws Exception {
-        userTransactionService.executeInTransaction(() -> {
-            final List<SMessageEventCouple> potentialMessageCouples = eventInstanceService.getMessageEventCouples(0,
-                    MAX_COUPLES);
-            final int potentialMessagesCount = potentialMessageCouples.size();
-            logger.info("Found {} potential message/event couples", potentialMessagesCount);
-            matchedPotentialMessagesCounter.increment(potentialMessagesCount);
+        matchEventCoupleAndTriggerExecution(0);
+    }
+
+    @VisibleForTesting
+    void matchEventCoupleAndTriggerExecution(int shard) throws Exception {
+        final AtomicInteger batchSize = shardBatchSizes[shard];
+        final int maxCouples = batchSize.get();
+        final Timer.Sample sample = Timer.start();
+        final int potentialMessagesCount = userTransactionService.executeInTransaction(() -> {
+            final List<SMessageEventCouple> potentialMessageCouples = getPotentialMessageCouples(shard, maxCouples);
+            final int count = potentialMessageCouples.size();
+            logger.info("Found {} potential message/event couples", count);
+            matchedPotentialMessagesCounter.increment(count);
             final List<SMessageEventCouple> uniqueCouples = getMessageUniqueCouples(potentialMessageCouples);
             if (!uniqueCouples.isEmpty()) {
                 logger.info("Triggering execution of unique {} message/event couples", uniqueCouples.size());
@@ -169,14 +260,47 @@ public class MessagesHandlingService implements TenantLifecycleService {
             } else {
                 logger.debug("No message/event couples to be executed");
             }
-            if (potentialMessagesCount == MAX_COUPLES) {
-                logger.debug("There are more than {} message/event couples to match. " +
-                        "Will trigger the execution again now, to match more couples", MAX_COUPLES);
-                triggerMatchingOfMessages();
-                retriggeredMatchingTasksCounter.increment();
-            }
-            return null;
+            return count;
         });
+        sample.stop(shardMatchingTimers[shard]);
+        if (potentialMessagesCount == maxCouples) {
+            // there is a backlog: match more couples at once next time
+            batchSize.set(Math.min(MAX_COUPLES, maxCouples * 2));
+            logger.debug("There are more than {} message/event couples to match. " +
+                    "Will trigger the execution again now, to match more couples", maxCouples);
+            scheduleMatching(shard);
+            retriggeredMatchingTasksCounter.increment();
+        } else if (potentialMessagesCount < maxCouples / 4) {
+            batchSize.set(Math.max(MIN_COUPLES, maxCouples / 2));
+        }
+    }
+
+    private List<SMessageEventCouple> getPotentialMessageCouples(int shard, int maxCouples) throws SBonitaException {
+        if (numberOfShards == 1) {
+            return eventInstanceService.getMessageEventCouples(0, maxCouples);
+        }
+        // names are paged so that the IN clause of the couples query never has more than 1000 names (Oracle limit)
+        final List<SMessageEventCouple> couples = new ArrayList<>();
+        String lastMessageName = null;
+        List<String> messageNames;
+        do {
+            messageNames = eventInstanceService.getMessageNamesOfUnhandledMessages(lastMessageName,
+                    MESSAGE_NAMES_PAGE_SIZE);
+            final List<String> messageNamesOfShard = new ArrayList<>();
+            for (String messageName : messageNames) {
+                if (getShard(messageName) == shard) {
+                    messageNamesOfShard.add(messageName);
+                }
+            }
+            if (!messageNamesOfShard.isEmpty()) {
+                couples.addAll(eventInstanceService.getMessageEventCouples(messageNamesOfShard, 0,
+                        maxCouples - couples.size()));
+            }
+            if (!messageNames.isEmpty()) {
+                lastMessageName = messageNames.get(messageNames.size() - 1);
+            }
+        } while (messageNames.size() == MESSAGE_NAMES_PAGE_SIZE && couples.size() < maxCouples);
+        return couples;
     }
 
     private void executeUniqueMessageCouplesWork(final List<SMessageEventCouple> uniqueCouples)
@@ -219,8 +343,8 @@ public class MessagesHandlingService implements TenantLifecycleService {
      *         waiting message.
      */
     List<SMessageEventCouple> getMessageUniqueCouples(List<SMessageEventCouple> potentialMessageCouples) {
-        final List<Long> takenMessages = new ArrayList<>();
-        final List<Long> takenWaitings = new ArrayList<>();
+        final Set<Long> takenMessages = new HashSet<>();
+        final Set<Long> takenWaitings = new HashSet<>();
         final List<SMessageEventCouple> uniqueMessageCouples = new ArrayList<>();
         for (final SMessageEventCouple couple : potentialMessageCouples) {
             final long messageInstanceId = couple.getMessageInstanceId();
@@ -292,12 +416,21 @@ public class MessagesHandlingService implements TenantLifecycleService {
 
     private class MessagesMatchingTask implements Callable<Void> {
 
+        private final int shard;
+
+        private MessagesMatchingTask(int shard) {
+            this.shard = shard;
+        }
+
         @Override
         public Void call() throws Exception {
+            // triggers received from now on must schedule a new execution
+            shardScheduled[shard].set(false);
             try {
-                logger.debug("Starting messages matching");
-                // we use a lock in order to have only one execution at a time even in cluster
-                BonitaLock eventLock = lockService.tryLock(1L, LOCK_TYPE, 1L, TimeUnit.MILLISECONDS, tenantId);
+                logger.debug("Starting messages matching of shard {}", shard);
+                // we use a lock in order to have only one execution at a time of a shard even in cluster
+                BonitaLock eventLock = lockService.tryLock(shard + 1L, LOCK_TYPE, 1L, TimeUnit.MILLISECONDS,
+                        tenantId);
                 if (eventLock == null) {
                     // It could happen that some messages were still not triggered because the work that is currently
                     // executing was started after the last message execution
@@ -307,7 +440,7 @@ public class MessagesHandlingService implements TenantLifecycleService {
                 }
                 try {
                     sessionAccessor.setTenantId(tenantId);
-                    matchEventCoupleAndTriggerExecution();
+                    matchEventCoupleAndTriggerExecution(shard);
                 } finally {
                     lockService.unlock(eventLock, tenantId);
                 }
@@ -322,13 +455,26 @@ public class MessagesHandlingService implements TenantLifecycleService {
 
     private class RegisterMessagesMatchingSynchronization implements BonitaTransactionSynchronization {
 
+        // -1 for all shards
+        private final int shard;
+
+        private RegisterMessagesMatchingSynchronization(int shard) {
+            this.shard = shard;
+        }
+
         @Override
         public void beforeCommit() {
         }
 
         @Override
         public void afterCompletion(TransactionState txState) {
-            threadPoolExecutor.submit(new MessagesMatchingTask());
+            if (shard < 0) {
+                for (int i = 0; i < numberOfShards; i++) {
+                    scheduleMatching(i);
+                }
+            } else {
+                scheduleMatching(shard);
+            }
             logger.debug("Messages matching task registered");
         }
     }
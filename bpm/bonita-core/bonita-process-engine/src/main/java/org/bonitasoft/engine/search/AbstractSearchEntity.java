@@ -53,6 +53,8 @@ public abstract class AbstractSearchEntity<C extends Serializable, S extends Per
 
     private List<C> clientObjects;
 
+    private String continuationToken;
+
     /**
      * @param searchDescriptor
      *        The search descriptor of the searched entity
@@ -99,13 +101,30 @@ public abstract class AbstractSearchEntity<C extends Serializable, S extends Per
             final OrderByOption order = searchDescriptor.getEntityOrder(sort);
             orderOptions.add(order);
         }
-        final QueryOptions countOptions = new QueryOptions(0, QueryOptions.UNLIMITED_NUMBER_OF_RESULTS, null,
-                filterOptions, userSearchTerm);
-        count = executeCount(countOptions);
-        if (count > 0 && numberOfResults != 0) {
-            final QueryOptions searchOptions = new QueryOptions(fromIndex, numberOfResults, orderOptions, filterOptions,
-                    userSearchTerm);
-            serverObjects = executeSearch(searchOptions);
+        if (options.isCountSkipped()) {
+            count = SearchResult.UNKNOWN_COUNT;
+        } else {
+            final QueryOptions countOptions = new QueryOptions(0, QueryOptions.UNLIMITED_NUMBER_OF_RESULTS, null,
+                    filterOptions, userSearchTerm);
+            count = executeCount(countOptions);
+        }
+        continuationToken = null;
+        if (count != 0 && numberOfResults != 0) {
+            if (options.isKeysetPagination()) {
+                final KeysetPagination keysetPagination = new KeysetPagination(orderOptions);
+                final QueryOptions searchOptions = new QueryOptions(0, numberOfResults,
+                        keysetPagination.getOrderByOptions(),
+                        keysetPagination.getFilters(filterOptions, options.getContinuationToken()), userSearchTerm);
+                serverObjects = executeSearch(searchOptions);
+                if (serverObjects.size() == numberOfResults) {
+                    continuationToken = keysetPagination
+                            .getContinuationToken(serverObjects.get(serverObjects.size() - 1));
+                }
+            } else {
+                final QueryOptions searchOptions = new QueryOptions(fromIndex, numberOfResults, orderOptions,
+                        filterOptions, userSearchTerm);
+                serverObjects = executeSearch(searchOptions);
+            }
         } else {
             serverObjects = Collections.emptyList();
         }
@@ -157,7 +176,7 @@ public abstract class AbstractSearchEntity<C extends Serializable, S extends Per
 
     @Override
     public SearchResult<C> getResult() {
-        return new SearchResultImpl<>(count, clientObjects);
+        return new SearchResultImpl<>(count, clientObjects, continuationToken);
     }
 
     protected SearchFilter getSearchFilter(final SearchOptions searchOptions, final String searchedKey) {
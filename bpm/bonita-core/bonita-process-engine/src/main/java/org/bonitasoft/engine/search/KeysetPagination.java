@@ -0,0 +1,203 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+import org.bonitasoft.engine.commons.ClassReflector;
+import org.bonitasoft.engine.commons.exceptions.SReflectException;
+import org.bonitasoft.engine.persistence.FilterOption;
+import org.bonitasoft.engine.persistence.OrderByOption;
+import org.bonitasoft.engine.persistence.OrderByType;
+import org.bonitasoft.engine.persistence.PersistentObject;
+import org.bonitasoft.engine.persistence.SBonitaReadException;
+import org.bonitasoft.engine.persistence.search.FilterOperationType;
+
+/**
+ * Keyset (a.k.a. seek) pagination of a search sorted on one field: instead of skipping the results of the previous
+ * pages, the next page is selected with a condition on the sort field value and the id of the last result of the
+ * previous page. Results having the same sort value are ordered by id, like the order by generated by the persistence
+ * service does.
+ * <p>
+ * The position of the last result is given to the client as an opaque continuation token.
+ */
+class KeysetPagination {
+
+    private static final String ID = "id";
+    private static final String SEPARATOR = "|";
+
+    private final OrderByOption sort;
+
+    KeysetPagination(final List<OrderByOption> orderByOptions) throws SBonitaReadException {
+        if (orderByOptions.size() != 1) {
+            throw new SBonitaReadException(
+                    "Keyset pagination needs exactly one sort but " + orderByOptions.size() + " were given");
+        }
+        sort = orderByOptions.get(0);
+        if (sort.getClazz() == null) {
+            throw new SBonitaReadException("Keyset pagination is not supported on sort field " + sort.getFieldName());
+        }
+    }
+
+    private boolean isSortedById() {
+        return ID.equals(sort.getFieldName());
+    }
+
+    private boolean isAscending() {
+        return sort.getOrderByType().name().startsWith("ASC");
+    }
+
+    List<OrderByOption> getOrderByOptions() {
+        if (isSortedById()) {
+            return Collections.singletonList(sort);
+        }
+        return Arrays.asList(sort, new OrderByOption(sort.getClazz(), ID, OrderByType.ASC));
+    }
+
+    /**
+     * @return the filters of the search restricted to the results following the position given by the token
+     */
+    List<FilterOption> getFilters(final List<FilterOption> searchFilters, final String continuationToken)
+            throws SBonitaReadException {
+        if (continuationToken == null) {
+            return searchFilters;
+        }
+        final Position position = decode(continuationToken);
+        final Class<? extends PersistentObject> clazz = sort.getClazz();
+        final FilterOperationType afterValue = isAscending() ? FilterOperationType.GREATER : FilterOperationType.LESS;
+        final List<FilterOption> filters = new ArrayList<>(searchFilters.size() + 10);
+        if (!searchFilters.isEmpty()) {
+            // search filters can contain OR operators
+            filters.add(new FilterOption(FilterOperationType.L_PARENTHESIS));
+            filters.addAll(searchFilters);
+            filters.add(new FilterOption(FilterOperationType.R_PARENTHESIS));
+        }
+        filters.add(new FilterOption(FilterOperationType.L_PARENTHESIS));
+        filters.add(new FilterOption(clazz, sort.getFieldName(), position.value, afterValue));
+        if (!isSortedById()) {
+            // sortField > value OR (sortField = value AND id > lastId)
+            filters.add(FilterOption.or());
+            filters.add(new FilterOption(FilterOperationType.L_PARENTHESIS));
+            filters.add(new FilterOption(clazz, sort.getFieldName(), position.value));
+            filters.add(new FilterOption(clazz, ID, position.id, FilterOperationType.GREATER));
+            filters.add(new FilterOption(FilterOperationType.R_PARENTHESIS));
+        }
+        filters.add(new FilterOption(FilterOperationType.R_PARENTHESIS));
+        return filters;
+    }
+
+    /**
+     * @return the token giving the position of the given result, i.e. the last result of a page
+     */
+    String getContinuationToken(final PersistentObject lastResult) throws SBonitaReadException {
+        final Object value = getSortValue(lastResult);
+        if (value == null) {
+            throw new SBonitaReadException("Keyset pagination needs a sort field that is never null but "
+                    + sort.getFieldName() + " of result with id " + lastResult.getId() + " is null");
+        }
+        final String token = sort.getFieldName() + SEPARATOR + lastResult.getId() + SEPARATOR
+                + ValueType.of(value).name() + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Object getSortValue(final PersistentObject result) throws SBonitaReadException {
+        if (isSortedById()) {
+            return result.getId();
+        }
+        final String fieldName = sort.getFieldName();
+        try {
+            return ClassReflector.invokeGetter(result, ClassReflector.getGetterName(fieldName));
+        } catch (final SReflectException e) {
+            try {
+                return ClassReflector.invokeGetter(result, ClassReflector.getGetterName(fieldName, Boolean.class));
+            } catch (final SReflectException e2) {
+                throw new SBonitaReadException("Keyset pagination is not supported on sort field " + fieldName, e);
+            }
+        }
+    }
+
+    private Position decode(final String continuationToken) throws SBonitaReadException {
+        try {
+            final String token = new String(Base64.getUrlDecoder().decode(continuationToken), StandardCharsets.UTF_8);
+            final String[] parts = token.split("\\" + SEPARATOR, 4);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("missing parts");
+            }
+            if (!parts[0].equals(sort.getFieldName())) {
+                throw new SBonitaReadException("The continuation token was given for a search sorted on " + parts[0]
+                        + " but this search is sorted on " + sort.getFieldName());
+            }
+            return new Position(Long.parseLong(parts[1]), ValueType.valueOf(parts[2]).parse(parts[3]));
+        } catch (final IllegalArgumentException e) {
+            throw new SBonitaReadException("Invalid continuation token: " + continuationToken, e);
+        }
+    }
+
+    private static final class Position {
+
+        private final long id;
+        private final Object value;
+
+        Position(final long id, final Object value) {
+            this.id = id;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Types of sort values that can be written in a token, tokens come from clients so values are never deserialized
+     */
+    private enum ValueType {
+
+        STRING, LONG, INTEGER, BOOLEAN, DOUBLE;
+
+        static ValueType of(final Object value) throws SBonitaReadException {
+            if (value instanceof String) {
+                return STRING;
+            } else if (value instanceof Long) {
+                return LONG;
+            } else if (value instanceof Integer) {
+                return INTEGER;
+            } else if (value instanceof Boolean) {
+                return BOOLEAN;
+            } else if (value instanceof Double) {
+                return DOUBLE;
+            }
+            throw new SBonitaReadException(
+                    "Keyset pagination is not supported on values of type " + value.getClass().getName());
+        }
+
+        Object parse(final String value) {
+            switch (this) {
+                case LONG:
+                    return Long.valueOf(value);
+                case INTEGER:
+                    return Integer.valueOf(value);
+                case BOOLEAN:
+                    return Boolean.valueOf(value);
+                case DOUBLE:
+                    return Double.valueOf(value);
+                case STRING:
+                default:
+                    return value;
+            }
+        }
+    }
+
+}
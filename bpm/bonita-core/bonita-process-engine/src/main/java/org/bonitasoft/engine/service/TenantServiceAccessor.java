@@ -81,6 +81,7 @@ import org.bonitasoft.engine.scheduler.JobService;
 import org.bonitasoft.engine.scheduler.SchedulerService;
 import org.bonitasoft.engine.search.descriptor.SearchEntitiesDescriptor;
 import org.bonitasoft.engine.services.QueriableLoggerService;
+import org.bonitasoft.engine.services.TenantPersistenceService;
 import org.bonitasoft.engine.session.SessionService;
 import org.bonitasoft.engine.sessionaccessor.SessionAccessor;
 import org.bonitasoft.engine.supervisor.mapping.SupervisorMappingService;
@@ -251,6 +252,8 @@ public interface TenantServiceAccessor extends ServiceAccessor {
 
     ReadPersistenceService getReadPersistenceService();
 
+    TenantPersistenceService getTenantPersistenceService();
+
     Recorder getRecorder();
 
     BusinessArchiveService getBusinessArchiveService();
@@ -84,6 +84,7 @@ import org.bonitasoft.engine.search.descriptor.SearchEntitiesDescriptor;
 import org.bonitasoft.engine.service.PermissionService;
 import org.bonitasoft.engine.service.TenantServiceAccessor;
 import org.bonitasoft.engine.services.QueriableLoggerService;
+import org.bonitasoft.engine.services.TenantPersistenceService;
 import org.bonitasoft.engine.session.SessionService;
 import org.bonitasoft.engine.sessionaccessor.SessionAccessor;
 import org.bonitasoft.engine.supervisor.mapping.SupervisorMappingService;
@@ -475,6 +476,11 @@ public class SpringTenantServiceAccessor implements TenantServiceAccessor {
         return beanAccessor.getService("persistenceService");
     }
 
+    @Override
+    public TenantPersistenceService getTenantPersistenceService() {
+        return beanAccessor.getService("persistenceService");
+    }
+
     @Override
     public Recorder getRecorder() {
         return beanAccessor.getService(Recorder.class);
@@ -18,4 +18,11 @@ public interface TenantElementsRestartSupervisor {
     boolean shouldRestartElements();
 
     boolean willRestartElements();
+
+    /**
+     * @return true when only this node runs on the tenant, false when one node restarts the elements of all nodes
+     */
+    default boolean isSingleNode() {
+        return false;
+    }
 }
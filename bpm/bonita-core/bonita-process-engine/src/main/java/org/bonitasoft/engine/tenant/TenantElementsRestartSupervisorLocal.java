@@ -55,4 +55,9 @@ public class TenantElementsRestartSupervisorLocal implements TenantLifecycleServ
         }
     }
 
+    @Override
+    public boolean isSingleNode() {
+        return true;
+    }
+
 }
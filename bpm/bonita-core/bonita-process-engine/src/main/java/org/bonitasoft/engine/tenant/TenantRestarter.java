@@ -14,17 +14,21 @@
 package org.bonitasoft.engine.tenant;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
+import lombok.extern.slf4j.Slf4j;
 import org.bonitasoft.engine.api.impl.StarterThread;
 import org.bonitasoft.engine.execution.work.RestartException;
 import org.bonitasoft.engine.platform.PlatformService;
 import org.bonitasoft.engine.session.SessionService;
 import org.bonitasoft.engine.sessionaccessor.SessionAccessor;
 import org.bonitasoft.engine.tenant.restart.TenantRestartHandler;
+import org.bonitasoft.engine.tenant.restart.WorkJournalRestartHandler;
 import org.bonitasoft.engine.transaction.BonitaTransactionSynchronization;
 import org.bonitasoft.engine.transaction.STransactionNotFoundException;
 import org.bonitasoft.engine.transaction.TransactionState;
 import org.bonitasoft.engine.transaction.UserTransactionService;
+import org.bonitasoft.engine.work.WorkJournal;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -32,6 +36,7 @@ import org.springframework.stereotype.Component;
  * @author Baptiste Mesta
  */
 @Component
+@Slf4j
 public class TenantRestarter {
 
     private UserTransactionService transactionService;
@@ -40,16 +45,21 @@ public class TenantRestarter {
     private SessionAccessor sessionAccessor;
     private SessionService sessionService;
     private PlatformService platformService;
+    private WorkJournal workJournal;
+    private TenantElementsRestartSupervisor tenantElementsRestartSupervisor;
 
     public TenantRestarter(@Value("${tenantId}") Long tenantId, UserTransactionService transactionService,
             SessionAccessor sessionAccessor, SessionService sessionService,
-            PlatformService platformService, List<TenantRestartHandler> tenantRestartHandlers) {
+            PlatformService platformService, List<TenantRestartHandler> tenantRestartHandlers,
+            WorkJournal workJournal, TenantElementsRestartSupervisor tenantElementsRestartSupervisor) {
         this.tenantId = tenantId;
         this.transactionService = transactionService;
         this.sessionAccessor = sessionAccessor;
         this.sessionService = sessionService;
         this.platformService = platformService;
         this.tenantRestartHandlers = tenantRestartHandlers;
+        this.workJournal = workJournal;
+        this.tenantElementsRestartSupervisor = tenantElementsRestartSupervisor;
     }
 
     public List<TenantRestartHandler> executeBeforeServicesStart() throws Exception {
@@ -60,10 +70,32 @@ public class TenantRestarter {
     }
 
     private List<TenantRestartHandler> beforeServicesStart() throws RestartException {
-        for (TenantRestartHandler tenantRestartHandler : tenantRestartHandlers) {
+        final List<TenantRestartHandler> handlersToExecute = getHandlersToExecute(tenantRestartHandlers);
+        for (TenantRestartHandler tenantRestartHandler : handlersToExecute) {
             tenantRestartHandler.beforeServicesStart();
         }
-        return tenantRestartHandlers;
+        return handlersToExecute;
+    }
+
+    /**
+     * @return the given handlers, except the ones searching works to register again when these works are recovered
+     *         from the journal. The journal is only used on a single node: in a cluster, the node restarting the
+     *         elements would only recover its own works, so elements are always searched in the database.
+     */
+    private List<TenantRestartHandler> getHandlersToExecute(List<TenantRestartHandler> tenantRestartHandlers) {
+        if (!tenantElementsRestartSupervisor.isSingleNode()) {
+            if (workJournal.canRecoverWorks()) {
+                log.warn("The journal of works is ignored on restart of tenant {}: it is only supported on a single "
+                        + "node, elements to restart are searched in the database", tenantId);
+            }
+            return tenantRestartHandlers.stream().filter(handler -> !(handler instanceof WorkJournalRestartHandler))
+                    .collect(Collectors.toList());
+        }
+        if (!workJournal.canRecoverWorks()) {
+            return tenantRestartHandlers;
+        }
+        return tenantRestartHandlers.stream().filter(handler -> !handler.rebuildsUncompletedWorks())
+                .collect(Collectors.toList());
     }
 
     public void executeAfterServicesStart(List<TenantRestartHandler> tenantRestartHandlers)
@@ -77,7 +109,7 @@ public class TenantRestarter {
 
     private void afterServicesStart(List<TenantRestartHandler> tenantRestartHandlers) {
         new StarterThread(tenantId, sessionAccessor, transactionService, platformService,
-                tenantRestartHandlers).start();
+                getHandlersToExecute(tenantRestartHandlers)).start();
     }
 
     private void executeAfterServicesStartAfterCurrentTransaction(
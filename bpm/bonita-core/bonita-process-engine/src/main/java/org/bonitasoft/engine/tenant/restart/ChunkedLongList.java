@@ -0,0 +1,64 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.tenant.restart;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Append-only list of longs stored in chunks of primitive arrays.
+ * <p>
+ * It keeps a large number of ids with 8 bytes per id, without copying them when it grows. Values are boxed only when
+ * they are read.
+ */
+final class ChunkedLongList extends AbstractList<Long> implements RandomAccess {
+
+    private final int chunkSize;
+    private final List<long[]> chunks = new ArrayList<>();
+    private int size;
+
+    ChunkedLongList(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunk size must be greater than 0 but was " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public boolean add(Long value) {
+        final int offset = size % chunkSize;
+        if (offset == 0) {
+            chunks.add(new long[chunkSize]);
+        }
+        chunks.get(chunks.size() - 1)[offset] = value;
+        size++;
+        return true;
+    }
+
+    @Override
+    public Long get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return chunks.get(index / chunkSize)[index % chunkSize];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+}
@@ -18,7 +18,13 @@ import static org.bonitasoft.engine.commons.CollectionUtil.split;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import org.bonitasoft.engine.commons.exceptions.SBonitaException;
 import org.bonitasoft.engine.core.process.definition.ProcessDefinitionService;
 import org.bonitasoft.engine.core.process.definition.model.SFlowNodeType;
@@ -34,6 +40,7 @@ import org.bonitasoft.engine.execution.work.BPMWorkFactory;
 import org.bonitasoft.engine.log.technical.TechnicalLogger;
 import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
 import org.bonitasoft.engine.transaction.UserTransactionService;
+import org.bonitasoft.engine.work.WorkExecutorService;
 import org.bonitasoft.engine.work.WorkService;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
@@ -46,11 +53,22 @@ import org.springframework.stereotype.Component;
  * <p>
  * It will restart these elements using multiple transaction using a batch size configured by the property
  * `bonita.tenant.work.batch_restart_size`
+ * <p>
+ * Before each batch, it waits until the number of works pending in the work executor of the tenant is lower than the
+ * property `bonita.tenant.work.restart.maxPendingWorks`, so that the restart does not flood the work queue while the
+ * node already serves API calls. Progress is published in the metrics
+ * {@value #NUMBER_OF_FLOWNODES_TO_RESTART} and {@value #NUMBER_OF_FLOWNODES_RESTARTED}, the latter only counting the
+ * flow nodes of batches that succeeded.
  */
 @Component
 public class ExecuteFlowNodes {
 
+    public static final String NUMBER_OF_FLOWNODES_TO_RESTART = "bonita.bpmengine.restart.flownodes.remaining";
+    public static final String NUMBER_OF_FLOWNODES_RESTARTED = "bonita.bpmengine.restart.flownodes.restarted";
+    private static final long PENDING_WORKS_POLL_INTERVAL_MILLIS = 200;
+
     private final WorkService workService;
+    private final WorkExecutorService workExecutorService;
     private final BPMWorkFactory workFactory;
     private final TechnicalLogger logger;
     private final ActivityInstanceService activityInstanceService;
@@ -59,15 +77,21 @@ public class ExecuteFlowNodes {
     private final FlowNodeStateManager flowNodeStateManager;
     private final UserTransactionService userTransactionService;
     private final int batchRestartSize;
+    private final int maxPendingWorks;
+    private final AtomicLong flowNodesToRestart = new AtomicLong();
+    private final Counter flowNodesRestartedCounter;
 
-    public ExecuteFlowNodes(WorkService workService,
+    public ExecuteFlowNodes(WorkService workService, WorkExecutorService workExecutorService,
             @Qualifier("tenantTechnicalLoggerService") TechnicalLoggerService logger,
             ActivityInstanceService activityInstanceService, GatewayInstanceService gatewayInstanceService,
             ProcessDefinitionService processDefinitionService,
             FlowNodeStateManager flowNodeStateManager, BPMWorkFactory workFactory,
             UserTransactionService userTransactionService,
-            @Value("${bonita.tenant.work.batch_restart_size:1000}") int batchRestartSize) {
+            @Value("${bonita.tenant.work.batch_restart_size:1000}") int batchRestartSize,
+            MeterRegistry meterRegistry, @Value("${tenantId}") long tenantId,
+            @Value("${bonita.tenant.work.restart.maxPendingWorks:10000}") int maxPendingWorks) {
         this.workService = workService;
+        this.workExecutorService = workExecutorService;
         this.workFactory = workFactory;
         this.logger = logger.asLogger(ExecuteFlowNodes.class);
         this.activityInstanceService = activityInstanceService;
@@ -76,26 +100,68 @@ public class ExecuteFlowNodes {
         this.flowNodeStateManager = flowNodeStateManager;
         this.userTransactionService = userTransactionService;
         this.batchRestartSize = batchRestartSize;
+        this.maxPendingWorks = maxPendingWorks;
+        Tags tags = Tags.of("tenant", String.valueOf(tenantId));
+        Gauge.builder(NUMBER_OF_FLOWNODES_TO_RESTART, flowNodesToRestart, AtomicLong::get)
+                .tags(tags).baseUnit("flownodes").description("Flow nodes remaining to be restarted")
+                .register(meterRegistry);
+        flowNodesRestartedCounter = Counter.builder(NUMBER_OF_FLOWNODES_RESTARTED)
+                .tags(tags).baseUnit("flownodes").description("Flow nodes restarted since last server start")
+                .register(meterRegistry);
     }
 
     public void executeFlowNodes(List<Long> flowNodeIds) {
         ExecutionMonitor executionMonitor = new ExecutionMonitor(flowNodeIds.size());
+        flowNodesToRestart.set(flowNodeIds.size());
         for (List<Long> batchedFlowNodeIds : split(flowNodeIds, batchRestartSize)) {
+            try {
+                if (!waitForPendingWorksBelowLimit()) {
+                    logger.warn("Restart of flow nodes stopped because the work service is stopped, {} flow nodes "
+                            + "will be restarted on next start", flowNodesToRestart.get());
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Restart of flow nodes interrupted, {} flow nodes will be restarted on next start",
+                        flowNodesToRestart.get());
+                return;
+            }
             try {
                 userTransactionService.executeInTransaction(() -> {
                     executeBatch(executionMonitor, batchedFlowNodeIds);
                     return null;
                 });
+                flowNodesRestartedCounter.increment(batchedFlowNodeIds.size());
             } catch (Exception e) {
                 logger.error(
                         "Error processing batch of flow nodes to restart, the following flow nodes might need to be restarted manually: {}",
                         batchedFlowNodeIds, e);
             }
+            flowNodesToRestart.addAndGet(-batchedFlowNodeIds.size());
             executionMonitor.printProgress();
         }
         executionMonitor.printSummary();
     }
 
+    /**
+     * @return false when the work service was stopped while waiting: pending works will not be executed anymore
+     */
+    private boolean waitForPendingWorksBelowLimit() throws InterruptedException {
+        if (maxPendingWorks <= 0) {
+            return true;
+        }
+        while (workExecutorService.getNumberOfPendingWorks() >= maxPendingWorks) {
+            if (workService.isStopped()) {
+                return false;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            TimeUnit.MILLISECONDS.sleep(PENDING_WORKS_POLL_INTERVAL_MILLIS);
+        }
+        return true;
+    }
+
     public void executeBatch(ExecutionMonitor executionMonitor, List<Long> flowNodeIds) throws SBonitaException {
         List<Long> unprocessed = new ArrayList<>(flowNodeIds);
         List<SFlowNodeInstance> flowNodeInstances = activityInstanceService.getFlowNodeInstancesByIds(flowNodeIds);
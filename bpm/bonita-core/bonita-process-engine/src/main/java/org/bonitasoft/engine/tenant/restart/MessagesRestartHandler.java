@@ -89,4 +89,9 @@ public class MessagesRestartHandler implements TenantRestartHandler {
                     e);
         }
     }
+
+    @Override
+    public boolean rebuildsUncompletedWorks() {
+        return true;
+    }
 }
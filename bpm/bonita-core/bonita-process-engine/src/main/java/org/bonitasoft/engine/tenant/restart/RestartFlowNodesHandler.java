@@ -13,7 +13,6 @@
  **/
 package org.bonitasoft.engine.tenant.restart;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,7 +24,6 @@ import org.bonitasoft.engine.execution.work.NotifyChildFinishedWork;
 import org.bonitasoft.engine.execution.work.RestartException;
 import org.bonitasoft.engine.log.technical.TechnicalLogSeverity;
 import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
-import org.bonitasoft.engine.persistence.QueryOptions;
 import org.bonitasoft.engine.persistence.SBonitaReadException;
 import org.bonitasoft.engine.transaction.UserTransactionService;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -43,6 +41,11 @@ import org.springframework.stereotype.Component;
 @Component
 public class RestartFlowNodesHandler implements TenantRestartHandler {
 
+    // using a too low page size (100) causes too many access to the database and causes timeout exception if there
+    // are lot of elements. As we retrieve only the id we can use a greater page size
+    static final int PAGE_SIZE = 50000;
+    private static final int IDS_CHUNK_SIZE = 8192;
+
     //the handler is executed on one tenant only but we keep a map by tenant because this class is a singleton
     //It should not be a singleton but have a factory to create it
     final Map<Long, List<Long>> flownodesToRestartByTenant = new HashMap<>();
@@ -69,20 +72,22 @@ public class RestartFlowNodesHandler implements TenantRestartHandler {
             throws RestartException {
         flownodesToRestartByTenant.clear();
         try {
-            final ArrayList<Long> flownodesToRestart = new ArrayList<>();
+            // ids are kept as primitive longs: there can be millions of them after a crash
+            final ChunkedLongList flownodesToRestart = new ChunkedLongList(IDS_CHUNK_SIZE);
             flownodesToRestartByTenant.put(tenantId, flownodesToRestart);
 
-            // using a too low page size (100) causes too many access to the database and causes timeout exception if there are lot of elements.
-            // As we retrieve only the id we can use a greater page size
-            QueryOptions queryOptions = new QueryOptions(0, 50000);
+            // ids are read by pages starting after the last id read, so that reading a page does not get slower
+            // as we go deeper in the table
+            long lastId = Long.MIN_VALUE;
             List<Long> ids;
             logInfo("Start detecting flow nodes to restart on tenant " + tenantId + "...");
             do {
-                ids = flowNodeInstanceService.getFlowNodeInstanceIdsToRestart(queryOptions);
+                ids = flowNodeInstanceService.getFlowNodeInstanceIdsToRestart(lastId, PAGE_SIZE);
                 flownodesToRestart.addAll(ids);
-                queryOptions = QueryOptions.getNextPage(queryOptions);
-
-            } while (ids.size() == queryOptions.getNumberOfResults());
+                if (!ids.isEmpty()) {
+                    lastId = ids.get(ids.size() - 1);
+                }
+            } while (ids.size() == PAGE_SIZE);
             logInfo("Found " + flownodesToRestart.size() + " flow nodes to restart on tenant " + tenantId);
         } catch (final SBonitaReadException e) {
             throw new RestartException("Unable to detect flow nodes as to be restarted on tenant " + tenantId, e);
@@ -100,6 +105,12 @@ public class RestartFlowNodesHandler implements TenantRestartHandler {
         final List<Long> flownodesIds = flownodesToRestartByTenant.get(tenantId);
         logInfo("Restarting " + flownodesIds.size() + " flow nodes for tenant " + tenantId);
         executeFlowNodes.executeFlowNodes(flownodesIds);
+        flownodesToRestartByTenant.remove(tenantId);
         logInfo("All flow nodes to be restarted on tenant " + tenantId + " have been handled");
     }
+
+    @Override
+    public boolean rebuildsUncompletedWorks() {
+        return true;
+    }
 }
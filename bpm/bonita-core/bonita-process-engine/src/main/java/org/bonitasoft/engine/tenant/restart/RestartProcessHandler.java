@@ -122,6 +122,11 @@ public class RestartProcessHandler implements TenantRestartHandler {
         logInfo(logger, "All processes to be restarted on tenant " + tenantId + " have been handled");
     }
 
+    @Override
+    public boolean rebuildsUncompletedWorks() {
+        return true;
+    }
+
     protected void handleCompletion(final SProcessInstance processInstance, final TechnicalLoggerService logger,
             final ActivityInstanceService activityInstanceService, final WorkService workService,
             FlowNodeStateManager flowNodeStateManager, BPMWorkFactory workFactory)
@@ -15,6 +15,7 @@ package org.bonitasoft.engine.tenant.restart;
 
 import org.bonitasoft.engine.api.PlatformAPI;
 import org.bonitasoft.engine.execution.work.RestartException;
+import org.bonitasoft.engine.work.WorkJournal;
 
 /**
  * @author Baptiste Mesta
@@ -34,4 +35,12 @@ public interface TenantRestartHandler {
      */
     void afterServicesStart();
 
+    /**
+     * @return true if this handler searches elements that were being executed to register their works again, in which
+     *         case it is not executed when these works are recovered from the {@link WorkJournal}
+     */
+    default boolean rebuildsUncompletedWorks() {
+        return false;
+    }
+
 }
@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.tenant.restart;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.bonitasoft.engine.execution.work.RestartException;
+import org.bonitasoft.engine.log.technical.TechnicalLogger;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.bonitasoft.engine.work.SWorkException;
+import org.bonitasoft.engine.work.WorkDescriptor;
+import org.bonitasoft.engine.work.WorkExecutorService;
+import org.bonitasoft.engine.work.WorkJournal;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Executes again the works that were not completed when the node stopped, as recorded in the {@link WorkJournal}.
+ * <p>
+ * When the journal can recover works, handlers that search elements to restart in the database are not executed (see
+ * {@link TenantRestartHandler#rebuildsUncompletedWorks()}): the time to restart is proportional to the number of works
+ * that were in progress instead of to the size of the database.
+ */
+@Component
+public class WorkJournalRestartHandler implements TenantRestartHandler {
+
+    private final long tenantId;
+    private final TechnicalLogger logger;
+    private final WorkJournal workJournal;
+    private final WorkExecutorService workExecutorService;
+    private List<WorkDescriptor> worksToRestart = Collections.emptyList();
+
+    public WorkJournalRestartHandler(@Value("${tenantId}") long tenantId,
+            @Qualifier("tenantTechnicalLoggerService") TechnicalLoggerService logger, WorkJournal workJournal,
+            WorkExecutorService workExecutorService) {
+        this.tenantId = tenantId;
+        this.logger = logger.asLogger(WorkJournalRestartHandler.class);
+        this.workJournal = workJournal;
+        this.workExecutorService = workExecutorService;
+    }
+
+    @Override
+    public void beforeServicesStart() throws RestartException {
+        if (!workJournal.canRecoverWorks()) {
+            worksToRestart = Collections.emptyList();
+            return;
+        }
+        try {
+            worksToRestart = workJournal.getUncompletedWorks();
+        } catch (SWorkException e) {
+            throw new RestartException("Unable to read works to restart from the journal on tenant " + tenantId, e);
+        }
+        logger.info("Found {} uncompleted works to restart in the journal of tenant {}", worksToRestart.size(),
+                tenantId);
+    }
+
+    @Override
+    public void afterServicesStart() {
+        if (worksToRestart.isEmpty()) {
+            return;
+        }
+        logger.info("Restarting {} works of tenant {}", worksToRestart.size(), tenantId);
+        for (WorkDescriptor work : worksToRestart) {
+            // works are already in the journal, they are given directly to the executor
+            workExecutorService.execute(work);
+        }
+        worksToRestart = Collections.emptyList();
+        logger.info("All works to be restarted on tenant {} have been handled", tenantId);
+    }
+
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.api.impl;
+
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.bonitasoft.engine.api.NoSessionRequired;
+import org.bonitasoft.engine.api.impl.APIDispatchTable.APIMethod;
+import org.bonitasoft.engine.api.impl.transaction.CustomTransactions;
+import org.junit.Test;
+
+public class APIDispatchTableTest {
+
+    @Test
+    public void should_resolve_api_method_once() throws Exception {
+        final List<String> parameterTypes = new ArrayList<>(Arrays.asList("long", String.class.getName()));
+
+        final APIMethod apiMethod = APIDispatchTable.getAPIMethod(MyApiImpl.class, MyApi.class.getName(),
+                "concat", parameterTypes);
+        parameterTypes.clear();
+
+        assertThat(APIDispatchTable.getAPIMethod(MyApiImpl.class, MyApi.class.getName(), "concat",
+                Arrays.asList("long", String.class.getName()))).isSameAs(apiMethod);
+    }
+
+    @Test
+    public void should_invoke_api_method_with_primitive_and_object_parameters() throws Throwable {
+        final APIMethod apiMethod = APIDispatchTable.getAPIMethod(MyApiImpl.class, MyApi.class.getName(),
+                "concat", Arrays.asList("long", String.class.getName()));
+
+        assertThat(apiMethod.invoke(new MyApiImpl(), new Object[] { 12L, "value" })).isEqualTo("value12");
+    }
+
+    @Test
+    public void should_invoke_api_method_without_parameters() throws Throwable {
+        final MyApiImpl api = new MyApiImpl();
+        final APIMethod apiMethod = APIDispatchTable.getAPIMethod(MyApiImpl.class, MyApi.class.getName(),
+                "doSomething", emptyList());
+
+        assertThat(apiMethod.invoke(api, null)).isNull();
+        assertThat(api.doSomethingCalled).isTrue();
+    }
+
+    @Test
+    public void should_throw_exception_thrown_by_api_method() throws Exception {
+        final APIMethod apiMethod = APIDispatchTable.getAPIMethod(MyApiImpl.class, MyApi.class.getName(),
+                "fail", null);
+
+        assertThatThrownBy(() -> apiMethod.invoke(new MyApiImpl(), new Object[0]))
+                .isInstanceOf(IllegalStateException.class).hasMessage("failure");
+    }
+
+    @Test
+    public void should_precompute_transaction_and_session_flags() throws Exception {
+        assertThat(APIDispatchTable.getAPIMethod(MyApiImpl.class, MyApi.class.getName(), "doSomething", null)
+                .isInTransaction()).isTrue();
+        assertThat(APIDispatchTable.getAPIMethod(MyApiImpl.class, MyApi.class.getName(), "fail", null)
+                .isInTransaction()).isFalse();
+        assertThat(APIDispatchTable.getAPIMethod(MyApiImpl.class, MyApi.class.getName(), "fail", null)
+                .isSessionRequired()).isTrue();
+        final APIMethod noSessionMethod = APIDispatchTable.getAPIMethod(MyApiWithNoSessionImpl.class,
+                MyApiWithNoSession.class.getName(), "login", null);
+        assertThat(noSessionMethod.isSessionRequired()).isFalse();
+        assertThat(noSessionMethod.isInTransaction()).isFalse();
+    }
+
+    @Test
+    public void should_precompute_method_availability() throws Exception {
+        final ServerAPIImpl.MethodAvailability availability = APIDispatchTable
+                .getAPIMethod(MyApiImpl.class, MyApi.class.getName(), "fail", null).getAvailability();
+
+        assertThat(availability.isAvailableOnPausedTenant).isTrue();
+        assertThat(availability.isAvailableOnRunningTenant).isTrue();
+        assertThat(availability.isAvailableWhenPlatformIsStopped).isTrue();
+    }
+
+    @Test
+    public void should_throw_ClassNotFoundException_when_api_interface_is_not_known() {
+        assertThatThrownBy(() -> APIDispatchTable.getAPIInterface("UnknownApi"))
+                .isInstanceOf(ClassNotFoundException.class);
+    }
+
+    interface MyApi {
+
+        String concat(long number, String value);
+
+        void doSomething();
+
+        void fail();
+    }
+
+    static class MyApiImpl implements MyApi {
+
+        boolean doSomethingCalled;
+
+        @Override
+        public String concat(long number, String value) {
+            return value + number;
+        }
+
+        @Override
+        public void doSomething() {
+            doSomethingCalled = true;
+        }
+
+        @Override
+        @CustomTransactions
+        @AvailableWhenTenantIsPaused
+        @AvailableOnStoppedNode
+        public void fail() {
+            throw new IllegalStateException("failure");
+        }
+    }
+
+    @NoSessionRequired
+    interface MyApiWithNoSession {
+
+        void login();
+    }
+
+    static class MyApiWithNoSessionImpl implements MyApiWithNoSession {
+
+        @Override
+        public void login() {
+        }
+    }
+
+}
@@ -20,6 +20,10 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 
+import java.util.Arrays;
+import java.util.List;
+
+import org.bonitasoft.engine.actor.mapping.ActorMappingService;
 import org.bonitasoft.engine.bpm.flownode.ActivityInstanceNotFoundException;
 import org.bonitasoft.engine.commons.exceptions.SBonitaException;
 import org.bonitasoft.engine.commons.exceptions.SExecutionException;
@@ -47,6 +51,7 @@ public class TaskInvolvementDelegateTest {
     private static final long ASSIGNED_USER = 1234595L;
     private static final long USER_PENDING = 4545666L;
     private static final long PROCESS_DEFINITION_ID = 123456789L;
+    private static final List<Long> ACTOR_IDS = Arrays.asList(3L, 7L);
 
     @Rule
     public ExpectedException expectedException = ExpectedException.none();
@@ -54,6 +59,9 @@ public class TaskInvolvementDelegateTest {
     @Mock
     private ActivityInstanceService activityInstanceService;
 
+    @Mock
+    private ActorMappingService actorMappingService;
+
     @Mock
     TenantServiceAccessor tenantServiceAccessor;
 
@@ -140,7 +148,8 @@ public class TaskInvolvementDelegateTest {
     @Test
     public final void should_hasUserPendingOrAssignedTasks_return_true_when_user_has_tasks() throws Exception {
         //given
-        doReturn(5L).when(activityInstanceService).getNumberOfPendingOrAssignedTasks(eq(ASSIGNED_USER),
+        givenActorIdsOfUser();
+        doReturn(5L).when(activityInstanceService).getNumberOfPendingOrAssignedTasks(eq(ASSIGNED_USER), eq(ACTOR_IDS),
                 any(QueryOptions.class));
 
         // When
@@ -154,7 +163,8 @@ public class TaskInvolvementDelegateTest {
     @Test
     public final void should_hasUserPendingOrAssignedTasks_return_false_when_user_has_no_tasks() throws Exception {
         //given
-        doReturn(0L).when(activityInstanceService).getNumberOfPendingOrAssignedTasks(eq(ASSIGNED_USER),
+        givenActorIdsOfUser();
+        doReturn(0L).when(activityInstanceService).getNumberOfPendingOrAssignedTasks(eq(ASSIGNED_USER), eq(ACTOR_IDS),
                 any(QueryOptions.class));
 
         // When
@@ -168,8 +178,9 @@ public class TaskInvolvementDelegateTest {
     @Test
     public final void should_hasUserPendingOrAssignedTasks_fail_when_read_exception() throws Exception {
         //given
+        givenActorIdsOfUser();
         doThrow(SBonitaReadException.class).when(activityInstanceService)
-                .getNumberOfPendingOrAssignedTasks(eq(ASSIGNED_USER), any(QueryOptions.class));
+                .getNumberOfPendingOrAssignedTasks(eq(ASSIGNED_USER), eq(ACTOR_IDS), any(QueryOptions.class));
 
         //expect
         expectedException.expect(SExecutionException.class);
@@ -178,4 +189,22 @@ public class TaskInvolvementDelegateTest {
         taskInvolvementDelegate.hasUserPendingOrAssignedTasks(ASSIGNED_USER, 45621L);
 
     }
+
+    @Test
+    public final void should_hasUserPendingOrAssignedTasks_fail_when_actor_ids_cannot_be_read() throws Exception {
+        //given
+        doReturn(actorMappingService).when(tenantServiceAccessor).getActorMappingService();
+        doThrow(SBonitaReadException.class).when(actorMappingService).getActorIdsOfUser(ASSIGNED_USER);
+
+        //expect
+        expectedException.expect(SExecutionException.class);
+
+        // When
+        taskInvolvementDelegate.hasUserPendingOrAssignedTasks(ASSIGNED_USER, 45621L);
+    }
+
+    private void givenActorIdsOfUser() throws SBonitaReadException {
+        doReturn(actorMappingService).when(tenantServiceAccessor).getActorMappingService();
+        doReturn(ACTOR_IDS).when(actorMappingService).getActorIdsOfUser(ASSIGNED_USER);
+    }
 }
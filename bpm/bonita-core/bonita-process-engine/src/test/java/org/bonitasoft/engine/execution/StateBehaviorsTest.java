@@ -44,6 +44,7 @@ import org.bonitasoft.engine.core.process.definition.model.SUserTaskDefinition;
 import org.bonitasoft.engine.core.process.definition.model.impl.SConnectorDefinitionImpl;
 import org.bonitasoft.engine.core.process.instance.api.ActivityInstanceService;
 import org.bonitasoft.engine.core.process.instance.api.exceptions.SActivityStateExecutionException;
+import org.bonitasoft.engine.core.process.instance.model.SActivityInstance;
 import org.bonitasoft.engine.core.process.instance.model.SConnectorInstance;
 import org.bonitasoft.engine.core.process.instance.model.SFlowNodeInstance;
 import org.bonitasoft.engine.core.process.instance.model.SPendingActivityMapping;
@@ -92,6 +93,8 @@ public class StateBehaviorsTest {
     private ClassLoaderService classLoaderService;
     @Mock
     private ExpressionResolverService expressionResolverService;
+    @Mock
+    private ContainerRegistry containerRegistry;
     @InjectMocks
     private StateBehaviors stateBehaviors;
 
@@ -367,4 +370,31 @@ public class StateBehaviorsTest {
         //then
         assertThat(noConnectorStarted).isTrue();
     }
+
+    @Test
+    public void should_create_all_children_of_a_multi_instance_ahead_when_not_limited() {
+        assertThat(stateBehaviors.getNumberOfInstancesToCreateAhead(10000)).isEqualTo(10000);
+    }
+
+    @Test
+    public void should_limit_the_number_of_children_of_a_multi_instance_created_ahead() {
+        stateBehaviors.setMaxMultiInstanceChildrenCreatedAhead(100);
+
+        assertThat(stateBehaviors.getNumberOfInstancesToCreateAhead(10000)).isEqualTo(100);
+        assertThat(stateBehaviors.getNumberOfInstancesToCreateAhead(10)).isEqualTo(10);
+    }
+
+    @Test
+    public void should_register_the_execution_of_children_by_chunk() throws Exception {
+        //given
+        final List<SActivityInstance> children = Arrays.asList(mock(SActivityInstance.class),
+                mock(SActivityInstance.class));
+        doReturn(children).when(activityInstanceService).getChildrenOfAnActivity(flownodeInstanceId, 0, 500);
+        //when
+        stateBehaviors.executeChildrenActivities(flowNodeInstance);
+        //then
+        verify(containerRegistry).executeFlowNodes(children);
+        verify(containerRegistry, never()).executeFlowNode(any());
+    }
+
 }
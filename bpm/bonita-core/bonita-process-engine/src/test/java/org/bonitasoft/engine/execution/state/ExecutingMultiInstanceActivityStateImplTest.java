@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.execution.state;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.bonitasoft.engine.core.expression.control.api.ExpressionResolverService;
+import org.bonitasoft.engine.core.expression.control.model.SExpressionContext;
+import org.bonitasoft.engine.core.process.definition.model.SActivityDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SFlowElementContainerDefinition;
+import org.bonitasoft.engine.core.process.definition.model.SMultiInstanceLoopCharacteristics;
+import org.bonitasoft.engine.core.process.definition.model.SProcessDefinition;
+import org.bonitasoft.engine.core.process.instance.api.ActivityInstanceService;
+import org.bonitasoft.engine.core.process.instance.model.SAutomaticTaskInstance;
+import org.bonitasoft.engine.core.process.instance.model.SFlowNodeInstance;
+import org.bonitasoft.engine.core.process.instance.model.SMultiInstanceActivityInstance;
+import org.bonitasoft.engine.core.process.instance.model.SStateCategory;
+import org.bonitasoft.engine.execution.ContainerRegistry;
+import org.bonitasoft.engine.execution.StateBehaviors;
+import org.bonitasoft.engine.expression.model.SExpression;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ExecutingMultiInstanceActivityStateImplTest {
+
+    private static final long MULTI_INSTANCE_ACTIVITY_INSTANCE_ID = 789432L;
+    private static final long FLOW_NODE_DEFINITION_ID = 765311123L;
+    @Mock
+    private SProcessDefinition processDefinition;
+    @Mock
+    private SActivityDefinition activityDefinition;
+    @Mock
+    private SMultiInstanceLoopCharacteristics loopCharacteristics;
+    private SMultiInstanceActivityInstance multiInstance = new SMultiInstanceActivityInstance();
+    private SAutomaticTaskInstance child = new SAutomaticTaskInstance();
+    @Mock
+    ExpressionResolverService expressionResolverService;
+    @Mock
+    ContainerRegistry containerRegistry;
+    @Mock
+    ActivityInstanceService activityInstanceService;
+    @Mock
+    StateBehaviors stateBehaviors;
+    @InjectMocks
+    private ExecutingMultiInstanceActivityStateImpl state;
+
+    @Before
+    public void before() throws Exception {
+        multiInstance.setId(MULTI_INSTANCE_ACTIVITY_INSTANCE_ID);
+        multiInstance.setFlowNodeDefinitionId(FLOW_NODE_DEFINITION_ID);
+        multiInstance.setSequential(false);
+        SFlowElementContainerDefinition flowElementContainerDefinition = mock(SFlowElementContainerDefinition.class);
+        doReturn(flowElementContainerDefinition).when(processDefinition).getProcessContainer();
+        doReturn(activityDefinition).when(flowElementContainerDefinition).getFlowNode(FLOW_NODE_DEFINITION_ID);
+        doReturn(loopCharacteristics).when(activityDefinition).getLoopCharacteristics();
+    }
+
+    private void childrenCounts(int active, int completed, int terminated) {
+        multiInstance.setNumberOfActiveInstances(active);
+        multiInstance.setNumberOfCompletedInstances(completed);
+        multiInstance.setNumberOfTerminatedInstances(terminated);
+    }
+
+    @Test
+    public void hit_should_replace_the_completed_child_by_the_next_one_when_children_creation_is_limited()
+            throws Exception {
+        //given
+        childrenCounts(2, 1, 0);
+        doReturn(true).when(stateBehaviors).isMultiInstanceChildrenCreationLimited();
+        doReturn(true).when(stateBehaviors).shouldCreateANewInstance(loopCharacteristics, 3, multiInstance);
+        List<SFlowNodeInstance> nextChild = Collections.singletonList(new SAutomaticTaskInstance());
+        doReturn(nextChild).when(stateBehaviors).createInnerInstances(anyLong(), eq(activityDefinition),
+                eq(multiInstance), eq(1));
+        //when
+        boolean hit = state.hit(processDefinition, multiInstance, child);
+        //then
+        assertThat(hit).isFalse();
+        verify(stateBehaviors).createInnerInstances(anyLong(), eq(activityDefinition), eq(multiInstance), eq(1));
+        verify(containerRegistry).executeFlowNodes(nextChild);
+    }
+
+    @Test
+    public void hit_should_not_create_a_child_when_the_completion_condition_is_met() throws Exception {
+        //given
+        childrenCounts(2, 1, 0);
+        SExpression completionCondition = mock(SExpression.class);
+        doReturn(completionCondition).when(loopCharacteristics).getCompletionCondition();
+        doReturn(true).when(expressionResolverService).evaluate(eq(completionCondition),
+                any(SExpressionContext.class));
+        //when
+        state.hit(processDefinition, multiInstance, child);
+        //then
+        verify(stateBehaviors).interruptSubActivities(multiInstance, SStateCategory.ABORTING);
+        verify(stateBehaviors, never()).createInnerInstances(anyLong(), any(SActivityDefinition.class),
+                any(SMultiInstanceActivityInstance.class), anyInt());
+    }
+
+    @Test
+    public void hit_should_not_create_a_child_when_the_child_is_aborting() throws Exception {
+        //given
+        childrenCounts(2, 0, 1);
+        child.setStateCategory(SStateCategory.ABORTING);
+        //when
+        state.hit(processDefinition, multiInstance, child);
+        //then
+        verify(activityInstanceService).addMultiInstanceNumberOfTerminatedActivities(multiInstance, 1);
+        verify(stateBehaviors, never()).createInnerInstances(anyLong(), any(SActivityDefinition.class),
+                any(SMultiInstanceActivityInstance.class), anyInt());
+    }
+
+    @Test
+    public void hit_should_not_create_a_child_when_the_child_is_canceling() throws Exception {
+        //given
+        childrenCounts(2, 0, 1);
+        child.setStateCategory(SStateCategory.CANCELLING);
+        //when
+        state.hit(processDefinition, multiInstance, child);
+        //then
+        verify(activityInstanceService).addMultiInstanceNumberOfTerminatedActivities(multiInstance, 1);
+        verify(stateBehaviors, never()).createInnerInstances(anyLong(), any(SActivityDefinition.class),
+                any(SMultiInstanceActivityInstance.class), anyInt());
+    }
+
+    @Test
+    public void hit_should_complete_when_the_last_child_completes_and_children_creation_is_limited()
+            throws Exception {
+        //given
+        childrenCounts(0, 3, 0);
+        doReturn(true).when(stateBehaviors).isMultiInstanceChildrenCreationLimited();
+        doReturn(false).when(stateBehaviors).shouldCreateANewInstance(loopCharacteristics, 3, multiInstance);
+        //when
+        boolean hit = state.hit(processDefinition, multiInstance, child);
+        //then
+        assertThat(hit).isTrue();
+        verify(stateBehaviors, never()).createInnerInstances(anyLong(), any(SActivityDefinition.class),
+                any(SMultiInstanceActivityInstance.class), anyInt());
+    }
+
+}
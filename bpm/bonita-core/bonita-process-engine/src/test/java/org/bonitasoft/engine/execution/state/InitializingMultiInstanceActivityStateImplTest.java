@@ -16,6 +16,7 @@ package org.bonitasoft.engine.execution.state;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -102,4 +103,21 @@ public class InitializingMultiInstanceActivityStateImplTest {
                 any(SMultiInstanceActivityInstance.class), anyInt());
     }
 
+    @Test
+    public void should_create_only_the_number_of_instances_to_create_ahead() throws Exception {
+        //given
+        SMultiInstanceLoopCharacteristicsImpl miLoop = new SMultiInstanceLoopCharacteristicsImpl(
+                new MultiInstanceLoopCharacteristicsImpl(false, "data"));
+        doReturn(miLoop).when(activityDefinition)
+                .getLoopCharacteristics();
+        doReturn(10000).when(stateBehaviors).getNumberOfInstancesToCreateFromInputRef(processDefinition,
+                flowNodeInstance, miLoop, -1);
+        doReturn(100).when(stateBehaviors).getNumberOfInstancesToCreateAhead(10000);
+        //when
+        state.execute(processDefinition, flowNodeInstance);
+        //then
+        verify(stateBehaviors).createInnerInstances(anyLong(), any(SActivityDefinition.class),
+                any(SMultiInstanceActivityInstance.class), eq(100));
+    }
+
 }
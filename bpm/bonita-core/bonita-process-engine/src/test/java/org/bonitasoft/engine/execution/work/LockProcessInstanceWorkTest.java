@@ -13,11 +13,14 @@
  **/
 package org.bonitasoft.engine.execution.work;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -27,6 +30,7 @@ import org.bonitasoft.engine.log.technical.TechnicalLogger;
 import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
 import org.bonitasoft.engine.service.TenantServiceAccessor;
 import org.bonitasoft.engine.work.BonitaWork;
+import org.bonitasoft.engine.work.LockRetryHandler;
 import org.bonitasoft.engine.work.LockTimeoutException;
 import org.bonitasoft.engine.work.WorkExecutorService;
 import org.junit.Before;
@@ -70,12 +74,37 @@ public class LockProcessInstanceWorkTest {
         when(lockService.tryLock(eq(processInstanceId), eq(PROCESS), eq(20L), eq(TimeUnit.MILLISECONDS), eq(TENANT_ID)))
                 .thenReturn(
                         bonitaLock);
-        Map<String, Object> singletonMap = Collections.<String, Object> singletonMap("tenantAccessor", tenantAccessor);
-        lockProcessInstanceWork.work(singletonMap);
+        Map<String, Object> context = new HashMap<>(
+                Collections.<String, Object> singletonMap("tenantAccessor", tenantAccessor));
+        lockProcessInstanceWork.work(context);
         verify(lockService, times(1)).tryLock(eq(processInstanceId), eq(PROCESS), eq(20L), eq(TimeUnit.MILLISECONDS),
                 eq(TENANT_ID));
         verify(lockService, times(1)).unlock(bonitaLock, TENANT_ID);
-        verify(wrappedWork, times(1)).work(singletonMap);
+        verify(wrappedWork, times(1)).work(context);
+    }
+
+    @Test
+    public void should_put_the_acquired_lock_key_in_the_context() throws Exception {
+        when(lockService.tryLock(eq(processInstanceId), eq(PROCESS), eq(20L), eq(TimeUnit.MILLISECONDS), eq(TENANT_ID)))
+                .thenReturn(new BonitaLock(PROCESS, processInstanceId));
+        Map<String, Object> context = new HashMap<>(
+                Collections.<String, Object> singletonMap("tenantAccessor", tenantAccessor));
+
+        lockProcessInstanceWork.work(context);
+
+        assertThat(context).containsEntry(LockRetryHandler.ACQUIRED_LOCK_KEY, PROCESS + "_" + processInstanceId);
+    }
+
+    @Test
+    public void should_give_the_lock_key_when_unable_to_lock() throws Exception {
+        when(lockService.tryLock(eq(processInstanceId), eq(PROCESS), eq(20L), eq(TimeUnit.MILLISECONDS), eq(TENANT_ID)))
+                .thenReturn(null);
+
+        LockTimeoutException exception = catchThrowableOfType(
+                () -> lockProcessInstanceWork.work(Collections.singletonMap("tenantAccessor", tenantAccessor)),
+                LockTimeoutException.class);
+
+        assertThat(exception.getLockKey()).isEqualTo(PROCESS + "_" + processInstanceId);
     }
 
     @Test
@@ -17,6 +17,7 @@ import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 import java.util.List;
@@ -24,9 +25,13 @@ import java.util.List;
 import org.bonitasoft.engine.platform.PlatformService;
 import org.bonitasoft.engine.session.SessionService;
 import org.bonitasoft.engine.sessionaccessor.SessionAccessor;
+import org.bonitasoft.engine.tenant.TenantElementsRestartSupervisor;
+import org.bonitasoft.engine.tenant.TenantElementsRestartSupervisorLocal;
 import org.bonitasoft.engine.tenant.TenantRestarter;
 import org.bonitasoft.engine.tenant.restart.TenantRestartHandler;
+import org.bonitasoft.engine.tenant.restart.WorkJournalRestartHandler;
 import org.bonitasoft.engine.transaction.TransactionService;
+import org.bonitasoft.engine.work.WorkJournal;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -51,12 +56,19 @@ public class TenantRestarterTest {
     private SessionService sessionService;
     @Mock
     private PlatformService platformService;
+    @Mock
+    private WorkJournal workJournal;
+    @Mock
+    private TenantElementsRestartSupervisor clusterRestartSupervisor;
+    @Mock
+    private WorkJournalRestartHandler workJournalRestartHandler;
     private TenantRestarter tenantRestarter;
 
     @Before
     public void before() throws Exception {
         tenantRestarter = new TenantRestarter(1L, transactionService, sessionAccessor, sessionService, platformService,
-                asList(tenantRestartHandler1, tenantRestartHandler2));
+                asList(tenantRestartHandler1, tenantRestartHandler2), workJournal,
+                new TenantElementsRestartSupervisorLocal());
     }
 
     @Test
@@ -87,4 +99,32 @@ public class TenantRestarterTest {
         verify(transactionService).executeInTransaction(any());
     }
 
+    @Test
+    public void should_not_execute_handlers_rebuilding_works_when_works_are_recovered_from_the_journal()
+            throws Exception {
+        doReturn(true).when(transactionService).isTransactionActive();
+        doReturn(true).when(workJournal).canRecoverWorks();
+        doReturn(true).when(tenantRestartHandler2).rebuildsUncompletedWorks();
+
+        List<TenantRestartHandler> tenantRestartHandlers = tenantRestarter.executeBeforeServicesStart();
+
+        assertThat(tenantRestartHandlers).containsOnly(tenantRestartHandler1);
+        verify(tenantRestartHandler1).beforeServicesStart();
+        verify(tenantRestartHandler2, never()).beforeServicesStart();
+    }
+
+    @Test
+    public void should_search_elements_instead_of_recovering_works_from_the_journal_in_a_cluster() throws Exception {
+        tenantRestarter = new TenantRestarter(1L, transactionService, sessionAccessor, sessionService, platformService,
+                asList(tenantRestartHandler1, tenantRestartHandler2, workJournalRestartHandler), workJournal,
+                clusterRestartSupervisor);
+        doReturn(true).when(transactionService).isTransactionActive();
+        doReturn(true).when(workJournal).canRecoverWorks();
+
+        List<TenantRestartHandler> tenantRestartHandlers = tenantRestarter.executeBeforeServicesStart();
+
+        assertThat(tenantRestartHandlers).containsOnly(tenantRestartHandler1, tenantRestartHandler2);
+        verify(workJournalRestartHandler, never()).beforeServicesStart();
+    }
+
 }
@@ -0,0 +1,180 @@
+/**
+ * Copyright (C) 2016 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.identity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.bonitasoft.engine.api.impl.SCustomUserInfoValueAPI;
+import org.bonitasoft.engine.identity.model.SGroup;
+import org.bonitasoft.engine.identity.model.SRole;
+import org.bonitasoft.engine.identity.model.SUser;
+import org.bonitasoft.engine.identity.model.SUserMembership;
+import org.bonitasoft.engine.identity.xml.ExportedGroup;
+import org.bonitasoft.engine.identity.xml.ExportedRole;
+import org.bonitasoft.engine.identity.xml.ExportedUser;
+import org.bonitasoft.engine.identity.xml.ExportedUserMembership;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.bonitasoft.engine.service.TenantServiceAccessor;
+import org.bonitasoft.engine.services.TenantPersistenceService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ImportOrganizationTest {
+
+    private static final long ROLE_ID = 3L;
+    private static final long GROUP_ID = 4L;
+
+    @Mock
+    private TenantServiceAccessor serviceAccessor;
+    @Mock
+    private IdentityService identityService;
+    @Mock
+    private TenantPersistenceService persistenceService;
+    @Mock
+    private TechnicalLoggerService logger;
+    @Mock
+    private SCustomUserInfoValueAPI userInfoValueAPI;
+    private final SUser john = user(1L, "john");
+    private final SUser jack = user(2L, "jack");
+
+    @Before
+    public void setUp() throws Exception {
+        given(serviceAccessor.getIdentityService()).willReturn(identityService);
+        given(serviceAccessor.getTenantPersistenceService()).willReturn(persistenceService);
+        given(serviceAccessor.getTechnicalLoggerService()).willReturn(logger);
+        given(identityService.getRoleByName("member")).willReturn(SRole.builder().id(ROLE_ID).name("member").build());
+        given(identityService.getGroupByPath("/acme")).willReturn(SGroup.builder().id(GROUP_ID).name("acme").build());
+    }
+
+    private static SUser user(long id, String userName) {
+        SUser user = new SUser();
+        user.setId(id);
+        user.setUserName(userName);
+        return user;
+    }
+
+    private ImportOrganization importOrganization(ImportPolicy policy) throws Exception {
+        ImportOrganization importOrganization = new ImportOrganization(serviceAccessor, "", policy,
+                userInfoValueAPI);
+        importOrganization.handleRoles(Collections.singletonList(new ExportedRole("member")));
+        importOrganization.handleGroups(
+                Collections.singletonList(new ExportedGroup("acme", null, null, null, null, null)));
+        return importOrganization;
+    }
+
+    private ExportedUserMembership membership(String userName) {
+        return new ExportedUserMembership(userName, "member", "acme", null, null, null);
+    }
+
+    private ExportedUser exportedUser(String userName, String managerUserName) {
+        ExportedUser user = new ExportedUser();
+        user.setUserName(userName);
+        user.setManagerUserName(managerUserName);
+        return user;
+    }
+
+    @Test
+    public void handleMemberships_should_check_existing_memberships_of_the_batch_with_one_query() throws Exception {
+        // given
+        ImportOrganization importOrganization = importOrganization(ImportPolicy.IGNORE_DUPLICATES);
+        given(identityService.getUsersByUsername(any())).willReturn(Arrays.asList(john, jack));
+        given(identityService.getLightUserMembershipsOfUsers(any()))
+                .willReturn(Collections.singletonList(new SUserMembership(1L, GROUP_ID, ROLE_ID)));
+
+        // when
+        importOrganization.handleMemberships(Arrays.asList(membership("john"), membership("jack"),
+                membership("jack")));
+
+        // then
+        verify(identityService, times(1)).getUsersByUsername(any());
+        verify(identityService, times(1)).getLightUserMembershipsOfUsers(any());
+        ArgumentCaptor<SUserMembership> created = ArgumentCaptor.forClass(SUserMembership.class);
+        verify(identityService, times(1)).createUserMembership(created.capture());
+        assertThat(created.getValue().getUserId()).isEqualTo(2L);
+        assertThat(created.getValue().getGroupId()).isEqualTo(GROUP_ID);
+        assertThat(created.getValue().getRoleId()).isEqualTo(ROLE_ID);
+    }
+
+    @Test
+    public void handleMemberships_should_not_create_memberships_of_unknown_users() throws Exception {
+        // given
+        ImportOrganization importOrganization = importOrganization(ImportPolicy.IGNORE_DUPLICATES);
+        given(identityService.getUsersByUsername(Collections.singletonList("john")))
+                .willReturn(Collections.<SUser> emptyList());
+
+        // when
+        importOrganization.handleMemberships(Collections.singletonList(membership("john")));
+
+        // then
+        verify(identityService).getLightUserMembershipsOfUsers(Collections.<Long> emptyList());
+        verify(identityService, never()).createUserMembership(any(SUserMembership.class));
+    }
+
+    @Test
+    public void handleMemberships_should_flush_and_clear_the_session_after_the_batch() throws Exception {
+        // given
+        ImportOrganization importOrganization = importOrganization(ImportPolicy.IGNORE_DUPLICATES);
+        given(identityService.getUsersByUsername(any())).willReturn(Collections.singletonList(john));
+
+        // when
+        importOrganization.handleMemberships(Collections.singletonList(membership("john")));
+
+        // then
+        verify(persistenceService).flushStatementsAndClear();
+    }
+
+    @Test
+    public void managerUpdater_should_set_the_managers_of_the_batch_with_one_query() throws Exception {
+        // given
+        ImportOrganization importOrganization = importOrganization(ImportPolicy.IGNORE_DUPLICATES);
+        given(identityService.getUsersByUsername(any())).willReturn(Arrays.asList(john, jack));
+
+        // when
+        importOrganization.new ManagerUpdater().handleUsers(
+                Arrays.asList(exportedUser("john", " jack "), exportedUser("jack", null)));
+
+        // then
+        verify(identityService, times(1)).getUsersByUsername(any());
+        verify(identityService, times(1)).updateUser(eq(john), any());
+        verify(persistenceService).flushStatementsAndClear();
+    }
+
+    @Test
+    public void managerUpdater_should_not_query_users_when_the_batch_has_no_manager() throws Exception {
+        // given
+        ImportOrganization importOrganization = importOrganization(ImportPolicy.IGNORE_DUPLICATES);
+
+        // when
+        importOrganization.new ManagerUpdater().handleUsers(Collections.singletonList(exportedUser("john", "")));
+
+        // then
+        verify(identityService, never()).getUsersByUsername(any());
+        verify(identityService, never()).updateUser(any(), any());
+    }
+
+}
@@ -14,6 +14,12 @@
 package org.bonitasoft.engine.identity;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.JAXBException;
 
 import org.bonitasoft.engine.commons.io.IOUtil;
 import org.bonitasoft.engine.identity.xml.ExportedCustomUserInfoDefinition;
@@ -135,6 +141,88 @@ public class OrganizationParserTest {
                 new ExportedCustomUserInfoDefinition("Skills", "The user skills"));
     }
 
+    @Test
+    public void should_parse_ACME_by_batches() throws Exception {
+        //given
+        String content = IOUtil.read(OrganizationParserTest.class.getResourceAsStream("/ACME.xml"));
+        RecordingHandler handler = new RecordingHandler();
+        //when
+        organizationParser.parse(content, 5, handler);
+        //then
+        Organization organization = organizationParser.convert(content);
+        assertThat(handler.batches).containsExactly("customUserInfoDefinitions:2",
+                "users:5", "users:5", "users:5", "users:5", "users:1",
+                "roles:1",
+                "groups:5", "groups:5", "groups:3",
+                "memberships:5", "memberships:5", "memberships:5", "memberships:5", "memberships:1");
+        assertThat(handler.users).isEqualTo(organization.getUsers());
+        assertThat(handler.groups).isEqualTo(organization.getGroups());
+        assertThat(handler.memberships).isEqualTo(organization.getMemberships());
+    }
+
+    @Test
+    public void should_parse_organization_with_legacy_namespace_by_batches() throws Exception {
+        //given
+        String content = IOUtil.read(OrganizationParserTest.class.getResourceAsStream("/complexOrganization.xml"));
+        RecordingHandler handler = new RecordingHandler();
+        //when
+        organizationParser.parse(content, 1000, handler);
+        //then
+        assertThat(handler.batches).containsExactly("users:3", "roles:2", "groups:4", "memberships:2");
+    }
+
+    @Test(expected = JAXBException.class)
+    public void should_not_handle_anything_when_parsing_invalid_organization() throws Exception {
+        //given
+        String content = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<organization:Organization xmlns:organization=\"http://documentation.bonitasoft.com/organization-xml-schema/1.1\">\n"
+                +
+                "\t<users>\n" +
+                "\t\t<unknown/>\n" +
+                "\t</users>\n" +
+                "</organization:Organization>";
+        //when
+        organizationParser.parse(content, 1000, mock(OrganizationHandler.class, invocation -> {
+            throw new AssertionError("nothing should be handled");
+        }));
+    }
+
+    private static class RecordingHandler implements OrganizationHandler {
+
+        private final List<String> batches = new ArrayList<>();
+        private final List<ExportedUser> users = new ArrayList<>();
+        private final List<ExportedGroup> groups = new ArrayList<>();
+        private final List<ExportedUserMembership> memberships = new ArrayList<>();
+
+        @Override
+        public void handleCustomUserInfoDefinitions(List<ExportedCustomUserInfoDefinition> customUserInfoDefinitions) {
+            batches.add("customUserInfoDefinitions:" + customUserInfoDefinitions.size());
+        }
+
+        @Override
+        public void handleUsers(List<ExportedUser> users) {
+            batches.add("users:" + users.size());
+            this.users.addAll(users);
+        }
+
+        @Override
+        public void handleRoles(List<ExportedRole> roles) {
+            batches.add("roles:" + roles.size());
+        }
+
+        @Override
+        public void handleGroups(List<ExportedGroup> groups) {
+            batches.add("groups:" + groups.size());
+            this.groups.addAll(groups);
+        }
+
+        @Override
+        public void handleMemberships(List<ExportedUserMembership> memberships) {
+            batches.add("memberships:" + memberships.size());
+            this.memberships.addAll(memberships);
+        }
+    }
+
     private void checkAprilSanchez(ExportedUser aprilSanchez) {
         assertThat(aprilSanchez.getUserName()).isEqualTo("april.sanchez");
         assertThat(aprilSanchez.isPasswordEncrypted()).isEqualTo(true);
@@ -13,6 +13,7 @@
  **/
 package org.bonitasoft.engine.identity;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.BDDMockito.given;
@@ -21,12 +22,12 @@ import static org.mockito.Mockito.*;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.bonitasoft.engine.identity.model.SCustomUserInfoDefinition;
 import org.bonitasoft.engine.identity.model.SUser;
 import org.bonitasoft.engine.identity.xml.ExportedCustomUserInfoValue;
 import org.bonitasoft.engine.identity.xml.ExportedUser;
-import org.bonitasoft.engine.persistence.QueryOptions;
 import org.bonitasoft.engine.service.TenantServiceAccessor;
 import org.junit.Before;
 import org.junit.Test;
@@ -101,7 +102,8 @@ public class UserImporterTest {
     @Test
     public void importUsers_should_call_customUserInfoValueImporter_if_the_user_doesnt_exist() throws Exception {
         // given
-        given(identityService.getNumberOfUsers(any(QueryOptions.class))).willReturn(0L);
+        given(identityService.getUsersByUsername(Collections.singletonList(FIRST_USER)))
+                .willReturn(Collections.<SUser> emptyList());
         given(identityService.createUser(any(SUser.class))).willReturn(persistedUser);
 
         // when
@@ -115,8 +117,9 @@ public class UserImporterTest {
     @Test
     public void importUsers_shouldnt_call_customUserInfoValueImporter_if_the_user_exists() throws Exception {
         // given
-        given(identityService.getNumberOfUsers(any(QueryOptions.class))).willReturn(1L);
-        given(identityService.getUserByUserName(FIRST_USER)).willReturn(persistedUser);
+        given(persistedUser.getUserName()).willReturn(FIRST_USER);
+        given(identityService.getUsersByUsername(Collections.singletonList(FIRST_USER)))
+                .willReturn(Collections.singletonList(persistedUser));
 
         // when
         importer.importUsers(Collections.singletonList(userToImport));
@@ -125,4 +128,24 @@ public class UserImporterTest {
         verify(userInfoValueImporter, never())
                 .imporCustomUserInfoValues(ArgumentMatchers.<List<ExportedCustomUserInfoValue>> any(), anyLong());
     }
+
+    @Test
+    public void importUsers_should_check_existing_users_with_one_query() throws Exception {
+        // given
+        final SUser existingUser = new SUser();
+        existingUser.setUserName("second.user");
+        final ExportedUser secondUser = getUser("second.user", Collections.<ExportedCustomUserInfoValue> emptyList());
+        given(identityService.getUsersByUsername(Arrays.asList(FIRST_USER, "second.user")))
+                .willReturn(Collections.singletonList(existingUser));
+        given(identityService.createUser(any(SUser.class))).willReturn(persistedUser);
+
+        // when
+        final Map<String, SUser> importedUsers = importer.importUsers(Arrays.asList(userToImport, secondUser));
+
+        // then
+        verify(identityService, times(1)).createUser(any(SUser.class));
+        verify(strategy).foundExistingUser(existingUser, secondUser);
+        assertThat(importedUsers).containsEntry(FIRST_USER, persistedUser).containsEntry("second.user",
+                existingUser);
+    }
 }
@@ -14,6 +14,7 @@
 package org.bonitasoft.engine.message;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Stream.iterate;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -24,6 +25,7 @@ import static org.bonitasoft.engine.message.MessagesHandlingService.*;
 import static org.mockito.Mockito.*;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
 
@@ -85,7 +87,7 @@ public class MessagesHandlingServiceTest {
                 k -> k.equals("simple.step") ? Duration.ofMillis(1).toString() : null,
                 Clock.SYSTEM);
         messagesHandlingService = spy(new MessagesHandlingService(eventInstanceService, workService, loggerService,
-                lockService, TENANT_ID, userTransactionService, sessionAccessor, workFactory, meterRegistry));
+                lockService, TENANT_ID, userTransactionService, sessionAccessor, workFactory, meterRegistry, 1));
     }
 
     @Test
@@ -213,7 +215,7 @@ public class MessagesHandlingServiceTest {
             throws Exception {
         doReturn(new SWaitingMessageEvent()).when(eventInstanceService).getWaitingMessage(anyLong());
         doReturn(new SMessageInstance()).when(eventInstanceService).getMessageInstance(anyLong());
-        List<SMessageEventCouple> couples = iterate(1, i -> i + 1).limit(100) // 100 == MAX_COUPLES
+        List<SMessageEventCouple> couples = iterate(1, i -> i + 1).limit(100) // 100 == MIN_COUPLES
                 .map(i -> msgEventCouple(i, i))
                 .collect(toList());
         doReturn(couples).when(eventInstanceService).getMessageEventCouples(anyInt(), anyInt());
@@ -223,6 +225,96 @@ public class MessagesHandlingServiceTest {
         assertThat(counterValue(NUMBER_OF_MESSAGES_MATCHING_RETRIGGERED_TASKS)).isEqualTo(1);
     }
 
+    @Test
+    public void should_match_more_couples_at_once_when_the_batch_was_full() throws Exception {
+        doReturn(new SWaitingMessageEvent()).when(eventInstanceService).getWaitingMessage(anyLong());
+        doReturn(new SMessageInstance()).when(eventInstanceService).getMessageInstance(anyLong());
+        List<SMessageEventCouple> couples = iterate(1, i -> i + 1).limit(MIN_COUPLES)
+                .map(i -> msgEventCouple(i, i))
+                .collect(toList());
+        doReturn(couples).when(eventInstanceService).getMessageEventCouples(anyInt(), anyInt());
+
+        messagesHandlingService.matchEventCoupleAndTriggerExecution();
+        messagesHandlingService.matchEventCoupleAndTriggerExecution();
+
+        verify(eventInstanceService).getMessageEventCouples(0, MIN_COUPLES);
+        verify(eventInstanceService).getMessageEventCouples(0, MIN_COUPLES * 2);
+        assertThat(meterRegistry.find(MESSAGES_MATCHING_BATCH_SIZE).gauge().value()).isEqualTo(MIN_COUPLES * 2);
+    }
+
+    @Test
+    public void should_not_shrink_batch_size_below_the_minimum() throws Exception {
+        messagesHandlingService.matchEventCoupleAndTriggerExecution();
+
+        assertThat(meterRegistry.find(MESSAGES_MATCHING_BATCH_SIZE).gauge().value()).isEqualTo(MIN_COUPLES);
+    }
+
+    @Test
+    public void should_record_matching_duration() throws Exception {
+        messagesHandlingService.matchEventCoupleAndTriggerExecution();
+
+        assertThat(meterRegistry.find(MESSAGES_MATCHING_DURATION).tag("tenant", String.valueOf(TENANT_ID))
+                .tag("shard", "0").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_only_match_messages_having_a_name_of_the_shard() throws Exception {
+        MessagesHandlingService shardedService = new MessagesHandlingService(eventInstanceService, workService,
+                loggerService, lockService, TENANT_ID, userTransactionService, sessionAccessor, workFactory,
+                new SimpleMeterRegistry(), 4);
+        List<String> messageNames = asList("msg1", "msg2", "msg3", "msg4", "msg5", "msg6");
+        doReturn(messageNames).when(eventInstanceService).getMessageNamesOfUnhandledMessages(null,
+                MESSAGE_NAMES_PAGE_SIZE);
+        int shard = shardedService.getShard("msg1");
+
+        shardedService.matchEventCoupleAndTriggerExecution(shard);
+
+        List<String> namesOfShard = messageNames.stream().filter(n -> shardedService.getShard(n) == shard)
+                .collect(toList());
+        verify(eventInstanceService).getMessageEventCouples(namesOfShard, 0, MIN_COUPLES);
+        verify(eventInstanceService, never()).getMessageEventCouples(anyInt(), anyInt());
+    }
+
+    @Test
+    public void should_not_search_couples_when_no_message_name_belongs_to_the_shard() throws Exception {
+        MessagesHandlingService shardedService = new MessagesHandlingService(eventInstanceService, workService,
+                loggerService, lockService, TENANT_ID, userTransactionService, sessionAccessor, workFactory,
+                new SimpleMeterRegistry(), 4);
+        doReturn(asList("msg1")).when(eventInstanceService).getMessageNamesOfUnhandledMessages(null,
+                MESSAGE_NAMES_PAGE_SIZE);
+
+        shardedService.matchEventCoupleAndTriggerExecution((shardedService.getShard("msg1") + 1) % 4);
+
+        verify(eventInstanceService, never()).getMessageEventCouples(anyCollection(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void should_page_message_names_and_query_couples_of_each_page() throws Exception {
+        MessagesHandlingService shardedService = new MessagesHandlingService(eventInstanceService, workService,
+                loggerService, lockService, TENANT_ID, userTransactionService, sessionAccessor, workFactory,
+                new SimpleMeterRegistry(), 2);
+        List<String> messageNames = new ArrayList<>();
+        for (int i = 0; i < MESSAGE_NAMES_PAGE_SIZE * 2; i++) {
+            messageNames.add(String.format("msg%05d", i));
+        }
+        List<String> namesOfShard = messageNames.stream().filter(n -> shardedService.getShard(n) == 0)
+                .collect(toList());
+        List<String> page1 = messageNames.subList(0, MESSAGE_NAMES_PAGE_SIZE);
+        List<String> page2 = messageNames.subList(MESSAGE_NAMES_PAGE_SIZE, MESSAGE_NAMES_PAGE_SIZE * 2);
+        doReturn(page1).when(eventInstanceService).getMessageNamesOfUnhandledMessages(null, MESSAGE_NAMES_PAGE_SIZE);
+        doReturn(page2).when(eventInstanceService).getMessageNamesOfUnhandledMessages(page1.get(page1.size() - 1),
+                MESSAGE_NAMES_PAGE_SIZE);
+        doReturn(emptyList()).when(eventInstanceService)
+                .getMessageNamesOfUnhandledMessages(page2.get(page2.size() - 1), MESSAGE_NAMES_PAGE_SIZE);
+
+        shardedService.matchEventCoupleAndTriggerExecution(0);
+
+        verify(eventInstanceService).getMessageEventCouples(
+                page1.stream().filter(namesOfShard::contains).collect(toList()), 0, MIN_COUPLES);
+        verify(eventInstanceService).getMessageEventCouples(
+                page2.stream().filter(namesOfShard::contains).collect(toList()), 0, MIN_COUPLES);
+    }
+
     // =================================================================================================================
     // UTILS
     // =================================================================================================================
@@ -0,0 +1,175 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.bonitasoft.engine.bpm.process.ProcessInstanceSearchDescriptor;
+import org.bonitasoft.engine.core.process.instance.model.SProcessInstance;
+import org.bonitasoft.engine.exception.SearchException;
+import org.bonitasoft.engine.persistence.FilterOption;
+import org.bonitasoft.engine.persistence.OrderByOption;
+import org.bonitasoft.engine.persistence.OrderByType;
+import org.bonitasoft.engine.persistence.QueryOptions;
+import org.bonitasoft.engine.persistence.search.FilterOperationType;
+import org.bonitasoft.engine.search.descriptor.SearchProcessInstanceDescriptor;
+import org.junit.Test;
+
+public class AbstractSearchEntityTest {
+
+    private final List<QueryOptions> countQueries = new ArrayList<>();
+    private final List<QueryOptions> searchQueries = new ArrayList<>();
+
+    private SearchResult<Long> search(SearchOptions options, SProcessInstance... results) throws SearchException {
+        return AbstractSearchEntity.<Long, SProcessInstance> search(new SearchProcessInstanceDescriptor(), options,
+                serverObjects -> {
+                    final List<Long> ids = new ArrayList<>();
+                    for (SProcessInstance processInstance : serverObjects) {
+                        ids.add(processInstance.getId());
+                    }
+                    return ids;
+                },
+                queryOptions -> {
+                    countQueries.add(queryOptions);
+                    return 42L;
+                },
+                queryOptions -> {
+                    searchQueries.add(queryOptions);
+                    return Arrays.asList(results);
+                });
+    }
+
+    private static SProcessInstance processInstance(long id, String name) {
+        return SProcessInstance.builder().id(id).name(name).build();
+    }
+
+    @Test
+    public void should_count_and_search_with_start_index() throws Exception {
+        final SearchResult<Long> result = search(new SearchOptionsBuilder(20, 2).done(), processInstance(1L, "a"));
+
+        assertThat(result.getCount()).isEqualTo(42L);
+        assertThat(result.getResult()).containsExactly(1L);
+        assertThat(result.getContinuationToken()).isNull();
+        assertThat(countQueries).hasSize(1);
+        assertThat(searchQueries.get(0).getFromIndex()).isEqualTo(20);
+    }
+
+    @Test
+    public void should_not_count_when_count_is_skipped() throws Exception {
+        final SearchResult<Long> result = search(new SearchOptionsBuilder(0, 2).skipCount().done(),
+                processInstance(1L, "a"));
+
+        assertThat(result.getCount()).isEqualTo(SearchResult.UNKNOWN_COUNT);
+        assertThat(result.getResult()).containsExactly(1L);
+        assertThat(countQueries).isEmpty();
+    }
+
+    @Test
+    public void should_give_a_continuation_token_when_page_is_full() throws Exception {
+        final SearchResult<Long> result = search(new SearchOptionsBuilder(0, 2).skipCount()
+                .sort(ProcessInstanceSearchDescriptor.NAME, Order.ASC).keysetPagination(null).done(),
+                processInstance(1L, "a"), processInstance(7L, "b"));
+
+        assertThat(result.getContinuationToken()).isNotNull();
+        final QueryOptions queryOptions = searchQueries.get(0);
+        assertThat(queryOptions.getFromIndex()).isEqualTo(0);
+        assertThat(queryOptions.getFilters()).isEmpty();
+        assertThat(queryOptions.getOrderByOptions()).containsExactly(
+                new OrderByOption(SProcessInstance.class, "name", OrderByType.ASC),
+                new OrderByOption(SProcessInstance.class, "id", OrderByType.ASC));
+    }
+
+    @Test
+    public void should_not_give_a_continuation_token_on_last_page() throws Exception {
+        final SearchResult<Long> result = search(new SearchOptionsBuilder(0, 2)
+                .sort(ProcessInstanceSearchDescriptor.NAME, Order.ASC).keysetPagination(null).done(),
+                processInstance(1L, "a"));
+
+        assertThat(result.getContinuationToken()).isNull();
+    }
+
+    @Test
+    public void should_seek_after_the_last_result_of_previous_page() throws Exception {
+        final String token = search(new SearchOptionsBuilder(0, 2)
+                .sort(ProcessInstanceSearchDescriptor.NAME, Order.DESC).keysetPagination(null).done(),
+                processInstance(1L, "b"), processInstance(7L, "a|b")).getContinuationToken();
+
+        search(new SearchOptionsBuilder(100, 2).filter(ProcessInstanceSearchDescriptor.PROCESS_DEFINITION_ID, 5L)
+                .sort(ProcessInstanceSearchDescriptor.NAME, Order.DESC).keysetPagination(token).done());
+
+        final QueryOptions queryOptions = searchQueries.get(1);
+        assertThat(queryOptions.getFromIndex()).isEqualTo(0);
+        assertThat(queryOptions.getFilters()).containsExactly(
+                new FilterOption(FilterOperationType.L_PARENTHESIS),
+                new FilterOption(SProcessInstance.class, "processDefinitionId", 5L),
+                new FilterOption(FilterOperationType.R_PARENTHESIS),
+                new FilterOption(FilterOperationType.L_PARENTHESIS),
+                new FilterOption(SProcessInstance.class, "name", "a|b", FilterOperationType.LESS),
+                FilterOption.or(),
+                new FilterOption(FilterOperationType.L_PARENTHESIS),
+                new FilterOption(SProcessInstance.class, "name", "a|b"),
+                new FilterOption(SProcessInstance.class, "id", 7L, FilterOperationType.GREATER),
+                new FilterOption(FilterOperationType.R_PARENTHESIS),
+                new FilterOption(FilterOperationType.R_PARENTHESIS));
+    }
+
+    @Test
+    public void should_seek_on_id_only_when_sorted_by_id() throws Exception {
+        final String token = search(new SearchOptionsBuilder(0, 1)
+                .sort(ProcessInstanceSearchDescriptor.ID, Order.ASC).keysetPagination(null).done(),
+                processInstance(7L, "a")).getContinuationToken();
+
+        search(new SearchOptionsBuilder(0, 1).sort(ProcessInstanceSearchDescriptor.ID, Order.ASC)
+                .keysetPagination(token).done());
+
+        final QueryOptions queryOptions = searchQueries.get(1);
+        assertThat(queryOptions.getOrderByOptions()).containsExactly(
+                new OrderByOption(SProcessInstance.class, "id", OrderByType.ASC));
+        assertThat(queryOptions.getFilters()).containsExactly(
+                new FilterOption(FilterOperationType.L_PARENTHESIS),
+                new FilterOption(SProcessInstance.class, "id", 7L, FilterOperationType.GREATER),
+                new FilterOption(FilterOperationType.R_PARENTHESIS));
+    }
+
+    @Test
+    public void should_reject_token_given_for_another_sort() throws Exception {
+        final String token = search(new SearchOptionsBuilder(0, 1)
+                .sort(ProcessInstanceSearchDescriptor.ID, Order.ASC).keysetPagination(null).done(),
+                processInstance(7L, "a")).getContinuationToken();
+
+        assertThatThrownBy(() -> search(new SearchOptionsBuilder(0, 1)
+                .sort(ProcessInstanceSearchDescriptor.NAME, Order.ASC).keysetPagination(token).done()))
+                        .isInstanceOf(SearchException.class).hasMessageContaining("sorted on id");
+    }
+
+    @Test
+    public void should_reject_keyset_pagination_without_sort() {
+        assertThatThrownBy(() -> search(new SearchOptionsBuilder(0, 1).keysetPagination(null).done()))
+                .isInstanceOf(SearchException.class).hasMessageContaining("exactly one sort");
+    }
+
+    @Test
+    public void should_reject_invalid_token() {
+        assertThatThrownBy(() -> search(new SearchOptionsBuilder(0, 1)
+                .sort(ProcessInstanceSearchDescriptor.NAME, Order.ASC).keysetPagination("not a token").done()))
+                        .isInstanceOf(SearchException.class).hasMessageContaining("Invalid continuation token");
+    }
+
+}
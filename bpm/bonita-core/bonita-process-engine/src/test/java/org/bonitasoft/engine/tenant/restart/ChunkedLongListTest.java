@@ -0,0 +1,44 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.tenant.restart;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.Test;
+
+public class ChunkedLongListTest {
+
+    @Test
+    public void should_keep_values_added_over_several_chunks_in_order() {
+        ChunkedLongList list = new ChunkedLongList(2);
+
+        list.addAll(asList(5L, 3L, 8L));
+        list.add(1L);
+        list.add(9L);
+
+        assertThat(list).containsExactly(5L, 3L, 8L, 1L, 9L);
+        assertThat(list.subList(1, 4)).containsExactly(3L, 8L, 1L);
+    }
+
+    @Test
+    public void should_not_return_values_past_the_last_one_added() {
+        ChunkedLongList list = new ChunkedLongList(4);
+        list.add(7L);
+
+        assertThatThrownBy(() -> list.get(1)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+}
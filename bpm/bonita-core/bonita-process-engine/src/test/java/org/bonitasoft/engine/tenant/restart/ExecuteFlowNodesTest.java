@@ -23,6 +23,8 @@ import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.bonitasoft.engine.bpm.model.impl.BPMInstancesCreator;
 import org.bonitasoft.engine.core.process.definition.ProcessDefinitionService;
 import org.bonitasoft.engine.core.process.instance.api.ActivityInstanceService;
@@ -40,6 +42,7 @@ import org.bonitasoft.engine.execution.work.BPMWorkFactory;
 import org.bonitasoft.engine.log.technical.TechnicalLoggerSLF4JImpl;
 import org.bonitasoft.engine.persistence.SBonitaReadException;
 import org.bonitasoft.engine.transaction.UserTransactionService;
+import org.bonitasoft.engine.work.WorkExecutorService;
 import org.bonitasoft.engine.work.WorkService;
 import org.junit.Before;
 import org.junit.Test;
@@ -54,6 +57,8 @@ public class ExecuteFlowNodesTest {
     private static final int NORMAL_STATE_ID = 61;
     private static final int CANCELLING_STATE_ID = 33333;
     public static final int BATCH_RESTART_SIZE = 10;
+    private static final long TENANT_ID = 12L;
+    private static final int MAX_PENDING_WORKS = 5;
     private FlowNodeStateManager flownodeStateManager;
 
     @Mock
@@ -61,6 +66,8 @@ public class ExecuteFlowNodesTest {
     @Mock
     private WorkService workService;
     @Mock
+    private WorkExecutorService workExecutorService;
+    @Mock
     private GatewayInstanceService gatewayInstanceService;
     @Mock
     private ProcessDefinitionService processDefinitionService;
@@ -71,16 +78,17 @@ public class ExecuteFlowNodesTest {
     private BPMWorkFactory workFactory = new BPMWorkFactory();
     private ExecuteFlowNodes executeFlowNodes;
     private List<SFlowNodeInstance> allFlowNodes = new ArrayList<>();
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
 
     @Before
     public void before() throws Exception {
         flownodeStateManager = new FlowNodeStateManagerImpl(null, null, null, null, null, null, bpmInstancesCreator,
                 null, null,
                 null, null, null, null, null, null, null, null);
-        executeFlowNodes = new ExecuteFlowNodes(workService, new TechnicalLoggerSLF4JImpl(), activityInstanceService,
-                gatewayInstanceService,
+        executeFlowNodes = new ExecuteFlowNodes(workService, workExecutorService, new TechnicalLoggerSLF4JImpl(),
+                activityInstanceService, gatewayInstanceService,
                 processDefinitionService, flownodeStateManager, workFactory, userTransactionService,
-                BATCH_RESTART_SIZE);
+                BATCH_RESTART_SIZE, meterRegistry, TENANT_ID, MAX_PENDING_WORKS);
         doAnswer(invocationOnMock -> ((Callable) invocationOnMock.getArgument(0)).call()).when(userTransactionService)
                 .executeInTransaction(any());
         when(activityInstanceService.getFlowNodeInstancesByIds(any())).thenAnswer(invocationOnMock -> {
@@ -136,6 +144,74 @@ public class ExecuteFlowNodesTest {
         verify(userTransactionService, times(3)).executeInTransaction(any());
     }
 
+    @Test
+    public void should_publish_restart_progress_in_metrics() throws Exception {
+        List<SFlowNodeInstance> list = new ArrayList<>();
+        for (int i = 1; i <= 21; i++) {
+            list.add(createTask(123L + i, false));
+        }
+
+        executeFlowNodes.executeFlowNodes(flowNodeIds(list.toArray(new SFlowNodeInstance[] {})));
+
+        assertThat(meterRegistry.get(ExecuteFlowNodes.NUMBER_OF_FLOWNODES_RESTARTED)
+                .tag("tenant", String.valueOf(TENANT_ID)).counter().count()).isEqualTo(21);
+        assertThat(meterRegistry.get(ExecuteFlowNodes.NUMBER_OF_FLOWNODES_TO_RESTART)
+                .tag("tenant", String.valueOf(TENANT_ID)).gauge().value()).isEqualTo(0);
+    }
+
+    @Test
+    public void should_not_count_flow_nodes_of_failed_batches_as_restarted() throws Exception {
+        doThrow(new UnsupportedOperationException("current batch failed"))
+                .doAnswer(invocationOnMock -> ((Callable) invocationOnMock.getArgument(0)).call())
+                .when(userTransactionService).executeInTransaction(any());
+        List<SFlowNodeInstance> list = new ArrayList<>();
+        for (int i = 1; i <= 21; i++) {
+            list.add(createTask(123L + i, false));
+        }
+
+        executeFlowNodes.executeFlowNodes(flowNodeIds(list.toArray(new SFlowNodeInstance[] {})));
+
+        assertThat(meterRegistry.get(ExecuteFlowNodes.NUMBER_OF_FLOWNODES_RESTARTED)
+                .tag("tenant", String.valueOf(TENANT_ID)).counter().count()).isEqualTo(11);
+    }
+
+    @Test
+    public void should_wait_for_pending_works_to_be_below_the_limit_before_registering_a_batch() throws Exception {
+        doReturn(MAX_PENDING_WORKS + 1, MAX_PENDING_WORKS, MAX_PENDING_WORKS - 1).when(workExecutorService)
+                .getNumberOfPendingWorks();
+
+        executeFlowNodes.executeFlowNodes(flowNodeIds(createTask(123L, false)));
+
+        verify(workExecutorService, times(3)).getNumberOfPendingWorks();
+        verify(workService).registerWork(argThat(work -> work.getType().equals("EXECUTE_FLOWNODE")));
+    }
+
+    @Test
+    public void should_stop_waiting_for_pending_works_when_the_work_service_is_stopped() throws Exception {
+        doReturn(MAX_PENDING_WORKS).when(workExecutorService).getNumberOfPendingWorks();
+        doReturn(true).when(workService).isStopped();
+
+        executeFlowNodes.executeFlowNodes(flowNodeIds(createTask(123L, false)));
+
+        verify(workService, never()).registerWork(any());
+        assertThat(meterRegistry.get(ExecuteFlowNodes.NUMBER_OF_FLOWNODES_TO_RESTART)
+                .tag("tenant", String.valueOf(TENANT_ID)).gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_stop_waiting_for_pending_works_when_the_thread_is_interrupted() throws Exception {
+        doReturn(MAX_PENDING_WORKS).when(workExecutorService).getNumberOfPendingWorks();
+        Thread.currentThread().interrupt();
+        try {
+            executeFlowNodes.executeFlowNodes(flowNodeIds(createTask(123L, false)));
+
+            assertThat(Thread.currentThread().isInterrupted()).isTrue();
+        } finally {
+            Thread.interrupted();
+        }
+        verify(workService, never()).registerWork(any());
+    }
+
     @Test
     public void should_execute_flownode_that_is_aborting_non_terminal_and_stable_when_the_FlowNodeState_is_not_in_the_same_state_category()
             throws Exception {
@@ -15,15 +15,17 @@ package org.bonitasoft.engine.tenant.restart;
 
 import static java.util.Arrays.*;
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 import org.bonitasoft.engine.core.process.instance.api.FlowNodeInstanceService;
 import org.bonitasoft.engine.execution.work.RestartException;
 import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
-import org.bonitasoft.engine.persistence.QueryOptions;
 import org.bonitasoft.engine.persistence.SBonitaReadException;
 import org.bonitasoft.engine.transaction.UserTransactionService;
 import org.junit.Before;
@@ -58,7 +60,7 @@ public class RestartFlowNodesHandlerTest {
     public final void do_nothing_if_no_flownode() throws Exception {
         //given
         doReturn(Collections.EMPTY_LIST).when(flowNodeInstanceService)
-                .getFlowNodeInstanceIdsToRestart(any(QueryOptions.class));
+                .getFlowNodeInstanceIdsToRestart(anyLong(), anyInt());
 
         //when
         restartFlowNodesHandler.beforeServicesStart();
@@ -71,7 +73,7 @@ public class RestartFlowNodesHandlerTest {
     public final void throw_exception_if_error_when_get_flownode() throws Exception {
         //given
         doThrow(new SBonitaReadException("plop")).when(flowNodeInstanceService)
-                .getFlowNodeInstanceIdsToRestart(any(QueryOptions.class));
+                .getFlowNodeInstanceIdsToRestart(anyLong(), anyInt());
 
         //when
         restartFlowNodesHandler.beforeServicesStart();
@@ -80,11 +82,32 @@ public class RestartFlowNodesHandlerTest {
     @Test
     public void should_call_ExecuteFlowNodes_with_ids_to_restart() throws Exception {
         doReturn(asList(1L, 2L, 3L, 4L)).when(flowNodeInstanceService)
-                .getFlowNodeInstanceIdsToRestart(any(QueryOptions.class));
+                .getFlowNodeInstanceIdsToRestart(anyLong(), anyInt());
 
         restartFlowNodesHandler.beforeServicesStart();
         restartFlowNodesHandler.afterServicesStart();
 
         verify(executeFlowNodes).executeFlowNodes(asList(1L, 2L, 3L, 4L));
     }
+
+    @Test
+    public void should_read_next_page_of_ids_after_the_last_id_of_the_previous_page() throws Exception {
+        final List<Long> firstPage = new ArrayList<>();
+        for (long id = 1; id <= RestartFlowNodesHandler.PAGE_SIZE; id++) {
+            firstPage.add(id * 2);
+        }
+        final long lastIdOfFirstPage = RestartFlowNodesHandler.PAGE_SIZE * 2L;
+        doReturn(firstPage).when(flowNodeInstanceService)
+                .getFlowNodeInstanceIdsToRestart(Long.MIN_VALUE, RestartFlowNodesHandler.PAGE_SIZE);
+        doReturn(asList(lastIdOfFirstPage + 1, lastIdOfFirstPage + 2)).when(flowNodeInstanceService)
+                .getFlowNodeInstanceIdsToRestart(lastIdOfFirstPage, RestartFlowNodesHandler.PAGE_SIZE);
+
+        restartFlowNodesHandler.beforeServicesStart();
+
+        final List<Long> flowNodesToRestart = restartFlowNodesHandler.flownodesToRestartByTenant.get(123L);
+        assertThat(flowNodesToRestart).hasSize(RestartFlowNodesHandler.PAGE_SIZE + 2);
+        assertThat(flowNodesToRestart.subList(0, 3)).containsExactly(2L, 4L, 6L);
+        assertThat(flowNodesToRestart.subList(RestartFlowNodesHandler.PAGE_SIZE - 1, flowNodesToRestart.size()))
+                .containsExactly(lastIdOfFirstPage, lastIdOfFirstPage + 1, lastIdOfFirstPage + 2);
+    }
 }
@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.core.process.instance.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bonitasoft.engine.core.process.definition.model.SGatewayType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Token bookkeeping of a parallel gateway merging a given number of branches, as done by
+ * {@link GatewayInstanceServiceImpl}: each branch hits the gateway (the hitBys column is read and rewritten), then the
+ * merging condition is checked, and once all branches arrived the merged tokens are removed. Compares the legacy
+ * comma separated list of transition indexes with {@link GatewayTokens}.
+ * Run with ./gradlew :bpm:bonita-core:bonita-process-instance:jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GatewayTokensBenchmark {
+
+    @Param({ "10", "100", "500" })
+    public int branches;
+
+    @Benchmark
+    public String legacy() {
+        String hitBys = "";
+        for (int i = 1; i <= branches; i++) {
+            hitBys = hitBys.isEmpty() ? String.valueOf(i) : hitBys + "," + i;
+            final List<String> hitByTransitionList = Arrays.asList(hitBys.split(","));
+            boolean activated = true;
+            for (int transition = 1; activated && transition <= branches; transition++) {
+                activated = hitByTransitionList.contains(String.valueOf(transition));
+            }
+            if (activated) {
+                final List<String> merged = new ArrayList<>();
+                for (String hitBy : hitByTransitionList) {
+                    if (!merged.contains(hitBy)) {
+                        merged.add(hitBy);
+                    }
+                }
+                final List<String> remaining = new ArrayList<>(hitByTransitionList);
+                for (String mergedToken : merged) {
+                    remaining.remove(mergedToken);
+                }
+                hitBys = "FINISH:" + merged.size();
+            }
+        }
+        return hitBys;
+    }
+
+    @Benchmark
+    public String compact() {
+        String hitBys = "";
+        for (int i = 1; i <= branches; i++) {
+            final GatewayTokens hit = GatewayTokens.parse(hitBys);
+            hit.hit(i);
+            hitBys = hit.toHitBys();
+            final GatewayTokens tokens = GatewayTokens.parse(hitBys);
+            if (tokens.hasTokenOnAllTransitions(branches)) {
+                hitBys = "FINISH:" + tokens.merge(SGatewayType.PARALLEL);
+            }
+        }
+        return hitBys;
+    }
+
+}
@@ -0,0 +1,237 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.core.process.instance.impl;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Count the pending tasks of a random user, on an in-memory h2 database holding the columns and indexes of the
+ * tables involved:
+ * <ul>
+ * <li>nestedSubqueries: the getNumberOfSHumanTaskInstancePendingForUser query, resolving the actors of the user from
+ * its actor members and memberships in each query</li>
+ * <li>cachedActorIds: the getNumberOfSHumanTaskInstancePendingForUserWithActors query, with the actor ids of the user
+ * already cached</li>
+ * <li>resolvedActorIds: the same query after resolving the actor ids of the user, i.e. on a cache miss</li>
+ * </ul>
+ * Each user has one membership, each of the 1000 actors is mapped to a group and to a membership of that group, and
+ * pending tasks are spread evenly over actors. Without actor ids the query falls back to nestedSubqueries, like
+ * {@link ActivityInstanceServiceImpl} does.
+ * Run with ./gradlew :bpm:bonita-core:bonita-process-instance:jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PendingTasksQueryBenchmark {
+
+    private static final long TENANT_ID = 1L;
+    private static final int ACTORS = 1000;
+    private static final int ROLES = 10;
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String PENDING_TASKS = "SELECT COUNT(a.id) FROM flownode_instance a"
+            + " WHERE a.tenantid = ? AND a.stable = TRUE AND a.state_executing = FALSE AND a.terminal = FALSE"
+            + " AND a.assigneeId = 0 AND EXISTS (SELECT m.id FROM pending_mapping m"
+            + " WHERE m.tenantid = a.tenantid AND m.activityId = a.id AND (m.userId = ? OR m.actorId IN (";
+
+    private static final String ACTOR_IDS_OF_USER = "SELECT DISTINCT am.actorId FROM actormember am"
+            + " WHERE am.tenantid = ? AND (am.userId = ? OR am.id IN (SELECT am2.id"
+            + " FROM actormember am2, user_membership um"
+            + " WHERE am2.tenantid = am.tenantid AND um.tenantid = am.tenantid AND um.userId = ?"
+            + " AND ((am2.groupId = um.groupId AND am2.roleId = -1) OR (am2.roleId = um.roleId AND am2.groupId = -1)"
+            + " OR (am2.groupId = um.groupId AND am2.roleId = um.roleId))))";
+
+    private static final String NESTED_SUBQUERIES = PENDING_TASKS
+            + "SELECT actor.id FROM actor, actormember am WHERE actor.tenantid = a.tenantid"
+            + " AND am.tenantid = actor.tenantid AND actor.id = am.actorId AND (am.userId = ? OR am.id IN ("
+            + "SELECT am2.id FROM actormember am2, user_membership um"
+            + " WHERE am2.tenantid = a.tenantid AND um.tenantid = a.tenantid AND um.userId = ?"
+            + " AND ((am2.groupId = um.groupId AND am2.roleId = -1) OR (am2.roleId = um.roleId AND am2.groupId = -1)"
+            + " OR (am2.groupId = um.groupId AND am2.roleId = um.roleId)))))))";
+
+    @Param({ "100000" })
+    public int users;
+
+    @Param({ "100000", "1000000" })
+    public int tasks;
+
+    private Connection connection;
+    private List<List<Long>> actorIdsOfUsers;
+
+    @Setup
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:pendingTasks;DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE actor (tenantid BIGINT NOT NULL, id BIGINT NOT NULL,"
+                    + " PRIMARY KEY (tenantid, id))");
+            statement.execute("CREATE TABLE actormember (tenantid BIGINT NOT NULL, id BIGINT NOT NULL,"
+                    + " actorId BIGINT NOT NULL, userId BIGINT NOT NULL, groupId BIGINT NOT NULL,"
+                    + " roleId BIGINT NOT NULL, UNIQUE (tenantid, actorid, userId, groupId, roleId),"
+                    + " PRIMARY KEY (tenantid, id))");
+            statement.execute("CREATE TABLE user_membership (tenantid BIGINT NOT NULL, id BIGINT NOT NULL,"
+                    + " userId BIGINT NOT NULL, roleId BIGINT NOT NULL, groupId BIGINT NOT NULL,"
+                    + " UNIQUE (tenantid, userId, roleId, groupId), PRIMARY KEY (tenantid, id))");
+            statement.execute("CREATE TABLE pending_mapping (tenantid BIGINT NOT NULL, id BIGINT NOT NULL,"
+                    + " activityId BIGINT NOT NULL, actorId BIGINT, userId BIGINT, PRIMARY KEY (tenantid, id))");
+            statement.execute("CREATE UNIQUE INDEX idx_UQ_pending_mapping"
+                    + " ON pending_mapping (tenantid, activityId, userId, actorId)");
+            statement.execute("CREATE INDEX idx_pending_mapping_actor"
+                    + " ON pending_mapping (tenantid, actorId, activityId)");
+            statement.execute("CREATE TABLE flownode_instance (tenantid BIGINT NOT NULL, id BIGINT NOT NULL,"
+                    + " terminal BOOLEAN NOT NULL, stable BOOLEAN, assigneeId BIGINT DEFAULT 0 NOT NULL,"
+                    + " state_executing BOOLEAN DEFAULT FALSE, PRIMARY KEY (tenantid, id))");
+        }
+        final int groups = Math.max(1, users / 100);
+        insert("INSERT INTO actor VALUES (?, ?)", 1, ACTORS);
+        insert("INSERT INTO actormember VALUES (?, ?, ?, -1, ?, -1)", 1, ACTORS, a -> a, a -> a % groups);
+        insert("INSERT INTO actormember VALUES (?, ?, ?, -1, ?, ?)", ACTORS + 1, ACTORS, a -> a, a -> a % groups,
+                a -> a % ROLES);
+        insert("INSERT INTO user_membership VALUES (?, ?, ?, ?, ?)", 1, users, u -> u, u -> u % ROLES,
+                u -> u % groups);
+        insert("INSERT INTO flownode_instance VALUES (?, ?, FALSE, TRUE, 0, FALSE)", 1, tasks);
+        insert("INSERT INTO pending_mapping VALUES (?, ?, ?, ?, -1)", 1, tasks, t -> t, t -> t % ACTORS + 1);
+        actorIdsOfUsers = new ArrayList<>(users);
+        for (int userId = 1; userId <= users; userId++) {
+            actorIdsOfUsers.add(resolveActorIds(userId));
+        }
+    }
+
+    private void insert(String sql, int firstId, int count, Column... columns) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int id = firstId; id < firstId + count; id++) {
+                statement.setLong(1, TENANT_ID);
+                statement.setLong(2, id);
+                for (int i = 0; i < columns.length; i++) {
+                    statement.setLong(i + 3, columns[i].value(id - firstId + 1));
+                }
+                statement.addBatch();
+                if ((id - firstId + 1) % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            }
+            statement.executeBatch();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    private List<Long> resolveActorIds(long userId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(ACTOR_IDS_OF_USER)) {
+            statement.setLong(1, TENANT_ID);
+            statement.setLong(2, userId);
+            statement.setLong(3, userId);
+            final List<Long> actorIds = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    actorIds.add(resultSet.getLong(1));
+                }
+            }
+            return actorIds;
+        }
+    }
+
+    private long countPendingTasks(long userId, List<Long> actorIds) throws SQLException {
+        if (actorIds.isEmpty()) {
+            return countPendingTasks(userId);
+        }
+        final StringBuilder sql = new StringBuilder(PENDING_TASKS);
+        for (int i = 0; i < actorIds.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")))");
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            statement.setLong(1, TENANT_ID);
+            statement.setLong(2, userId);
+            for (int i = 0; i < actorIds.size(); i++) {
+                statement.setLong(i + 3, actorIds.get(i));
+            }
+            return count(statement);
+        }
+    }
+
+    private static long count(PreparedStatement statement) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private int randomUser() {
+        return ThreadLocalRandom.current().nextInt(users) + 1;
+    }
+
+    private long countPendingTasks(long userId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(NESTED_SUBQUERIES)) {
+            statement.setLong(1, TENANT_ID);
+            statement.setLong(2, userId);
+            statement.setLong(3, userId);
+            statement.setLong(4, userId);
+            return count(statement);
+        }
+    }
+
+    @Benchmark
+    public long nestedSubqueries() throws SQLException {
+        return countPendingTasks(randomUser());
+    }
+
+    @Benchmark
+    public long cachedActorIds() throws SQLException {
+        final int userId = randomUser();
+        return countPendingTasks(userId, actorIdsOfUsers.get(userId - 1));
+    }
+
+    @Benchmark
+    public long resolvedActorIds() throws SQLException {
+        final int userId = randomUser();
+        return countPendingTasks(userId, resolveActorIds(userId));
+    }
+
+    private interface Column {
+
+        long value(long index);
+    }
+
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.core.document.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stores the content of documents outside of the database.
+ * <p>
+ * Contents are identified by a key computed from the content itself, storing twice the same content returns the same
+ * key and does not use more space. Each call to {@link #store(InputStream)} adds a reference to the content, that must
+ * be removed using {@link #release(String)} when the document using it is deleted: the content is deleted when it is
+ * not referenced anymore.
+ */
+public interface DocumentContentStore {
+
+    /**
+     * Store a content, the stream is read until its end but not closed.
+     *
+     * @param content the content to store
+     * @return the key of the content
+     * @throws IOException if the content can't be read or stored
+     */
+    String store(InputStream content) throws IOException;
+
+    /**
+     * @param key the key of the content returned by {@link #store(InputStream)}
+     * @return a stream on the content, to be closed by the caller
+     * @throws IOException if the content does not exist or can't be read
+     */
+    InputStream read(String key) throws IOException;
+
+    /**
+     * Remove a reference to the content, deleting it if it is not referenced anymore.
+     *
+     * @param key the key of the content returned by {@link #store(InputStream)}
+     * @throws IOException if the content can't be deleted
+     */
+    void release(String key) throws IOException;
+
+}
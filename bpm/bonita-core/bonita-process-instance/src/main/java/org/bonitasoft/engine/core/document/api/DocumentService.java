@@ -13,6 +13,7 @@
  **/
 package org.bonitasoft.engine.core.document.api;
 
+import java.io.InputStream;
 import java.util.List;
 
 import org.bonitasoft.engine.commons.exceptions.SObjectAlreadyExistsException;
@@ -109,6 +110,29 @@ public interface DocumentService {
      */
     byte[] getDocumentContent(String documentId) throws SObjectNotFoundException;
 
+    /**
+     * Get document content by document id without loading it in memory when it is kept in a
+     * {@link DocumentContentStore}
+     *
+     * @param documentId identifier of the document
+     * @return a stream on the document content to be closed by the caller, null if the document has no content
+     * @throws SObjectNotFoundException
+     */
+    InputStream getDocumentContentAsStream(String documentId) throws SObjectNotFoundException;
+
+    /**
+     * Set the content of a document that is not yet attached or used to update a document.
+     * <p>
+     * When a {@link DocumentContentStore} is configured the content is written to it while being read and the
+     * document only references it, otherwise the content is read in memory to be stored in database.
+     * </p>
+     *
+     * @param document the document to set the content on
+     * @param content the content, read until its end but not closed
+     * @throws SObjectCreationException when the content can't be read or stored
+     */
+    void setContent(SDocument document, InputStream content) throws SObjectCreationException;
+
     /**
      * Get document with mapping by its mapping id
      *
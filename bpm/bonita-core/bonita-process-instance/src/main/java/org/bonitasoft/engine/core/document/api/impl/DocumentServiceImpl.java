@@ -13,12 +13,16 @@
  **/
 package org.bonitasoft.engine.core.document.api.impl;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import lombok.extern.slf4j.Slf4j;
 import org.bonitasoft.engine.archive.ArchiveInsertRecord;
 import org.bonitasoft.engine.archive.ArchiveService;
 import org.bonitasoft.engine.commons.exceptions.SBonitaException;
@@ -26,6 +30,7 @@ import org.bonitasoft.engine.commons.exceptions.SObjectAlreadyExistsException;
 import org.bonitasoft.engine.commons.exceptions.SObjectCreationException;
 import org.bonitasoft.engine.commons.exceptions.SObjectModificationException;
 import org.bonitasoft.engine.commons.exceptions.SObjectNotFoundException;
+import org.bonitasoft.engine.core.document.api.DocumentContentStore;
 import org.bonitasoft.engine.core.document.api.DocumentService;
 import org.bonitasoft.engine.core.document.model.AbstractSDocumentMapping;
 import org.bonitasoft.engine.core.document.model.AbstractSMappedDocument;
@@ -36,6 +41,7 @@ import org.bonitasoft.engine.core.document.model.SMappedDocument;
 import org.bonitasoft.engine.core.document.model.archive.SADocumentMapping;
 import org.bonitasoft.engine.core.document.model.archive.SAMappedDocument;
 import org.bonitasoft.engine.core.document.model.recorder.SelectDescriptorBuilder;
+import org.bonitasoft.engine.io.IOUtil;
 import org.bonitasoft.engine.persistence.OrderByType;
 import org.bonitasoft.engine.persistence.QueryOptions;
 import org.bonitasoft.engine.persistence.ReadPersistenceService;
@@ -48,6 +54,9 @@ import org.bonitasoft.engine.recorder.SRecorderException;
 import org.bonitasoft.engine.recorder.model.DeleteRecord;
 import org.bonitasoft.engine.recorder.model.InsertRecord;
 import org.bonitasoft.engine.recorder.model.UpdateRecord;
+import org.bonitasoft.engine.transaction.STransactionNotFoundException;
+import org.bonitasoft.engine.transaction.TransactionState;
+import org.bonitasoft.engine.transaction.UserTransactionService;
 
 /**
  * @author Nicolas Chabanoles
@@ -55,6 +64,7 @@ import org.bonitasoft.engine.recorder.model.UpdateRecord;
  * @author Celine Souchet
  * @author Baptiste Mesta
  */
+@Slf4j
 public class DocumentServiceImpl implements DocumentService {
 
     private final SDocumentDownloadURLProvider urlProvider;
@@ -62,13 +72,26 @@ public class DocumentServiceImpl implements DocumentService {
     private final Recorder recorder;
     private final ReadPersistenceService persistenceService;
     private final ReadPersistenceService definitiveArchiveReadPersistenceService;
+    private final UserTransactionService transactionService;
+    private final DocumentContentStore contentStore;
 
     public DocumentServiceImpl(final Recorder recorder, final ReadPersistenceService persistenceService,
             final SDocumentDownloadURLProvider urlProvider, final ArchiveService archiveService) {
+        this(recorder, persistenceService, urlProvider, archiveService, null, null);
+    }
+
+    /**
+     * @param contentStore where to store the content of documents, if null contents are stored in the database
+     */
+    public DocumentServiceImpl(final Recorder recorder, final ReadPersistenceService persistenceService,
+            final SDocumentDownloadURLProvider urlProvider, final ArchiveService archiveService,
+            final UserTransactionService transactionService, final DocumentContentStore contentStore) {
         this.recorder = recorder;
         this.persistenceService = persistenceService;
         this.urlProvider = urlProvider;
         this.archiveService = archiveService;
+        this.transactionService = transactionService;
+        this.contentStore = contentStore;
         definitiveArchiveReadPersistenceService = archiveService.getDefinitiveArchiveReadPersistenceService();
 
     }
@@ -152,10 +175,77 @@ public class DocumentServiceImpl implements DocumentService {
         return String.valueOf(intVersion + 1);
     }
 
-    private void insertDocument(final SDocument document) throws SRecorderException {
+    private void insertDocument(final SDocument document) throws SRecorderException, SObjectCreationException {
+        final byte[] content = document.getContent();
+        if (contentStore != null && content != null && document.getContentStoreKey() == null) {
+            setContent(document, new ByteArrayInputStream(content));
+        }
         recorder.recordInsert(new InsertRecord(document), DOCUMENT);
     }
 
+    @Override
+    public void setContent(final SDocument document, final InputStream content) throws SObjectCreationException {
+        if (contentStore == null) {
+            try {
+                document.setContent(IOUtil.getAllContentFrom(content));
+            } catch (final IOException e) {
+                throw new SObjectCreationException("Unable to read the content of document " + document.getFileName(),
+                        e);
+            }
+            return;
+        }
+        final String key;
+        try {
+            key = contentStore.store(content);
+        } catch (final IOException e) {
+            throw new SObjectCreationException("Unable to store the content of document " + document.getFileName(), e);
+        }
+        try {
+            // the document referencing this content will not exist if the transaction is rolled back
+            transactionService.registerBonitaSynchronization(state -> {
+                if (state == TransactionState.ROLLEDBACK) {
+                    releaseContent(key);
+                }
+            });
+        } catch (final STransactionNotFoundException e) {
+            releaseContent(key);
+            throw new SObjectCreationException("Unable to store the content of document " + document.getFileName()
+                    + " outside of a transaction", e);
+        }
+        document.setContent(null);
+        document.setContentStoreKey(key);
+    }
+
+    private void releaseContent(final String key) {
+        try {
+            contentStore.release(key);
+        } catch (final IOException e) {
+            log.warn("Unable to release the document content {} from the content store", key, e);
+        }
+    }
+
+    /**
+     * release the stored content once the transaction removing the reference to it is committed
+     */
+    private void releaseContentAfterCommit(final String key) {
+        if (key == null) {
+            return;
+        }
+        if (contentStore == null) {
+            log.warn("Document content {} is not released because no content store is configured", key);
+            return;
+        }
+        try {
+            transactionService.registerBonitaSynchronization(state -> {
+                if (state == TransactionState.COMMITTED) {
+                    releaseContent(key);
+                }
+            });
+        } catch (final STransactionNotFoundException e) {
+            releaseContent(key);
+        }
+    }
+
     @Override
     public void deleteDocumentsFromProcessInstance(final Long processInstanceId)
             throws SBonitaReadException, SObjectModificationException {
@@ -257,10 +347,32 @@ public class DocumentServiceImpl implements DocumentService {
 
     @Override
     public byte[] getDocumentContent(final String documentId) throws SObjectNotFoundException {
+        final SDocument document = getDocumentWithContent(documentId);
+        if (document.getContentStoreKey() == null) {
+            return document.getContent();
+        }
+        try (InputStream stream = readStoredContent(documentId, document.getContentStoreKey())) {
+            return IOUtil.getAllContentFrom(stream);
+        } catch (final IOException e) {
+            throw new SObjectNotFoundException("Unable to read the content of document " + documentId, e);
+        }
+    }
+
+    @Override
+    public InputStream getDocumentContentAsStream(final String documentId) throws SObjectNotFoundException {
+        final SDocument document = getDocumentWithContent(documentId);
+        if (document.getContentStoreKey() != null) {
+            return readStoredContent(documentId, document.getContentStoreKey());
+        }
+        final byte[] content = document.getContent();
+        return content != null ? new ByteArrayInputStream(content) : null;
+    }
+
+    private SDocument getDocumentWithContent(final String documentId) throws SObjectNotFoundException {
         try {
             final Long id = Long
                     .valueOf(documentId);
-            return getDocumentWithContent(id).getContent();
+            return getDocumentWithContent(id);
         } catch (final NumberFormatException e) {
             throw new SObjectNotFoundException("Identifier " + documentId + " is not valid, it must be a long");
         } catch (final SBonitaReadException e) {
@@ -268,6 +380,19 @@ public class DocumentServiceImpl implements DocumentService {
         }
     }
 
+    private InputStream readStoredContent(final String documentId, final String key)
+            throws SObjectNotFoundException {
+        if (contentStore == null) {
+            throw new SObjectNotFoundException("The content of document " + documentId
+                    + " is kept in a content store but no content store is configured");
+        }
+        try {
+            return contentStore.read(key);
+        } catch (final IOException e) {
+            throw new SObjectNotFoundException("Unable to read the content of document " + documentId, e);
+        }
+    }
+
     private SDocument getDocumentWithContent(final Long id) throws SBonitaReadException, SObjectNotFoundException {
         final SDocument document = persistenceService
                 .selectById(new SelectByIdDescriptor<>(SDocument.class, id));
@@ -356,6 +481,7 @@ public class DocumentServiceImpl implements DocumentService {
 
     private void delete(final SLightDocument document) throws SRecorderException {
         recorder.recordDelete(new DeleteRecord(document), "SDocument");
+        releaseContentAfterCommit(document.getContentStoreKey());
     }
 
     @Override
@@ -418,6 +544,15 @@ public class DocumentServiceImpl implements DocumentService {
             documentIds.add(mappedDocument.getDocumentId());
             documentMappingIds.add(mappedDocument.getId());
         }
+        if (contentStore != null) {
+            final List<String> contentStoreKeys = persistenceService
+                    .selectList(new SelectListDescriptor<>("getContentStoreKeysOfDocuments",
+                            Collections.singletonMap("ids", documentIds), SLightDocument.class, String.class,
+                            QueryOptions.ALL_RESULTS));
+            for (final String contentStoreKey : contentStoreKeys) {
+                releaseContentAfterCommit(contentStoreKey);
+            }
+        }
 
         archiveService.deleteFromQuery("deleteArchiveDocumentsByIds", Collections.singletonMap("ids", documentIds));
         archiveService.deleteFromQuery("deleteArchiveMappingsByIds",
@@ -468,8 +603,12 @@ public class DocumentServiceImpl implements DocumentService {
             throws SObjectNotFoundException, SBonitaReadException, SRecorderException {
         final SAMappedDocument archivedDocument = getArchivedDocument(archivedDocumentId);
         final SDocument document = getDocumentWithContent(archivedDocument.getDocumentId());
-        recorder.recordUpdate(UpdateRecord.buildSetFields(document, Collections.singletonMap("content", null)),
-                DOCUMENT);
+        final String contentStoreKey = document.getContentStoreKey();
+        final Map<String, Object> fields = new HashMap<>(2);
+        fields.put("content", null);
+        fields.put("contentStoreKey", null);
+        recorder.recordUpdate(UpdateRecord.buildSetFields(document, fields), DOCUMENT);
+        releaseContentAfterCommit(contentStoreKey);
     }
 
     @Override
@@ -492,7 +631,7 @@ public class DocumentServiceImpl implements DocumentService {
         //insert new document
         try {
             insertDocument(sDocument);
-        } catch (final SRecorderException e) {
+        } catch (final SRecorderException | SObjectCreationException e) {
             throw new SObjectModificationException(e);
         }
         //update mapping
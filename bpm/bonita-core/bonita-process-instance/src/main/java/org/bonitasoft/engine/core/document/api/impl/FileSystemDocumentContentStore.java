@@ -0,0 +1,172 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.core.document.api.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.bonitasoft.engine.core.document.api.DocumentContentStore;
+
+/**
+ * Stores the content of documents in a folder of the local file system, keyed by their SHA-256 hash.
+ * <p>
+ * Identical contents (e.g. the same file attached to several process instances) are stored once. The number of
+ * references of each content is kept in a file next to it. Contents are written to a temporary file while computing
+ * their hash, only moving the file and updating the references are done under a lock.
+ * <p>
+ * That lock is a file lock on the sub folder of the content, so several nodes can share the same folder, provided
+ * the file system supports file locks (e.g. NFSv4). Threads of the same JVM are serialized before taking the file
+ * lock, since file locks are held on behalf of the whole JVM.
+ */
+public class FileSystemDocumentContentStore implements DocumentContentStore {
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final String REFERENCES_SUFFIX = ".references";
+    private static final String LOCK_FILE = ".lock";
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private static final ConcurrentHashMap<Path, Object> JVM_LOCKS = new ConcurrentHashMap<>();
+
+    private final Path folder;
+
+    public FileSystemDocumentContentStore(final String folder, final long tenantId) {
+        this.folder = Paths.get(folder, String.valueOf(tenantId));
+    }
+
+    /**
+     * @return a store using the given folder, or null when no folder is configured, in which case the content of
+     *         documents is kept in the database
+     */
+    public static FileSystemDocumentContentStore createIfConfigured(final String folder, final long tenantId) {
+        if (folder == null || folder.trim().isEmpty()) {
+            return null;
+        }
+        return new FileSystemDocumentContentStore(folder.trim(), tenantId);
+    }
+
+    @Override
+    public String store(final InputStream content) throws IOException {
+        Files.createDirectories(folder);
+        final Path temporaryFile = Files.createTempFile(folder, "content", ".tmp");
+        try {
+            final MessageDigest digest = createDigest();
+            Files.copy(new DigestInputStream(content, digest), temporaryFile, StandardCopyOption.REPLACE_EXISTING);
+            final String key = toHex(digest.digest());
+            underLock(key, () -> {
+                final Path contentFile = getContentFile(key);
+                if (!Files.exists(contentFile)) {
+                    Files.move(temporaryFile, contentFile, StandardCopyOption.ATOMIC_MOVE);
+                }
+                writeReferences(key, readReferences(key) + 1);
+            });
+            return key;
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    @Override
+    public InputStream read(final String key) throws IOException {
+        return Files.newInputStream(getContentFile(key));
+    }
+
+    @Override
+    public void release(final String key) throws IOException {
+        underLock(key, () -> {
+            final int references = readReferences(key) - 1;
+            if (references > 0) {
+                writeReferences(key, references);
+            } else {
+                Files.deleteIfExists(getContentFile(key));
+                Files.deleteIfExists(getReferencesFile(key));
+            }
+        });
+    }
+
+    private void underLock(final String key, final LockedOperation operation) throws IOException {
+        final Path contentFolder = getContentFile(key).getParent();
+        Files.createDirectories(contentFolder);
+        final Path lockFile = contentFolder.resolve(LOCK_FILE).toAbsolutePath().normalize();
+        synchronized (JVM_LOCKS.computeIfAbsent(lockFile, path -> new Object())) {
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE);
+                    FileLock ignored = channel.lock()) {
+                operation.run();
+            }
+        }
+    }
+
+    int readReferences(final String key) throws IOException {
+        try {
+            return Integer.parseInt(new String(Files.readAllBytes(getReferencesFile(key)), StandardCharsets.UTF_8));
+        } catch (final NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    private void writeReferences(final String key, final int references) throws IOException {
+        final Path referencesFile = getReferencesFile(key);
+        final Path temporaryFile = Files.createTempFile(referencesFile.getParent(), "references", ".tmp");
+        Files.write(temporaryFile, String.valueOf(references).getBytes(StandardCharsets.UTF_8));
+        Files.move(temporaryFile, referencesFile, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    Path getContentFile(final String key) {
+        if (key == null || !KEY_PATTERN.matcher(key).matches()) {
+            throw new IllegalArgumentException("Invalid document content key: " + key);
+        }
+        return folder.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    private Path getReferencesFile(final String key) {
+        final Path contentFile = getContentFile(key);
+        return contentFile.resolveSibling(key + REFERENCES_SUFFIX);
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " is not supported by this JVM", e);
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        final StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (final byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private interface LockedOperation {
+
+        void run() throws IOException;
+    }
+
+}
@@ -58,6 +58,12 @@ public class AbstractSDocument implements PersistentObject {
     @Column(name = "mimeType")
     private String mimeType;
 
+    /**
+     * key of the content in the content store of documents, null when the content is kept in the database
+     */
+    @Column(name = "contentstorekey")
+    private String contentStoreKey;
+
     public boolean hasContent() {
         return hasContent;
     }
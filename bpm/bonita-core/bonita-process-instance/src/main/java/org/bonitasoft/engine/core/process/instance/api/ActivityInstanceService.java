@@ -63,6 +63,15 @@ public interface ActivityInstanceService extends FlowNodeInstanceService {
      */
     void createActivityInstance(SActivityInstance activityInstance) throws SActivityCreationException;
 
+    /**
+     * Create activityInstances in DB in one batch, e.g. the children of a multi-instance activity
+     *
+     * @param activityInstances
+     *        the SActivityInstance objects to create
+     * @throws SActivityCreationException
+     */
+    void createActivityInstances(List<SActivityInstance> activityInstances) throws SActivityCreationException;
+
     /**
      * Create a new pending activity mapping in DB
      *
@@ -703,6 +712,32 @@ public interface ActivityInstanceService extends FlowNodeInstanceService {
     List<SHumanTaskInstance> searchPendingTasksForUser(long userId, QueryOptions searchOptions)
             throws SBonitaReadException;
 
+    /**
+     * Same as {@link #getNumberOfPendingTasksForUser(long, QueryOptions)} with the actors of the user already resolved,
+     * so that pending tasks are only looked up by their actor ids.
+     *
+     * @param userId
+     * @param actorIds
+     *        ids of all actors the user is a member of
+     * @param searchOptions
+     * @return
+     */
+    long getNumberOfPendingTasksForUser(long userId, List<Long> actorIds, QueryOptions searchOptions)
+            throws SBonitaReadException;
+
+    /**
+     * Same as {@link #searchPendingTasksForUser(long, QueryOptions)} with the actors of the user already resolved, so
+     * that pending tasks are only looked up by their actor ids.
+     *
+     * @param userId
+     * @param actorIds
+     *        ids of all actors the user is a member of
+     * @param searchOptions
+     * @return
+     */
+    List<SHumanTaskInstance> searchPendingTasksForUser(long userId, List<Long> actorIds, QueryOptions searchOptions)
+            throws SBonitaReadException;
+
     /**
      * @since 7.5.5
      */
@@ -742,6 +777,32 @@ public interface ActivityInstanceService extends FlowNodeInstanceService {
      */
     long getNumberOfPendingOrAssignedTasks(long userId, QueryOptions searchOptions) throws SBonitaReadException;
 
+    /**
+     * Same as {@link #searchPendingOrAssignedTasks(long, QueryOptions)} with the actors of the user already resolved,
+     * so that pending tasks are only looked up by their actor ids.
+     *
+     * @param userId
+     * @param actorIds
+     *        ids of all actors the user is a member of
+     * @param searchOptions
+     * @return
+     */
+    List<SHumanTaskInstance> searchPendingOrAssignedTasks(long userId, List<Long> actorIds,
+            QueryOptions searchOptions) throws SBonitaReadException;
+
+    /**
+     * Same as {@link #getNumberOfPendingOrAssignedTasks(long, QueryOptions)} with the actors of the user already
+     * resolved, so that pending tasks are only looked up by their actor ids.
+     *
+     * @param userId
+     * @param actorIds
+     *        ids of all actors the user is a member of
+     * @param searchOptions
+     * @return
+     */
+    long getNumberOfPendingOrAssignedTasks(long userId, List<Long> actorIds, QueryOptions searchOptions)
+            throws SBonitaReadException;
+
     /**
      * @param activityInstance
      * @param boundaryEventId
@@ -351,11 +351,13 @@ public interface FlowNodeInstanceService {
      * Called on start node to set the flag to tell the engine to restart these flow nodes
      * Should not be called when the engine is started!
      *
-     * @param queryOptions
-     * @return
+     * @param lastId only ids greater than this one are returned, use the last id of the previous page to get the
+     *        next one
+     * @param maxResults maximum number of ids to return
+     * @return ids of the flow nodes to restart, in ascending order
      * @throws SBonitaReadException
      */
-    List<Long> getFlowNodeInstanceIdsToRestart(QueryOptions queryOptions) throws SBonitaReadException;
+    List<Long> getFlowNodeInstanceIdsToRestart(long lastId, int maxResults) throws SBonitaReadException;
 
     List<SFlowNodeInstance> getFlowNodeInstancesByIds(List<Long> ids) throws SBonitaReadException;
 
@@ -13,6 +13,7 @@
  **/
 package org.bonitasoft.engine.core.process.instance.api.event;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -124,6 +125,20 @@ public interface EventInstanceService {
     List<SMessageEventCouple> getMessageEventCouples(int fromIndex, int maxResults)
             throws SEventTriggerInstanceReadException;
 
+    /**
+     * Same as {@link #getMessageEventCouples(int, int)} but only for messages having one of the given names
+     */
+    List<SMessageEventCouple> getMessageEventCouples(Collection<String> messageNames, int fromIndex, int maxResults)
+            throws SEventTriggerInstanceReadException;
+
+    /**
+     * @param afterMessageName only return names coming after this one, or null to get the first names
+     * @param maxResults maximum number of names to return
+     * @return the distinct names of the messages that are not handled yet, ordered by name
+     */
+    List<String> getMessageNamesOfUnhandledMessages(String afterMessageName, int maxResults)
+            throws SEventTriggerInstanceReadException;
+
     SWaitingMessageEvent getWaitingMessage(long waitingMessageId) throws SWaitingEventReadException;
 
     SMessageInstance getMessageInstance(long messageInstanceId) throws SMessageInstanceReadException;
@@ -15,6 +15,7 @@ package org.bonitasoft.engine.core.process.instance.event.impl;
 
 import static java.util.Collections.singletonMap;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -277,6 +278,29 @@ public class EventInstanceRepositoryImpl implements EventInstanceRepository {
         }
     }
 
+    @Override
+    public List<SMessageEventCouple> getMessageEventCouples(final Collection<String> messageNames,
+            final int fromIndex, final int maxResults) throws SEventTriggerInstanceReadException {
+        final SelectListDescriptor<SMessageEventCouple> selectDescriptor = SelectDescriptorBuilder
+                .getMessageEventCouples(messageNames, fromIndex, maxResults);
+        try {
+            return persistenceService.selectList(selectDescriptor);
+        } catch (final SBonitaReadException e) {
+            throw new SEventTriggerInstanceReadException(e);
+        }
+    }
+
+    @Override
+    public List<String> getMessageNamesOfUnhandledMessages(final String afterMessageName, final int maxResults)
+            throws SEventTriggerInstanceReadException {
+        try {
+            return persistenceService.selectList(
+                    SelectDescriptorBuilder.getMessageNamesOfUnhandledMessages(afterMessageName, maxResults));
+        } catch (final SBonitaReadException e) {
+            throw new SEventTriggerInstanceReadException(e);
+        }
+    }
+
     @Override
     public SMessageInstance getMessageInstance(final long messageInstanceId) throws SMessageInstanceReadException {
         try {
@@ -13,6 +13,7 @@
  **/
 package org.bonitasoft.engine.core.process.instance.event.impl;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -186,6 +187,18 @@ public class EventInstanceServiceImpl implements EventInstanceService {
         return this.eventInstanceRepository.getMessageEventCouples(i, maxCouples);
     }
 
+    @Override
+    public List<SMessageEventCouple> getMessageEventCouples(Collection<String> messageNames, int fromIndex,
+            int maxResults) throws SEventTriggerInstanceReadException {
+        return this.eventInstanceRepository.getMessageEventCouples(messageNames, fromIndex, maxResults);
+    }
+
+    @Override
+    public List<String> getMessageNamesOfUnhandledMessages(String afterMessageName, int maxResults)
+            throws SEventTriggerInstanceReadException {
+        return this.eventInstanceRepository.getMessageNamesOfUnhandledMessages(afterMessageName, maxResults);
+    }
+
     @Override
     public SMessageInstance getMessageInstance(long messageInstanceId) throws SMessageInstanceReadException {
         return this.eventInstanceRepository.getMessageInstance(messageInstanceId);
@@ -13,6 +13,7 @@
  **/
 package org.bonitasoft.engine.core.process.instance.impl;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -95,6 +96,14 @@ public class ActivityInstanceServiceImpl extends FlowNodeInstancesServiceImpl im
 
     private static final String PENDING_OR_ASSIGNED = "PendingOrAssigned";
 
+    private static final String WITH_ACTORS = "WithActors";
+
+    /**
+     * Above this number of actor ids, pending tasks are resolved from the actor members in the database instead of
+     * using a list of actor ids (some databases limit the size of IN lists to 1000).
+     */
+    static final int MAX_ACTOR_IDS = 1000;
+
     private static final String PENDING_ASSIGNED_TO = "PendingAssignedTo";
 
     private static final String HUMAN_TASK_INSTANCE_ASSIGNEE = "HUMAN_TASK_INSTANCE_ASSIGNEE";
@@ -148,6 +157,27 @@ public class ActivityInstanceServiceImpl extends FlowNodeInstancesServiceImpl im
         }
     }
 
+    @Override
+    public void createActivityInstances(final List<SActivityInstance> activityInstances)
+            throws SActivityCreationException {
+        final List<InsertRecord> records = new ArrayList<>(activityInstances.size());
+        for (final SActivityInstance activityInstance : activityInstances) {
+            records.add(new InsertRecord(activityInstance));
+        }
+        try {
+            getRecorder().recordInsertAll(records, ACTIVITYINSTANCE);
+        } catch (final SRecorderException e) {
+            throw new SActivityCreationException(e);
+        }
+        if (!activityInstances.isEmpty() && getLogger().isLoggable(getClass(), TechnicalLogSeverity.DEBUG)) {
+            final SActivityInstance first = activityInstances.get(0);
+            getLogger().log(this.getClass(), TechnicalLogSeverity.DEBUG, "Created " + activityInstances.size() + " "
+                    + first.getType().getValue() + " <" + first.getName() + ">, parent activity instance id = <"
+                    + first.getParentActivityInstanceId() + ">, root process instance id = <"
+                    + first.getRootProcessInstanceId() + ">");
+        }
+    }
+
     @Override
     public void addPendingActivityMappings(final SPendingActivityMapping mapping) throws SActivityCreationException {
         try {
@@ -808,6 +838,26 @@ public class ActivityInstanceServiceImpl extends FlowNodeInstancesServiceImpl im
                 parameters);
     }
 
+    @Override
+    public long getNumberOfPendingTasksForUser(final long userId, final List<Long> actorIds,
+            final QueryOptions searchOptions) throws SBonitaReadException {
+        if (!canUseActorIds(actorIds)) {
+            return getNumberOfPendingTasksForUser(userId, searchOptions);
+        }
+        return getPersistenceService().getNumberOfEntities(SHumanTaskInstance.class, PENDING_FOR_USER + WITH_ACTORS,
+                searchOptions, userAndActorsParameters(userId, actorIds));
+    }
+
+    @Override
+    public List<SHumanTaskInstance> searchPendingTasksForUser(final long userId, final List<Long> actorIds,
+            final QueryOptions searchOptions) throws SBonitaReadException {
+        if (!canUseActorIds(actorIds)) {
+            return searchPendingTasksForUser(userId, searchOptions);
+        }
+        return getPersistenceService().searchEntity(SHumanTaskInstance.class, PENDING_FOR_USER + WITH_ACTORS,
+                searchOptions, userAndActorsParameters(userId, actorIds));
+    }
+
     @Override
     public long getNumberOfPendingOrAssignedTasks(final long userId, final QueryOptions searchOptions)
             throws SBonitaReadException {
@@ -816,6 +866,41 @@ public class ActivityInstanceServiceImpl extends FlowNodeInstancesServiceImpl im
                 parameters);
     }
 
+    @Override
+    public long getNumberOfPendingOrAssignedTasks(final long userId, final List<Long> actorIds,
+            final QueryOptions searchOptions) throws SBonitaReadException {
+        if (!canUseActorIds(actorIds)) {
+            return getNumberOfPendingOrAssignedTasks(userId, searchOptions);
+        }
+        return getPersistenceService().getNumberOfEntities(SHumanTaskInstance.class, PENDING_OR_ASSIGNED + WITH_ACTORS,
+                searchOptions, userAndActorsParameters(userId, actorIds));
+    }
+
+    @Override
+    public List<SHumanTaskInstance> searchPendingOrAssignedTasks(final long userId, final List<Long> actorIds,
+            final QueryOptions searchOptions) throws SBonitaReadException {
+        if (!canUseActorIds(actorIds)) {
+            return searchPendingOrAssignedTasks(userId, searchOptions);
+        }
+        return getPersistenceService().searchEntity(SHumanTaskInstance.class, PENDING_OR_ASSIGNED + WITH_ACTORS,
+                searchOptions, userAndActorsParameters(userId, actorIds));
+    }
+
+    /**
+     * An empty list of actor ids cannot be used in an IN clause, the queries resolving actor members are used then:
+     * they are cheap for users that are not members of any actor.
+     */
+    private static boolean canUseActorIds(final List<Long> actorIds) {
+        return !actorIds.isEmpty() && actorIds.size() <= MAX_ACTOR_IDS;
+    }
+
+    private static Map<String, Object> userAndActorsParameters(final long userId, final List<Long> actorIds) {
+        final Map<String, Object> parameters = new HashMap<>();
+        parameters.put("userId", userId);
+        parameters.put("actorIds", actorIds);
+        return parameters;
+    }
+
     @Override
     public List<SHumanTaskInstance> searchPendingTasksAssignedTo(long userId, QueryOptions searchOptions)
             throws SBonitaReadException {
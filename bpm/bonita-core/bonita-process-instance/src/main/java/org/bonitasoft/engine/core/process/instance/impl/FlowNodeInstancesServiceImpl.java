@@ -501,10 +501,11 @@ public abstract class FlowNodeInstancesServiceImpl implements FlowNodeInstanceSe
     }
 
     @Override
-    public List<Long> getFlowNodeInstanceIdsToRestart(final QueryOptions queryOptions) throws SBonitaReadException {
+    public List<Long> getFlowNodeInstanceIdsToRestart(final long lastId, final int maxResults)
+            throws SBonitaReadException {
         final List<Long> selectList = getPersistenceService().selectList(
-                new SelectListDescriptor<>("getFlowNodeInstanceIdsToRestart", null, SFlowNodeInstance.class,
-                        queryOptions));
+                new SelectListDescriptor<>("getFlowNodeInstanceIdsToRestart", Collections.singletonMap("lastId",
+                        lastId), SFlowNodeInstance.class, new QueryOptions(0, maxResults)));
         return getUnmodifiableList(selectList);
     }
 
@@ -15,7 +15,6 @@ package org.bonitasoft.engine.core.process.instance.impl;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -146,14 +145,14 @@ public class GatewayInstanceServiceImpl implements GatewayInstanceService {
         SFlowNodeDefinition gatewayDefinition = processContainer.getFlowNode(gatewayInstance.getFlowNodeDefinitionId());
         long processInstanceId = gatewayInstance.getParentContainerId();
 
-        List<String> hitByTransitionList = getHitByTransitionList(gatewayInstance);
+        GatewayTokens tokens = GatewayTokens.parse(gatewayInstance.getHitBys());
         List<STransitionDefinition> incomingTransitions = gatewayDefinition.getIncomingTransitions();
         List<STransitionDefinition> incomingWithTokens = new ArrayList<STransitionDefinition>();
         List<STransitionDefinition> incomingWithoutTokens = new ArrayList<STransitionDefinition>();
 
         for (int i = 0; i < incomingTransitions.size(); i++) {
             STransitionDefinition currentTransition = incomingTransitions.get(i);
-            if (hitByTransitionList.contains(String.valueOf(i + 1))) {
+            if (tokens.hasToken(i + 1)) {
                 incomingWithTokens.add(currentTransition);
             } else {
                 incomingWithoutTokens.add(currentTransition);
@@ -276,22 +275,8 @@ public class GatewayInstanceServiceImpl implements GatewayInstanceService {
     }
 
     boolean isParallelGatewayActivated(final SProcessDefinition sDefinition, final SGatewayInstance gatewayInstance) {
-        final List<String> hitsBy = getHitByTransitionList(gatewayInstance);
         final List<STransitionDefinition> trans = getTransitionDefinitions(gatewayInstance, sDefinition);
-        boolean go = true;
-        int i = 1;
-        while (go && i <= trans.size()) {
-            go = hitsBy.contains(String.valueOf(i));
-            i++;
-        }
-        return go;
-    }
-
-    /**
-     * @return the list of transition indexes that hit the gateway
-     */
-    private List<String> getHitByTransitionList(final SGatewayInstance gatewayInstance) {
-        return Arrays.asList(gatewayInstance.getHitBys().split(","));
+        return GatewayTokens.parse(gatewayInstance.getHitBys()).hasTokenOnAllTransitions(trans.size());
     }
 
     protected List<STransitionDefinition> getTransitionDefinitions(final SGatewayInstance gatewayInstance,
@@ -316,14 +301,9 @@ public class GatewayInstanceServiceImpl implements GatewayInstanceService {
                 "Hit gateway " + gatewayInstance.getName() + " (" + gatewayInstance.getId() + ")" + " of instance "
                         + gatewayInstance.getRootProcessInstanceId()
                         + " with transition index " + transitionIndex);
-        final String hitBys = gatewayInstance.getHitBys();
-        String columnValue;
-        if (hitBys == null || hitBys.isEmpty()) {
-            columnValue = String.valueOf(transitionIndex);
-        } else {
-            columnValue = hitBys + "," + transitionIndex;
-        }
-        updateOneColumnAndMetaData(gatewayInstance, sGatewayInstanceBuilderFactory.getHitBysKey(), columnValue,
+        final GatewayTokens tokens = GatewayTokens.parse(gatewayInstance.getHitBys());
+        tokens.hit((int) transitionIndex);
+        updateOneColumnAndMetaData(gatewayInstance, sGatewayInstanceBuilderFactory.getHitBysKey(), tokens.toHitBys(),
                 GATEWAYINSTANCE_HITBYS);
     }
 
@@ -365,17 +345,16 @@ public class GatewayInstanceServiceImpl implements GatewayInstanceService {
     @Override
     public List<SGatewayInstance> setFinishAndCreateNewGatewayForRemainingToken(SProcessDefinition processDefinition,
             final SGatewayInstance gatewayInstance) throws SBonitaException {
-        List<String> hitBys = getHitByTransitionList(gatewayInstance);
-        List<String> merged = getMergedTokens(gatewayInstance, hitBys);
-        setFinished(gatewayInstance, merged.size());
-        List<String> remaining = getRemainingTokens(hitBys, merged);
-        logger.log(TAG, TechnicalLogSeverity.DEBUG, "There is " + remaining + " remaining token to merge on gateway "
-                + gatewayInstance.getName() + " will create a new if there is");
-        if (remaining.isEmpty()) {
+        GatewayTokens tokens = GatewayTokens.parse(gatewayInstance.getHitBys());
+        setFinished(gatewayInstance, tokens.merge(gatewayInstance.getGatewayType()));
+        logger.log(TAG, TechnicalLogSeverity.DEBUG, "There is " + tokens.toHitBys()
+                + " remaining token to merge on gateway " + gatewayInstance.getName()
+                + " will create a new if there is");
+        if (tokens.isEmpty()) {
             return Collections.emptyList();
         }
         List<SGatewayInstance> toFire = new ArrayList<SGatewayInstance>();
-        SGatewayInstance newGatewayInstance = createGatewayWithRemainingTokens(gatewayInstance, remaining);
+        SGatewayInstance newGatewayInstance = createGatewayWithRemainingTokens(gatewayInstance, tokens);
         if (checkMergingCondition(processDefinition, newGatewayInstance)) {
             toFire.add(newGatewayInstance);
             //recursively add newly created gateway that are already merged
@@ -384,40 +363,6 @@ public class GatewayInstanceServiceImpl implements GatewayInstanceService {
         return toFire;
     }
 
-    List<String> getMergedTokens(SGatewayInstance gatewayInstance, List<String> hitBys) {
-        List<String> merged = null;
-        switch (gatewayInstance.getGatewayType()) {
-            case PARALLEL:
-                merged = unique(hitBys);
-                break;
-            case INCLUSIVE:
-                merged = unique(hitBys);
-                break;
-            case EXCLUSIVE:
-                merged = Collections.singletonList(hitBys.get(0));
-                break;
-        }
-        return merged;
-    }
-
-    private ArrayList<String> unique(List<String> hitBys) {
-        ArrayList<String> merged = new ArrayList<String>();
-        for (String hitBy : hitBys) {
-            if (!merged.contains(hitBy)) {
-                merged.add(hitBy);
-            }
-        }
-        return merged;
-    }
-
-    ArrayList<String> getRemainingTokens(List<String> hitBys, List<String> merged) {
-        ArrayList<String> remaining = new ArrayList<String>(hitBys);
-        for (String mergedToken : merged) {
-            remaining.remove(mergedToken);
-        }
-        return remaining;
-    }
-
     /**
      * create a new gateway instance with the remaining token
      *
@@ -428,14 +373,10 @@ public class GatewayInstanceServiceImpl implements GatewayInstanceService {
      * @return
      *         the new gateway
      */
-    private SGatewayInstance createGatewayWithRemainingTokens(SGatewayInstance gatewayInstance, List<String> remaining)
-            throws SGatewayCreationException {
+    private SGatewayInstance createGatewayWithRemainingTokens(SGatewayInstance gatewayInstance,
+            GatewayTokens remaining) throws SGatewayCreationException {
         SGatewayInstance sGatewayInstance = new SGatewayInstance(gatewayInstance);
-        String remainingTokenAsString = "";
-        for (String token : remaining) {
-            remainingTokenAsString += token + ",";
-        }
-        sGatewayInstance.setHitBys(remainingTokenAsString.substring(0, remainingTokenAsString.length() - 1));
+        sGatewayInstance.setHitBys(remaining.toHitBys());
         createGatewayInstance(sGatewayInstance);
         return sGatewayInstance;
     }
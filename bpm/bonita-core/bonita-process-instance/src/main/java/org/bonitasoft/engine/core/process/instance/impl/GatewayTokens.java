@@ -0,0 +1,205 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.core.process.instance.impl;
+
+import java.util.Arrays;
+
+import org.bonitasoft.engine.core.process.definition.model.SGatewayType;
+import org.bonitasoft.engine.core.process.instance.api.GatewayInstanceService;
+
+/**
+ * Tokens that hit a gateway instance: the number of tokens arrived by each incoming transition, transitions being
+ * identified by their 1-based index in the incoming transitions of the gateway definition.
+ * <p>
+ * They are stored in the hitBys column as "B:" followed by comma separated layers: layer k is a bitset, written in
+ * hexadecimal, of the transitions having at least k tokens (the first character holds transitions 1 to 4, lowest bit
+ * first). A hundred incoming transitions hit once take 27 characters. The legacy format, the comma separated list of
+ * the indexes of the transitions in the order they hit the gateway, is still read so that gateway instances hit
+ * before the upgrade can be merged.
+ */
+final class GatewayTokens {
+
+    static final String PREFIX = "B:";
+
+    private static final int TRANSITIONS_PER_CHARACTER = 4;
+
+    private static final char LAYER_SEPARATOR = ',';
+
+    private int[] counts;
+
+    private int numberOfHitTransitions;
+
+    private GatewayTokens(int capacity) {
+        counts = new int[capacity];
+    }
+
+    static GatewayTokens parse(String hitBys) {
+        if (hitBys == null || hitBys.isEmpty() || hitBys.startsWith(GatewayInstanceService.FINISH)) {
+            return new GatewayTokens(0);
+        }
+        if (hitBys.startsWith(PREFIX)) {
+            return parseLayers(hitBys);
+        }
+        final GatewayTokens tokens = new GatewayTokens(0);
+        for (String transitionIndex : hitBys.split(",")) {
+            tokens.hit(Integer.parseInt(transitionIndex.trim()));
+        }
+        return tokens;
+    }
+
+    private static GatewayTokens parseLayers(String hitBys) {
+        final int firstLayerEnd = hitBys.indexOf(LAYER_SEPARATOR, PREFIX.length());
+        final int firstLayerLength = (firstLayerEnd < 0 ? hitBys.length() : firstLayerEnd) - PREFIX.length();
+        final GatewayTokens tokens = new GatewayTokens(firstLayerLength * TRANSITIONS_PER_CHARACTER);
+        int position = 0;
+        for (int i = PREFIX.length(); i < hitBys.length(); i++) {
+            final char character = hitBys.charAt(i);
+            if (character == LAYER_SEPARATOR) {
+                position = 0;
+                continue;
+            }
+            final int bits = Character.digit(character, 16);
+            if (bits < 0) {
+                throw new IllegalArgumentException("Invalid tokens of gateway: " + hitBys);
+            }
+            for (int bit = 0; bit < TRANSITIONS_PER_CHARACTER; bit++) {
+                if ((bits & (1 << bit)) != 0) {
+                    tokens.hit(position * TRANSITIONS_PER_CHARACTER + bit + 1);
+                }
+            }
+            position++;
+        }
+        return tokens;
+    }
+
+    void hit(int transitionIndex) {
+        if (transitionIndex < 1) {
+            throw new IllegalArgumentException("Invalid transition index " + transitionIndex);
+        }
+        if (transitionIndex > counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(transitionIndex, counts.length * 2));
+        }
+        if (counts[transitionIndex - 1]++ == 0) {
+            numberOfHitTransitions++;
+        }
+    }
+
+    boolean hasToken(int transitionIndex) {
+        return transitionIndex >= 1 && transitionIndex <= counts.length && counts[transitionIndex - 1] > 0;
+    }
+
+    /**
+     * @return true when each of the transitions 1 to numberOfTransitions, and only them, have at least one token
+     */
+    boolean hasTokenOnAllTransitions(int numberOfTransitions) {
+        if (numberOfHitTransitions != numberOfTransitions) {
+            return false;
+        }
+        for (int i = numberOfTransitions; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean isEmpty() {
+        return numberOfHitTransitions == 0;
+    }
+
+    /**
+     * Remove the tokens merged by the gateway: one token of each transition for parallel and inclusive gateways, the
+     * token of the lowest transition for exclusive gateways.
+     *
+     * @return the number of merged tokens
+     */
+    int merge(SGatewayType gatewayType) {
+        if (gatewayType == SGatewayType.EXCLUSIVE) {
+            if (isEmpty()) {
+                return 0;
+            }
+            removeToken(getLowestHitTransition());
+            return 1;
+        }
+        final int merged = numberOfHitTransitions;
+        for (int i = 1; i <= counts.length; i++) {
+            if (counts[i - 1] > 0) {
+                removeToken(i);
+            }
+        }
+        return merged;
+    }
+
+    private void removeToken(int transitionIndex) {
+        if (--counts[transitionIndex - 1] == 0) {
+            numberOfHitTransitions--;
+        }
+    }
+
+    private int getLowestHitTransition() {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private int getHighestHitTransition() {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] > 0) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the tokens in the format stored in the hitBys column, or an empty string when there is no token
+     */
+    String toHitBys() {
+        if (isEmpty()) {
+            return "";
+        }
+        final int highestHitTransition = getHighestHitTransition();
+        final int layerLength = (highestHitTransition + TRANSITIONS_PER_CHARACTER - 1) / TRANSITIONS_PER_CHARACTER;
+        final StringBuilder hitBys = new StringBuilder(PREFIX);
+        for (int layer = 1; appendLayer(hitBys, layer, layerLength); layer++) {
+            hitBys.append(LAYER_SEPARATOR);
+        }
+        hitBys.setLength(hitBys.length() - 1);
+        return hitBys.toString();
+    }
+
+    private boolean appendLayer(StringBuilder hitBys, int layer, int layerLength) {
+        final int start = hitBys.length();
+        int end = start;
+        for (int position = 0; position < layerLength; position++) {
+            int bits = 0;
+            for (int bit = 0; bit < TRANSITIONS_PER_CHARACTER; bit++) {
+                final int index = position * TRANSITIONS_PER_CHARACTER + bit;
+                if (index < counts.length && counts[index] >= layer) {
+                    bits |= 1 << bit;
+                }
+            }
+            hitBys.append(Character.forDigit(bits, 16));
+            if (bits != 0) {
+                end = hitBys.length();
+            }
+        }
+        hitBys.setLength(end);
+        return end > start;
+    }
+
+}
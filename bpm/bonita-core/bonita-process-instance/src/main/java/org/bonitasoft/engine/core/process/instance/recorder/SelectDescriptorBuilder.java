@@ -13,6 +13,7 @@
  **/
 package org.bonitasoft.engine.core.process.instance.recorder;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -244,6 +245,26 @@ public class SelectDescriptorBuilder {
                 queryOptions);
     }
 
+    public static SelectListDescriptor<SMessageEventCouple> getMessageEventCouples(
+            final Collection<String> messageNames, final int fromIndex, final int maxResults) {
+        final Map<String, Object> parameters = Collections.singletonMap("messageNames", (Object) messageNames);
+        final QueryOptions queryOptions = new QueryOptions(fromIndex, maxResults);
+        return new SelectListDescriptor<>("getMessageEventCouplesOfMessageNames", parameters,
+                SMessageEventCouple.class, queryOptions);
+    }
+
+    public static SelectListDescriptor<String> getMessageNamesOfUnhandledMessages(final String afterMessageName,
+            final int maxResults) {
+        final QueryOptions queryOptions = new QueryOptions(0, maxResults);
+        if (afterMessageName == null) {
+            return new SelectListDescriptor<>("getMessageNamesOfUnhandledMessages",
+                    Collections.<String, Object> emptyMap(), SMessageInstance.class, String.class, queryOptions);
+        }
+        return new SelectListDescriptor<>("getMessageNamesOfUnhandledMessagesAfter",
+                Collections.singletonMap("afterMessageName", (Object) afterMessageName), SMessageInstance.class,
+                String.class, queryOptions);
+    }
+
     public static SelectOneDescriptor<SAActivityInstance> getArchivedActivityInstanceWithActivityIdAndStateId(
             final long activityInstanceId,
             final int stateId) {
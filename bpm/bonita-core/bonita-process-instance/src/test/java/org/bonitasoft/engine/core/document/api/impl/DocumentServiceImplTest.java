@@ -15,8 +15,11 @@ package org.bonitasoft.engine.core.document.api.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -24,17 +27,28 @@ import java.util.List;
 
 import org.bonitasoft.engine.archive.ArchiveService;
 import org.bonitasoft.engine.commons.exceptions.SObjectNotFoundException;
+import org.bonitasoft.engine.core.document.api.DocumentContentStore;
 import org.bonitasoft.engine.core.document.model.AbstractSMappedDocument;
+import org.bonitasoft.engine.core.document.model.SDocument;
+import org.bonitasoft.engine.core.document.model.SLightDocument;
 import org.bonitasoft.engine.core.document.model.SMappedDocument;
 import org.bonitasoft.engine.core.document.model.archive.SAMappedDocument;
+import org.bonitasoft.engine.core.document.model.builder.SDocumentBuilderFactory;
 import org.bonitasoft.engine.core.document.model.recorder.SelectDescriptorBuilder;
+import org.bonitasoft.engine.io.IOUtil;
 import org.bonitasoft.engine.persistence.QueryOptions;
 import org.bonitasoft.engine.persistence.ReadPersistenceService;
 import org.bonitasoft.engine.persistence.SelectListDescriptor;
 import org.bonitasoft.engine.recorder.Recorder;
+import org.bonitasoft.engine.transaction.BonitaTransactionSynchronization;
+import org.bonitasoft.engine.transaction.TransactionState;
+import org.bonitasoft.engine.transaction.UserTransactionService;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -55,6 +69,11 @@ public class DocumentServiceImplTest {
     @Mock
     private ArchiveService archiveService;
 
+    @Mock
+    private UserTransactionService transactionService;
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private DocumentServiceImpl documentService;
 
     @Before
@@ -154,4 +173,162 @@ public class DocumentServiceImplTest {
         //then exception
     }
 
+    private DocumentServiceImpl documentServiceWithContentStore() {
+        return new DocumentServiceImpl(recorder, persistenceService, urlProvider, archiveService, transactionService,
+                new FileSystemDocumentContentStore(temporaryFolder.getRoot().getAbsolutePath(), 1L));
+    }
+
+    private SDocument documentWithContent(final String content) {
+        return new SDocumentBuilderFactory().createNewProcessDocument("file.txt", "text/plain", 1L,
+                content.getBytes()).done();
+    }
+
+    @Test
+    public void should_keep_content_in_database_when_no_content_store_is_configured() throws Exception {
+        //given
+        final SDocument document = documentWithContent("the content");
+        //when
+        documentService.attachDocumentToProcessInstance(document, 45L, "doc", null);
+        //then
+        assertThat(document.getContent()).isEqualTo("the content".getBytes());
+        assertThat(document.getContentStoreKey()).isNull();
+    }
+
+    @Test
+    public void should_store_content_in_content_store_and_read_it_back() throws Exception {
+        //given
+        final DocumentServiceImpl service = documentServiceWithContentStore();
+        final SDocument document = documentWithContent("the content");
+        //when
+        service.attachDocumentToProcessInstance(document, 45L, "doc", null);
+        //then
+        assertThat(document.getContentStoreKey()).matches("[0-9a-f]{64}");
+        assertThat(document.getContent()).isNull();
+        doReturn(document).when(persistenceService).selectById(any());
+        assertThat(service.getDocumentContent("12")).isEqualTo("the content".getBytes());
+        try (InputStream content = service.getDocumentContentAsStream("12")) {
+            assertThat(IOUtil.getAllContentFrom(content)).isEqualTo("the content".getBytes());
+        }
+    }
+
+    @Test
+    public void should_store_identical_contents_once() throws Exception {
+        //given
+        final DocumentServiceImpl service = documentServiceWithContentStore();
+        final SDocument document1 = documentWithContent("the content");
+        final SDocument document2 = documentWithContent("the content");
+        //when
+        service.attachDocumentToProcessInstance(document1, 45L, "doc1", null);
+        service.attachDocumentToProcessInstance(document2, 46L, "doc2", null);
+        //then
+        assertThat(document1.getContentStoreKey()).isEqualTo(document2.getContentStoreKey());
+    }
+
+    @Test
+    public void should_release_stored_content_when_transaction_is_rolled_back() throws Exception {
+        //given
+        final FileSystemDocumentContentStore contentStore = new FileSystemDocumentContentStore(
+                temporaryFolder.getRoot().getAbsolutePath(), 1L);
+        final DocumentServiceImpl service = new DocumentServiceImpl(recorder, persistenceService, urlProvider,
+                archiveService, transactionService, contentStore);
+        final SDocument document = documentWithContent("the content");
+        service.setContent(document, new ByteArrayInputStream("streamed content".getBytes()));
+        final String key = document.getContentStoreKey();
+        final ArgumentCaptor<BonitaTransactionSynchronization> synchronization = ArgumentCaptor
+                .forClass(BonitaTransactionSynchronization.class);
+        verify(transactionService).registerBonitaSynchronization(synchronization.capture());
+        //when
+        synchronization.getValue().afterCompletion(TransactionState.ROLLEDBACK);
+        //then
+        assertThat(contentStore.readReferences(key)).isEqualTo(0);
+    }
+
+    @Test
+    public void should_release_stored_content_when_deleting_content_of_archived_document() throws Exception {
+        //given
+        final FileSystemDocumentContentStore contentStore = new FileSystemDocumentContentStore(
+                temporaryFolder.getRoot().getAbsolutePath(), 1L);
+        final ReadPersistenceService archivePersistenceService = mock(ReadPersistenceService.class);
+        doReturn(archivePersistenceService).when(archiveService).getDefinitiveArchiveReadPersistenceService();
+        final DocumentServiceImpl service = new DocumentServiceImpl(recorder, persistenceService, urlProvider,
+                archiveService, transactionService, contentStore);
+        final SDocument document = documentWithContent("the content");
+        service.attachDocumentToProcessInstance(document, 45L, "doc", null);
+        final String key = document.getContentStoreKey();
+        final SAMappedDocument archivedDocument = new SAMappedDocument();
+        archivedDocument.setDocumentId(12L);
+        doReturn(archivedDocument).when(archivePersistenceService).selectById(any());
+        doReturn(document).when(persistenceService).selectById(any());
+        final ArgumentCaptor<BonitaTransactionSynchronization> synchronizations = ArgumentCaptor
+                .forClass(BonitaTransactionSynchronization.class);
+        //when
+        service.deleteContentOfArchivedDocument(123L);
+        //then
+        verify(transactionService, times(2)).registerBonitaSynchronization(synchronizations.capture());
+        synchronizations.getAllValues().get(1).afterCompletion(TransactionState.ROLLEDBACK);
+        assertThat(contentStore.readReferences(key)).isEqualTo(1);
+        synchronizations.getAllValues().get(1).afterCompletion(TransactionState.COMMITTED);
+        assertThat(contentStore.readReferences(key)).isEqualTo(0);
+    }
+
+    @Test
+    public void should_store_user_content_looking_like_a_content_store_reference() throws Exception {
+        //given
+        final FileSystemDocumentContentStore contentStore = new FileSystemDocumentContentStore(
+                temporaryFolder.getRoot().getAbsolutePath(), 1L);
+        final DocumentServiceImpl service = new DocumentServiceImpl(recorder, persistenceService, urlProvider,
+                archiveService, transactionService, contentStore);
+        final SDocument document = documentWithContent("the content");
+        service.attachDocumentToProcessInstance(document, 45L, "doc", null);
+        final String otherContent = "@document-content-store:" + document.getContentStoreKey();
+        final SDocument forgedDocument = documentWithContent(otherContent);
+        //when
+        service.attachDocumentToProcessInstance(forgedDocument, 46L, "forged", null);
+        //then
+        assertThat(forgedDocument.getContentStoreKey()).isNotEqualTo(document.getContentStoreKey());
+        assertThat(contentStore.readReferences(document.getContentStoreKey())).isEqualTo(1);
+        doReturn(forgedDocument).when(persistenceService).selectById(any());
+        assertThat(service.getDocumentContent("13")).isEqualTo(otherContent.getBytes());
+    }
+
+    @Test
+    public void should_release_stored_content_of_deleted_document_without_reading_its_content() throws Exception {
+        //given
+        final DocumentServiceImpl service = new DocumentServiceImpl(recorder, persistenceService, urlProvider,
+                archiveService, transactionService, mock(DocumentContentStore.class));
+        final SLightDocument document = SLightDocument.builder().id(12L).hasContent(true)
+                .contentStoreKey("6e569e05cb6f8608572c79d63b365dc31617bf84d7393d2cb9d2f1ffe0edf95b").build();
+        //when
+        service.deleteDocument(document);
+        //then
+        verify(transactionService).registerBonitaSynchronization(any());
+        verifyZeroInteractions(persistenceService);
+    }
+
+    @Test
+    public void should_release_stored_contents_of_purged_archived_documents() throws Exception {
+        //given
+        final DocumentContentStore contentStore = mock(DocumentContentStore.class);
+        final DocumentServiceImpl service = new DocumentServiceImpl(recorder, persistenceService, urlProvider,
+                archiveService, transactionService, contentStore);
+        final SAMappedDocument archivedDocument = new SAMappedDocument();
+        archivedDocument.setDocumentId(12L);
+        doReturn(Collections.singletonList(archivedDocument)).when(persistenceService)
+                .selectList(ArgumentMatchers.<SelectListDescriptor<SAMappedDocument>> argThat(
+                        descriptor -> descriptor != null
+                                && "getArchiveMappingsOfProcessInstances".equals(descriptor.getQueryName())));
+        doReturn(Collections.singletonList("key1")).when(persistenceService)
+                .selectList(ArgumentMatchers.<SelectListDescriptor<String>> argThat(
+                        descriptor -> descriptor != null
+                                && "getContentStoreKeysOfDocuments".equals(descriptor.getQueryName())));
+        final ArgumentCaptor<BonitaTransactionSynchronization> synchronization = ArgumentCaptor
+                .forClass(BonitaTransactionSynchronization.class);
+        //when
+        service.deleteArchivedDocuments(Collections.singletonList(45L));
+        //then
+        verify(transactionService).registerBonitaSynchronization(synchronization.capture());
+        synchronization.getValue().afterCompletion(TransactionState.COMMITTED);
+        verify(contentStore).release("key1");
+    }
+
 }
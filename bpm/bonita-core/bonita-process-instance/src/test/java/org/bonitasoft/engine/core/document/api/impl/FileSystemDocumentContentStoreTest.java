@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.core.document.api.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.bonitasoft.engine.io.IOUtil;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileSystemDocumentContentStoreTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private FileSystemDocumentContentStore contentStore;
+
+    @Before
+    public void setUp() throws Exception {
+        contentStore = new FileSystemDocumentContentStore(temporaryFolder.getRoot().getAbsolutePath(), 1L);
+    }
+
+    private String store(String content) throws Exception {
+        return contentStore.store(new ByteArrayInputStream(content.getBytes()));
+    }
+
+    @Test
+    public void should_store_identical_contents_once() throws Exception {
+        final String key1 = store("the content");
+        final String key2 = store("the content");
+
+        assertThat(key1).isEqualTo(key2).isEqualTo("6e569e05cb6f8608572c79d63b365dc31617bf84d7393d2cb9d2f1ffe0edf95b");
+        assertThat(contentStore.readReferences(key1)).isEqualTo(2);
+        try (InputStream content = contentStore.read(key1)) {
+            assertThat(new String(IOUtil.getAllContentFrom(content))).isEqualTo("the content");
+        }
+    }
+
+    @Test
+    public void should_store_different_contents_with_different_keys() throws Exception {
+        final String key1 = store("content 1");
+        final String key2 = store("content 2");
+
+        assertThat(key1).isNotEqualTo(key2).matches("[0-9a-f]{64}");
+        assertThat(contentStore.readReferences(key1)).isEqualTo(1);
+        assertThat(contentStore.readReferences(key2)).isEqualTo(1);
+    }
+
+    @Test
+    public void should_delete_content_only_when_last_reference_is_released() throws Exception {
+        final String key = store("the content");
+        store("the content");
+
+        contentStore.release(key);
+
+        assertThat(Files.exists(contentStore.getContentFile(key))).isTrue();
+        assertThat(contentStore.readReferences(key)).isEqualTo(1);
+
+        contentStore.release(key);
+
+        assertThat(Files.exists(contentStore.getContentFile(key))).isFalse();
+        assertThat(contentStore.readReferences(key)).isEqualTo(0);
+    }
+
+    @Test
+    public void should_not_leave_temporary_files() throws Exception {
+        store("the content");
+        store("the content");
+
+        assertThat(Files.list(temporaryFolder.getRoot().toPath().resolve("1"))
+                .filter(path -> path.toString().endsWith(".tmp"))).isEmpty();
+    }
+
+    @Test
+    public void should_count_references_of_stores_sharing_the_same_folder() throws Exception {
+        final FileSystemDocumentContentStore otherStore = new FileSystemDocumentContentStore(
+                temporaryFolder.getRoot().getAbsolutePath(), 1L);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Callable<String>> stores = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                final FileSystemDocumentContentStore store = i % 2 == 0 ? contentStore : otherStore;
+                stores.add(() -> store.store(new ByteArrayInputStream("the content".getBytes())));
+            }
+            String key = null;
+            for (final Future<String> stored : executor.invokeAll(stores)) {
+                key = stored.get();
+            }
+
+            assertThat(contentStore.readReferences(key)).isEqualTo(100);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_reject_invalid_keys() throws Exception {
+        contentStore.read("../../etc/passwd");
+    }
+
+    @Test
+    public void should_not_create_a_store_when_no_folder_is_configured() {
+        assertThat(FileSystemDocumentContentStore.createIfConfigured("", 1L)).isNull();
+        assertThat(FileSystemDocumentContentStore.createIfConfigured(null, 1L)).isNull();
+    }
+
+}
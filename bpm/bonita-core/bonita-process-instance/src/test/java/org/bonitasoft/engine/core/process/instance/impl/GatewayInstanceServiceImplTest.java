@@ -49,6 +49,7 @@ import org.bonitasoft.engine.persistence.ReadPersistenceService;
 import org.bonitasoft.engine.persistence.SBonitaReadException;
 import org.bonitasoft.engine.recorder.Recorder;
 import org.bonitasoft.engine.recorder.SRecorderException;
+import org.bonitasoft.engine.recorder.model.InsertRecord;
 import org.bonitasoft.engine.recorder.model.UpdateRecord;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -386,41 +387,42 @@ public class GatewayInstanceServiceImplTest {
     }
 
     @Test
-    public void should_getMergedTokens_on_exclusive_return_the_first_token() throws Exception {
+    public void should_hitTransition_convert_legacy_tokens_to_compact_tokens() throws Exception {
         SGatewayInstance gate = new SGatewayInstance();
-        gate.setGatewayType(SGatewayType.EXCLUSIVE);
+        gate.setHitBys("1,2");
 
-        List<String> mergedTokens = gatewayInstanceService.getMergedTokens(gate, Arrays.asList("1", "2"));
+        gatewayInstanceService.hitTransition(gate, 3);
 
-        assertThat(mergedTokens).containsOnly("1");
+        verify(recorder).recordUpdate(updateRecordCaptor.capture(), nullable(String.class));
+        assertThat(updateRecordCaptor.getValue().getFields()).containsEntry("hitBys", "B:7");
     }
 
     @Test
-    public void should_getMergedTokens_on_parallel() throws Exception {
+    public void should_setFinishAndCreateNewGatewayForRemainingToken_create_a_gateway_with_not_merged_tokens()
+            throws Exception {
+        node(666, "gate");
+        node(1, "step1");
+        node(2, "step2");
+        node(3, "step3");
+        transition(1, 666);
+        transition(2, 666);
+        transition(3, 666);
+        SProcessDefinitionImpl processDefinition = new SProcessDefinitionImpl("P", "1.0");
+        processDefinition.setProcessContainer(processContainer);
         SGatewayInstance gate = new SGatewayInstance();
         gate.setGatewayType(SGatewayType.PARALLEL);
+        gate.setFlowNodeDefinitionId(666);
+        gate.setHitBys("1,2,3,2");
 
-        List<String> mergedTokens = gatewayInstanceService.getMergedTokens(gate, Arrays.asList("1", "2", "3", "2"));
-
-        assertThat(mergedTokens).containsOnly("1", "2", "3");
-    }
-
-    @Test
-    public void should_getMergedTokens_on_inclusive() throws Exception {
-        SGatewayInstance gate = new SGatewayInstance();
-        gate.setGatewayType(SGatewayType.INCLUSIVE);
-
-        List<String> mergedTokens = gatewayInstanceService.getMergedTokens(gate, Arrays.asList("1", "2", "3", "2"));
-
-        assertThat(mergedTokens).containsOnly("1", "2", "3");
-    }
-
-    @Test
-    public void should_getRemainingToken_return_not_merged_tokens() {
-        List<String> remainingTokens = gatewayInstanceService.getRemainingTokens(Arrays.asList("1", "2", "3", "2", "1"),
-                Arrays.asList("1", "2", "3"));
+        List<SGatewayInstance> toFire = gatewayInstanceService
+                .setFinishAndCreateNewGatewayForRemainingToken(processDefinition, gate);
 
-        assertThat(remainingTokens).containsOnly("2", "1");
+        assertThat(toFire).isEmpty();
+        verify(recorder).recordUpdate(updateRecordCaptor.capture(), nullable(String.class));
+        assertThat(updateRecordCaptor.getValue().getFields()).containsEntry("hitBys", "FINISH:3");
+        ArgumentCaptor<InsertRecord> insertRecordCaptor = ArgumentCaptor.forClass(InsertRecord.class);
+        verify(recorder).recordInsert(insertRecordCaptor.capture(), nullable(String.class));
+        assertThat(((SGatewayInstance) insertRecordCaptor.getValue().getEntity()).getHitBys()).isEqualTo("B:2");
     }
 
     @Test
@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.core.process.instance.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.bonitasoft.engine.core.process.definition.model.SGatewayType;
+import org.junit.Test;
+
+public class GatewayTokensTest {
+
+    @Test
+    public void should_read_legacy_tokens() {
+        GatewayTokens tokens = GatewayTokens.parse("1,2,3,2");
+
+        assertThat(tokens.hasToken(1)).isTrue();
+        assertThat(tokens.hasToken(2)).isTrue();
+        assertThat(tokens.hasToken(3)).isTrue();
+        assertThat(tokens.hasToken(4)).isFalse();
+        assertThat(tokens.toHitBys()).isEqualTo("B:7,2");
+    }
+
+    @Test
+    public void should_have_no_token_when_empty_or_finished() {
+        assertThat(GatewayTokens.parse(null).isEmpty()).isTrue();
+        assertThat(GatewayTokens.parse("").isEmpty()).isTrue();
+        assertThat(GatewayTokens.parse("FINISH:2").isEmpty()).isTrue();
+        assertThat(GatewayTokens.parse("").toHitBys()).isEmpty();
+    }
+
+    @Test
+    public void should_read_what_was_written() {
+        GatewayTokens tokens = GatewayTokens.parse("");
+        tokens.hit(5);
+        tokens.hit(1);
+        tokens.hit(5);
+        tokens.hit(12);
+        tokens.hit(5);
+
+        GatewayTokens read = GatewayTokens.parse(tokens.toHitBys());
+
+        assertThat(tokens.toHitBys()).isEqualTo("B:118,01,01");
+        assertThat(read.toHitBys()).isEqualTo(tokens.toHitBys());
+        assertThat(read.merge(SGatewayType.PARALLEL)).isEqualTo(3);
+        assertThat(read.toHitBys()).isEqualTo("B:01,01");
+    }
+
+    @Test
+    public void should_check_all_transitions_have_a_token() {
+        GatewayTokens tokens = GatewayTokens.parse("");
+        for (int i = 1; i <= 150; i++) {
+            assertThat(tokens.hasTokenOnAllTransitions(150)).isFalse();
+            tokens.hit(i);
+        }
+
+        assertThat(tokens.hasTokenOnAllTransitions(150)).isTrue();
+        assertThat(GatewayTokens.parse(tokens.toHitBys()).hasTokenOnAllTransitions(150)).isTrue();
+        assertThat(tokens.toHitBys()).hasSize(2 + 38);
+    }
+
+    @Test
+    public void should_merge_first_token_on_exclusive() {
+        GatewayTokens tokens = GatewayTokens.parse("1,2");
+
+        assertThat(tokens.merge(SGatewayType.EXCLUSIVE)).isEqualTo(1);
+        assertThat(tokens.hasToken(1)).isFalse();
+        assertThat(tokens.hasToken(2)).isTrue();
+    }
+
+    @Test
+    public void should_merge_one_token_of_each_transition_on_parallel() {
+        GatewayTokens tokens = GatewayTokens.parse("1,2,3,2,1");
+
+        assertThat(tokens.merge(SGatewayType.PARALLEL)).isEqualTo(3);
+        assertThat(tokens.toHitBys()).isEqualTo("B:3");
+    }
+
+    @Test
+    public void should_merge_one_token_of_each_transition_on_inclusive() {
+        GatewayTokens tokens = GatewayTokens.parse("1,2,3,2");
+
+        assertThat(tokens.merge(SGatewayType.INCLUSIVE)).isEqualTo(3);
+        assertThat(tokens.toHitBys()).isEqualTo("B:2");
+        assertThat(tokens.merge(SGatewayType.INCLUSIVE)).isEqualTo(1);
+        assertThat(tokens.isEmpty()).isTrue();
+    }
+
+}
@@ -55,5 +55,6 @@ class Deps {
     public static String junitQuickCheck = "0.9.1"
     public static String jettyVersion = "9.4.9.v20180320"
     public static String javaxAnnotationsVersion = "1.3.2"
+    public static String jmhVersion = "1.23"
 
 }
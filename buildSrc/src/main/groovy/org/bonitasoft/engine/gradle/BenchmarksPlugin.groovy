@@ -0,0 +1,45 @@
+package org.bonitasoft.engine.gradle
+
+import org.gradle.api.Plugin
+import org.gradle.api.Project
+import org.gradle.api.plugins.JavaPluginConvention
+import org.gradle.api.tasks.JavaExec
+import org.gradle.api.tasks.SourceSet
+
+/**
+ * Adds a 'jmh' source set (src/jmh/java) for JMH micro-benchmarks and a 'jmh' task to run them.
+ * A subset of benchmarks can be run using -PjmhIncludes=regexp
+ */
+class BenchmarksPlugin implements Plugin<Project> {
+
+    @Override
+    void apply(Project project) {
+        def sourceSets = project.convention.getPlugin(JavaPluginConvention).sourceSets
+        SourceSet main = sourceSets.getByName("main")
+        SourceSet jmh = sourceSets.create("jmh") {
+            compileClasspath += main.output
+            runtimeClasspath += main.output
+        }
+        project.configurations.getByName(jmh.compileConfigurationName)
+                .extendsFrom(project.configurations.getByName(main.compileConfigurationName))
+        project.configurations.getByName(jmh.runtimeConfigurationName)
+                .extendsFrom(project.configurations.getByName(main.runtimeConfigurationName))
+
+        project.dependencies {
+            jmhCompile "org.openjdk.jmh:jmh-core:${Deps.jmhVersion}"
+            jmhAnnotationProcessor "org.openjdk.jmh:jmh-generator-annprocess:${Deps.jmhVersion}"
+        }
+
+        project.tasks.create("jmh", JavaExec) {
+            group = "Verification"
+            description = "Runs JMH benchmarks of the module."
+            dependsOn jmh.classesTaskName
+            classpath = jmh.runtimeClasspath
+            main = "org.openjdk.jmh.Main"
+            if (project.hasProperty("jmhIncludes")) {
+                args project.property("jmhIncludes")
+            }
+        }
+    }
+
+}
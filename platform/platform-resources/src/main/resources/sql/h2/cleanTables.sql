@@ -14,6 +14,7 @@ DELETE FROM document_mapping;
 DELETE FROM arch_flownode_instance;
 DELETE FROM arch_process_instance;
 DELETE FROM arch_connector_instance;
+DELETE FROM arch_staging;
 DELETE FROM arch_multi_biz_data;
 DELETE FROM arch_ref_biz_data_inst;
 DELETE FROM multi_biz_data;
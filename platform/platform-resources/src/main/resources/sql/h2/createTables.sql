@@ -156,6 +156,7 @@ CREATE TABLE document (
   mimetype VARCHAR(255),
   url VARCHAR(1024),
   content LONGBLOB NULL,
+  contentstorekey VARCHAR(64),
   PRIMARY KEY (tenantid, id)
 );
 CREATE TABLE document_mapping (
@@ -439,6 +440,7 @@ CREATE TABLE pending_mapping (
   	PRIMARY KEY (tenantid, id)
 );
 CREATE UNIQUE INDEX idx_UQ_pending_mapping ON pending_mapping (tenantid, activityId, userId, actorId);
+CREATE INDEX idx_pending_mapping_actor ON pending_mapping (tenantid, actorId, activityId);
 
 CREATE TABLE ref_biz_data_inst (
 	tenantid BIGINT NOT NULL,
@@ -1064,3 +1066,12 @@ CREATE TABLE icon (
   content LONGBLOB NOT NULL,
   CONSTRAINT pk_icon PRIMARY KEY (tenantId, id)
 );
+
+CREATE TABLE arch_staging (
+  tenantId BIGINT NOT NULL,
+  id BIGINT NOT NULL,
+  stagedDate BIGINT NOT NULL,
+  numberOfRecords INT NOT NULL,
+  content LONGBLOB NOT NULL,
+  PRIMARY KEY (tenantId, id)
+);
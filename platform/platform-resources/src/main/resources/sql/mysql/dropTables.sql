@@ -67,4 +67,5 @@ DROP TABLE process_content;
 DROP TABLE proc_parameter;
 DROP TABLE bar_resource;
 DROP TABLE tenant_resource;
+DROP TABLE arch_staging;
 DROP TABLE icon;
\ No newline at end of file
@@ -153,6 +153,7 @@ CREATE TABLE document (
   mimetype VARCHAR2(255 CHAR),
   url VARCHAR2(1024 CHAR),
   content BLOB,
+  contentstorekey VARCHAR2(64 CHAR),
   PRIMARY KEY (tenantid, id)
 );
 CREATE TABLE document_mapping (
@@ -436,6 +437,7 @@ CREATE TABLE pending_mapping (
   	PRIMARY KEY (tenantid, id)
 );
 CREATE UNIQUE INDEX idx_UQ_pending_mapping ON pending_mapping (tenantid, activityId, userId, actorId);
+CREATE INDEX idx_pending_mapping_actor ON pending_mapping (tenantid, actorId, activityId);
 
 
 CREATE TABLE ref_biz_data_inst (
@@ -1056,3 +1058,12 @@ CREATE TABLE icon (
   content BLOB NOT NULL,
   CONSTRAINT pk_icon PRIMARY KEY (tenantId, id)
 );
+
+CREATE TABLE arch_staging (
+  tenantId NUMBER(19, 0) NOT NULL,
+  id NUMBER(19, 0) NOT NULL,
+  stagedDate NUMBER(19, 0) NOT NULL,
+  numberOfRecords INT NOT NULL,
+  content BLOB NOT NULL,
+  PRIMARY KEY (tenantId, id)
+);
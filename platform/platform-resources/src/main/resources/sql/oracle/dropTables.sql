@@ -67,4 +67,5 @@ DROP TABLE process_content cascade constraints purge;
 DROP TABLE proc_parameter cascade constraints purge;
 DROP TABLE bar_resource cascade constraints purge;
 DROP TABLE tenant_resource cascade constraints purge;
+DROP TABLE arch_staging cascade constraints purge;
 DROP TABLE icon cascade constraints purge;
\ No newline at end of file
@@ -158,6 +158,7 @@ CREATE TABLE document (
   mimetype VARCHAR(255),
   url VARCHAR(1024),
   content BYTEA,
+  contentstorekey VARCHAR(64),
   PRIMARY KEY (tenantid, id)
 );
 CREATE TABLE document_mapping (
@@ -441,6 +442,7 @@ CREATE TABLE pending_mapping (
   	PRIMARY KEY (tenantid, id)
 );
 CREATE UNIQUE INDEX idx_UQ_pending_mapping ON pending_mapping (tenantid, activityId, userId, actorId);
+CREATE INDEX idx_pending_mapping_actor ON pending_mapping (tenantid, actorId, activityId);
 
 CREATE TABLE ref_biz_data_inst (
 	tenantid INT8 NOT NULL,
@@ -1064,3 +1066,12 @@ CREATE TABLE icon (
   content BYTEA NOT NULL,
   CONSTRAINT pk_icon PRIMARY KEY (tenantId, id)
 );
+
+CREATE TABLE arch_staging (
+  tenantId INT8 NOT NULL,
+  id INT8 NOT NULL,
+  stagedDate INT8 NOT NULL,
+  numberOfRecords INT NOT NULL,
+  content BYTEA NOT NULL,
+  PRIMARY KEY (tenantId, id)
+);
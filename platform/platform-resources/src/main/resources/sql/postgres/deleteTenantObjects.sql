@@ -13,6 +13,7 @@ DELETE FROM document_mapping WHERE tenantid = ${tenantid};
 DELETE FROM arch_flownode_instance WHERE tenantid = ${tenantid};
 DELETE FROM arch_process_instance WHERE tenantid = ${tenantid};
 DELETE FROM arch_connector_instance  WHERE tenantid = ${tenantid};
+DELETE FROM arch_staging WHERE tenantid = ${tenantid};
 DELETE FROM arch_multi_biz_data WHERE tenantid = ${tenantid};
 DELETE FROM arch_ref_biz_data_inst WHERE tenantid = ${tenantid};
 DELETE FROM multi_biz_data WHERE tenantid = ${tenantid};
@@ -67,4 +67,5 @@ DROP TABLE IF EXISTS process_content;
 DROP TABLE IF EXISTS proc_parameter;
 DROP TABLE IF EXISTS bar_resource;
 DROP TABLE IF EXISTS tenant_resource;
+DROP TABLE IF EXISTS arch_staging;
 DROP TABLE IF EXISTS icon;
\ No newline at end of file
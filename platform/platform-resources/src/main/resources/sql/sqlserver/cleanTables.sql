@@ -28,6 +28,8 @@ DELETE FROM arch_process_instance
 GO
 DELETE FROM arch_connector_instance
 GO
+DELETE FROM arch_staging
+GO
 DELETE FROM arch_multi_biz_data
 GO
 DELETE FROM arch_ref_biz_data_inst
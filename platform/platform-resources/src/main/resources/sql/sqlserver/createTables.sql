@@ -178,6 +178,7 @@ CREATE TABLE document (
   mimetype NVARCHAR(255),
   url NVARCHAR(1024),
   content VARBINARY(MAX),
+  contentstorekey NVARCHAR(64),
   PRIMARY KEY (tenantid, id)
 )
 GO
@@ -494,6 +495,8 @@ CREATE TABLE pending_mapping (
 GO
 CREATE UNIQUE INDEX idx_UQ_pending_mapping ON pending_mapping (tenantid, activityId, userId, actorId)
 GO
+CREATE INDEX idx_pending_mapping_actor ON pending_mapping (tenantid, actorId, activityId)
+GO
 
 CREATE TABLE ref_biz_data_inst (
 	tenantid NUMERIC(19, 0) NOT NULL,
@@ -1209,3 +1212,13 @@ CREATE TABLE icon (
   CONSTRAINT pk_icon PRIMARY KEY (tenantId, id)
 )
 GO
+
+CREATE TABLE arch_staging (
+  tenantId NUMERIC(19, 0) NOT NULL,
+  id NUMERIC(19, 0) NOT NULL,
+  stagedDate NUMERIC(19, 0) NOT NULL,
+  numberOfRecords INT NOT NULL,
+  content VARBINARY(MAX) NOT NULL,
+  PRIMARY KEY (tenantId, id)
+)
+GO
@@ -28,6 +28,8 @@ DELETE FROM arch_process_instance WHERE tenantid = ${tenantid}
 GO
 DELETE FROM arch_connector_instance  WHERE tenantid = ${tenantid}
 GO
+DELETE FROM arch_staging WHERE tenantid = ${tenantid}
+GO
 DELETE FROM arch_multi_biz_data WHERE tenantid = ${tenantid}
 GO
 DELETE FROM arch_ref_biz_data_inst WHERE tenantid = ${tenantid}
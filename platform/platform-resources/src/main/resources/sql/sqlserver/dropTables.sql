@@ -136,5 +136,7 @@ DROP TABLE bar_resource
 GO
 DROP TABLE tenant_resource
 GO
+DROP TABLE arch_staging
+GO
 DROP TABLE icon
 GO
\ No newline at end of file
@@ -108,6 +108,8 @@ INSERT INTO sequence VALUES(${tenantid}, 10500, 1)
 GO
 INSERT INTO sequence VALUES(${tenantid}, 10501, 1)
 GO
+INSERT INTO sequence VALUES(${tenantid}, 10502, 1)
+GO
 INSERT INTO sequence VALUES(${tenantid}, 20010, 1)
 GO
 INSERT INTO sequence VALUES(${tenantid}, 20011, 1)
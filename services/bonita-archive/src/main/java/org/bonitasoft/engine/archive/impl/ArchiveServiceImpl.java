@@ -14,7 +14,12 @@
 package org.bonitasoft.engine.archive.impl;
 
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import org.bonitasoft.engine.archive.ArchiveInsertRecord;
 import org.bonitasoft.engine.archive.ArchiveService;
 import org.bonitasoft.engine.archive.ArchivingStrategy;
@@ -33,12 +38,21 @@ import org.bonitasoft.engine.transaction.STransactionNotFoundException;
 import org.bonitasoft.engine.transaction.UserTransactionService;
 
 /**
+ * By default, archives records synchronously: the records archived during a transaction are inserted in one batch just
+ * before this transaction commits, so that archived objects can be read as soon as the transaction archiving them
+ * completes.
+ * When the {@link StagedArchiver} is enabled, these records are staged before the commit instead, and inserted later in
+ * background.
+ *
  * @author Matthieu Chaffotte
  * @author Hongwen Zang
  * @author Celine Souchet
  */
 public class ArchiveServiceImpl implements ArchiveService {
 
+    public static final String NUMBER_OF_ARCHIVED_RECORDS = "bonita.bpmengine.archive.records";
+    public static final String ARCHIVING_DURATION = "bonita.bpmengine.archive.duration";
+
     private final UserTransactionService transactionService;
 
     private final PersistenceService definitiveArchivePersistenceService;
@@ -47,14 +61,40 @@ public class ArchiveServiceImpl implements ArchiveService {
 
     private ArchivingStrategy archivingStrategy;
 
+    /**
+     * Records archived during the current transaction, inserted together before the commit
+     */
+    private final ThreadLocal<BatchArchiveCallable> transactionBatches = new ThreadLocal<>();
+
+    private final Counter archivedRecords;
+
+    private final Timer archivingTimer;
+
+    private final StagedArchiver stagedArchiver;
+
+    public ArchiveServiceImpl(final PersistenceService definitiveArchivePersistenceService,
+            final TechnicalLoggerService logger, final ArchivingStrategy archivingStrategy,
+            final UserTransactionService transactionService, final MeterRegistry meterRegistry, final long tenantId) {
+        this(definitiveArchivePersistenceService, logger, archivingStrategy, transactionService, meterRegistry,
+                tenantId, null);
+    }
+
     public ArchiveServiceImpl(final PersistenceService definitiveArchivePersistenceService,
             final TechnicalLoggerService logger, final ArchivingStrategy archivingStrategy,
-            final UserTransactionService transactionService) {
+            final UserTransactionService transactionService, final MeterRegistry meterRegistry, final long tenantId,
+            final StagedArchiver stagedArchiver) {
         super();
+        this.stagedArchiver = stagedArchiver;
         this.definitiveArchivePersistenceService = definitiveArchivePersistenceService;
         this.archivingStrategy = archivingStrategy;
         this.logger = logger;
         this.transactionService = transactionService;
+        final Tags tags = Tags.of("tenant", String.valueOf(tenantId));
+        archivedRecords = Counter.builder(NUMBER_OF_ARCHIVED_RECORDS).tags(tags).baseUnit("records")
+                .description("Archived records inserted").register(meterRegistry);
+        archivingTimer = Timer.builder(ARCHIVING_DURATION).tags(tags)
+                .description("Duration of the insertion of the records archived by a transaction")
+                .register(meterRegistry);
     }
 
     @Override
@@ -70,10 +110,8 @@ public class ArchiveServiceImpl implements ArchiveService {
         logBeforeMethod(TechnicalLogSeverity.TRACE, methodName);
         if (records != null) {
             assignArchiveDate(time, records);
-            final BatchArchiveCallable callable = buildBatchArchiveCallable(records);
-
             try {
-                transactionService.registerBeforeCommitCallable(callable);
+                getTransactionBatch().addRecords(records);
             } catch (final STransactionNotFoundException e) {
                 if (logger.isLoggable(this.getClass(), TechnicalLogSeverity.TRACE)) {
                     logger.log(this.getClass(), TechnicalLogSeverity.ERROR,
@@ -86,10 +124,34 @@ public class ArchiveServiceImpl implements ArchiveService {
         logAfterMethod(TechnicalLogSeverity.TRACE, methodName);
     }
 
+    private BatchArchiveCallable getTransactionBatch() throws STransactionNotFoundException {
+        BatchArchiveCallable batch = transactionBatches.get();
+        if (batch == null || batch.isCalled()) {
+            final BatchArchiveCallable newBatch = buildBatchArchiveCallable();
+            transactionService.registerBeforeCommitCallable(() -> archive(newBatch));
+            transactionService.registerBonitaSynchronization(txState -> transactionBatches.remove());
+            transactionBatches.set(newBatch);
+            batch = newBatch;
+        }
+        return batch;
+    }
+
+    private Void archive(final BatchArchiveCallable batch) throws Exception {
+        if (stagedArchiver != null && stagedArchiver.isEnabled()) {
+            stagedArchiver.stage(batch.takeArchivedObjects());
+            return null;
+        }
+        final int size = batch.size();
+        final long startTime = System.nanoTime();
+        batch.call();
+        archivingTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        archivedRecords.increment(size);
+        return null;
+    }
+
     // As a protected method for test purposes.
-    protected BatchArchiveCallable buildBatchArchiveCallable(final ArchiveInsertRecord... records)
-            throws SRecorderException {
-        return new BatchArchiveCallable(definitiveArchivePersistenceService, records);
+    protected BatchArchiveCallable buildBatchArchiveCallable() {
+        return new BatchArchiveCallable(definitiveArchivePersistenceService);
     }
 
     private void assignArchiveDate(final long time, final ArchiveInsertRecord... records) throws SRecorderException {
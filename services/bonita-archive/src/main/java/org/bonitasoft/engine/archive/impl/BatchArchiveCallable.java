@@ -23,11 +23,17 @@ import org.bonitasoft.engine.persistence.PersistentObject;
 import org.bonitasoft.engine.services.PersistenceService;
 import org.bonitasoft.engine.services.SPersistenceException;
 
+/**
+ * Inserts archived objects before the commit of the transaction, all records archived during a transaction are added
+ * to the same callable so that they are inserted in one batch.
+ */
 public class BatchArchiveCallable implements Callable<Void> {
 
     private final PersistenceService persistenceService;
 
-    private final List<? extends ArchivedPersistentObject> archivedObjects;
+    private final List<ArchivedPersistentObject> archivedObjects;
+
+    private boolean called;
 
     public BatchArchiveCallable(final PersistenceService persistenceService, final ArchiveInsertRecord... records) {
         this.persistenceService = persistenceService;
@@ -52,8 +58,42 @@ public class BatchArchiveCallable implements Callable<Void> {
         return archivedObjects;
     }
 
+    public void addRecords(final ArchiveInsertRecord... records) {
+        if (records != null) {
+            archivedObjects.addAll(createArchivedObjectsList(records));
+        }
+    }
+
+    /**
+     * @return the number of objects that will be inserted
+     */
+    public int size() {
+        return archivedObjects.size();
+    }
+
+    /**
+     * @return true once the objects were inserted, objects added after that would never be inserted
+     */
+    public boolean isCalled() {
+        return called;
+    }
+
+    /**
+     * Remove the objects from this callable instead of inserting them, objects added after that would never be
+     * inserted
+     *
+     * @return the objects that would have been inserted
+     */
+    public List<ArchivedPersistentObject> takeArchivedObjects() {
+        called = true;
+        final List<ArchivedPersistentObject> objects = new ArrayList<>(archivedObjects);
+        archivedObjects.clear();
+        return objects;
+    }
+
     @Override
     public Void call() throws SPersistenceException {
+        called = true;
         if (hasObjects()) {
             try {
                 if (archivedObjects.size() == 1) {
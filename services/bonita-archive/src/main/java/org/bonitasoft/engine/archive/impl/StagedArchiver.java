@@ -0,0 +1,258 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.archive.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.bonitasoft.engine.archive.model.SArchiveStagingBatch;
+import org.bonitasoft.engine.commons.TenantLifecycleService;
+import org.bonitasoft.engine.lock.BonitaLock;
+import org.bonitasoft.engine.lock.LockService;
+import org.bonitasoft.engine.log.technical.TechnicalLogger;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.bonitasoft.engine.persistence.ArchivedPersistentObject;
+import org.bonitasoft.engine.persistence.PersistentObject;
+import org.bonitasoft.engine.persistence.QueryOptions;
+import org.bonitasoft.engine.persistence.SBonitaReadException;
+import org.bonitasoft.engine.persistence.SelectListDescriptor;
+import org.bonitasoft.engine.persistence.SelectOneDescriptor;
+import org.bonitasoft.engine.services.PersistenceService;
+import org.bonitasoft.engine.services.SPersistenceException;
+import org.bonitasoft.engine.sessionaccessor.SessionAccessor;
+import org.bonitasoft.engine.transaction.UserTransactionService;
+
+/**
+ * Archives records in background instead of inserting them in the transaction archiving them.
+ * <p>
+ * When enabled, the records archived by a transaction are serialized in a single row of the staging table, in that
+ * same transaction, so that they are never lost. A drain thread then periodically moves the staged records to the
+ * archive tables: the records of up to drainBatchSize staged transactions are inserted in one batch, in the
+ * transaction deleting their staged rows. Only one node of a cluster drains at a time.
+ * <p>
+ * Archived objects can only be read once drained. Rows staged while the mode was enabled are still drained when the
+ * tenant starts with the mode disabled.
+ */
+public class StagedArchiver implements TenantLifecycleService {
+
+    public static final String NUMBER_OF_STAGED_RECORDS = "bonita.bpmengine.archive.staged";
+    public static final String NUMBER_OF_PENDING_STAGED_BATCHES = "bonita.bpmengine.archive.staging.pending";
+    public static final String STAGING_LAG = "bonita.bpmengine.archive.staging.lag";
+    public static final String DRAIN_DURATION = "bonita.bpmengine.archive.drain.duration";
+    private static final String LOCK_TYPE = "ARCHIVE_STAGING";
+
+    private final PersistenceService persistenceService;
+    private final UserTransactionService transactionService;
+    private final SessionAccessor sessionAccessor;
+    private final LockService lockService;
+    private final TechnicalLogger logger;
+    private final long tenantId;
+    private final boolean enabled;
+    private final int drainBatchSize;
+    private final long pollIntervalMillis;
+    private volatile ScheduledExecutorService drainExecutor;
+
+    private final AtomicLong pendingBatches = new AtomicLong();
+    private final Counter stagedRecords;
+    private final Counter archivedRecords;
+    private final Timer stagingLag;
+    private final Timer drainTimer;
+
+    public StagedArchiver(PersistenceService persistenceService, UserTransactionService transactionService,
+            SessionAccessor sessionAccessor, LockService lockService, TechnicalLoggerService loggerService,
+            MeterRegistry meterRegistry, long tenantId, boolean enabled, int drainBatchSize,
+            long pollIntervalMillis) {
+        this.persistenceService = persistenceService;
+        this.transactionService = transactionService;
+        this.sessionAccessor = sessionAccessor;
+        this.lockService = lockService;
+        this.logger = loggerService.asLogger(StagedArchiver.class);
+        this.tenantId = tenantId;
+        this.enabled = enabled;
+        this.drainBatchSize = Math.max(1, drainBatchSize);
+        this.pollIntervalMillis = Math.max(1, pollIntervalMillis);
+        final Tags tags = Tags.of("tenant", String.valueOf(tenantId));
+        stagedRecords = Counter.builder(NUMBER_OF_STAGED_RECORDS).tags(tags).baseUnit("records")
+                .description("Archived records staged, to be inserted in background").register(meterRegistry);
+        // same meter as the one of the synchronous archiving: its rate is the archiving throughput in both modes
+        archivedRecords = Counter.builder(ArchiveServiceImpl.NUMBER_OF_ARCHIVED_RECORDS).tags(tags)
+                .baseUnit("records").description("Archived records inserted").register(meterRegistry);
+        Gauge.builder(NUMBER_OF_PENDING_STAGED_BATCHES, pendingBatches, AtomicLong::get).tags(tags)
+                .baseUnit("transactions")
+                .description("Staged transactions not yet inserted in the archive tables, as of the last drain")
+                .register(meterRegistry);
+        stagingLag = Timer.builder(STAGING_LAG).tags(tags)
+                .description("Time between the staging of archived records and their insertion in the archive tables")
+                .register(meterRegistry);
+        drainTimer = Timer.builder(DRAIN_DURATION).tags(tags)
+                .description("Duration of the insertion of a batch of staged archived records")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return true when archived records must be staged instead of being inserted directly
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Stage the given records in the current transaction, they will be inserted in the archive tables in background.
+     */
+    public void stage(List<ArchivedPersistentObject> archivedObjects) throws SPersistenceException {
+        if (archivedObjects.isEmpty()) {
+            return;
+        }
+        persistenceService.insert(new SArchiveStagingBatch(System.currentTimeMillis(), archivedObjects.size(),
+                serialize(archivedObjects)));
+        stagedRecords.increment(archivedObjects.size());
+    }
+
+    @Override
+    public void start() {
+        ScheduledExecutorService executor = Executors
+                .newSingleThreadScheduledExecutor(r -> new Thread(r, "Bonita-Archive-Drain-" + tenantId));
+        if (enabled) {
+            logger.info("Starting the drain of staged archived records every {} ms", pollIntervalMillis);
+            executor.scheduleWithFixedDelay(this::drainAll, pollIntervalMillis, pollIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            // drain what was staged while the mode was enabled, then let the thread end
+            executor.execute(this::drainAll);
+            executor.shutdown();
+        }
+        drainExecutor = executor;
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService executor = drainExecutor;
+        if (executor == null) {
+            return;
+        }
+        drainExecutor = null;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warn("Failed to terminate the drain of staged archived records." +
+                        " Staged records are kept and will be inserted at next start");
+            }
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    @Override
+    public void pause() {
+        stop();
+    }
+
+    @Override
+    public void resume() {
+        start();
+    }
+
+    private void drainAll() {
+        try {
+            // a full drain means there is a backlog: drain again without waiting
+            while (drain() == drainBatchSize && drainExecutor != null) {
+                logger.debug("More than {} transactions are staged, draining again", drainBatchSize);
+            }
+        } catch (Exception e) {
+            logger.warn("Unable to insert staged archived records, will retry at next drain", e);
+        }
+    }
+
+    /**
+     * Insert the records of the oldest staged transactions in the archive tables, in one batch.
+     *
+     * @return the number of staged transactions drained
+     */
+    int drain() throws Exception {
+        BonitaLock lock = lockService.tryLock(1L, LOCK_TYPE, 1L, TimeUnit.MILLISECONDS, tenantId);
+        if (lock == null) {
+            logger.debug("Staged archived records are already being drained by another node");
+            return 0;
+        }
+        try {
+            sessionAccessor.setTenantId(tenantId);
+            final Timer.Sample sample = Timer.start();
+            final List<SArchiveStagingBatch> drained = transactionService.executeInTransaction(this::drainBatches);
+            if (drained.isEmpty()) {
+                return 0;
+            }
+            sample.stop(drainTimer);
+            final long now = System.currentTimeMillis();
+            for (SArchiveStagingBatch batch : drained) {
+                stagingLag.record(Math.max(0, now - batch.getStagedDate()), TimeUnit.MILLISECONDS);
+                archivedRecords.increment(batch.getNumberOfRecords());
+            }
+            return drained.size();
+        } finally {
+            lockService.unlock(lock, tenantId);
+        }
+    }
+
+    private List<SArchiveStagingBatch> drainBatches() throws SBonitaReadException, SPersistenceException {
+        final List<SArchiveStagingBatch> batches = persistenceService
+                .selectList(new SelectListDescriptor<SArchiveStagingBatch>("getArchiveStagingBatches",
+                        Collections.emptyMap(), SArchiveStagingBatch.class, new QueryOptions(0, drainBatchSize)));
+        final List<PersistentObject> archivedObjects = new ArrayList<>();
+        for (SArchiveStagingBatch batch : batches) {
+            archivedObjects.addAll(deserialize(batch.getContent()));
+            persistenceService.delete(batch);
+        }
+        if (!archivedObjects.isEmpty()) {
+            persistenceService.insertInBatch(archivedObjects);
+        }
+        pendingBatches.set(persistenceService.selectOne(new SelectOneDescriptor<>(
+                "getNumberOfArchiveStagingBatches", Collections.emptyMap(), SArchiveStagingBatch.class,
+                Long.class)));
+        return batches;
+    }
+
+    private static byte[] serialize(List<ArchivedPersistentObject> archivedObjects) throws SPersistenceException {
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(content)) {
+            output.writeObject(new ArrayList<>(archivedObjects));
+        } catch (IOException e) {
+            throw new SPersistenceException("Unable to stage archived records", e);
+        }
+        return content.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<PersistentObject> deserialize(byte[] content) throws SPersistenceException {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(content))) {
+            return (List<PersistentObject>) input.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new SPersistenceException("Unable to read staged archived records", e);
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.archive.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.bonitasoft.engine.persistence.PersistentObject;
+import org.bonitasoft.engine.persistence.PersistentObjectId;
+import org.hibernate.annotations.Filter;
+import org.hibernate.annotations.Type;
+
+/**
+ * Records archived by one transaction, staged until they are inserted in the archive tables in background.
+ * The content is the serialized list of the archived objects.
+ */
+@Data
+@NoArgsConstructor
+@ToString(exclude = { "content" })
+@Entity
+@Table(name = "arch_staging")
+@IdClass(PersistentObjectId.class)
+@Filter(name = "tenantFilter")
+public class SArchiveStagingBatch implements PersistentObject {
+
+    @Id
+    private long tenantId;
+    @Id
+    private long id;
+
+    private long stagedDate;
+
+    private int numberOfRecords;
+
+    @Type(type = "materialized_blob")
+    private byte[] content;
+
+    public SArchiveStagingBatch(long stagedDate, int numberOfRecords, byte[] content) {
+        this.stagedDate = stagedDate;
+        this.numberOfRecords = numberOfRecords;
+        this.content = content;
+    }
+
+}
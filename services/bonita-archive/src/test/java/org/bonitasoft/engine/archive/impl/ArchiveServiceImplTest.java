@@ -13,44 +13,119 @@
  **/
 package org.bonitasoft.engine.archive.impl;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.bonitasoft.engine.archive.ArchiveInsertRecord;
-import org.bonitasoft.engine.archive.ArchivingStrategy;
 import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
 import org.bonitasoft.engine.persistence.ArchivedPersistentObject;
 import org.bonitasoft.engine.services.PersistenceService;
+import org.bonitasoft.engine.transaction.BonitaTransactionSynchronization;
+import org.bonitasoft.engine.transaction.TransactionState;
 import org.bonitasoft.engine.transaction.UserTransactionService;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 public class ArchiveServiceImplTest {
 
+    private final PersistenceService definitiveArchivePersistenceService = mock(PersistenceService.class);
+    private final UserTransactionService transactionService = mock(UserTransactionService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ArchiveServiceImpl archiveService = spy(new ArchiveServiceImpl(definitiveArchivePersistenceService,
+            mock(TechnicalLoggerService.class), null, transactionService, meterRegistry, 1L));
+
+    @SuppressWarnings("unchecked")
+    private Callable<Void> registeredCallable() throws Exception {
+        final ArgumentCaptor<Callable<Void>> callable = ArgumentCaptor.forClass(Callable.class);
+        verify(transactionService).registerBeforeCommitCallable(callable.capture());
+        return callable.getValue();
+    }
+
+    private BonitaTransactionSynchronization registeredSynchronization() throws Exception {
+        final ArgumentCaptor<BonitaTransactionSynchronization> synchronization = ArgumentCaptor
+                .forClass(BonitaTransactionSynchronization.class);
+        verify(transactionService).registerBonitaSynchronization(synchronization.capture());
+        return synchronization.getValue();
+    }
+
     // Only one test has to survive !
     @Test
     public void should_recordInserts_register_beforeCommitCallable_v2() throws Exception {
-        final PersistenceService definitiveArchivePersistenceService = null;
-        final TechnicalLoggerService logger = mock(TechnicalLoggerService.class);
-        final ArchivingStrategy archivingStrategy = null;
-        final UserTransactionService transactionService = mock(UserTransactionService.class);
-
-        ArchiveServiceImpl archiveService = spy(new ArchiveServiceImpl(definitiveArchivePersistenceService, logger,
-                archivingStrategy, transactionService));
-
         final ArchivedPersistentObjectWithSetter mockArchivedPersistentObject = mock(
                 ArchivedPersistentObjectWithSetter.class);
         ArchiveInsertRecord record = new ArchiveInsertRecord(mockArchivedPersistentObject);
 
         BatchArchiveCallable mockBatchArchiveCallable = mock(BatchArchiveCallable.class);
-        when(archiveService.buildBatchArchiveCallable(any(ArchiveInsertRecord.class)))
-                .thenReturn(mockBatchArchiveCallable);
+        when(archiveService.buildBatchArchiveCallable()).thenReturn(mockBatchArchiveCallable);
 
         long archiveDate = 3L;
         archiveService.recordInserts(archiveDate, record);
 
         verify(mockArchivedPersistentObject).setArchiveDate(eq(archiveDate));
-        verify(transactionService, times(1)).registerBeforeCommitCallable(eq(mockBatchArchiveCallable));
+        verify(mockBatchArchiveCallable).addRecords(record);
+        registeredCallable().call();
+        verify(mockBatchArchiveCallable).call();
+    }
+
+    @Test
+    public void should_insert_all_records_of_a_transaction_in_one_batch() throws Exception {
+        final ArchivedPersistentObject entity1 = mock(ArchivedPersistentObjectWithSetter.class);
+        final ArchivedPersistentObject entity2 = mock(ArchivedPersistentObjectWithSetter.class);
+        final ArchivedPersistentObject entity3 = mock(ArchivedPersistentObjectWithSetter.class);
+
+        archiveService.recordInserts(3L, new ArchiveInsertRecord(entity1));
+        archiveService.recordInserts(3L, new ArchiveInsertRecord(entity2), new ArchiveInsertRecord(entity3));
+        registeredCallable().call();
+
+        verify(definitiveArchivePersistenceService).insertInBatch(Arrays.asList(entity1, entity2, entity3));
+        verify(transactionService, times(1)).registerBeforeCommitCallable(any());
+        assertEquals(3, meterRegistry.find(ArchiveServiceImpl.NUMBER_OF_ARCHIVED_RECORDS).counter().count(), 0);
+        assertEquals(1, meterRegistry.find(ArchiveServiceImpl.ARCHIVING_DURATION).timer().count());
+    }
+
+    @Test
+    public void should_use_a_new_batch_in_next_transaction() throws Exception {
+        archiveService.recordInserts(3L, new ArchiveInsertRecord(mock(ArchivedPersistentObjectWithSetter.class)));
+        registeredCallable().call();
+        registeredSynchronization().afterCompletion(TransactionState.COMMITTED);
+
+        archiveService.recordInserts(3L, new ArchiveInsertRecord(mock(ArchivedPersistentObjectWithSetter.class)));
+
+        verify(transactionService, times(2)).registerBeforeCommitCallable(any());
+    }
+
+    @Test
+    public void should_use_a_new_batch_when_records_are_archived_after_the_batch_was_inserted() throws Exception {
+        archiveService.recordInserts(3L, new ArchiveInsertRecord(mock(ArchivedPersistentObjectWithSetter.class)));
+        registeredCallable().call();
+
+        archiveService.recordInserts(3L, new ArchiveInsertRecord(mock(ArchivedPersistentObjectWithSetter.class)));
+
+        verify(transactionService, times(2)).registerBeforeCommitCallable(any());
+    }
+
+    @Test
+    public void should_stage_the_records_of_a_transaction_when_staged_archiving_is_enabled() throws Exception {
+        final StagedArchiver stagedArchiver = mock(StagedArchiver.class);
+        when(stagedArchiver.isEnabled()).thenReturn(true);
+        archiveService = new ArchiveServiceImpl(definitiveArchivePersistenceService,
+                mock(TechnicalLoggerService.class), null, transactionService, meterRegistry, 1L, stagedArchiver);
+        final ArchivedPersistentObject entity1 = mock(ArchivedPersistentObjectWithSetter.class);
+        final ArchivedPersistentObject entity2 = mock(ArchivedPersistentObjectWithSetter.class);
+
+        archiveService.recordInserts(3L, new ArchiveInsertRecord(entity1), new ArchiveInsertRecord(entity2));
+        registeredCallable().call();
+
+        verify(stagedArchiver).stage(Arrays.asList(entity1, entity2));
+        verify(definitiveArchivePersistenceService, never()).insertInBatch(any());
+        verify(definitiveArchivePersistenceService, never()).insert(any());
     }
 
     // Test with exception on TxService
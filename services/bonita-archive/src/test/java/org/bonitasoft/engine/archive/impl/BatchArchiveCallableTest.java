@@ -20,6 +20,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.bonitasoft.engine.archive.ArchiveInsertRecord;
@@ -133,4 +134,20 @@ public class BatchArchiveCallableTest {
         verify(persistenceService).insertInBatch(anyList());
     }
 
+    @Test
+    public void testCallWithRecordsAddedLater() throws SPersistenceException {
+        final ArchiveInsertRecord record1 = new ArchiveInsertRecord(mock(ArchivedPersistentObject.class));
+        final ArchiveInsertRecord record2 = new ArchiveInsertRecord(mock(ArchivedPersistentObject.class));
+        final PersistenceService persistenceService = mock(PersistenceService.class);
+        final BatchArchiveCallable callable = new BatchArchiveCallable(persistenceService);
+
+        callable.addRecords(record1);
+        callable.addRecords(record2, null);
+        assertThat(callable.size(), is(2));
+        callable.call();
+
+        verify(persistenceService).insertInBatch(Arrays.asList(record1.getEntity(), record2.getEntity()));
+        assertTrue(callable.isCalled());
+    }
+
 }
@@ -0,0 +1,174 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.archive.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bonitasoft.engine.archive.model.SArchiveStagingBatch;
+import org.bonitasoft.engine.lock.BonitaLock;
+import org.bonitasoft.engine.lock.LockService;
+import org.bonitasoft.engine.log.technical.TechnicalLogger;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.bonitasoft.engine.persistence.ArchivedPersistentObject;
+import org.bonitasoft.engine.persistence.PersistentObject;
+import org.bonitasoft.engine.persistence.SelectListDescriptor;
+import org.bonitasoft.engine.persistence.SelectOneDescriptor;
+import org.bonitasoft.engine.services.PersistenceService;
+import org.bonitasoft.engine.sessionaccessor.SessionAccessor;
+import org.bonitasoft.engine.transaction.UserTransactionService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class StagedArchiverTest {
+
+    private final PersistenceService persistenceService = mock(PersistenceService.class);
+    private final UserTransactionService transactionService = mock(UserTransactionService.class);
+    private final LockService lockService = mock(LockService.class);
+    private final TechnicalLoggerService loggerService = mock(TechnicalLoggerService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BonitaLock lock = new BonitaLock("ARCHIVE_STAGING", 1L);
+    private StagedArchiver stagedArchiver;
+
+    @Before
+    public void before() throws Exception {
+        doReturn(mock(TechnicalLogger.class)).when(loggerService).asLogger(any());
+        doReturn(lock).when(lockService).tryLock(anyLong(), any(), anyLong(), any(), anyLong());
+        doAnswer(invocation -> ((Callable<?>) invocation.getArgument(0)).call()).when(transactionService)
+                .executeInTransaction(any());
+        doReturn(0L).when(persistenceService).selectOne(any(SelectOneDescriptor.class));
+        stagedArchiver = new StagedArchiver(persistenceService, transactionService, mock(SessionAccessor.class),
+                lockService, loggerService, meterRegistry, 1L, true, 2, 1000L);
+    }
+
+    private List<SArchiveStagingBatch> stagedBatches() throws Exception {
+        final ArgumentCaptor<SArchiveStagingBatch> batches = ArgumentCaptor.forClass(SArchiveStagingBatch.class);
+        verify(persistenceService, atLeastOnce()).insert(batches.capture());
+        return batches.getAllValues();
+    }
+
+    @Test
+    public void should_stage_the_records_of_a_transaction_in_one_row() throws Exception {
+        stagedArchiver.stage(Arrays.asList(new SAObject(1L), new SAObject(2L)));
+
+        final List<SArchiveStagingBatch> batches = stagedBatches();
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).getNumberOfRecords());
+        assertEquals(2, meterRegistry.find(StagedArchiver.NUMBER_OF_STAGED_RECORDS).counter().count(), 0);
+        verify(persistenceService, never()).insertInBatch(any());
+    }
+
+    @Test
+    public void should_not_stage_anything_when_there_is_no_record() throws Exception {
+        stagedArchiver.stage(Collections.emptyList());
+
+        verify(persistenceService, never()).insert(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_insert_the_records_of_staged_transactions_in_one_batch_and_delete_them() throws Exception {
+        stagedArchiver.stage(Collections.singletonList(new SAObject(1L)));
+        stagedArchiver.stage(Arrays.asList(new SAObject(2L), new SAObject(3L)));
+        final List<SArchiveStagingBatch> batches = stagedBatches();
+        doReturn(batches).when(persistenceService).selectList(any(SelectListDescriptor.class));
+
+        final int drained = stagedArchiver.drain();
+
+        assertEquals(2, drained);
+        final ArgumentCaptor<List<PersistentObject>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(persistenceService).insertInBatch(inserted.capture());
+        assertEquals(3, inserted.getValue().size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i + 1L, ((SAObject) inserted.getValue().get(i)).getSourceObjectId());
+        }
+        verify(persistenceService).delete(batches.get(0));
+        verify(persistenceService).delete(batches.get(1));
+        verify(lockService).unlock(lock, 1L);
+        assertEquals(3, meterRegistry.find(ArchiveServiceImpl.NUMBER_OF_ARCHIVED_RECORDS).counter().count(), 0);
+        assertEquals(2, meterRegistry.find(StagedArchiver.STAGING_LAG).timer().count());
+    }
+
+    @Test
+    public void should_not_drain_when_staged_records_are_drained_by_another_node() throws Exception {
+        doReturn(null).when(lockService).tryLock(anyLong(), any(), anyLong(), any(), anyLong());
+
+        final int drained = stagedArchiver.drain();
+
+        assertEquals(0, drained);
+        verify(transactionService, never()).executeInTransaction(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_not_record_metrics_when_nothing_is_staged() throws Exception {
+        doReturn(Collections.emptyList()).when(persistenceService).selectList(any(SelectListDescriptor.class));
+
+        final int drained = stagedArchiver.drain();
+
+        assertEquals(0, drained);
+        verify(persistenceService, never()).insertInBatch(any());
+        assertEquals(0, meterRegistry.find(StagedArchiver.STAGING_LAG).timer().count());
+        verify(lockService).tryLock(eq(1L), eq("ARCHIVE_STAGING"), eq(1L), eq(TimeUnit.MILLISECONDS), eq(1L));
+    }
+
+    static class SAObject implements ArchivedPersistentObject {
+
+        private final long sourceObjectId;
+
+        SAObject(long sourceObjectId) {
+            this.sourceObjectId = sourceObjectId;
+        }
+
+        @Override
+        public long getArchiveDate() {
+            return 0;
+        }
+
+        @Override
+        public long getSourceObjectId() {
+            return sourceObjectId;
+        }
+
+        @Override
+        public Class<? extends PersistentObject> getPersistentObjectInterface() {
+            return SAObject.class;
+        }
+
+        @Override
+        public long getId() {
+            return 0;
+        }
+
+        @Override
+        public void setId(long id) {
+        }
+
+        @Override
+        public void setTenantId(long id) {
+        }
+    }
+
+}
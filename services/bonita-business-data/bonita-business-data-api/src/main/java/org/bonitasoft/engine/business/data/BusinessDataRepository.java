@@ -56,7 +56,7 @@ public interface BusinessDataRepository extends TenantLifecycleService {
     /**
      * Finds (well-loaded) entities that is defined in a deployed Business Data Model. If a primary key does not match
      * an existing entity no exception is thrown
-     * and nothing is added in the list.
+     * and nothing is added in the list. Found entities are returned in the order of the given primary keys.
      *
      * @param entityClass the class of the entity to search for.
      * @param primaryKeys the primary keys.
@@ -21,4 +21,11 @@ public class Capitalizer {
         }
         return Character.toUpperCase(str.charAt(0)) + str.substring(1);
     }
+
+    public static String uncapitalize(final String str) {
+        if (str == null || str.isEmpty()) {
+            return str;
+        }
+        return Character.toLowerCase(str.charAt(0)) + str.substring(1);
+    }
 }
@@ -26,6 +26,8 @@ import org.bonitasoft.engine.bdm.model.field.Field;
  */
 public class EntityGetter {
 
+    public static final String PERSISTENCE_IDS = "persistenceIds";
+
     private final Method method;
 
     public EntityGetter(Method method) {
@@ -58,6 +60,21 @@ public class EntityGetter {
                 + Capitalizer.capitalize(Field.PERSISTENCE_ID);
     }
 
+    /**
+     * JPQL query loading the values of this getter for several source entities at once. Each row contains the
+     * persistence id of the source entity then the loaded value, elements of lists are returned in their order.
+     * The persistence ids of the source entities are given using the {@value #PERSISTENCE_IDS} parameter.
+     */
+    public String getAssociatedBatchQuery() {
+        final String query = "SELECT source." + Field.PERSISTENCE_ID + ", target FROM " + getSourceEntityName()
+                + " source JOIN source." + Capitalizer.uncapitalize(getCapitalizedFieldName())
+                + " target WHERE source." + Field.PERSISTENCE_ID + " IN (:" + PERSISTENCE_IDS + ")";
+        if (returnsList()) {
+            return query + " ORDER BY source." + Field.PERSISTENCE_ID + ", INDEX(target)";
+        }
+        return query;
+    }
+
     public boolean returnsList() {
         Class<?> returnTypeClass = method.getReturnType();
         return List.class.isAssignableFrom(returnTypeClass);
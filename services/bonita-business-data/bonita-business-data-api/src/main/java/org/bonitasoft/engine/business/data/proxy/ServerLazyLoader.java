@@ -15,7 +15,10 @@ package org.bonitasoft.engine.business.data.proxy;
 
 import java.io.Serializable;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.bonitasoft.engine.bdm.model.field.Field;
@@ -24,6 +27,11 @@ import org.bonitasoft.engine.business.data.NonUniqueResultException;
 
 public class ServerLazyLoader {
 
+    /**
+     * Some databases (e.g. Oracle) do not accept more than 1000 elements in an IN clause
+     */
+    static final int MAX_BATCH_SIZE = 1000;
+
     private BusinessDataRepository businessDataRepository;
 
     public ServerLazyLoader(BusinessDataRepository bdBusinessDataRepository) {
@@ -48,4 +56,40 @@ public class ServerLazyLoader {
         }
     }
 
+    /**
+     * Load the values of a lazy getter for several entities, using one query per {@value #MAX_BATCH_SIZE} entities
+     * instead of one query per entity.
+     *
+     * @param method the lazy getter
+     * @param persistenceIds persistence ids of the entities to load the values of
+     * @return the loaded values by persistence id of the entity: lists (possibly empty) when the getter returns a
+     *         list, otherwise the referenced entity or no value when the reference is not set
+     */
+    @SuppressWarnings("unchecked")
+    public Map<Long, Object> loadAll(final Method method, final Collection<Long> persistenceIds) {
+        final EntityGetter getter = new EntityGetter(method);
+        final Map<Long, Object> values = new HashMap<>();
+        if (getter.returnsList()) {
+            for (final Long persistenceId : persistenceIds) {
+                values.put(persistenceId, new ArrayList<>());
+            }
+        }
+        final List<Long> ids = new ArrayList<>(persistenceIds);
+        for (int from = 0; from < ids.size(); from += MAX_BATCH_SIZE) {
+            final List<Long> batch = ids.subList(from, Math.min(from + MAX_BATCH_SIZE, ids.size()));
+            final Map<String, Serializable> queryParameters = new HashMap<>();
+            queryParameters.put(EntityGetter.PERSISTENCE_IDS, batch.toArray(new Long[0]));
+            final List<Object[]> rows = businessDataRepository.findList(Object[].class,
+                    getter.getAssociatedBatchQuery(), queryParameters, 0, Integer.MAX_VALUE);
+            for (final Object[] row : rows) {
+                if (getter.returnsList()) {
+                    ((List<Object>) values.get(row[0])).add(row[1]);
+                } else {
+                    values.put((Long) row[0], row[1]);
+                }
+            }
+        }
+        return values;
+    }
+
 }
@@ -16,8 +16,11 @@ package org.bonitasoft.engine.business.data.proxy;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import javassist.util.proxy.MethodHandler;
@@ -57,6 +60,10 @@ public class ServerProxyfier {
     }
 
     private Entity proxifyEntity(final Entity entity) {
+        return proxifyEntity(entity, new ArrayList<>());
+    }
+
+    private Entity proxifyEntity(final Entity entity, final List<LazyMethodHandler> siblings) {
         if (entity == null) {
             return null;
         }
@@ -72,7 +79,8 @@ public class ServerProxyfier {
         factory.setSuperclass(classForProxy);
         factory.setFilter((Method m) -> true);
         try {
-            return (Entity) factory.create(new Class<?>[0], new Object[0], new LazyMethodHandler(entity, lazyLoader));
+            return (Entity) factory.create(new Class<?>[0], new Object[0],
+                    new LazyMethodHandler(entity, lazyLoader, siblings));
         } catch (final Exception e) {
             throw new RuntimeException("Error when proxifying object", e);
         }
@@ -88,24 +96,41 @@ public class ServerProxyfier {
     }
 
     private List<Entity> proxifyEntities(final List<Entity> entities) {
+        return proxifyEntities(entities, new ArrayList<>());
+    }
+
+    private List<Entity> proxifyEntities(final List<Entity> entities, final List<LazyMethodHandler> siblings) {
         final List<Entity> proxies = new ArrayList<>();
         for (final Entity entity : entities) {
-            proxies.add(proxifyEntity(entity));
+            proxies.add(proxifyEntity(entity, siblings));
         }
         return proxies;
     }
 
     /**
      * Handler that lazy load values for lazy loading methods that hasn't been loaded
+     * <p>
+     * Entities proxified together (e.g. the elements of a list) are siblings: the first time a lazy getter is called on
+     * one of them, its value is loaded for all siblings at once and kept by their handlers, avoiding one query per
+     * entity when iterating over the list. Entities loaded this way are in turn siblings.
      */
     public class LazyMethodHandler implements MethodHandler {
 
         private final ServerLazyLoader lazyLoader;
         private final Entity entity;
+        private final List<LazyMethodHandler> siblings;
+        private final Map<Method, Object> lazyLoadedValues = new HashMap<>();
 
         public LazyMethodHandler(final Entity entity, final ServerLazyLoader lazyLoader) {
+            this(entity, lazyLoader, new ArrayList<>());
+        }
+
+        LazyMethodHandler(final Entity entity, final ServerLazyLoader lazyLoader,
+                final List<LazyMethodHandler> siblings) {
             this.entity = entity;
             this.lazyLoader = lazyLoader;
+            this.siblings = siblings;
+            siblings.add(this);
         }
 
         public Entity getEntity() {
@@ -115,27 +140,61 @@ public class ServerProxyfier {
         @Override
         public Object invoke(final Object self, final Method thisMethod, final Method proceed, final Object[] args)
                 throws Throwable {
-            Object invocationResult;
             if (isMethodGetterOnLazyLoadedField(thisMethod)) {
-                invocationResult = lazyLoader.load(thisMethod, entity.getPersistenceId());
-            } else {
-                invocationResult = thisMethod.invoke(entity, args);
+                return getLazyLoadedValue(thisMethod);
+            }
+            if (!isGetter(thisMethod)) {
+                // the entity may be modified, values loaded before might not be up to date anymore
+                lazyLoadedValues.clear();
+            }
+            return proxifyIfNeeded(thisMethod.invoke(entity, args));
+        }
+
+        private Object getLazyLoadedValue(final Method method) {
+            if (!lazyLoadedValues.containsKey(method)) {
+                if (siblings.size() > 1 && entity.getPersistenceId() != null) {
+                    loadForAllSiblings(method);
+                } else {
+                    lazyLoadedValues.put(method, proxifyIfNeeded(lazyLoader.load(method, entity.getPersistenceId())));
+                }
+            }
+            return lazyLoadedValues.get(method);
+        }
+
+        private void loadForAllSiblings(final Method method) {
+            final List<LazyMethodHandler> handlersToLoad = new ArrayList<>();
+            final Set<Long> persistenceIds = new LinkedHashSet<>();
+            for (final LazyMethodHandler sibling : siblings) {
+                final Long persistenceId = sibling.entity.getPersistenceId();
+                if (persistenceId != null && !sibling.lazyLoadedValues.containsKey(method)) {
+                    handlersToLoad.add(sibling);
+                    persistenceIds.add(persistenceId);
+                }
+            }
+            final Map<Long, Object> values = lazyLoader.loadAll(method, persistenceIds);
+            final List<LazyMethodHandler> loadedSiblings = new ArrayList<>();
+            for (final LazyMethodHandler handler : handlersToLoad) {
+                handler.lazyLoadedValues.put(method,
+                        proxifyIfNeeded(values.get(handler.entity.getPersistenceId()), loadedSiblings));
             }
-            return proxifyIfNeeded(invocationResult);
         }
 
         private boolean isMethodGetterOnLazyLoadedField(final Method thisMethod) {
             return isGetter(thisMethod) && thisMethod.isAnnotationPresent(LazyLoaded.class);
         }
 
-        @SuppressWarnings("unchecked")
         private Object proxifyIfNeeded(final Object invocationResult) {
+            return proxifyIfNeeded(invocationResult, new ArrayList<>());
+        }
+
+        @SuppressWarnings("unchecked")
+        private Object proxifyIfNeeded(final Object invocationResult, final List<LazyMethodHandler> siblings) {
             if (isAnEntity(invocationResult)) {
-                return proxifyEntity((Entity) invocationResult);
+                return proxifyEntity((Entity) invocationResult, siblings);
             }
 
             if (isAListOfEntities(invocationResult)) {
-                return proxifyEntities((List<Entity>) invocationResult);
+                return proxifyEntities((List<Entity>) invocationResult, siblings);
             }
             return invocationResult;
         }
@@ -95,6 +95,33 @@ public class EntityGetterTest {
         assertThat(namedQuery).isEqualTo("Address.findAddressesByEmployeePersistenceId");
     }
 
+    @Test
+    public void should_be_able_to_get_associated_batch_query_of_a_list() throws Exception {
+        //given
+        Method getAddresses = Employee.class.getMethod("getAddresses");
+
+        //when
+        String query = new EntityGetter(getAddresses).getAssociatedBatchQuery();
+
+        //then
+        assertThat(query).isEqualTo("SELECT source.persistenceId, target FROM Employee source JOIN source.addresses"
+                + " target WHERE source.persistenceId IN (:persistenceIds)"
+                + " ORDER BY source.persistenceId, INDEX(target)");
+    }
+
+    @Test
+    public void should_be_able_to_get_associated_batch_query_of_a_unique_object() throws Exception {
+        //given
+        Method getAddress = Employee.class.getMethod("getAddress");
+
+        //when
+        String query = new EntityGetter(getAddress).getAssociatedBatchQuery();
+
+        //then
+        assertThat(query).isEqualTo("SELECT source.persistenceId, target FROM Employee source JOIN source.address"
+                + " target WHERE source.persistenceId IN (:persistenceIds)");
+    }
+
     @Test
     public void should_be_able_to_determine_if_getter_return_a_list() throws Exception {
         //given
@@ -13,11 +13,18 @@
  **/
 package org.bonitasoft.engine.business.data.proxy;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 import java.io.Serializable;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -115,6 +122,47 @@ public class ServerLazyLoaderTest {
 
     }
 
+    @Test
+    public void should_load_lists_of_objects_of_several_entities_with_one_query() throws Exception {
+        //given
+        final Method method = employee.getClass().getMethod("getAddresses");
+        final Addresses address1 = new Addresses();
+        final Addresses address2 = new Addresses();
+        doReturn(Arrays.asList(new Object[] { 22L, address1 }, new Object[] { 22L, address2 }))
+                .when(businessDataRepository).findList(eq(Object[].class), anyString(), anyMap(), eq(0),
+                        eq(Integer.MAX_VALUE));
+
+        //when
+        final Map<Long, Object> addresses = serverLazyLoader.loadAll(method, Arrays.asList(22L, 23L));
+
+        //then
+        assertThat(addresses).containsEntry(22L, Arrays.asList(address1, address2))
+                .containsEntry(23L, Collections.emptyList());
+        verify(businessDataRepository).findList(eq(Object[].class), anyString(), anyMap(), eq(0),
+                eq(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void should_load_single_objects_of_several_entities_with_one_query_per_batch() throws Exception {
+        //given
+        final Method method = employee.getClass().getMethod("getName");
+        final List<Long> persistenceIds = new ArrayList<>();
+        for (long id = 0; id < ServerLazyLoader.MAX_BATCH_SIZE + 1; id++) {
+            persistenceIds.add(id);
+        }
+        doReturn(Collections.singletonList(new Object[] { 0L, "name" }), Collections.emptyList())
+                .when(businessDataRepository).findList(eq(Object[].class), anyString(), anyMap(), eq(0),
+                        eq(Integer.MAX_VALUE));
+
+        //when
+        final Map<Long, Object> names = serverLazyLoader.loadAll(method, persistenceIds);
+
+        //then
+        assertThat(names).containsOnly(entry(0L, "name"));
+        verify(businessDataRepository, times(2)).findList(eq(Object[].class), anyString(), anyMap(), eq(0),
+                eq(Integer.MAX_VALUE));
+    }
+
     @Test(expected = RuntimeException.class)
     public void should_load_single_object_throw_exception() throws Exception {
         final String queryName = "String.findNameByEmployeePersistenceId";
@@ -16,10 +16,13 @@ package org.bonitasoft.engine.business.data.proxy;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import javassist.util.proxy.MethodHandler;
 import javassist.util.proxy.ProxyFactory;
@@ -98,6 +101,40 @@ public class ServerProxyfierTest {
         assertThat(withLazyLoadedAnnotation).isEqualTo("lazyResult");
     }
 
+    @Test
+    public void should_call_lazyLoader_only_once_for_a_lazy_loaded_getter() throws Exception {
+        //given
+        doReturn("lazyResult").when(lazyLoader).load(any(Method.class), anyLong());
+        final PersonEntity proxy = serverProxyfier.proxify(new PersonEntity());
+
+        //when
+        proxy.getWithLazyLoadedAnnotation();
+        final String withLazyLoadedAnnotation = proxy.getWithLazyLoadedAnnotation();
+
+        //then
+        verify(lazyLoader, times(1)).load(any(Method.class), anyLong());
+        assertThat(withLazyLoadedAnnotation).isEqualTo("lazyResult");
+    }
+
+    @Test
+    public void should_load_lazy_loaded_getter_of_all_entities_of_a_list_at_once() throws Exception {
+        //given
+        final Method method = PersonEntity.class.getMethod("getWithLazyLoadedAnnotation");
+        doReturn(Collections.singletonMap(1L, "lazyResult")).when(lazyLoader).loadAll(eq(method), any());
+        final List<PersonEntity> proxies = serverProxyfier
+                .proxify(Arrays.asList(new PersonEntity(), new PersonEntity()));
+
+        //when
+        final String first = proxies.get(0).getWithLazyLoadedAnnotation();
+        final String second = proxies.get(1).getWithLazyLoadedAnnotation();
+
+        //then
+        verify(lazyLoader).loadAll(method, Collections.singleton(1L));
+        verify(lazyLoader, never()).load(any(Method.class), anyLong());
+        assertThat(first).isEqualTo("lazyResult");
+        assertThat(second).isEqualTo("lazyResult");
+    }
+
     @Test
     public void should_not_call_lazyLoader() throws Exception {
         //given
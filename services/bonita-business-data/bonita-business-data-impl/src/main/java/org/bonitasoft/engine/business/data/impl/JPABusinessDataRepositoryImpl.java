@@ -19,6 +19,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -63,6 +64,11 @@ public class JPABusinessDataRepositoryImpl implements BusinessDataRepository, Cl
 
     private static final String BDR_PERSISTENCE_UNIT = "BDR";
 
+    /**
+     * Some databases (e.g. Oracle) do not accept more than 1000 elements in an IN clause
+     */
+    private static final int MAX_IDENTIFIERS_PER_QUERY = 1000;
+
     private final Map<String, Object> configuration;
 
     private EntityManagerFactory entityManagerFactory;
@@ -232,12 +238,22 @@ public class JPABusinessDataRepositoryImpl implements BusinessDataRepository, Cl
         if (primaryKeys == null || primaryKeys.isEmpty()) {
             return new ArrayList<>();
         }
-        final List<T> entities = new ArrayList<>();
+        final List<Long> identifiers = new ArrayList<>(new LinkedHashSet<>(primaryKeys));
+        identifiers.remove(null);
+        final Map<Long, T> entitiesById = new HashMap<>();
+        for (int from = 0; from < identifiers.size(); from += MAX_IDENTIFIERS_PER_QUERY) {
+            final List<Long> batch = identifiers.subList(from,
+                    Math.min(from + MAX_IDENTIFIERS_PER_QUERY, identifiers.size()));
+            for (final T entity : findByIds(entityClass, batch)) {
+                entitiesById.put(entity.getPersistenceId(), entity);
+            }
+        }
+        final List<T> entities = new ArrayList<>(primaryKeys.size());
         for (final Long primaryKey : primaryKeys) {
-            try {
-                entities.add(findById(entityClass, primaryKey));
-            } catch (final SBusinessDataNotFoundException e) {
-                // If the business data does not exist, do not add it in the result list in order to have the same behaviour as findByIds
+            final T entity = entitiesById.get(primaryKey);
+            // If the business data does not exist, do not add it in the result list in order to have the same behaviour as findByIds
+            if (entity != null) {
+                entities.add(entity);
             }
         }
         return entities;
@@ -208,6 +208,17 @@ public class JPABusinessDataRepositoryImplITest {
         assertThat(emps).doesNotContain(emp3);
     }
 
+    @Test
+    public void should_get_employees_by_identifiers_in_the_given_order_and_skip_unknown_ones() throws Exception {
+        Employee emp1 = addEmployeeToRepository(anEmployee().build());
+        Employee emp2 = addEmployeeToRepository(anEmployee().build());
+
+        List<Employee> emps = businessDataRepository.findByIdentifiers(Employee.class,
+                Arrays.asList(emp2.getPersistenceId(), -145L, emp1.getPersistenceId()));
+
+        assertThat(emps).containsExactly(emp2, emp1);
+    }
+
     @Test
     public void should_return_an_empty_list_when_getting_entities_with_empty_ids_list() throws Exception {
         ArrayList<Long> emptyIdsList = new ArrayList<>();
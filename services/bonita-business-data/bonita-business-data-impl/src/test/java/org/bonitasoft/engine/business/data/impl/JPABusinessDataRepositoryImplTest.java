@@ -19,8 +19,10 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import javax.persistence.EntityManager;
@@ -167,12 +169,29 @@ public class JPABusinessDataRepositoryImplTest {
     @Test(expected = SRetryableException.class)
     public void should_findByIdentifiers_throw_retryable_when_persistenceException() throws Exception {
         //given
-        doThrow(PersistenceException.class).when(manager).find(Address.class, PRIMARY_KEY_1);
+        doThrow(PersistenceException.class).when(manager).createQuery(any(CriteriaQuery.class));
         //when
         repository.findByIdentifiers(Address.class, Collections.singletonList(PRIMARY_KEY_1));
         //then exception
     }
 
+    @Test
+    public void findByIdentifiers_should_load_entities_with_one_query_in_the_order_of_the_identifiers()
+            throws Exception {
+        //given
+        final Address address1 = new Address(1L);
+        final Address address3 = new Address(3L);
+        final TypedQuery typedQuery = mock(TypedQuery.class);
+        doReturn(Arrays.asList(address3, address1)).when(typedQuery).getResultList();
+        doReturn(typedQuery).when(manager).createQuery(any(CriteriaQuery.class));
+        //when
+        final List<Address> addresses = repository.findByIdentifiers(Address.class, Arrays.asList(3L, 2L, 1L, 3L));
+        //then
+        assertThat(addresses).containsExactly(address3, address1, address3);
+        verify(manager).createQuery(any(CriteriaQuery.class));
+        verify(manager, never()).find(any(Class.class), any());
+    }
+
     @Test(expected = SRetryableException.class)
     public void should_findByNamedQuery_throw_retryable_when_persistenceException() throws Exception {
         //given
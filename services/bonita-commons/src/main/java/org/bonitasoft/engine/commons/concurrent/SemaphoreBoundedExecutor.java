@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.commons.concurrent;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link Executor} limiting the number of tasks running at the same time using a {@link Semaphore}.
+ * Tasks that can not get a permit wait in an unbounded queue and are handed to the delegate executor as soon as a
+ * running task completes.
+ * <p>
+ * Used with an elastic delegate (threads created on demand and released when idle), the concurrency is only bounded
+ * by the number of permits and not by the size of a pool.
+ */
+public class SemaphoreBoundedExecutor implements Executor {
+
+    private final int maxConcurrency;
+    private final Semaphore permits;
+    private final Executor delegate;
+    private final Queue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue.size() is not a constant time operation
+    private final AtomicInteger numberOfPendingTasks = new AtomicInteger();
+
+    public SemaphoreBoundedExecutor(int maxConcurrency, Executor delegate) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be greater than 0 but was " + maxConcurrency);
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        pendingTasks.offer(task);
+        numberOfPendingTasks.incrementAndGet();
+        dispatch();
+    }
+
+    private void dispatch() {
+        // the emptiness check is done after releasing the permit in the completion of a task and after queuing the
+        // task in execute: a queued task is always picked up either by its submitter or by the completing task
+        while (!pendingTasks.isEmpty() && permits.tryAcquire()) {
+            Runnable task = pendingTasks.poll();
+            if (task == null) {
+                permits.release();
+                continue;
+            }
+            numberOfPendingTasks.decrementAndGet();
+            try {
+                delegate.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        permits.release();
+                        dispatch();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * @return the number of tasks waiting for a permit
+     */
+    public int getPendingTasks() {
+        return numberOfPendingTasks.get();
+    }
+
+    /**
+     * @return the number of tasks holding a permit
+     */
+    public int getRunningTasks() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Remove all tasks waiting for a permit, running tasks are not affected
+     *
+     * @return the number of removed tasks
+     */
+    public int clear() {
+        int removed = 0;
+        while (pendingTasks.poll() != null) {
+            numberOfPendingTasks.decrementAndGet();
+            removed++;
+        }
+        return removed;
+    }
+
+}
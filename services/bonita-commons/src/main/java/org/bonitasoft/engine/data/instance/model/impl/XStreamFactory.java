@@ -13,6 +13,7 @@
  **/
 package org.bonitasoft.engine.data.instance.model.impl;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.WeakHashMap;
 
@@ -21,20 +22,19 @@ import com.thoughtworks.xstream.security.AnyTypePermission;
 
 public class XStreamFactory {
 
-    private static final Map<ClassLoader, XStream> XSTREAM_MAP = new WeakHashMap<>();
+    private static final Map<ClassLoader, XStream> XSTREAM_MAP = Collections.synchronizedMap(new WeakHashMap<>());
 
     public static XStream getXStream() {
         final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
-        XStream xStream = XSTREAM_MAP.get(classLoader);
-        if (xStream == null) {
-            xStream = new XStream();
-            XStream.setupDefaultSecurity(xStream);
-            xStream.addPermission(AnyTypePermission.ANY);
-            XSTREAM_MAP.put(classLoader, xStream);
-            // Even though xStream now supports Java 8 date types, Bonita needs to convert offset date-time to UTC, by contract:
-            xStream.registerConverter(new OffsetDateTimeXStreamConverter());
-        }
+        return XSTREAM_MAP.computeIfAbsent(classLoader, k -> createXStream());
+    }
 
+    private static XStream createXStream() {
+        final XStream xStream = new XStream();
+        XStream.setupDefaultSecurity(xStream);
+        xStream.addPermission(AnyTypePermission.ANY);
+        // Even though xStream now supports Java 8 date types, Bonita needs to convert offset date-time to UTC, by contract:
+        xStream.registerConverter(new OffsetDateTimeXStreamConverter());
         return xStream;
     }
 
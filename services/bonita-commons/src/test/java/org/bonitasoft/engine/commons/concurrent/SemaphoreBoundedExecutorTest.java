@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.commons.concurrent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SemaphoreBoundedExecutorTest {
+
+    private ExecutorService threads = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void after() {
+        threads.shutdownNow();
+    }
+
+    @Test
+    void should_not_run_more_tasks_than_permits_at_the_same_time() throws Exception {
+        SemaphoreBoundedExecutor executor = new SemaphoreBoundedExecutor(2, threads);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        for (int i = 0; i < 5; i++) {
+            executor.execute(() -> {
+                started.countDown();
+                await(release);
+            });
+        }
+
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executor.getRunningTasks()).isEqualTo(2);
+        assertThat(executor.getPendingTasks()).isEqualTo(3);
+        release.countDown();
+    }
+
+    @Test
+    void should_run_pending_tasks_when_running_ones_complete() throws Exception {
+        SemaphoreBoundedExecutor executor = new SemaphoreBoundedExecutor(3, threads);
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(200);
+        for (int i = 0; i < 200; i++) {
+            executor.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(maxRunning.get()).isLessThanOrEqualTo(3);
+        assertThat(executor.getPendingTasks()).isZero();
+    }
+
+    @Test
+    void should_remove_pending_tasks_on_clear() {
+        SemaphoreBoundedExecutor executor = new SemaphoreBoundedExecutor(1, threads);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> await(release));
+        executor.execute(() -> {
+        });
+        executor.execute(() -> {
+        });
+
+        assertThat(executor.clear()).isEqualTo(2);
+        assertThat(executor.getPendingTasks()).isZero();
+        release.countDown();
+    }
+
+    @Test
+    void should_give_back_the_permit_when_delegate_rejects_the_task() {
+        threads.shutdown();
+        SemaphoreBoundedExecutor executor = new SemaphoreBoundedExecutor(1, threads);
+
+        assertThatThrownBy(() -> executor.execute(() -> {
+        })).isInstanceOf(RejectedExecutionException.class);
+        assertThat(executor.getRunningTasks()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -22,9 +22,11 @@ import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
@@ -34,6 +36,7 @@ import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tags;
+import org.bonitasoft.engine.commons.concurrent.SemaphoreBoundedExecutor;
 import org.bonitasoft.engine.commons.exceptions.SBonitaRuntimeException;
 import org.bonitasoft.engine.connector.ConnectorExecutionResult;
 import org.bonitasoft.engine.connector.ConnectorExecutor;
@@ -64,6 +67,9 @@ public class ConnectorExecutorImpl implements ConnectorExecutor {
     public static final String NUMBER_OF_CONNECTORS_EXECUTED = "bonita.bpmengine.connector.executed";
 
     private ExecutorService executorService;
+    // executor the connectors are submitted to, limits the concurrency when maxConcurrency is set
+    private Executor executor;
+    private SemaphoreBoundedExecutor boundedExecutor;
 
     private final SessionAccessor sessionAccessor;
 
@@ -77,6 +83,8 @@ public class ConnectorExecutorImpl implements ConnectorExecutor {
 
     private final long keepAliveTimeSeconds;
 
+    private final int maxConcurrency;
+
     private final TechnicalLoggerService loggerService;
 
     private final TimeTracker timeTracker;
@@ -111,10 +119,14 @@ public class ConnectorExecutorImpl implements ConnectorExecutor {
      *        when the number of threads is greater than
      *        the core, this is the maximum time that excess idle threads
      *        will wait for new tasks before terminating. (in seconds)
+     * @param maxConcurrency
+     *        when greater than 0, queueCapacity and pool sizes are ignored: connectors are executed on threads
+     *        created on demand and the number of connectors executing at the same time is limited by this value
      */
     public ConnectorExecutorImpl(final int queueCapacity, final int corePoolSize,
             final TechnicalLoggerService loggerService,
-            final int maximumPoolSize, final long keepAliveTimeSeconds, final SessionAccessor sessionAccessor,
+            final int maximumPoolSize, final long keepAliveTimeSeconds, final int maxConcurrency,
+            final SessionAccessor sessionAccessor,
             final SessionService sessionService, final TimeTracker timeTracker, final MeterRegistry meterRegistry,
             long tenantId, ExecutorServiceMetricsProvider executorServiceMetricsProvider) {
         this.queueCapacity = queueCapacity;
@@ -122,6 +134,7 @@ public class ConnectorExecutorImpl implements ConnectorExecutor {
         this.loggerService = loggerService;
         this.maximumPoolSize = maximumPoolSize;
         this.keepAliveTimeSeconds = keepAliveTimeSeconds;
+        this.maxConcurrency = maxConcurrency;
         this.sessionAccessor = sessionAccessor;
         this.sessionService = sessionService;
         this.timeTracker = timeTracker;
@@ -158,7 +171,7 @@ public class ConnectorExecutorImpl implements ConnectorExecutor {
                 disconnectSilently(sConnector);
                 throw new SBonitaRuntimeException(e);
             }
-        }, executorService);
+        }, executor);
     }
 
     private Callable<ConnectorExecutionResult> wrapForStats(final Callable<Map<String, Object>> task) {
@@ -320,20 +333,36 @@ public class ConnectorExecutorImpl implements ConnectorExecutor {
     @Override
     public void start() {
         if (executorService == null) {
-            final BlockingQueue<Runnable> workQueue = new ArrayBlockingQueue<>(queueCapacity);
-            final RejectedExecutionHandler handler = new QueueRejectedExecutionHandler(loggerService);
             final ConnectorExecutorThreadFactory threadFactory = new ConnectorExecutorThreadFactory(
                     "ConnectorExecutor");
-            executorService = executorServiceMetricsProvider
-                    .bind(meterRegistry,
-                            new ThreadPoolExecutor(corePoolSize, maximumPoolSize, keepAliveTimeSeconds,
-                                    TimeUnit.SECONDS,
-                                    workQueue, threadFactory, handler),
-                            "bonita-connector-executor", tenantId);
             Tags tags = Tags.of("tenant", String.valueOf(tenantId));
-            numberOfConnectorsPending = Gauge.builder(NUMBER_OF_CONNECTORS_PENDING, workQueue, Collection::size)
-                    .tags(tags).baseUnit("connectors").description("Connectors pending in the execution queue")
-                    .register(meterRegistry);
+            if (maxConcurrency > 0) {
+                // threads are created on demand, the concurrency is only limited by the semaphore
+                executorService = executorServiceMetricsProvider
+                        .bind(meterRegistry,
+                                new ThreadPoolExecutor(0, Integer.MAX_VALUE, keepAliveTimeSeconds, TimeUnit.SECONDS,
+                                        new SynchronousQueue<>(), threadFactory),
+                                "bonita-connector-executor", tenantId);
+                boundedExecutor = new SemaphoreBoundedExecutor(maxConcurrency, executorService);
+                executor = boundedExecutor;
+                numberOfConnectorsPending = Gauge.builder(NUMBER_OF_CONNECTORS_PENDING, boundedExecutor,
+                        SemaphoreBoundedExecutor::getPendingTasks)
+                        .tags(tags).baseUnit("connectors").description("Connectors pending in the execution queue")
+                        .register(meterRegistry);
+            } else {
+                final BlockingQueue<Runnable> workQueue = new ArrayBlockingQueue<>(queueCapacity);
+                final RejectedExecutionHandler handler = new QueueRejectedExecutionHandler(loggerService);
+                executorService = executorServiceMetricsProvider
+                        .bind(meterRegistry,
+                                new ThreadPoolExecutor(corePoolSize, maximumPoolSize, keepAliveTimeSeconds,
+                                        TimeUnit.SECONDS,
+                                        workQueue, threadFactory, handler),
+                                "bonita-connector-executor", tenantId);
+                executor = executorService;
+                numberOfConnectorsPending = Gauge.builder(NUMBER_OF_CONNECTORS_PENDING, workQueue, Collection::size)
+                        .tags(tags).baseUnit("connectors").description("Connectors pending in the execution queue")
+                        .register(meterRegistry);
+            }
             numberOfConnectorsRunning = Gauge.builder(NUMBER_OF_CONNECTORS_RUNNING, runningWorks, AtomicLong::get)
                     .tags(tags).baseUnit("connectors").description("Connectors currently executing")
                     .register(meterRegistry);
@@ -356,6 +385,15 @@ public class ConnectorExecutorImpl implements ConnectorExecutor {
             meterRegistry.remove(numberOfConnectorsPending);
             executorServiceMetricsProvider.unbind(meterRegistry, "bonita-connector-executor", tenantId);
 
+            if (boundedExecutor != null) {
+                // not handed to the pool yet, they would be rejected once it is shutdown
+                int dropped = boundedExecutor.clear();
+                if (dropped > 0) {
+                    loggerService.log(getClass(), TechnicalLogSeverity.INFO, dropped
+                            + " pending connector executions were dropped, they will be restarted with the node.");
+                }
+                boundedExecutor = null;
+            }
             executorService.shutdown();
             try {
                 if (!executorService.awaitTermination(5000, TimeUnit.MILLISECONDS)) {
@@ -367,6 +405,7 @@ public class ConnectorExecutorImpl implements ConnectorExecutor {
                         "Error while stopping the connector executor thread pool.", e);
             }
             executorService = null;
+            executor = null;
         }
     }
 
@@ -57,7 +57,7 @@ public class ConnectorExecutorImplIT {
 
     @Before
     public void setUp() {
-        connectorExecutor = new ConnectorExecutorImpl(10, 5, new TechnicalLoggerSLF4JImpl(), 100, 100, sessionAccessor,
+        connectorExecutor = new ConnectorExecutorImpl(10, 5, new TechnicalLoggerSLF4JImpl(), 100, 100, 0, sessionAccessor,
                 sessionService,
                 timeTracker, new SimpleMeterRegistry(), 12L, new DefaultExecutorServiceMetricsProvider());
         connectorExecutor.start();
@@ -72,8 +72,8 @@ public class ConnectorExecutorImplTest {
                 // So that micrometer updates its counters every 1 ms:
                 k -> k.equals("simple.step") ? Duration.ofMillis(1).toString() : null,
                 Clock.SYSTEM);
-        connectorExecutorImpl = new ConnectorExecutorImpl(1, 1, loggerService, 1, 1, sessionAccessor, sessionService,
-                timeTracker,
+        connectorExecutorImpl = new ConnectorExecutorImpl(1, 1, loggerService, 1, 1, 0, sessionAccessor,
+                sessionService, timeTracker,
                 meterRegistry, TENANT_ID, new DefaultExecutorServiceMetricsProvider());
 
         connectorExecutorImpl.start();
@@ -266,6 +266,27 @@ public class ConnectorExecutorImplTest {
                 .as("Pending connectors number").isEqualTo(1);
     }
 
+    @Test
+    public void should_limit_running_connectors_to_max_concurrency() throws Exception {
+        connectorExecutorImpl.stop();
+        connectorExecutorImpl = new ConnectorExecutorImpl(1, 1, loggerService, 1, 1, 2, sessionAccessor,
+                sessionService, timeTracker,
+                meterRegistry, TENANT_ID, new DefaultExecutorServiceMetricsProvider());
+        connectorExecutorImpl.start();
+        when(loggerService.asLogger(any())).thenReturn(new TechnicalLoggerSLF4JImpl().asLogger(this.getClass()));
+        for (int i = 0; i < 3; i++) {
+            connectorExecutorImpl.execute(new LocalSConnector(2), new HashMap<>(),
+                    Thread.currentThread().getContextClassLoader());
+        }
+        TimeUnit.MILLISECONDS.sleep(50); // give some time to consider the connector to process
+
+        //then: two are running on threads created on demand and one waits for a permit
+        assertThat(meterRegistry.find(ConnectorExecutorImpl.NUMBER_OF_CONNECTORS_RUNNING).gauge().value())
+                .as("Running connectors number").isEqualTo(2);
+        assertThat(meterRegistry.find(ConnectorExecutorImpl.NUMBER_OF_CONNECTORS_PENDING).gauge().value())
+                .as("Pending connectors number").isEqualTo(1);
+    }
+
     @Test
     public void createExecutorService_should_register_ExecutorServiceMetrics() {
         assertThat(
@@ -19,10 +19,14 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import org.bonitasoft.engine.archive.ArchiveInsertRecord;
 import org.bonitasoft.engine.archive.ArchiveService;
 import org.bonitasoft.engine.commons.CollectionUtil;
@@ -58,11 +62,16 @@ import org.bonitasoft.engine.recorder.model.DeleteRecord;
 import org.bonitasoft.engine.recorder.model.EntityUpdateDescriptor;
 import org.bonitasoft.engine.recorder.model.InsertRecord;
 import org.bonitasoft.engine.recorder.model.UpdateRecord;
+import org.bonitasoft.engine.transaction.STransactionNotFoundException;
+import org.bonitasoft.engine.transaction.UserTransactionService;
 
 /**
  * General mechanism for lookup is to look in specific flow node to search a data instance. When referring to "local"
  * data instance, it means the lookup is
  * performed only on the specific element, and not on inherited data for parent containers.
+ * <p>
+ * Container hierarchies and data instances resolved by name are kept until the end of the current transaction, see
+ * {@link DataInstanceTransactionCache}.
  *
  * @author Zhao Na
  * @author Elias Ricken de Medeiros
@@ -75,6 +84,10 @@ public class DataInstanceServiceImpl implements DataInstanceService {
 
     private static final String DATA_INSTANCE = "DATA_INSTANCE";
 
+    public static final String CACHE_HITS = "bonita.bpmengine.data.cache.hit";
+
+    public static final String CACHE_MISSES = "bonita.bpmengine.data.cache.miss";
+
     protected final Recorder recorder;
 
     protected final ReadPersistenceService persistenceService;
@@ -83,12 +96,64 @@ public class DataInstanceServiceImpl implements DataInstanceService {
 
     protected final TechnicalLoggerService logger;
 
+    private final UserTransactionService transactionService;
+
+    private final ThreadLocal<DataInstanceTransactionCache> transactionCaches = new ThreadLocal<>();
+
+    private final Counter hierarchyCacheHits;
+    private final Counter hierarchyCacheMisses;
+    private final Counter dataCacheHits;
+    private final Counter dataCacheMisses;
+
     public DataInstanceServiceImpl(final Recorder recorder, final ReadPersistenceService persistenceService,
-            final ArchiveService archiveService, final TechnicalLoggerService logger) {
+            final ArchiveService archiveService, final TechnicalLoggerService logger,
+            final UserTransactionService transactionService, final MeterRegistry meterRegistry, final long tenantId) {
         this.recorder = recorder;
         this.persistenceService = persistenceService;
         this.archiveService = archiveService;
         this.logger = logger;
+        this.transactionService = transactionService;
+        final Tags tenantTag = Tags.of("tenant", String.valueOf(tenantId));
+        hierarchyCacheHits = cacheCounter(meterRegistry, CACHE_HITS, "hierarchy", tenantTag);
+        hierarchyCacheMisses = cacheCounter(meterRegistry, CACHE_MISSES, "hierarchy", tenantTag);
+        dataCacheHits = cacheCounter(meterRegistry, CACHE_HITS, "data", tenantTag);
+        dataCacheMisses = cacheCounter(meterRegistry, CACHE_MISSES, "data", tenantTag);
+    }
+
+    private static Counter cacheCounter(MeterRegistry meterRegistry, String name, String type, Tags tenantTag) {
+        return Counter.builder(name).tags(tenantTag).tag("type", type)
+                .baseUnit("lookups").description("Lookups of container hierarchies and data instances by name in "
+                        + "the cache of the current transaction")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the cache of the current transaction, null if there is no transaction
+     */
+    private DataInstanceTransactionCache getTransactionCache() {
+        DataInstanceTransactionCache transactionCache = transactionCaches.get();
+        if (transactionCache == null && transactionService.isTransactionActive()) {
+            final DataInstanceTransactionCache newTransactionCache = new DataInstanceTransactionCache(this);
+            try {
+                transactionService.registerBonitaSynchronization(newTransactionCache);
+            } catch (final STransactionNotFoundException e) {
+                return null;
+            }
+            transactionCache = newTransactionCache;
+            transactionCaches.set(transactionCache);
+        }
+        return transactionCache;
+    }
+
+    void clearTransactionCache() {
+        transactionCaches.remove();
+    }
+
+    private void invalidateDataInstancesInTransactionCache() {
+        final DataInstanceTransactionCache transactionCache = transactionCaches.get();
+        if (transactionCache != null) {
+            transactionCache.clearDataInstances();
+        }
     }
 
     private void archiveDataInstance(final SDataInstance sDataInstance) throws SDataInstanceException {
@@ -109,11 +174,8 @@ public class DataInstanceServiceImpl implements DataInstanceService {
             final ParentContainerResolver parentContainerResolver) throws SDataInstanceException {
         NullCheckingUtil.checkArgsNotNull(dataName, containerType);
 
-        final String queryName = "getDataInstancesWithNames";
-        final Map<String, Object> inputParameters = new HashMap<String, Object>();
-        inputParameters.put("dataNames", Collections.singletonList(dataName));
-        final List<SDataInstance> dataInstances = getSDatainstanceOfContainers(containerId, containerType,
-                parentContainerResolver, queryName, inputParameters);
+        final List<SDataInstance> dataInstances = getDataInstancesWithNames(Collections.singletonList(dataName),
+                containerId, containerType, parentContainerResolver);
         if (dataInstances.size() == 0) {
             throw new SDataInstanceNotFoundException(
                     "DataInstance with name not found: [name: " + dataName + ", container type: " + containerType
@@ -166,13 +228,8 @@ public class DataInstanceServiceImpl implements DataInstanceService {
             String queryName, Map<String, Object> inputParameters)
             throws SDataInstanceNotFoundException, SDataInstanceReadException {
         //getAllContainers from me to root
-        final List<DataContainer> containerHierarchy;
-        try {
-            containerHierarchy = parentContainerResolver
-                    .getContainerHierarchy(new DataContainer(containerId, containerType));
-        } catch (SObjectNotFoundException | SObjectReadException e) {
-            throw new SDataInstanceNotFoundException(e);
-        }
+        final List<DataContainer> containerHierarchy = getContainerHierarchy(
+                new DataContainer(containerId, containerType), parentContainerResolver, getTransactionCache());
 
         final Map<String, List<Long>> containers = buildContainersMap(containerHierarchy, inputParameters);
 
@@ -420,11 +477,78 @@ public class DataInstanceServiceImpl implements DataInstanceService {
             return Collections.emptyList();
         }
 
+        return getDataInstancesWithNames(dataNames, containerId, containerType, parentContainerResolver);
+    }
+
+    private List<SDataInstance> getDataInstancesWithNames(final List<String> dataNames, final long containerId,
+            final String containerType, final ParentContainerResolver parentContainerResolver)
+            throws SDataInstanceNotFoundException, SDataInstanceReadException {
         final String queryName = "getDataInstancesWithNames";
-        final Map<String, Object> inputParameters = new HashMap<String, Object>();
-        inputParameters.put("dataNames", dataNames);
-        return getSDatainstanceOfContainers(containerId, containerType, parentContainerResolver, queryName,
-                inputParameters);
+        final DataInstanceTransactionCache transactionCache = getTransactionCache();
+        if (transactionCache == null) {
+            final Map<String, Object> inputParameters = new HashMap<String, Object>();
+            inputParameters.put("dataNames", dataNames);
+            return getSDatainstanceOfContainers(containerId, containerType, parentContainerResolver, queryName,
+                    inputParameters);
+        }
+        final DataContainer container = new DataContainer(containerId, containerType);
+        final Set<String> names = new LinkedHashSet<>(dataNames);
+        final List<String> namesToLoad = new ArrayList<>();
+        for (final String name : names) {
+            if (transactionCache.containsDataInstance(container, name)) {
+                dataCacheHits.increment();
+            } else {
+                dataCacheMisses.increment();
+                namesToLoad.add(name);
+            }
+        }
+        if (!namesToLoad.isEmpty()) {
+            final Map<String, Object> inputParameters = new HashMap<String, Object>();
+            inputParameters.put("dataNames", namesToLoad);
+            for (final String name : namesToLoad) {
+                // remember names not found as well
+                transactionCache.putDataInstance(container, name, null);
+            }
+            for (final SDataInstance dataInstance : getSDatainstanceOfContainers(containerId, containerType,
+                    parentContainerResolver, queryName, inputParameters)) {
+                transactionCache.putDataInstance(container, dataInstance.getName(), dataInstance);
+            }
+        }
+        final List<SDataInstance> dataInstances = new ArrayList<>(names.size());
+        for (final String name : names) {
+            final SDataInstance dataInstance = transactionCache.getDataInstance(container, name);
+            if (dataInstance != null) {
+                dataInstances.add(dataInstance);
+            }
+        }
+        if (dataInstances.size() > 1) {
+            //keep the same order as when retrieved from the database: by container level
+            //the hierarchy is in the cache since data of this container were resolved in this transaction
+            dataInstances.sort(new DataInContainersComparator(transactionCache.getContainerHierarchy(container)));
+        }
+        return dataInstances;
+    }
+
+    private List<DataContainer> getContainerHierarchy(final DataContainer container,
+            final ParentContainerResolver parentContainerResolver,
+            final DataInstanceTransactionCache transactionCache) throws SDataInstanceNotFoundException {
+        List<DataContainer> containerHierarchy = transactionCache != null
+                ? transactionCache.getContainerHierarchy(container)
+                : null;
+        if (containerHierarchy != null) {
+            hierarchyCacheHits.increment();
+            return containerHierarchy;
+        }
+        try {
+            containerHierarchy = parentContainerResolver.getContainerHierarchy(container);
+        } catch (SObjectNotFoundException | SObjectReadException e) {
+            throw new SDataInstanceNotFoundException(e);
+        }
+        if (transactionCache != null) {
+            hierarchyCacheMisses.increment();
+            transactionCache.putContainerHierarchy(container, containerHierarchy);
+        }
+        return containerHierarchy;
     }
 
     @Override
@@ -516,6 +640,7 @@ public class DataInstanceServiceImpl implements DataInstanceService {
 
     @Override
     public void createDataInstance(final SDataInstance dataInstance) throws SDataInstanceException {
+        invalidateDataInstancesInTransactionCache();
         try {
             recorder.recordInsert(new InsertRecord(dataInstance), DATA_INSTANCE);
         } catch (final SRecorderException e) {
@@ -528,6 +653,7 @@ public class DataInstanceServiceImpl implements DataInstanceService {
     public void updateDataInstance(final SDataInstance dataInstance, final EntityUpdateDescriptor descriptor)
             throws SDataInstanceException {
         NullCheckingUtil.checkArgsNotNull(dataInstance);
+        invalidateDataInstancesInTransactionCache();
         try {
             recorder.recordUpdate(UpdateRecord.buildSetFields(dataInstance, descriptor), DATA_INSTANCE);
         } catch (final SRecorderException e) {
@@ -540,6 +666,7 @@ public class DataInstanceServiceImpl implements DataInstanceService {
     @Override
     public void deleteDataInstance(final SDataInstance dataInstance) throws SDataInstanceException {
         NullCheckingUtil.checkArgsNotNull(dataInstance);
+        invalidateDataInstancesInTransactionCache();
         try {
             recorder.recordDelete(new DeleteRecord(dataInstance), DATA_INSTANCE);
         } catch (final SRecorderException e) {
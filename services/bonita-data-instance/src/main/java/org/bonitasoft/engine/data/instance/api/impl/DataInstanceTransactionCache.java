@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.data.instance.api.impl;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bonitasoft.engine.data.instance.api.DataContainer;
+import org.bonitasoft.engine.data.instance.model.SDataInstance;
+import org.bonitasoft.engine.transaction.BonitaTransactionSynchronization;
+import org.bonitasoft.engine.transaction.TransactionState;
+
+/**
+ * Container hierarchies and data instances resolved by name during the current transaction.
+ * <p>
+ * Data instances are stored per container they were resolved from (i.e. the data visible from this container), a
+ * null value means that no data having this name is visible from the container.
+ * Container hierarchies do not change during a transaction, data instances are cleared each time a data instance is
+ * created, updated or deleted.
+ */
+class DataInstanceTransactionCache implements BonitaTransactionSynchronization {
+
+    private final DataInstanceServiceImpl dataInstanceService;
+    private final Map<DataContainer, List<DataContainer>> containerHierarchies = new HashMap<>();
+    private final Map<DataContainer, Map<String, SDataInstance>> dataInstances = new HashMap<>();
+
+    DataInstanceTransactionCache(DataInstanceServiceImpl dataInstanceService) {
+        this.dataInstanceService = dataInstanceService;
+    }
+
+    @Override
+    public void afterCompletion(TransactionState transactionState) {
+        dataInstanceService.clearTransactionCache();
+    }
+
+    List<DataContainer> getContainerHierarchy(DataContainer container) {
+        return containerHierarchies.get(container);
+    }
+
+    void putContainerHierarchy(DataContainer container, List<DataContainer> containerHierarchy) {
+        containerHierarchies.put(container, containerHierarchy);
+    }
+
+    boolean containsDataInstance(DataContainer container, String dataName) {
+        final Map<String, SDataInstance> dataOfContainer = dataInstances.get(container);
+        return dataOfContainer != null && dataOfContainer.containsKey(dataName);
+    }
+
+    SDataInstance getDataInstance(DataContainer container, String dataName) {
+        final Map<String, SDataInstance> dataOfContainer = dataInstances.get(container);
+        return dataOfContainer != null ? dataOfContainer.get(dataName) : null;
+    }
+
+    void putDataInstance(DataContainer container, String dataName, SDataInstance dataInstance) {
+        dataInstances.computeIfAbsent(container, k -> new HashMap<>()).put(dataName, dataInstance);
+    }
+
+    void clearDataInstances() {
+        dataInstances.clear();
+    }
+
+}
@@ -19,12 +19,17 @@ import javax.persistence.Column;
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
 
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import lombok.experimental.SuperBuilder;
 import org.bonitasoft.engine.data.definition.model.SDataDefinition;
-import org.bonitasoft.engine.data.instance.model.impl.XStreamFactory;
+import org.bonitasoft.engine.data.instance.model.impl.DeserializedObjectData;
+import org.bonitasoft.engine.data.instance.model.impl.ObjectDataSerializers;
 import org.hibernate.annotations.Type;
 
 /**
@@ -43,29 +48,30 @@ public final class SXMLObjectDataInstance extends SDataInstance {
     @Type(type = "materialized_clob")
     private String value;
 
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient DeserializedObjectData deserializedValue;
+
     public SXMLObjectDataInstance(final SDataDefinition dataDefinition) {
         super(dataDefinition);
     }
 
     @Override
     public Serializable getValue() {
-        return revert(value);
+        return DeserializedObjectData.read(deserializedValue, value, deserialized -> deserializedValue = deserialized);
     }
 
     @Override
     public void setValue(final Serializable value) {
-        this.value = convert(value);
-    }
-
-    private String convert(final Serializable value) {
-        return XStreamFactory.getXStream().toXML(value);
+        this.value = ObjectDataSerializers.serialize(value);
     }
 
-    private Serializable revert(final String value) {
-        if (value != null) {
-            return (Serializable) XStreamFactory.getXStream().fromXML(value);
-        }
-        return null;
+    /**
+     * @return the value as stored in the database
+     */
+    public String getSerializedValue() {
+        return value;
     }
 
 }
@@ -19,12 +19,18 @@ import javax.persistence.Column;
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
 
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import lombok.experimental.SuperBuilder;
 import org.bonitasoft.engine.data.instance.model.SDataInstance;
-import org.bonitasoft.engine.data.instance.model.impl.XStreamFactory;
+import org.bonitasoft.engine.data.instance.model.SXMLObjectDataInstance;
+import org.bonitasoft.engine.data.instance.model.impl.DeserializedObjectData;
+import org.bonitasoft.engine.data.instance.model.impl.ObjectDataSerializers;
 import org.hibernate.annotations.Type;
 
 @Data
@@ -39,22 +45,29 @@ public final class SAXMLObjectDataInstance extends SADataInstance {
     @Type(type = "materialized_clob")
     private String value;
 
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient DeserializedObjectData deserializedValue;
+
     public SAXMLObjectDataInstance(final SDataInstance sDataInstance) {
         super(sDataInstance);
-        setValue(sDataInstance.getValue());
+        if (sDataInstance instanceof SXMLObjectDataInstance) {
+            // same content, no need to deserialize it
+            value = ((SXMLObjectDataInstance) sDataInstance).getSerializedValue();
+        } else {
+            setValue(sDataInstance.getValue());
+        }
     }
 
     @Override
     public Serializable getValue() {
-        if (value != null) {
-            return (Serializable) XStreamFactory.getXStream().fromXML(value);
-        }
-        return null;
+        return DeserializedObjectData.read(deserializedValue, value, deserialized -> deserializedValue = deserialized);
     }
 
     @Override
     public void setValue(final Serializable value) {
-        this.value = XStreamFactory.getXStream().toXML(value);
+        this.value = ObjectDataSerializers.serialize(value);
     }
 
 }
@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.data.instance.model.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact format: the value is written with Java serialization, deflated, then encoded in base 64 to fit in the
+ * character column.
+ * <p>
+ * Values referencing objects that are not {@link Serializable} cannot be written in this format.
+ * <p>
+ * This format is only used when explicitly chosen with {@link ObjectDataSerializers#FORMAT_PROPERTY}: content is read
+ * without any filter on the deserialized classes, and values whose classes were redeployed without a stable
+ * <code>serialVersionUID</code> can no longer be read.
+ */
+public class BinaryObjectDataSerializer implements ObjectDataSerializer {
+
+    public static final String FORMAT = "binary";
+
+    @Override
+    public String getFormat() {
+        return FORMAT;
+    }
+
+    @Override
+    public String serialize(final Serializable value) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            try (ObjectOutputStream out = new ObjectOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+                out.writeObject(value);
+            }
+        } catch (final IOException e) {
+            throw new ObjectDataSerializationException(
+                    "Unable to serialize value of type " + value.getClass().getName(), e);
+        } finally {
+            deflater.end();
+        }
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    @Override
+    public Serializable deserialize(final String content) {
+        final byte[] bytes = Base64.getDecoder().decode(content);
+        try (ObjectInputStream in = new ContextClassLoaderObjectInputStream(
+                new InflaterInputStream(new ByteArrayInputStream(bytes)))) {
+            return (Serializable) in.readObject();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (final ClassNotFoundException e) {
+            throw new IllegalStateException("Unable to load class of the value: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Loads classes using the context class loader, i.e. the class loader of the process the data belongs to.
+     */
+    private static final class ContextClassLoaderObjectInputStream extends ObjectInputStream {
+
+        ContextClassLoaderObjectInputStream(final InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(final ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            if (classLoader != null) {
+                try {
+                    return Class.forName(desc.getName(), false, classLoader);
+                } catch (final ClassNotFoundException e) {
+                    // primitive types and classes not visible from the context class loader
+                }
+            }
+            return super.resolveClass(desc);
+        }
+    }
+
+}
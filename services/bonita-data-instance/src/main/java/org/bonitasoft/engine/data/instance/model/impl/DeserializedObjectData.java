@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.data.instance.model.impl;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Value of an object data instance deserialized from its content, so that reading the value several times from the
+ * same entity deserializes it only once.
+ * <p>
+ * Only immutable values are kept: mutable values (lists, maps, beans...) are deserialized on each read, so that a
+ * caller changing the returned value never changes the value of the entity without setting it.
+ */
+public final class DeserializedObjectData {
+
+    private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<>(Arrays.asList(String.class, Boolean.class,
+            Character.class, Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class,
+            BigInteger.class, BigDecimal.class, UUID.class, Instant.class, LocalDate.class, LocalDateTime.class,
+            OffsetDateTime.class, ZonedDateTime.class));
+
+    private final String content;
+    private final Serializable value;
+
+    private DeserializedObjectData(final String content, final Serializable value) {
+        this.content = content;
+        this.value = value;
+    }
+
+    /**
+     * Read the value of the given content, using the cached value when it was deserialized from this content.
+     *
+     * @param cached the value previously cached by the entity, may be null
+     * @param content the content of the entity
+     * @param cache called with the value to cache when the deserialized value is immutable
+     * @return the value of the content
+     */
+    public static Serializable read(final DeserializedObjectData cached, final String content,
+            final Consumer<DeserializedObjectData> cache) {
+        if (cached != null && cached.isDeserializedFrom(content)) {
+            return cached.value;
+        }
+        final Serializable value = ObjectDataSerializers.deserialize(content);
+        if (value == null || isImmutable(value)) {
+            cache.accept(new DeserializedObjectData(content, value));
+        }
+        return value;
+    }
+
+    static boolean isImmutable(final Serializable value) {
+        return IMMUTABLE_TYPES.contains(value.getClass()) || value instanceof Enum;
+    }
+
+    /**
+     * @return true if this value was deserialized from the given content instance, content is compared by identity
+     *         because it is replaced each time the entity is loaded or its value is set
+     */
+    boolean isDeserializedFrom(final String content) {
+        return this.content == content;
+    }
+
+}
@@ -0,0 +1,45 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.data.instance.model.impl;
+
+import java.io.Serializable;
+
+/**
+ * Converts the value of object data instances to the content of their column.
+ * <p>
+ * Implementations are looked up with {@link java.util.ServiceLoader} by {@link ObjectDataSerializers} and are
+ * identified by their format, which is written as a marker in front of the content so that values written with any
+ * format can be read back whatever the format currently used to write new values.
+ */
+public interface ObjectDataSerializer {
+
+    /**
+     * @return the identifier of the format written by this serializer, made of letters and digits only
+     */
+    String getFormat();
+
+    /**
+     * @param value the value to serialize, never null
+     * @return the content representing the value
+     * @throws ObjectDataSerializationException if the value cannot be written in this format
+     */
+    String serialize(Serializable value) throws ObjectDataSerializationException;
+
+    /**
+     * @param content content written by {@link #serialize(Serializable)}, without the format marker
+     * @return the value, using the context class loader to load its classes
+     */
+    Serializable deserialize(String content);
+
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.data.instance.model.impl;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serializes values of object data instances using the format given by the system property
+ * {@value #FORMAT_PROPERTY}, {@value XStreamObjectDataSerializer#FORMAT} by default.
+ * <p>
+ * The {@value BinaryObjectDataSerializer#FORMAT} format is opt-in: it is more compact but, unlike XStream, it cannot
+ * read values whose classes changed without keeping their <code>serialVersionUID</code> (e.g. a redeployed business
+ * data model), and it must only be used when the content of the database is trusted.
+ * <p>
+ * Content is prefixed with <code>@format:</code> except when written with XStream, so that content written by
+ * previous versions, which always starts with <code>&lt;</code>, is still read with XStream.
+ * Values that cannot be written in the configured format are written with XStream.
+ * <p>
+ * Other formats can be added by declaring an {@link ObjectDataSerializer} in
+ * <code>META-INF/services/org.bonitasoft.engine.data.instance.model.impl.ObjectDataSerializer</code>.
+ */
+public final class ObjectDataSerializers {
+
+    public static final String FORMAT_PROPERTY = "org.bonitasoft.engine.data.object.format";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ObjectDataSerializers.class);
+    private static final char MARKER_START = '@';
+    private static final char MARKER_END = ':';
+
+    private static final ObjectDataSerializer XSTREAM = new XStreamObjectDataSerializer();
+    private static final Map<String, ObjectDataSerializer> SERIALIZERS = new ConcurrentHashMap<>();
+    private static volatile ObjectDataSerializer writer;
+
+    static {
+        register(XSTREAM);
+        register(new BinaryObjectDataSerializer());
+        for (final ObjectDataSerializer serializer : ServiceLoader.load(ObjectDataSerializer.class,
+                ObjectDataSerializers.class.getClassLoader())) {
+            register(serializer);
+        }
+        useFormat(System.getProperty(FORMAT_PROPERTY, XStreamObjectDataSerializer.FORMAT));
+    }
+
+    private ObjectDataSerializers() {
+    }
+
+    public static void register(final ObjectDataSerializer serializer) {
+        SERIALIZERS.put(serializer.getFormat(), serializer);
+    }
+
+    /**
+     * Set the format used to write values from now on, values already written keep their format.
+     */
+    public static void useFormat(final String format) {
+        final ObjectDataSerializer serializer = SERIALIZERS.get(format);
+        if (serializer == null) {
+            LOGGER.warn("Unknown format '{}' for object data, using {} instead. Known formats are {}", format,
+                    XStreamObjectDataSerializer.FORMAT, SERIALIZERS.keySet());
+            writer = XSTREAM;
+        } else {
+            writer = serializer;
+        }
+    }
+
+    public static String serialize(final Serializable value) {
+        if (value == null) {
+            return null;
+        }
+        final ObjectDataSerializer serializer = writer;
+        if (serializer != XSTREAM) {
+            try {
+                return MARKER_START + serializer.getFormat() + MARKER_END + serializer.serialize(value);
+            } catch (final ObjectDataSerializationException e) {
+                LOGGER.debug("Value of type {} cannot be written in format {}, writing it with XStream: {}",
+                        value.getClass().getName(), serializer.getFormat(), e.getMessage());
+            }
+        }
+        return XSTREAM.serialize(value);
+    }
+
+    public static Serializable deserialize(final String content) {
+        if (content == null) {
+            return null;
+        }
+        if (content.isEmpty() || content.charAt(0) != MARKER_START) {
+            return XSTREAM.deserialize(content);
+        }
+        final int markerEnd = content.indexOf(MARKER_END);
+        final String format = content.substring(1, markerEnd);
+        final ObjectDataSerializer serializer = SERIALIZERS.get(format);
+        if (serializer == null) {
+            throw new IllegalStateException("No serializer registered for format '" + format + "' of object data");
+        }
+        return serializer.deserialize(content.substring(markerEnd + 1));
+    }
+
+    /**
+     * @return the format of the given content, i.e. {@value XStreamObjectDataSerializer#FORMAT} when there is no marker
+     */
+    public static String getFormat(final String content) {
+        if (content == null || content.isEmpty() || content.charAt(0) != MARKER_START) {
+            return XStreamObjectDataSerializer.FORMAT;
+        }
+        return content.substring(1, content.indexOf(MARKER_END));
+    }
+
+}
@@ -22,6 +22,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.bonitasoft.engine.archive.ArchiveInsertRecord;
 import org.bonitasoft.engine.archive.ArchiveService;
 import org.bonitasoft.engine.commons.exceptions.SBonitaException;
@@ -40,13 +41,15 @@ import org.bonitasoft.engine.persistence.SBonitaReadException;
 import org.bonitasoft.engine.persistence.SelectListDescriptor;
 import org.bonitasoft.engine.recorder.Recorder;
 import org.bonitasoft.engine.recorder.model.EntityUpdateDescriptor;
+import org.bonitasoft.engine.transaction.TransactionState;
+import org.bonitasoft.engine.transaction.UserTransactionService;
 import org.junit.Assert;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Captor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
@@ -62,12 +65,21 @@ public class DataInstanceServiceImplTest {
     @Mock
     private TechnicalLoggerService logger;
     @Mock
+    private UserTransactionService transactionService;
+    @Mock
     private ParentContainerResolver parentContainerResolver;
     @Captor
     private ArgumentCaptor<ArchiveInsertRecord> archiveInsertRecordArgumentCaptor;
-    @InjectMocks
+    private SimpleMeterRegistry meterRegistry;
     private DataInstanceServiceImpl dataInstanceServiceImpl;
 
+    @Before
+    public void before() {
+        meterRegistry = new SimpleMeterRegistry();
+        dataInstanceServiceImpl = new DataInstanceServiceImpl(recorder, persistenceService, archiveService, logger,
+                transactionService, meterRegistry, 1L);
+    }
+
     @Test(expected = SDataInstanceReadException.class)
     public final void should_throw_read_exception_when_persistence_service_has_read_exception()
             throws SBonitaException {
@@ -205,6 +217,7 @@ public class DataInstanceServiceImplTest {
     private SLongTextDataInstance createDataInstance(long id, long containerId, String containerType, String value) {
         SLongTextDataInstance dataInstance = new SLongTextDataInstance();
         dataInstance.setId(id);
+        dataInstance.setName("testData");
         dataInstance.setContainerId(containerId);
         dataInstance.setContainerType(containerType);
         dataInstance.setValue(value);
@@ -228,4 +241,81 @@ public class DataInstanceServiceImplTest {
         //then
         assertThat(dataInstance.getValue()).isEqualTo("SUBTASK_VALUE");
     }
+
+    private void withTransactionCacheOnSubTask(SDataInstance... dataInstances) throws Exception {
+        doReturn(true).when(transactionService).isTransactionActive();
+        doReturn(Arrays.asList(dataInstances)).when(persistenceService).selectList(any(SelectListDescriptor.class));
+        doReturn(Arrays.asList(new DataContainer(68L, "SUBTASK"), new DataContainer(67L, "TASK"),
+                new DataContainer(66L, "PROC"))).when(parentContainerResolver)
+                        .getContainerHierarchy(new DataContainer(68L, "SUBTASK"));
+    }
+
+    private double count(String name, String type) {
+        return meterRegistry.find(name).tag("type", type).counter().count();
+    }
+
+    @Test
+    public void should_resolve_data_only_once_in_a_transaction() throws Exception {
+        //given
+        withTransactionCacheOnSubTask(createDataInstance(2, 67L, "TASK", "TASK_VALUE"));
+        //when
+        SDataInstance first = dataInstanceServiceImpl.getDataInstance("testData", 68L, "SUBTASK",
+                parentContainerResolver);
+        SDataInstance second = dataInstanceServiceImpl.getDataInstance("testData", 68L, "SUBTASK",
+                parentContainerResolver);
+        //then
+        assertThat(second).isSameAs(first);
+        assertThat(second.getValue()).isEqualTo("TASK_VALUE");
+        verify(persistenceService, times(1)).selectList(any(SelectListDescriptor.class));
+        verify(parentContainerResolver, times(1)).getContainerHierarchy(new DataContainer(68L, "SUBTASK"));
+        verify(transactionService, times(1)).registerBonitaSynchronization(any(DataInstanceTransactionCache.class));
+        assertThat(count(DataInstanceServiceImpl.CACHE_MISSES, "data")).isEqualTo(1);
+        assertThat(count(DataInstanceServiceImpl.CACHE_HITS, "data")).isEqualTo(1);
+        assertThat(count(DataInstanceServiceImpl.CACHE_MISSES, "hierarchy")).isEqualTo(1);
+    }
+
+    @Test
+    public void should_remember_data_not_found_in_a_transaction() throws Exception {
+        //given
+        withTransactionCacheOnSubTask();
+        //when
+        List<SDataInstance> first = dataInstanceServiceImpl.getDataInstances(Collections.singletonList("testData"),
+                68L, "SUBTASK", parentContainerResolver);
+        List<SDataInstance> second = dataInstanceServiceImpl.getDataInstances(Collections.singletonList("testData"),
+                68L, "SUBTASK", parentContainerResolver);
+        //then
+        assertThat(first).isEmpty();
+        assertThat(second).isEmpty();
+        verify(persistenceService, times(1)).selectList(any(SelectListDescriptor.class));
+    }
+
+    @Test
+    public void should_resolve_data_again_after_an_update_in_the_transaction() throws Exception {
+        //given
+        SLongTextDataInstance dataInstance = createDataInstance(2, 67L, "TASK", "TASK_VALUE");
+        withTransactionCacheOnSubTask(dataInstance);
+        dataInstanceServiceImpl.getDataInstance("testData", 68L, "SUBTASK", parentContainerResolver);
+        //when
+        dataInstanceServiceImpl.updateDataInstance(dataInstance, new EntityUpdateDescriptor());
+        dataInstanceServiceImpl.getDataInstance("testData", 68L, "SUBTASK", parentContainerResolver);
+        //then
+        verify(persistenceService, times(2)).selectList(any(SelectListDescriptor.class));
+        verify(parentContainerResolver, times(1)).getContainerHierarchy(new DataContainer(68L, "SUBTASK"));
+    }
+
+    @Test
+    public void should_resolve_data_again_in_a_new_transaction() throws Exception {
+        //given
+        ArgumentCaptor<DataInstanceTransactionCache> transactionCache = ArgumentCaptor
+                .forClass(DataInstanceTransactionCache.class);
+        withTransactionCacheOnSubTask(createDataInstance(2, 67L, "TASK", "TASK_VALUE"));
+        dataInstanceServiceImpl.getDataInstance("testData", 68L, "SUBTASK", parentContainerResolver);
+        verify(transactionService).registerBonitaSynchronization(transactionCache.capture());
+        //when
+        transactionCache.getValue().afterCompletion(TransactionState.COMMITTED);
+        dataInstanceServiceImpl.getDataInstance("testData", 68L, "SUBTASK", parentContainerResolver);
+        //then
+        verify(persistenceService, times(2)).selectList(any(SelectListDescriptor.class));
+        verify(parentContainerResolver, times(2)).getContainerHierarchy(new DataContainer(68L, "SUBTASK"));
+    }
 }
@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.data.instance.model.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ObjectDataSerializersTest {
+
+    @After
+    public void after() {
+        ObjectDataSerializers.useFormat(XStreamObjectDataSerializer.FORMAT);
+    }
+
+    private static ArrayList<Map<String, Object>> bigValue() {
+        final ArrayList<Map<String, Object>> value = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            final Map<String, Object> item = new HashMap<>();
+            item.put("name", "item" + i);
+            item.put("index", i);
+            value.add(item);
+        }
+        return value;
+    }
+
+    @Test
+    public void should_write_values_with_xstream_by_default() {
+        final String content = ObjectDataSerializers.serialize("value");
+
+        assertThat(content).isEqualTo(XStreamFactory.getXStream().toXML("value"));
+        assertThat(ObjectDataSerializers.getFormat(content)).isEqualTo(XStreamObjectDataSerializer.FORMAT);
+    }
+
+    @Test
+    public void should_write_values_in_binary_format_with_a_marker() {
+        ObjectDataSerializers.useFormat(BinaryObjectDataSerializer.FORMAT);
+        final ArrayList<Map<String, Object>> value = bigValue();
+
+        final String content = ObjectDataSerializers.serialize(value);
+
+        assertThat(content).startsWith("@binary:");
+        assertThat(ObjectDataSerializers.getFormat(content)).isEqualTo(BinaryObjectDataSerializer.FORMAT);
+        assertThat(ObjectDataSerializers.deserialize(content)).isEqualTo(value);
+    }
+
+    @Test
+    public void binary_format_should_be_smaller_than_xml() {
+        ObjectDataSerializers.useFormat(BinaryObjectDataSerializer.FORMAT);
+        final ArrayList<Map<String, Object>> value = bigValue();
+
+        final String binary = ObjectDataSerializers.serialize(value);
+        final String xml = XStreamFactory.getXStream().toXML(value);
+
+        assertThat(binary.length()).isLessThan(xml.length() / 2);
+    }
+
+    @Test
+    public void should_read_content_written_by_previous_versions_with_xstream() {
+        final String content = XStreamFactory.getXStream().toXML(bigValue());
+
+        assertThat(ObjectDataSerializers.getFormat(content)).isEqualTo(XStreamObjectDataSerializer.FORMAT);
+        assertThat(ObjectDataSerializers.deserialize(content)).isEqualTo(bigValue());
+    }
+
+    @Test
+    public void should_write_values_without_marker_when_using_xstream() {
+        ObjectDataSerializers.useFormat(XStreamObjectDataSerializer.FORMAT);
+
+        final String content = ObjectDataSerializers.serialize("value");
+
+        assertThat(content).isEqualTo(XStreamFactory.getXStream().toXML("value"));
+        assertThat(ObjectDataSerializers.deserialize(content)).isEqualTo("value");
+    }
+
+    @Test
+    public void should_write_values_not_java_serializable_with_xstream() {
+        ObjectDataSerializers.useFormat(BinaryObjectDataSerializer.FORMAT);
+        final PartiallySerializable value = new PartiallySerializable(new NotSerializable("name"));
+
+        final String content = ObjectDataSerializers.serialize(value);
+
+        assertThat(ObjectDataSerializers.getFormat(content)).isEqualTo(XStreamObjectDataSerializer.FORMAT);
+        assertThat(((PartiallySerializable) ObjectDataSerializers.deserialize(content)).notSerializable.name)
+                .isEqualTo("name");
+    }
+
+    @Test
+    public void should_keep_null_values() {
+        assertThat(ObjectDataSerializers.serialize(null)).isNull();
+        assertThat(ObjectDataSerializers.deserialize(null)).isNull();
+    }
+
+    @Test
+    public void should_fall_back_to_xstream_when_format_is_unknown() {
+        ObjectDataSerializers.useFormat("unknown");
+
+        assertThat(ObjectDataSerializers.serialize("value")).isEqualTo(XStreamFactory.getXStream().toXML("value"));
+    }
+
+    @Test
+    public void should_use_registered_serializers() {
+        ObjectDataSerializers.register(new ObjectDataSerializer() {
+
+            @Override
+            public String getFormat() {
+                return "upper";
+            }
+
+            @Override
+            public String serialize(Serializable value) {
+                return value.toString().toUpperCase();
+            }
+
+            @Override
+            public Serializable deserialize(String content) {
+                return content.toLowerCase();
+            }
+        });
+        ObjectDataSerializers.useFormat("upper");
+
+        final String content = ObjectDataSerializers.serialize("value");
+
+        assertThat(content).isEqualTo("@upper:VALUE");
+        ObjectDataSerializers.useFormat(XStreamObjectDataSerializer.FORMAT);
+        assertThat(ObjectDataSerializers.deserialize(content)).isEqualTo("value");
+    }
+
+    public static class PartiallySerializable implements Serializable {
+
+        private final NotSerializable notSerializable;
+
+        PartiallySerializable(NotSerializable notSerializable) {
+            this.notSerializable = notSerializable;
+        }
+    }
+
+    public static class NotSerializable {
+
+        private final String name;
+
+        NotSerializable(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -16,6 +16,8 @@ package org.bonitasoft.engine.data.instance.model.impl;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 
 import org.bonitasoft.engine.data.definition.model.SDataDefinition;
 import org.bonitasoft.engine.data.instance.model.SXMLObjectDataInstance;
@@ -56,4 +58,73 @@ public class SXMLObjectDataInstanceTest {
         //then
         assertThat(returnedValue).as("should be null").isNull();
     }
+
+    @Test
+    public void should_deserialize_immutable_value_only_once() {
+        //given
+        final SXMLObjectDataInstance sxmlObjectDataInstance = new SXMLObjectDataInstance(dataDefinition);
+        sxmlObjectDataInstance.setValue(new String("value"));
+
+        //when
+        final Serializable first = sxmlObjectDataInstance.getValue();
+        final Serializable second = sxmlObjectDataInstance.getValue();
+
+        //then
+        assertThat(second).isSameAs(first).isEqualTo("value");
+    }
+
+    @Test
+    public void should_return_a_new_instance_of_mutable_value_each_time() {
+        //given
+        final SXMLObjectDataInstance sxmlObjectDataInstance = new SXMLObjectDataInstance(dataDefinition);
+        sxmlObjectDataInstance.setValue(new ArrayList<>(Arrays.asList("a", "b")));
+
+        //when
+        final Serializable first = sxmlObjectDataInstance.getValue();
+        final Serializable second = sxmlObjectDataInstance.getValue();
+
+        //then
+        assertThat(second).isNotSameAs(first).isEqualTo(first).isEqualTo(Arrays.asList("a", "b"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_not_change_value_when_returned_value_is_modified() {
+        //given
+        final SXMLObjectDataInstance sxmlObjectDataInstance = new SXMLObjectDataInstance(dataDefinition);
+        sxmlObjectDataInstance.setValue(new ArrayList<>(Arrays.asList("a", "b")));
+
+        //when
+        ((ArrayList<String>) sxmlObjectDataInstance.getValue()).add("c");
+
+        //then
+        assertThat(sxmlObjectDataInstance.getValue()).isEqualTo(Arrays.asList("a", "b"));
+    }
+
+    @Test
+    public void should_deserialize_value_again_when_it_changed() {
+        //given
+        final SXMLObjectDataInstance sxmlObjectDataInstance = new SXMLObjectDataInstance(dataDefinition);
+        sxmlObjectDataInstance.setValue(new ArrayList<>(Arrays.asList("a", "b")));
+        sxmlObjectDataInstance.getValue();
+
+        //when
+        sxmlObjectDataInstance.setValue(new ArrayList<>(Arrays.asList("c")));
+
+        //then
+        assertThat(sxmlObjectDataInstance.getValue()).isEqualTo(Arrays.asList("c"));
+    }
+
+    @Test
+    public void should_read_value_written_with_xstream() {
+        //given
+        final SXMLObjectDataInstance sxmlObjectDataInstance = SXMLObjectDataInstance.builder()
+                .value("<list><string>a</string></list>").build();
+
+        //when
+        final Serializable value = sxmlObjectDataInstance.getValue();
+
+        //then
+        assertThat(value).isEqualTo(Arrays.asList("a"));
+    }
 }
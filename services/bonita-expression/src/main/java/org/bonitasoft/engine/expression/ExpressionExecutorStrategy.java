@@ -172,4 +172,18 @@ public interface ExpressionExecutorStrategy {
      */
     boolean mustPutEvaluatedExpressionInContext();
 
+    /**
+     * Prepare the expression of the given definition so that its first evaluation is as fast as the next ones, e.g.
+     * compile scripts. Does nothing by default.
+     *
+     * @param expression
+     *        the expression to prepare
+     * @param definitionId
+     *        the id of the definition that contains the expression
+     * @throws SExpressionEvaluationException
+     *         if the expression can not be prepared
+     */
+    default void precompile(SExpression expression, long definitionId) throws SExpressionEvaluationException {
+    }
+
 }
@@ -13,6 +13,7 @@
  **/
 package org.bonitasoft.engine.expression;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -102,4 +103,17 @@ public interface ExpressionService {
     boolean mustPutEvaluatedExpressionInContext(ExpressionKind expressionKind);
 
     void setExpressionExecutorStrategy(List<ExpressionExecutorStrategy> expressionStrategies);
+
+    /**
+     * Prepare the expressions of a definition, and their dependencies, so that their first evaluation does not pay the
+     * cost of e.g. compiling scripts. Expressions that can not be prepared are logged and ignored, they will fail when
+     * evaluated.
+     *
+     * @param expressions
+     *        the expressions to prepare
+     * @param definitionId
+     *        the id of the definition that contains the expressions
+     * @return the number of expressions prepared
+     */
+    int precompile(Collection<SExpression> expressions, long definitionId);
 }
@@ -13,6 +13,9 @@
  **/
 package org.bonitasoft.engine.expression.impl;
 
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -190,4 +193,30 @@ public class ExpressionServiceImpl implements ExpressionService {
         return expressionExecutorsMap.get(expressionKind).mustPutEvaluatedExpressionInContext();
     }
 
+    @Override
+    public int precompile(final Collection<SExpression> expressions, final long definitionId) {
+        int precompiled = 0;
+        final Deque<SExpression> toPrecompile = new ArrayDeque<>(expressions);
+        while (!toPrecompile.isEmpty()) {
+            final SExpression expression = toPrecompile.pop();
+            toPrecompile.addAll(expression.getDependencies());
+            final ExpressionExecutorStrategy expressionExecutorStrategy = expressionExecutorsMap
+                    .get(expression.getExpressionKind());
+            if (expressionExecutorStrategy == null) {
+                continue;
+            }
+            try {
+                expressionExecutorStrategy.precompile(expression, definitionId);
+                precompiled++;
+            } catch (final SExpressionEvaluationException e) {
+                logger.log(this.getClass(), TechnicalLogSeverity.WARNING, "Unable to precompile expression "
+                        + expression.getName() + " of definition " + definitionId + ": " + e.getMessage());
+                if (logger.isLoggable(this.getClass(), TechnicalLogSeverity.DEBUG)) {
+                    logger.log(this.getClass(), TechnicalLogSeverity.DEBUG, e);
+                }
+            }
+        }
+        return precompiled;
+    }
+
 }
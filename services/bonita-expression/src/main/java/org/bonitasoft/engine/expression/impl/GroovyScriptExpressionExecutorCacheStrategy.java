@@ -13,7 +13,10 @@
  **/
 package org.bonitasoft.engine.expression.impl;
 
+import java.nio.charset.StandardCharsets;
 import java.security.AccessController;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.PrivilegedAction;
 import java.util.Map;
 
@@ -37,6 +40,11 @@ import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
 import org.codehaus.groovy.runtime.InvokerHelper;
 
 /**
+ * Evaluates groovy scripts, keeping the compiled class of each script in the cache.
+ * <p>
+ * Compiled classes are cached by definition id and SHA-256 digest of the script content: the class is loaded by the
+ * shell of the definition, and two different scripts can not share the same key.
+ *
  * @author Zhao na
  * @author Baptiste Mesta
  * @author Matthieu Chaffotte
@@ -76,26 +84,52 @@ public class GroovyScriptExpressionExecutorCacheStrategy extends AbstractGroovyS
         if (definitionId == null) {
             throw new SBonitaRuntimeException("Unable to evaluate expression without a definitionId");
         }
-        final GroovyShell shell = getShell(definitionId);
-        final String key = getScriptKey(expressionContent);
-
-        GroovyCodeSource gcs = (GroovyCodeSource) cacheService.get(GROOVY_SCRIPT_CACHE_NAME, key);
-
-        if (gcs == null) {
-            gcs = AccessController.doPrivileged(new PrivilegedAction<GroovyCodeSource>() {
+        final String key = getScriptKey(expressionContent, definitionId);
+        Class scriptClass = (Class) cacheService.get(GROOVY_SCRIPT_CACHE_NAME, key);
+        if (scriptClass == null) {
+            final GroovyShell shell = getShell(definitionId);
+            final GroovyCodeSource gcs = AccessController.doPrivileged(new PrivilegedAction<GroovyCodeSource>() {
 
                 public GroovyCodeSource run() {
                     return new GroovyCodeSource(expressionContent, generateScriptName(), GroovyShell.DEFAULT_CODE_BASE);
                 }
             });
-            cacheService.store(GROOVY_SCRIPT_CACHE_NAME, key, gcs);
+            // parse the groovy source code with cache set to true
+            scriptClass = shell.getClassLoader().parseClass(gcs, true);
+            cacheService.store(GROOVY_SCRIPT_CACHE_NAME, key, scriptClass);
+        }
+        return scriptClass;
+    }
+
+    /**
+     * @return the key of the compiled class of the script in the cache
+     */
+    public static String getScriptKey(String expressionContent, long definitionId) {
+        return SCRIPT_KEY + definitionId + "_" + sha256(expressionContent);
+    }
+
+    private static String sha256(String content) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new SBonitaRuntimeException(e);
+        }
+        final byte[] hash = digest.digest(content.getBytes(StandardCharsets.UTF_8));
+        final StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
         }
-        // parse the groovy source code with cache set to true
-        return shell.getClassLoader().parseClass(gcs, true);
+        return hex.toString();
     }
 
-    private String getScriptKey(String expressionContent) {
-        return SCRIPT_KEY + expressionContent.hashCode();
+    @Override
+    public void precompile(SExpression expression, long definitionId) throws SExpressionEvaluationException {
+        try {
+            getScriptFromCache(expression.getContent(), definitionId);
+        } catch (final SCacheException | SClassLoaderException | GroovyRuntimeException e) {
+            throw new SExpressionEvaluationException(e, expression.getName());
+        }
     }
 
     GroovyShell getShell(final Long definitionId) throws SClassLoaderException, SCacheException {
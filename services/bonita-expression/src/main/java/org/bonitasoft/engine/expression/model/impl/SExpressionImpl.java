@@ -40,6 +40,12 @@ public class SExpressionImpl implements SExpression {
 
     private final ExpressionKind expressionKind = new ExpressionKind();
 
+    /**
+     * hash code is used as discriminant of the expression for each evaluation, it is computed once because it goes
+     * through all dependencies. 0 when not computed yet.
+     */
+    private transient int hash;
+
     public SExpressionImpl() {
         super();
     }
@@ -57,22 +63,27 @@ public class SExpressionImpl implements SExpression {
 
     public void setContent(final String content) {
         this.content = content;
+        hash = 0;
     }
 
     public void setExpressionType(final String expressionType) {
         expressionKind.setType(expressionType);
+        hash = 0;
     }
 
     public void setReturnType(final String returnType) {
         this.returnType = returnType;
+        hash = 0;
     }
 
     public void setInterpreter(final String interpreter) {
         expressionKind.setInterpreter(interpreter);
+        hash = 0;
     }
 
     public void setDependencies(final List<SExpression> dependencies) {
         this.dependencies = dependencies;
+        hash = 0;
     }
 
     @Override
@@ -82,6 +93,7 @@ public class SExpressionImpl implements SExpression {
 
     public void setName(final String name) {
         this.name = name;
+        hash = 0;
     }
 
     @Override
@@ -124,7 +136,12 @@ public class SExpressionImpl implements SExpression {
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, content, returnType, dependencies, expressionKind);
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hash(name, content, returnType, dependencies, expressionKind);
+            hash = h;
+        }
+        return h;
     }
 
     @Override
@@ -13,8 +13,13 @@
  **/
 package org.bonitasoft.engine.expression.impl;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -25,7 +30,10 @@ import java.util.HashMap;
 
 import org.bonitasoft.engine.expression.ContainerState;
 import org.bonitasoft.engine.expression.ExpressionExecutorStrategy;
+import org.bonitasoft.engine.expression.exception.SExpressionEvaluationException;
+import org.bonitasoft.engine.expression.model.ExpressionKind;
 import org.bonitasoft.engine.expression.model.SExpression;
+import org.bonitasoft.engine.expression.model.impl.SExpressionImpl;
 import org.bonitasoft.engine.log.technical.TechnicalLogSeverity;
 import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
 import org.bonitasoft.engine.tracking.TimeTracker;
@@ -65,4 +73,26 @@ public class ExpressionServiceImplTest {
                 new HashMap<Integer, Object>(0), ContainerState.ACTIVE);
         verify(expressionExecutorStrategy, times(1)).validate(any(SExpression.class));
     }
+
+    @Test
+    public void precompileShouldPrecompileExpressionsAndTheirDependenciesHavingAStrategy() throws Exception {
+        final SExpression dependency = new SExpressionImpl("dependency", "'a'", "TYPE_READ_ONLY_SCRIPT",
+                "java.lang.String", "GROOVY", Collections.<SExpression> emptyList());
+        final SExpression failing = new SExpressionImpl("failing", "def a = ", "TYPE_READ_ONLY_SCRIPT",
+                "java.lang.String", "GROOVY", Collections.<SExpression> emptyList());
+        final SExpression constant = new SExpressionImpl("constant", "b", "TYPE_CONSTANT", "java.lang.String", null,
+                Arrays.asList(dependency));
+        when(expressionExecutorStrategy.getExpressionKind())
+                .thenReturn(new ExpressionKind("TYPE_READ_ONLY_SCRIPT", "GROOVY"));
+        doThrow(new SExpressionEvaluationException("does not compile", "failing")).when(expressionExecutorStrategy)
+                .precompile(failing, 12L);
+        expressionService = new ExpressionServiceImpl(logger, true, mock(TimeTracker.class));
+        expressionService.setExpressionExecutorStrategy(Arrays.asList(expressionExecutorStrategy));
+
+        final int precompiled = expressionService.precompile(Arrays.asList(constant, failing), 12L);
+
+        assertThat(precompiled).isEqualTo(1);
+        verify(expressionExecutorStrategy).precompile(dependency, 12L);
+        verify(expressionExecutorStrategy, never()).precompile(eq(constant), anyLong());
+    }
 }
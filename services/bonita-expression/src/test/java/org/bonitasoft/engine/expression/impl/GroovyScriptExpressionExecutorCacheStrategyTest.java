@@ -216,6 +216,40 @@ public class GroovyScriptExpressionExecutorCacheStrategyTest {
         assertThat(script1).isNotEqualTo(script2);
     }
 
+    @Test
+    public void should_precompile_store_the_compiled_script_in_cache() throws Exception {
+        //given
+        final SExpressionImpl expression = new SExpressionImpl("myExpr", "'toto'", null, "java.lang.String", null,
+                Collections.<SExpression> emptyList());
+
+        // when
+        groovyScriptExpressionExecutorCacheStrategy.precompile(expression, 12L);
+
+        // then
+        assertThat(cacheService.get("GROOVY_SCRIPT_CACHE_NAME",
+                GroovyScriptExpressionExecutorCacheStrategy.getScriptKey("'toto'", 12L)))
+                        .isSameAs(groovyScriptExpressionExecutorCacheStrategy.getScriptFromCache("'toto'", 12L));
+    }
+
+    @Test(expected = SExpressionEvaluationException.class)
+    public void should_precompile_throw_SExpressionEvaluationException_when_script_does_not_compile()
+            throws Exception {
+        //given
+        final SExpressionImpl expression = new SExpressionImpl("myExpr", "def a = ", null, "java.lang.String", null,
+                Collections.<SExpression> emptyList());
+
+        // when
+        groovyScriptExpressionExecutorCacheStrategy.precompile(expression, 12L);
+    }
+
+    @Test
+    public void should_getScriptKey_be_different_for_each_content_and_definition() {
+        // "Aa" and "BB" have the same hash code
+        assertThat(GroovyScriptExpressionExecutorCacheStrategy.getScriptKey("Aa", 12L))
+                .isNotEqualTo(GroovyScriptExpressionExecutorCacheStrategy.getScriptKey("BB", 12L))
+                .isNotEqualTo(GroovyScriptExpressionExecutorCacheStrategy.getScriptKey("Aa", 13L));
+    }
+
     @Test(expected = SBonitaRuntimeException.class)
     public void should_not_put_in_cache_script_without_definition_id() throws Exception {
 
@@ -1467,6 +1467,16 @@ public interface IdentityService {
      */
     List<SUserMembership> getLightUserMemberships(int startIndex, int numberOfElements) throws SIdentityException;
 
+    /**
+     * Get all light userMemberships of the given users, in one query
+     *
+     * @param userIds
+     *        The identifiers of the users
+     * @return a list of SUserMembership objects without userName, groupName and roleName
+     * @throws SIdentityException
+     */
+    List<SUserMembership> getLightUserMembershipsOfUsers(List<Long> userIds) throws SIdentityException;
+
     /**
      * delete children groups of the given group if there is some
      *
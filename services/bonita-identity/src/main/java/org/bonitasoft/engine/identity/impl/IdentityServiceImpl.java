@@ -1588,6 +1588,18 @@ public class IdentityServiceImpl implements IdentityService {
         }
     }
 
+    @Override
+    public List<SUserMembership> getLightUserMembershipsOfUsers(final List<Long> userIds) throws SIdentityException {
+        if (userIds == null || userIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        try {
+            return persistenceService.selectList(SelectDescriptorBuilder.getLightUserMembershipsOfUsers(userIds));
+        } catch (final SBonitaReadException e) {
+            throw new SIdentityException("Can't get the user memberships of users " + userIds, e);
+        }
+    }
+
     @Override
     public long getNumberOfUsers(final QueryOptions options) throws SBonitaReadException {
         return persistenceService.getNumberOfEntities(SUser.class, options, null);
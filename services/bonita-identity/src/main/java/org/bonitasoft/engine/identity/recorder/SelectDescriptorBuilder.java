@@ -17,6 +17,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.bonitasoft.engine.identity.model.SContactInfo;
@@ -120,6 +121,12 @@ public class SelectDescriptorBuilder {
                 SUserMembership.class);
     }
 
+    public static SelectListDescriptor<SUserMembership> getLightUserMembershipsOfUsers(final List<Long> userIds) {
+        final Map<String, Object> parameters = Collections.singletonMap("userIds", (Object) userIds);
+        return new SelectListDescriptor<SUserMembership>("getLightUserMembershipsOfUsers", parameters,
+                SUserMembership.class, QueryOptions.ALL_RESULTS);
+    }
+
     public static SelectOneDescriptor<SCustomUserInfoDefinition> getCustomUserInfoDefinitionByName(final String name) {
         final Map<String, Object> parameters = Collections.singletonMap("name", (Object) name);
         return new SelectOneDescriptor<SCustomUserInfoDefinition>("getCustomUserInfoDefinitionByName", parameters,
@@ -17,8 +17,10 @@ import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -172,6 +174,24 @@ public class IdentityServiceImplForUserMembershipTest {
         identityServiceImpl.getLightUserMemberships(startIndex, numberOfElements);
     }
 
+    @Test
+    public final void getLightUserMembershipsOfUsers() throws SBonitaReadException, SIdentityException {
+        final List<SUserMembership> userMemberships = Collections.singletonList(mock(SUserMembership.class));
+        final List<Long> userIds = Arrays.asList(4L, 5L);
+        doReturn(userMemberships).when(persistenceService).selectList(
+                SelectDescriptorBuilder.getLightUserMembershipsOfUsers(userIds));
+
+        assertEquals(userMemberships, identityServiceImpl.getLightUserMembershipsOfUsers(userIds));
+    }
+
+    @Test
+    public final void getLightUserMembershipsOfNoUsersShouldNotQuery() throws Exception {
+        assertEquals(Collections.emptyList(),
+                identityServiceImpl.getLightUserMembershipsOfUsers(Collections.<Long> emptyList()));
+
+        verifyZeroInteractions(persistenceService);
+    }
+
     /**
      * Test method for {@link org.bonitasoft.engine.identity.impl.IdentityServiceImpl#getNumberOfUserMemberships()}.
      */
@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.lock.impl;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bonitasoft.engine.lock.BonitaLock;
+import org.bonitasoft.engine.lock.LockService;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerSLF4JImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compare lock/unlock throughput of {@link MemoryLockService} and {@link StripedMemoryLockService}, each worker thread
+ * locks a random process instance among the given number of instances, like works executing flow nodes do.
+ * Run with ./gradlew :services:bonita-lock:jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LockServiceBenchmark {
+
+    private static final long TENANT_ID = 1L;
+    private static final String PROCESS = "PROCESS";
+
+    @Param({ "memory", "striped" })
+    public String implementation;
+
+    @Param({ "64", "100000" })
+    public int numberOfProcessInstances;
+
+    private LockService lockService;
+
+    @Setup
+    public void setup() {
+        TechnicalLoggerSLF4JImpl loggerService = new TechnicalLoggerSLF4JImpl();
+        lockService = "memory".equals(implementation) ? new MemoryLockService(loggerService, 60)
+                : new StripedMemoryLockService(loggerService, 60);
+    }
+
+    private BonitaLock lockAndUnlock() throws Exception {
+        long processInstanceId = ThreadLocalRandom.current().nextInt(numberOfProcessInstances);
+        BonitaLock lock = lockService.tryLock(processInstanceId, PROCESS, 20, TimeUnit.MILLISECONDS, TENANT_ID);
+        if (lock != null) {
+            lockService.unlock(lock, TENANT_ID);
+        }
+        return lock;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public BonitaLock lockUnlock_8_threads() throws Exception {
+        return lockAndUnlock();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public BonitaLock lockUnlock_16_threads() throws Exception {
+        return lockAndUnlock();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public BonitaLock lockUnlock_32_threads() throws Exception {
+        return lockAndUnlock();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public BonitaLock lockUnlock_64_threads() throws Exception {
+        return lockAndUnlock();
+    }
+
+}
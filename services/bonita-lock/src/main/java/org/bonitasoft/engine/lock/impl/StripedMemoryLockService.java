@@ -0,0 +1,239 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.lock.impl;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.bonitasoft.engine.lock.BonitaLock;
+import org.bonitasoft.engine.lock.LockService;
+import org.bonitasoft.engine.lock.SLockException;
+import org.bonitasoft.engine.lock.SLockTimeoutException;
+import org.bonitasoft.engine.log.technical.TechnicalLogger;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+
+/**
+ * In memory {@link LockService} that does not build any key and does not go through a single global monitor.
+ * <p>
+ * Locks are spread on stripes using a hash of (objectType, objectToLockId, tenantId). Each stripe is a small hash
+ * table guarded by its own monitor that is only held to find the lock entry, never while waiting for the lock itself.
+ * An entry counts the threads holding or waiting for its lock: while this count is not zero the entry stays in its
+ * stripe, so there is no need to check that the lock was not replaced after having acquired it.
+ * <p>
+ * Entries that are not used anymore are kept in their stripe (up to maxIdleEntriesPerStripe) and recycled for other
+ * keys: locking an object whose entry is still in its stripe does not allocate. Locking another object allocates the
+ * {@link BonitaLock} returned for it, and a new entry while the stripe has fewer idle entries than the maximum.
+ */
+public class StripedMemoryLockService implements LockService {
+
+    private static final int BUCKETS_PER_STRIPE = 16;
+
+    private final TechnicalLogger logger;
+    private final int lockTimeoutSeconds;
+    private final int maxIdleEntriesPerStripe;
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    public StripedMemoryLockService(TechnicalLoggerService loggerService, int lockTimeoutSeconds) {
+        this(loggerService, lockTimeoutSeconds, 64, 32);
+    }
+
+    /**
+     * @param numberOfStripes rounded up to the next power of two
+     * @param maxIdleEntriesPerStripe number of unused lock entries kept in each stripe to be reused
+     */
+    public StripedMemoryLockService(TechnicalLoggerService loggerService, int lockTimeoutSeconds, int numberOfStripes,
+            int maxIdleEntriesPerStripe) {
+        this.logger = loggerService.asLogger(StripedMemoryLockService.class);
+        this.lockTimeoutSeconds = lockTimeoutSeconds;
+        this.maxIdleEntriesPerStripe = maxIdleEntriesPerStripe;
+        int size = 1;
+        while (size < numberOfStripes) {
+            size <<= 1;
+        }
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeMask = size - 1;
+    }
+
+    @Override
+    public BonitaLock lock(long objectToLockId, String objectType, long tenantId)
+            throws SLockException, SLockTimeoutException {
+        BonitaLock bonitaLock = tryLock(objectToLockId, objectType, lockTimeoutSeconds, SECONDS, tenantId);
+        if (bonitaLock == null) {
+            throw new SLockTimeoutException(String.format("Unable to acquire lock %s,%s,%s in %s seconds",
+                    objectToLockId, objectType, tenantId, lockTimeoutSeconds));
+        }
+        return bonitaLock;
+    }
+
+    @Override
+    public BonitaLock tryLock(long objectToLockId, String objectType, long timeout, TimeUnit timeUnit, long tenantId)
+            throws SLockException {
+        int hash = hash(objectToLockId, objectType, tenantId);
+        Stripe stripe = stripes[hash & stripeMask];
+        LockEntry entry;
+        BonitaLock bonitaLock;
+        synchronized (stripe) {
+            entry = stripe.acquireEntry(hash, objectToLockId, objectType, tenantId, maxIdleEntriesPerStripe);
+            // read while the entry can not be recycled
+            bonitaLock = entry.bonitaLock;
+        }
+        boolean locked = false;
+        try {
+            locked = entry.lock.tryLock(timeout, timeUnit);
+        } catch (InterruptedException e) {
+            throw new SLockException("interrupted while trying to get the lock", e);
+        } finally {
+            if (!locked) {
+                synchronized (stripe) {
+                    stripe.releaseEntry(entry);
+                }
+            }
+        }
+        // guarded: varargs logging allocates even when the level is disabled
+        if (logger.isDebugEnabled()) {
+            logger.debug(locked ? "Lock acquired for {}" : "Lock was not acquired for {}", bonitaLock);
+        }
+        return locked ? bonitaLock : null;
+    }
+
+    @Override
+    public void unlock(BonitaLock lock, long tenantId) throws SLockException {
+        long objectToLockId = lock.getObjectToLockId();
+        String objectType = lock.getObjectType();
+        int hash = hash(objectToLockId, objectType, tenantId);
+        Stripe stripe = stripes[hash & stripeMask];
+        synchronized (stripe) {
+            LockEntry entry = stripe.find(hash, objectToLockId, objectType, tenantId);
+            if (entry == null) {
+                return;
+            }
+            entry.lock.unlock();
+            stripe.releaseEntry(entry);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Lock released {}", lock);
+        }
+    }
+
+    static int hash(long objectToLockId, String objectType, long tenantId) {
+        long h = objectToLockId * 0x9E3779B97F4A7C15L + tenantId;
+        h ^= objectType.hashCode();
+        h ^= (h >>> 32);
+        int result = (int) h;
+        return result ^ (result >>> 16);
+    }
+
+    private static final class LockEntry {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private int hash;
+        private long objectToLockId;
+        private String objectType;
+        private long tenantId;
+        private BonitaLock bonitaLock;
+        // number of threads holding (one per hold) or waiting for the lock
+        private int users;
+        private LockEntry next;
+
+        private boolean matches(int hash, long objectToLockId, String objectType, long tenantId) {
+            return this.hash == hash && this.objectToLockId == objectToLockId && this.tenantId == tenantId
+                    && this.objectType.equals(objectType);
+        }
+
+        private void assign(int hash, long objectToLockId, String objectType, long tenantId) {
+            this.hash = hash;
+            this.objectToLockId = objectToLockId;
+            this.objectType = objectType;
+            this.tenantId = tenantId;
+            this.bonitaLock = new BonitaLock(objectType, objectToLockId);
+        }
+    }
+
+    /**
+     * All methods must be called while holding the monitor of the stripe
+     */
+    private static final class Stripe {
+
+        private final LockEntry[] buckets = new LockEntry[BUCKETS_PER_STRIPE];
+        private int idleEntries;
+
+        private LockEntry find(int hash, long objectToLockId, String objectType, long tenantId) {
+            LockEntry entry = buckets[bucket(hash)];
+            while (entry != null && !entry.matches(hash, objectToLockId, objectType, tenantId)) {
+                entry = entry.next;
+            }
+            return entry;
+        }
+
+        private LockEntry acquireEntry(int hash, long objectToLockId, String objectType, long tenantId,
+                int maxIdleEntries) {
+            LockEntry entry = find(hash, objectToLockId, objectType, tenantId);
+            if (entry == null) {
+                entry = idleEntries >= maxIdleEntries ? removeIdleEntry() : null;
+                if (entry == null) {
+                    entry = new LockEntry();
+                } else {
+                    idleEntries--;
+                }
+                entry.assign(hash, objectToLockId, objectType, tenantId);
+                int bucket = bucket(hash);
+                entry.next = buckets[bucket];
+                buckets[bucket] = entry;
+            } else if (entry.users == 0) {
+                idleEntries--;
+            }
+            entry.users++;
+            return entry;
+        }
+
+        private void releaseEntry(LockEntry entry) {
+            entry.users--;
+            if (entry.users == 0) {
+                idleEntries++;
+            }
+        }
+
+        private LockEntry removeIdleEntry() {
+            for (int i = 0; i < buckets.length; i++) {
+                LockEntry previous = null;
+                LockEntry entry = buckets[i];
+                while (entry != null) {
+                    if (entry.users == 0) {
+                        if (previous == null) {
+                            buckets[i] = entry.next;
+                        } else {
+                            previous.next = entry.next;
+                        }
+                        entry.next = null;
+                        return entry;
+                    }
+                    previous = entry;
+                    entry = entry.next;
+                }
+            }
+            return null;
+        }
+
+        private static int bucket(int hash) {
+            return (hash >>> 16) & (BUCKETS_PER_STRIPE - 1);
+        }
+    }
+
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.lock.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bonitasoft.engine.lock.BonitaLock;
+import org.bonitasoft.engine.lock.SLockTimeoutException;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerSLF4JImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StripedMemoryLockServiceTest {
+
+    private static final long TENANT_ID = 1L;
+    private ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private StripedMemoryLockService lockService;
+
+    @Before
+    public void before() {
+        // few stripes and idle entries to exercise collisions and recycling
+        lockService = new StripedMemoryLockService(new TechnicalLoggerSLF4JImpl(), 1, 2, 1);
+    }
+
+    @After
+    public void after() {
+        executorService.shutdownNow();
+    }
+
+    private BonitaLock tryLockInAnOtherThread(long objectToLockId, String objectType, long tenantId)
+            throws Exception {
+        return executorService
+                .submit(() -> lockService.tryLock(objectToLockId, objectType, 10, TimeUnit.MILLISECONDS, tenantId))
+                .get();
+    }
+
+    private void unlockInAnOtherThread(BonitaLock lock, long tenantId) throws Exception {
+        executorService.submit(() -> {
+            lockService.unlock(lock, tenantId);
+            return null;
+        }).get();
+    }
+
+    @Test
+    public void should_not_be_able_to_lock_an_object_already_locked() throws Exception {
+        lockService.lock(5, "a", TENANT_ID);
+
+        assertThat(tryLockInAnOtherThread(5, "a", TENANT_ID)).isNull();
+    }
+
+    @Test
+    public void should_be_able_to_lock_other_objects() throws Exception {
+        lockService.lock(5, "a", TENANT_ID);
+
+        assertThat(tryLockInAnOtherThread(6, "a", TENANT_ID)).isNotNull();
+        assertThat(tryLockInAnOtherThread(5, "b", TENANT_ID)).isNotNull();
+        assertThat(tryLockInAnOtherThread(5, "a", 2L)).isNotNull();
+    }
+
+    @Test
+    public void should_be_able_to_lock_after_unlock() throws Exception {
+        BonitaLock lock = lockService.lock(5, "a", TENANT_ID);
+
+        lockService.unlock(lock, TENANT_ID);
+
+        assertThat(tryLockInAnOtherThread(5, "a", TENANT_ID)).isEqualTo(new BonitaLock("a", 5));
+    }
+
+    @Test
+    public void should_lock_multiple_times_on_the_same_thread() throws Exception {
+        BonitaLock bonitaLock = lockService.lock(123, "abc", TENANT_ID);
+        lockService.lock(123, "abc", TENANT_ID);
+
+        assertThat(tryLockInAnOtherThread(123, "abc", TENANT_ID)).isNull();
+        lockService.unlock(bonitaLock, TENANT_ID);
+        assertThat(tryLockInAnOtherThread(123, "abc", TENANT_ID)).isNull();
+        lockService.unlock(bonitaLock, TENANT_ID);
+        assertThat(tryLockInAnOtherThread(123, "abc", TENANT_ID)).isNotNull();
+    }
+
+    @Test
+    public void should_throw_timeout_exception_when_lock_is_not_available() throws Exception {
+        BonitaLock lock = tryLockInAnOtherThread(2, "a", TENANT_ID);
+
+        assertThatThrownBy(() -> lockService.lock(2, "a", TENANT_ID)).isInstanceOf(SLockTimeoutException.class);
+
+        unlockInAnOtherThread(lock, TENANT_ID);
+    }
+
+    @Test
+    public void should_reuse_the_lock_of_an_object_locked_again() throws Exception {
+        BonitaLock first = lockService.lock(5, "a", TENANT_ID);
+        lockService.unlock(first, TENANT_ID);
+
+        BonitaLock second = lockService.lock(5, "a", TENANT_ID);
+
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    public void should_keep_mutual_exclusion_when_entries_are_recycled() throws Exception {
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        AtomicInteger[] holders = new AtomicInteger[4];
+        for (int i = 0; i < holders.length; i++) {
+            holders[i] = new AtomicInteger();
+        }
+        AtomicInteger violations = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < 2_000; i++) {
+                    int id = i % holders.length;
+                    BonitaLock lock = lockService.lock(id, "a", TENANT_ID);
+                    if (holders[id].incrementAndGet() != 1) {
+                        violations.incrementAndGet();
+                    }
+                    holders[id].decrementAndGet();
+                    lockService.unlock(lock, TENANT_ID);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertThat(violations.get()).isZero();
+    }
+
+}
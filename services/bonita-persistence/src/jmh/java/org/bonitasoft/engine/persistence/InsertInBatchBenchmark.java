@@ -0,0 +1,209 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.persistence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import org.bonitasoft.engine.log.technical.TechnicalLoggerSLF4JImpl;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Insert, in one transaction, 100 entities of two interleaved types the way an archive batch does, using
+ * {@link AbstractHibernatePersistenceService#insertInBatch(List)}, with JDBC batching disabled (batch size 1) and
+ * with the default batch size.
+ * <p>
+ * h2 runs on an in-memory database, postgres needs a local database named bonita owned by bonita/bpm.
+ * Run with ./gradlew :services:bonita-persistence:jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsertInBatchBenchmark {
+
+    private static final int NUMBER_OF_ENTITIES = 100;
+
+    @Param({ "h2", "postgres" })
+    public String vendor;
+
+    @Param({ "1", "50" })
+    public int batchSize;
+
+    private final AtomicLong ids = new AtomicLong();
+    private StandardServiceRegistry serviceRegistry;
+    private SessionFactory sessionFactory;
+    private AbstractHibernatePersistenceService persistenceService;
+
+    @Setup
+    public void setup() throws Exception {
+        final StandardServiceRegistryBuilder registryBuilder = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .applySetting(AvailableSettings.CURRENT_SESSION_CONTEXT_CLASS, "thread")
+                .applySetting(AvailableSettings.POOL_SIZE, "1")
+                .applySetting(AvailableSettings.STATEMENT_BATCH_SIZE, String.valueOf(batchSize))
+                .applySetting(AvailableSettings.ORDER_INSERTS, "true");
+        if ("postgres".equals(vendor)) {
+            registryBuilder.applySetting(AvailableSettings.URL, "jdbc:postgresql://localhost:5432/bonita")
+                    .applySetting(AvailableSettings.USER, "bonita")
+                    .applySetting(AvailableSettings.PASS, "bpm");
+        } else {
+            registryBuilder.applySetting(AvailableSettings.URL, "jdbc:h2:mem:insertInBatch;DB_CLOSE_DELAY=-1")
+                    .applySetting(AvailableSettings.USER, "sa");
+        }
+        serviceRegistry = registryBuilder.build();
+        sessionFactory = new MetadataSources(serviceRegistry)
+                .addAnnotatedClass(ArchivedStep.class)
+                .addAnnotatedClass(ArchivedData.class)
+                .buildMetadata().buildSessionFactory();
+        persistenceService = new PlatformHibernatePersistenceService(sessionFactory,
+                Arrays.asList(ArchivedStep.class, ArchivedData.class), Collections.emptyMap(), false,
+                Collections.emptySet(), new TechnicalLoggerSLF4JImpl());
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteInsertedEntities() {
+        final Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        session.createQuery("DELETE FROM " + ArchivedStep.class.getName()).executeUpdate();
+        session.createQuery("DELETE FROM " + ArchivedData.class.getName()).executeUpdate();
+        session.getTransaction().commit();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+        StandardServiceRegistryBuilder.destroy(serviceRegistry);
+    }
+
+    @Benchmark
+    public void insertInBatch() throws Exception {
+        final List<PersistentObject> entities = new ArrayList<>(NUMBER_OF_ENTITIES);
+        for (int i = 0; i < NUMBER_OF_ENTITIES / 2; i++) {
+            final long stepId = ids.incrementAndGet();
+            entities.add(new ArchivedStep(stepId, "step" + i));
+            entities.add(new ArchivedData(ids.incrementAndGet(), stepId, "value" + i));
+        }
+        final Session session = sessionFactory.getCurrentSession();
+        session.beginTransaction();
+        try {
+            persistenceService.insertInBatch(entities);
+            session.getTransaction().commit();
+        } catch (final Exception e) {
+            session.getTransaction().rollback();
+            throw e;
+        }
+    }
+
+    @Entity
+    @Table(name = "bench_arch_step")
+    public static class ArchivedStep implements PersistentObject {
+
+        private static final long serialVersionUID = 1L;
+
+        @Id
+        private long id;
+        @Column
+        private String name;
+
+        public ArchivedStep() {
+        }
+
+        ArchivedStep(long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        @Override
+        public long getId() {
+            return id;
+        }
+
+        @Override
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        @Override
+        public void setTenantId(long id) {
+        }
+    }
+
+    @Entity
+    @Table(name = "bench_arch_data")
+    public static class ArchivedData implements PersistentObject {
+
+        private static final long serialVersionUID = 1L;
+
+        @Id
+        private long id;
+        @Column
+        private long containerId;
+        @Column
+        private String dataValue;
+
+        public ArchivedData() {
+        }
+
+        ArchivedData(long id, long containerId, String dataValue) {
+            this.id = id;
+            this.containerId = containerId;
+            this.dataValue = dataValue;
+        }
+
+        @Override
+        public long getId() {
+            return id;
+        }
+
+        @Override
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        @Override
+        public void setTenantId(long id) {
+        }
+    }
+
+}
@@ -145,6 +145,12 @@ public abstract class AbstractHibernatePersistenceService extends AbstractDBPers
         session.flush();
     }
 
+    void flushStatementsAndClear(final boolean useTenant) throws SPersistenceException {
+        final Session session = getSession(useTenant);
+        session.flush();
+        session.clear();
+    }
+
     @Override
     public void delete(final PersistentObject entity) throws SPersistenceException {
         if (logger.isLoggable(getClass(), TechnicalLogSeverity.DEBUG)) {
@@ -215,16 +221,32 @@ public abstract class AbstractHibernatePersistenceService extends AbstractDBPers
         }
     }
 
+    /**
+     * Insert the given entities in the order of the list, after checking that all of them are mapped.
+     * <p>
+     * Consecutive inserts of a same entity type are sent to the database as JDBC batches of
+     * {@code hibernate.jdbc.batch_size} statements when the session is flushed, instead of one round trip per entity.
+     * Entities are not reordered: foreign keys between tables are not mapped in Hibernate, callers must give referenced
+     * entities first.
+     */
     @Override
     public void insertInBatch(final List<? extends PersistentObject> entities) throws SPersistenceException {
-        if (!entities.isEmpty()) {
-            final Session session = getSession(true);
+        if (entities.isEmpty()) {
+            return;
+        }
+        for (final PersistentObject entity : entities) {
+            checkClassMapping(entity.getClass());
+        }
+        final Session session = getSession(true);
+        try {
             for (final PersistentObject entity : entities) {
-                final Class<? extends PersistentObject> entityClass = entity.getClass();
-                checkClassMapping(entityClass);
                 setId(entity);
                 session.save(entity);
             }
+        } catch (final AssertionFailure | LockAcquisitionException | StaleStateException e) {
+            throw new SRetryableException(e);
+        } catch (final HibernateException he) {
+            throw new SPersistenceException(he);
         }
     }
 
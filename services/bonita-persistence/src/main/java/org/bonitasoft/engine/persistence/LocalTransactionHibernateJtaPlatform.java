@@ -0,0 +1,46 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.persistence;
+
+import javax.transaction.TransactionManager;
+import javax.transaction.UserTransaction;
+
+import org.hibernate.engine.transaction.jta.platform.internal.AbstractJtaPlatform;
+
+/**
+ * Platform of the resource-local transaction manager of the engine
+ * (org.bonitasoft.engine.transaction.LocalTransactionManager), which is also its user transaction.
+ * <p>
+ * Like for Quartz and the transaction service, the transaction manager is looked up in JNDI, using the name given by
+ * the sysprop.bonita.transaction.manager system property or java:comp/env/TransactionManager by default.
+ */
+public class LocalTransactionHibernateJtaPlatform extends AbstractJtaPlatform {
+
+    private static final long serialVersionUID = -2209419402526766158L;
+
+    private static final String TRANSACTION_MANAGER_NAME_PROPERTY = "sysprop.bonita.transaction.manager";
+    private static final String DEFAULT_TRANSACTION_MANAGER_NAME = "java:comp/env/TransactionManager";
+
+    @Override
+    protected TransactionManager locateTransactionManager() {
+        return (TransactionManager) jndiService().locate(
+                System.getProperty(TRANSACTION_MANAGER_NAME_PROPERTY, DEFAULT_TRANSACTION_MANAGER_NAME));
+    }
+
+    @Override
+    protected UserTransaction locateUserTransaction() {
+        return (UserTransaction) locateTransactionManager();
+    }
+
+}
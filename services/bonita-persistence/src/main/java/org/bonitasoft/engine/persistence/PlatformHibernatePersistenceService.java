@@ -61,6 +61,11 @@ public class PlatformHibernatePersistenceService extends AbstractHibernatePersis
         super.flushStatements(false);
     }
 
+    @Override
+    public void flushStatementsAndClear() throws SPersistenceException {
+        super.flushStatementsAndClear(false);
+    }
+
     @Override
     public void deleteByTenant(final Class<? extends PersistentObject> entityClass, final List<FilterOption> filters) {
         // FIXME : Method for tenant. TODO: Refactor code for PlatformHibernatePersistenceService don't implements TenantPersistenceService
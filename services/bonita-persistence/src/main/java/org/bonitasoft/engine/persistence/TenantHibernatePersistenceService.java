@@ -115,6 +115,11 @@ public class TenantHibernatePersistenceService extends AbstractHibernatePersiste
         super.flushStatements(true);
     }
 
+    @Override
+    public void flushStatementsAndClear() throws SPersistenceException {
+        super.flushStatementsAndClear(true);
+    }
+
     @Override
     public void delete(final PersistentObject entity) throws SPersistenceException {
         try {
@@ -15,9 +15,13 @@ package org.bonitasoft.engine.sequence;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.sql.DataSource;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.bonitasoft.engine.commons.exceptions.SObjectNotFoundException;
 import org.bonitasoft.engine.lock.LockService;
 
@@ -40,22 +44,45 @@ public class SequenceManagerImpl implements SequenceManager {
 
     private final LockService lockService;
 
+    private final MeterRegistry meterRegistry;
+
+    private final double prefetchThreshold;
+
+    private final int maxRangeSizeFactor;
+
+    private final long targetRangeDurationMillis;
+
+    // reserves next ranges of all tenants in background, threads are only kept while ranges are reserved
+    private final ThreadPoolExecutor prefetchExecutor;
+
     private final Map<Long, TenantSequenceManagerImpl> sequenceManagers = new HashMap<>();
 
     public SequenceManagerImpl(final LockService lockService,
             final SequenceMappingProvider sequenceMappingProvider,
-            final DataSource datasource, final int retries, final int delay, final int delayFactor) {
+            final DataSource datasource, final int retries, final int delay, final int delayFactor,
+            MeterRegistry meterRegistry, double prefetchThreshold, int maxRangeSizeFactor,
+            long targetRangeDurationMillis) {
         this.lockService = lockService;
         this.sequenceMappingProvider = sequenceMappingProvider;
         this.retries = retries;
         this.delay = delay;
         this.delayFactor = delayFactor;
         this.datasource = datasource;
+        this.meterRegistry = meterRegistry;
+        this.prefetchThreshold = prefetchThreshold;
+        this.maxRangeSizeFactor = maxRangeSizeFactor;
+        this.targetRangeDurationMillis = targetRangeDurationMillis;
+        this.prefetchExecutor = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "Bonita-Sequence-Prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.prefetchExecutor.allowCoreThreadTimeOut(true);
     }
 
     @Override
     public void reset() {
-        this.sequenceManagers.clear();
+        clear();
     }
 
     @Override
@@ -77,22 +104,27 @@ public class SequenceManagerImpl implements SequenceManager {
     TenantSequenceManagerImpl createTenantSequenceManager(long tenantId) {
         return new TenantSequenceManagerImpl(tenantId, lockService, getSequenceIdToRangeSizeMap(),
                 getClassNameToSequenceIdMap(), datasource, retries, delay,
-                delayFactor);
+                delayFactor, meterRegistry, prefetchExecutor, prefetchThreshold, maxRangeSizeFactor,
+                targetRangeDurationMillis);
     }
 
     @Override
-    public void clear() {
+    public synchronized void clear() {
+        this.sequenceManagers.values().forEach(TenantSequenceManagerImpl::removeMeters);
         this.sequenceManagers.clear();
     }
 
     @Override
     public void close() {
-        // Do nothing
+        prefetchExecutor.shutdown();
     }
 
     @Override
-    public void clear(final long tenantId) {
-        this.sequenceManagers.remove(tenantId);
+    public synchronized void clear(final long tenantId) {
+        TenantSequenceManagerImpl tenantSequenceManager = this.sequenceManagers.remove(tenantId);
+        if (tenantSequenceManager != null) {
+            tenantSequenceManager.removeMeters();
+        }
     }
 
     private Map<String, Long> getClassNameToSequenceIdMap() {
@@ -20,7 +20,7 @@ public class SequenceRange {
 
     private AtomicLong nextAvailableId;
     private long lastIdInRange;
-    private final int rangeSize;
+    private int rangeSize;
 
     public SequenceRange(int rangeSize) {
         this.rangeSize = rangeSize;
@@ -45,6 +45,14 @@ public class SequenceRange {
     }
 
     public void updateToNextRange(long nextAvailableIdFromDatabase) {
+        updateToNextRange(nextAvailableIdFromDatabase, rangeSize);
+    }
+
+    /**
+     * @param rangeSize number of ids that were reserved in database for this range
+     */
+    public void updateToNextRange(long nextAvailableIdFromDatabase, int rangeSize) {
+        this.rangeSize = rangeSize;
         nextAvailableId = new AtomicLong(nextAvailableIdFromDatabase);
         lastIdInRange = nextAvailableIdFromDatabase + rangeSize - 1;
     }
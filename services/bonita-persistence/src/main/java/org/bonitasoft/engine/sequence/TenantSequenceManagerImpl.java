@@ -15,12 +15,26 @@ package org.bonitasoft.engine.sequence;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.sql.DataSource;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import org.bonitasoft.engine.commons.exceptions.SBonitaRuntimeException;
 import org.bonitasoft.engine.commons.exceptions.SObjectNotFoundException;
 import org.bonitasoft.engine.lock.BonitaLock;
@@ -31,6 +45,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
+ * Gives ids of sequences, reserving them in database by range.
+ * <p>
+ * When prefetch is enabled, the next range of a sequence is reserved in background once the given ratio of the
+ * current range is consumed, so that callers do not have to wait for the database when the current range runs out.
+ * When adaptive range size is enabled, the size of the next range is computed from the rate at which ids are consumed,
+ * so that a range lasts about targetRangeDurationMillis. It never goes below the configured range size and never above
+ * maxRangeSizeFactor times this size.
+ *
  * @author Charles Souillard
  * @author Matthieu Chaffotte
  * @author Baptiste Mesta
@@ -40,9 +62,12 @@ public class TenantSequenceManagerImpl {
     private static Logger logger = LoggerFactory.getLogger(TenantSequenceManagerImpl.class);
 
     static final String SEQUENCE = "SEQUENCE";
+    public static final String NUMBER_OF_RANGE_REFILLS = "bonita.bpmengine.sequence.refill";
+    public static final String RANGE_WAIT_DURATION = "bonita.bpmengine.sequence.wait";
+    public static final String RANGE_SIZE = "bonita.bpmengine.sequence.rangesize";
 
     private final Long tenantId;
-    private final Map<Long, SequenceRange> sequences = new HashMap<>();
+    private final Map<Long, Sequence> sequences = new ConcurrentHashMap<>();
     private final Map<Long, Integer> sequenceIdToRangeSize;
     private final Map<String, Long> classNameToSequenceId;
 
@@ -56,10 +81,30 @@ public class TenantSequenceManagerImpl {
 
     private final LockService lockService;
 
+    private final MeterRegistry meterRegistry;
+
+    private final Executor prefetchExecutor;
+
+    private final double prefetchThreshold;
+
+    private final int maxRangeSizeFactor;
+
+    private final long targetRangeDurationNanos;
+
+    private final List<Meter> meters = new ArrayList<>();
+
+    /**
+     * @param prefetchThreshold ratio of a range that must be consumed before reserving the next one in background, 0
+     *        to disable prefetch
+     * @param maxRangeSizeFactor maximum size of a range, as a multiple of the configured range size, 1 to disable
+     *        adaptive range size
+     */
     public TenantSequenceManagerImpl(final long tenantId, final LockService lockService,
             final Map<Long, Integer> sequenceIdToRangeSize,
             final Map<String, Long> classNameToSequenceId,
-            final DataSource datasource, final int retries, final int delay, final int delayFactor) {
+            final DataSource datasource, final int retries, final int delay, final int delayFactor,
+            MeterRegistry meterRegistry, Executor prefetchExecutor, double prefetchThreshold, int maxRangeSizeFactor,
+            long targetRangeDurationMillis) {
         this.tenantId = tenantId;
         this.lockService = lockService;
         this.sequenceIdToRangeSize = sequenceIdToRangeSize;
@@ -68,42 +113,150 @@ public class TenantSequenceManagerImpl {
         this.delay = delay;
         this.delayFactor = delayFactor;
         this.datasource = datasource;
+        this.meterRegistry = meterRegistry;
+        this.prefetchExecutor = prefetchExecutor;
+        this.prefetchThreshold = prefetchThreshold;
+        this.maxRangeSizeFactor = Math.max(1, maxRangeSizeFactor);
+        this.targetRangeDurationNanos = TimeUnit.MILLISECONDS.toNanos(targetRangeDurationMillis);
     }
 
     public long getNextId(final String entityName) throws SObjectNotFoundException {
         final Long sequenceId = getSequenceId(entityName);
-        SequenceRange sequence = getSequence(sequenceId);
-        Optional<Long> nextAvailableId = sequence.getNextAvailableId();
+        Sequence sequence = getSequence(sequenceId);
+        Optional<Long> nextAvailableId = sequence.range.getNextAvailableId();
         if (nextAvailableId.isPresent()) {
+            prefetchIfNeeded(sequence, nextAvailableId.get());
             return nextAvailableId.get();
         }
         //synchronize on the sequence object itself (we will read/update only on this one)
         synchronized (sequence) {
-            nextAvailableId = sequence.getNextAvailableId();
+            nextAvailableId = sequence.range.getNextAvailableId();
+            if (nextAvailableId.isPresent()) {
+                return nextAvailableId.get();
+            }
+            long waitStart = nanoTime();
             int loopCounter = 0;
             // set a max number of retries to 100:
             while (!nextAvailableId.isPresent() && loopCounter < 100) {
                 if (loopCounter > 0) {
                     logger.debug("Could not get an Id after updating to next range. Retrying...");
                 }
-                sequence.updateToNextRange(setNewRange(sequenceId));
-                nextAvailableId = sequence.getNextAvailableId();
+                updateToNextRange(sequence);
+                nextAvailableId = sequence.range.getNextAvailableId();
                 loopCounter++;
             }
+            sequence.waitDuration.record(nanoTime() - waitStart, TimeUnit.NANOSECONDS);
             return nextAvailableId.orElseThrow(
                     () -> new IllegalStateException("No new available id found for sequence " + entityName));
         }
     }
 
-    private SequenceRange getSequence(Long sequenceId) {
-        if (!sequences.containsKey(sequenceId)) {
-            synchronized (this) {
-                if (!sequences.containsKey(sequenceId)) {
-                    sequences.put(sequenceId, new SequenceRange(sequenceIdToRangeSize.get(sequenceId)));
+    /**
+     * Must be called while holding the monitor of the sequence
+     */
+    private void updateToNextRange(Sequence sequence) throws SObjectNotFoundException {
+        // no prefetch of the range after the next one until the next one is installed
+        sequence.prefetchThresholdId = Long.MAX_VALUE;
+        Range nextRange = takePrefetchedRange(sequence);
+        if (nextRange != null) {
+            sequence.prefetchedRefills.increment();
+        } else {
+            int rangeSize = computeNextRangeSize(sequence, sequence.rangeSizeInUse);
+            nextRange = new Range(setNewRange(sequence.sequenceId, rangeSize), rangeSize);
+            sequence.synchronousRefills.increment();
+        }
+        sequence.range.updateToNextRange(nextRange.firstId, nextRange.size);
+        sequence.rangeFirstId = nextRange.firstId;
+        sequence.rangeSizeInUse = nextRange.size;
+        sequence.rangeStartNanos = nanoTime();
+        if (prefetchThreshold > 0) {
+            sequence.prefetchThresholdId = nextRange.firstId + (long) (nextRange.size * prefetchThreshold);
+        }
+    }
+
+    private Range takePrefetchedRange(Sequence sequence) {
+        CompletableFuture<Range> prefetchedRange = sequence.prefetchedRange.getAndSet(null);
+        if (prefetchedRange == null) {
+            return null;
+        }
+        try {
+            // the range might still be being reserved, waiting for it is still faster than reserving an other one
+            return prefetchedRange.get();
+        } catch (ExecutionException e) {
+            logger.warn("Unable to reserve in background the next range of sequence {}, will reserve it now: {}",
+                    sequence.sequenceId, e.getCause().getMessage());
+            logger.debug("Cause:", e.getCause());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SBonitaRuntimeException(
+                    "Interrupted while waiting for the next range of sequence " + sequence.sequenceId, e);
+        }
+    }
+
+    private void prefetchIfNeeded(Sequence sequence, long id) {
+        if (id < sequence.prefetchThresholdId || sequence.prefetchedRange.get() != null) {
+            return;
+        }
+        CompletableFuture<Range> prefetchedRange = new CompletableFuture<>();
+        if (!sequence.prefetchedRange.compareAndSet(null, prefetchedRange)) {
+            // an other thread is already reserving the next range
+            return;
+        }
+        int rangeSize = computeNextRangeSize(sequence, id - sequence.rangeFirstId + 1);
+        try {
+            prefetchExecutor.execute(() -> {
+                try {
+                    prefetchedRange.complete(new Range(setNewRange(sequence.sequenceId, rangeSize), rangeSize));
+                } catch (Throwable t) {
+                    prefetchedRange.completeExceptionally(t);
                 }
-            }
+            });
+        } catch (RejectedExecutionException e) {
+            // the range will be reserved synchronously when needed
+            sequence.prefetchedRange.compareAndSet(prefetchedRange, null);
         }
-        return sequences.get(sequenceId);
+    }
+
+    /**
+     * compute the size of the next range from the number of ids consumed since the current range was installed
+     */
+    private int computeNextRangeSize(Sequence sequence, long consumedIds) {
+        if (maxRangeSizeFactor == 1 || sequence.rangeStartNanos == 0) {
+            return sequence.rangeSize;
+        }
+        long elapsedNanos = Math.max(1, nanoTime() - sequence.rangeStartNanos);
+        long wantedSize = (long) (consumedIds * ((double) targetRangeDurationNanos / elapsedNanos));
+        // do not change the size too abruptly on a single measure
+        long currentSize = sequence.rangeSize;
+        long size = Math.max(currentSize / 2, Math.min(currentSize * 2, wantedSize));
+        size = Math.max(sequence.configuredRangeSize,
+                Math.min((long) sequence.configuredRangeSize * maxRangeSizeFactor, size));
+        sequence.rangeSize = (int) size;
+        return (int) size;
+    }
+
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    private Sequence getSequence(Long sequenceId) {
+        Sequence sequence = sequences.get(sequenceId);
+        if (sequence != null) {
+            return sequence;
+        }
+        synchronized (this) {
+            return sequences.computeIfAbsent(sequenceId,
+                    id -> new Sequence(id, sequenceIdToRangeSize.get(id)));
+        }
+    }
+
+    /**
+     * remove the meters of all sequences of this tenant from the registry
+     */
+    public synchronized void removeMeters() {
+        meters.forEach(meterRegistry::remove);
+        meters.clear();
     }
 
     private Long getSequenceId(String entityName) throws SObjectNotFoundException {
@@ -119,7 +272,7 @@ public class TenantSequenceManagerImpl {
      *
      * @return the next available id of the sequence
      */
-    private long setNewRange(final long sequenceId) throws SObjectNotFoundException {
+    private long setNewRange(final long sequenceId, final int rangeSize) throws SObjectNotFoundException {
         BonitaLock lock = createLock(sequenceId);
         Exception lastException = null;
         try {
@@ -134,7 +287,7 @@ public class TenantSequenceManagerImpl {
                     connection.setAutoCommit(false);
                     SequenceDAO sequenceDAO = createDao(connection, tenantId);
                     long nextAvailableId = sequenceDAO.selectById(sequenceId);
-                    sequenceDAO.updateSequence(nextAvailableId + sequenceIdToRangeSize.get(sequenceId), sequenceId);
+                    sequenceDAO.updateSequence(nextAvailableId + rangeSize, sequenceId);
                     connection.commit();
                     return nextAvailableId;
                 } catch (final SObjectNotFoundException t) {
@@ -210,6 +363,55 @@ public class TenantSequenceManagerImpl {
         return new SequenceDAO(connection, tenantId);
     }
 
+    private static final class Range {
+
+        private final long firstId;
+        private final int size;
+
+        private Range(long firstId, int size) {
+            this.firstId = firstId;
+            this.size = size;
+        }
+    }
+
+    private final class Sequence {
+
+        private final long sequenceId;
+        private final int configuredRangeSize;
+        private final SequenceRange range;
+        // size of the next range to reserve
+        private volatile int rangeSize;
+        private volatile long rangeFirstId;
+        private volatile int rangeSizeInUse;
+        private volatile long rangeStartNanos;
+        private volatile long prefetchThresholdId = Long.MAX_VALUE;
+        private final AtomicReference<CompletableFuture<Range>> prefetchedRange = new AtomicReference<>();
+        private final Counter synchronousRefills;
+        private final Counter prefetchedRefills;
+        private final Timer waitDuration;
+
+        private Sequence(long sequenceId, int configuredRangeSize) {
+            this.sequenceId = sequenceId;
+            this.configuredRangeSize = configuredRangeSize;
+            this.rangeSize = configuredRangeSize;
+            this.range = new SequenceRange(configuredRangeSize);
+            Tags tags = Tags.of("tenant", String.valueOf(tenantId), "sequence", String.valueOf(sequenceId));
+            synchronousRefills = Counter.builder(NUMBER_OF_RANGE_REFILLS).tags(tags).tag("mode", "synchronous")
+                    .baseUnit("ranges").description("Ranges of ids reserved in database while callers were waiting")
+                    .register(meterRegistry);
+            prefetchedRefills = Counter.builder(NUMBER_OF_RANGE_REFILLS).tags(tags).tag("mode", "prefetch")
+                    .baseUnit("ranges").description("Ranges of ids reserved in database in background")
+                    .register(meterRegistry);
+            waitDuration = Timer.builder(RANGE_WAIT_DURATION).tags(tags)
+                    .description("Time spent by callers waiting for the next range of ids").register(meterRegistry);
+            meters.add(synchronousRefills);
+            meters.add(prefetchedRefills);
+            meters.add(waitDuration);
+            meters.add(Gauge.builder(RANGE_SIZE, this, s -> s.rangeSize).tags(tags).baseUnit("ids")
+                    .description("Size of the next range of ids to reserve").register(meterRegistry));
+        }
+    }
+
     private static void manageException(int attempt, final long sleepTime, final Exception t) {
         logger.error("Unable to retrieve and update sequence in database because: {}." +
                 "( attempt #{} ). Will sleep {} millis before retrying. ", t.getMessage(), attempt, sleepTime);
@@ -105,6 +105,14 @@ public interface PersistenceService extends ReadPersistenceService {
      */
     void flushStatements() throws SPersistenceException;
 
+    /**
+     * Flush the pending statements then detach all objects loaded in the current session, so that long transactions
+     * processing many objects by batches do not keep them all in memory.
+     *
+     * @throws SPersistenceException
+     */
+    void flushStatementsAndClear() throws SPersistenceException;
+
     /**
      * Delete a record from the table by id and its class type.
      *
@@ -0,0 +1,132 @@
+/**
+ * Copyright (C) 2020 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.persistence;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.bonitasoft.engine.commons.exceptions.SRetryableException;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.bonitasoft.engine.services.SPersistenceException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.exception.LockAcquisitionException;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AbstractHibernatePersistenceServiceTest {
+
+    @Mock
+    private SessionFactory sessionFactory;
+    @Mock
+    private Session session;
+    @Mock
+    private Statistics statistics;
+
+    private AbstractHibernatePersistenceService persistenceService;
+
+    @Before
+    public void before() throws Exception {
+        doReturn(statistics).when(sessionFactory).getStatistics();
+        persistenceService = new PlatformHibernatePersistenceService(sessionFactory,
+                Arrays.asList(Book.class, Author.class), Collections.emptyMap(), false, Collections.emptySet(),
+                mock(TechnicalLoggerService.class));
+    }
+
+    @Test
+    public void insertInBatch_should_save_entities_in_the_given_order() throws Exception {
+        final Book book1 = book(1L);
+        final Author author1 = new Author(2L);
+        final Book book2 = book(3L);
+        final Author author2 = new Author(4L);
+        doReturn(session).when(sessionFactory).getCurrentSession();
+
+        persistenceService.insertInBatch(Arrays.asList(book1, author1, book2, author2));
+
+        final InOrder inOrder = inOrder(session);
+        inOrder.verify(session).save(book1);
+        inOrder.verify(session).save(author1);
+        inOrder.verify(session).save(book2);
+        inOrder.verify(session).save(author2);
+    }
+
+    @Test
+    public void insertInBatch_should_not_save_anything_when_an_entity_is_not_mapped() {
+        final List<PersistentObject> entities = Arrays.asList(book(1L), new TestObject());
+
+        assertThatThrownBy(() -> persistenceService.insertInBatch(entities))
+                .isInstanceOf(SPersistenceException.class);
+
+        verify(session, never()).save(any());
+    }
+
+    @Test
+    public void insertInBatch_should_throw_retryable_exception_when_lock_cannot_be_acquired() {
+        final Book book = book(1L);
+        doReturn(session).when(sessionFactory).getCurrentSession();
+        doThrow(new LockAcquisitionException("lock", null)).when(session).save(book);
+
+        assertThatThrownBy(() -> persistenceService.insertInBatch(Collections.singletonList(book)))
+                .isInstanceOf(SRetryableException.class);
+    }
+
+    private static Book book(long id) {
+        final Book book = new Book();
+        book.setId(id);
+        return book;
+    }
+
+    private static class Author implements PersistentObject {
+
+        private static final long serialVersionUID = 1L;
+
+        private long id;
+
+        Author(long id) {
+            this.id = id;
+        }
+
+        @Override
+        public long getId() {
+            return id;
+        }
+
+        @Override
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        @Override
+        public void setTenantId(long id) {
+
+        }
+    }
+
+}
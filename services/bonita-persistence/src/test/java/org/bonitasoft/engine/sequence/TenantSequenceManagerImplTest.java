@@ -24,9 +24,13 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import javax.sql.DataSource;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.bonitasoft.engine.commons.exceptions.SObjectNotFoundException;
 import org.bonitasoft.engine.lock.BonitaLock;
 import org.bonitasoft.engine.lock.LockService;
@@ -66,16 +70,18 @@ public class TenantSequenceManagerImplTest {
     private Connection connection;
 
     private TenantSequenceManagerImpl tenantSequenceManager;
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private long nanoTime = 1_000;
+    private HashMap<Long, Integer> sequenceIdToRangeSize = new HashMap<>();
+    private HashMap<String, Long> classNameToSequenceId = new HashMap<>();
 
     @Before
     public void before() throws Exception {
         doReturn(connection).when(dataSource).getConnection();
-        HashMap<Long, Integer> sequenceIdToRangeSize = new HashMap<>();
         sequenceIdToRangeSize.put(SEQUENCE_w_2, 2);
         sequenceIdToRangeSize.put(SEQUENCE_w_5, 5);
         sequenceIdToRangeSize.put(SEQUENCE_w_100, 100);
         sequenceIdToRangeSize.put(SEQUENCE_w_1000, 1000);
-        HashMap<String, Long> classNameToSequenceId = new HashMap<>();
         classNameToSequenceId.put(OBJECT_w_2, SEQUENCE_w_2);
         classNameToSequenceId.put(OBJECT_w_5, SEQUENCE_w_5);
         classNameToSequenceId.put(OBJECT_w_100, SEQUENCE_w_100);
@@ -83,16 +89,39 @@ public class TenantSequenceManagerImplTest {
 
         doReturn(lock).when(lockService).lock(anyLong(), anyString(), anyLong());
 
-        tenantSequenceManager = new TenantSequenceManagerImpl(TENANT_ID, lockService, sequenceIdToRangeSize,
-                classNameToSequenceId, dataSource, RETRIES, 1, 1) {
+        // no prefetch and fixed range size
+        tenantSequenceManager = createTenantSequenceManager(Runnable::run, 0, 1);
+    }
+
+    private TenantSequenceManagerImpl createTenantSequenceManager(Executor prefetchExecutor, double prefetchThreshold,
+            int maxRangeSizeFactor) {
+        return new TenantSequenceManagerImpl(TENANT_ID, lockService, sequenceIdToRangeSize,
+                classNameToSequenceId, dataSource, RETRIES, 1, 1, meterRegistry, prefetchExecutor, prefetchThreshold,
+                maxRangeSizeFactor, 1000) {
 
             @Override
             SequenceDAO createDao(Connection connection, Long tenantId) {
                 return sequenceDAO;
             }
+
+            @Override
+            long nanoTime() {
+                return nanoTime;
+            }
         };
     }
 
+    private void takeIds(String entityName, int numberOfIds) throws Exception {
+        for (int i = 0; i < numberOfIds; i++) {
+            tenantSequenceManager.getNextId(entityName);
+        }
+    }
+
+    private double refills(long sequenceId, String mode) {
+        return meterRegistry.find(TenantSequenceManagerImpl.NUMBER_OF_RANGE_REFILLS)
+                .tag("sequence", String.valueOf(sequenceId)).tag("mode", mode).counter().count();
+    }
+
     @Test
     public void should_get_next_id_from_database() throws Exception {
         doReturn(100L).when(sequenceDAO).selectById(SEQUENCE_w_100);
@@ -269,4 +298,97 @@ public class TenantSequenceManagerImplTest {
         assertThatThrownBy(() -> tenantSequenceManager.getNextId(OBJECT_w_5))
                 .hasMessage("Unable to get a sequence id for 554");
     }
+
+    @Test
+    public void should_reserve_next_range_in_background_once_threshold_is_reached() throws Exception {
+        tenantSequenceManager = createTenantSequenceManager(Runnable::run, 0.6, 1);
+        doReturn(100L, 200L).when(sequenceDAO).selectById(SEQUENCE_w_5);
+
+        takeIds(OBJECT_w_5, 3);
+        verify(sequenceDAO, times(1)).selectById(SEQUENCE_w_5);
+        assertThat(tenantSequenceManager.getNextId(OBJECT_w_5)).isEqualTo(103);
+        verify(sequenceDAO, times(2)).selectById(SEQUENCE_w_5);
+
+        assertThat(tenantSequenceManager.getNextId(OBJECT_w_5)).isEqualTo(104);
+        assertThat(tenantSequenceManager.getNextId(OBJECT_w_5)).isEqualTo(200);
+        verify(sequenceDAO, times(2)).selectById(SEQUENCE_w_5);
+        assertThat(refills(SEQUENCE_w_5, "synchronous")).isEqualTo(1);
+        assertThat(refills(SEQUENCE_w_5, "prefetch")).isEqualTo(1);
+    }
+
+    @Test
+    public void should_reserve_next_range_when_needed_if_reserving_it_in_background_failed() throws Exception {
+        tenantSequenceManager = createTenantSequenceManager(Runnable::run, 0.6, 1);
+        doReturn(100L).doThrow(new SQLException("SQL error")).doThrow(new SQLException("SQL error")).doReturn(300L)
+                .when(sequenceDAO).selectById(SEQUENCE_w_5);
+
+        takeIds(OBJECT_w_5, 5);
+
+        assertThat(tenantSequenceManager.getNextId(OBJECT_w_5)).isEqualTo(300);
+        assertThat(refills(SEQUENCE_w_5, "synchronous")).isEqualTo(2);
+    }
+
+    @Test
+    public void should_reserve_next_range_synchronously_when_background_execution_is_rejected() throws Exception {
+        tenantSequenceManager = createTenantSequenceManager(r -> {
+            throw new RejectedExecutionException();
+        }, 0.6, 1);
+        doReturn(100L, 200L).when(sequenceDAO).selectById(SEQUENCE_w_5);
+
+        takeIds(OBJECT_w_5, 5);
+
+        assertThat(tenantSequenceManager.getNextId(OBJECT_w_5)).isEqualTo(200);
+    }
+
+    @Test
+    public void should_increase_range_size_when_ids_are_consumed_faster_than_target_range_duration()
+            throws Exception {
+        tenantSequenceManager = createTenantSequenceManager(Runnable::run, 0, 4);
+        doReturn(100L, 200L, 300L).when(sequenceDAO).selectById(SEQUENCE_w_5);
+
+        takeIds(OBJECT_w_5, 5);
+        nanoTime += TimeUnit.MILLISECONDS.toNanos(100);
+        // 5 ids in 100ms: 50 ids would last the target duration, but the size is only doubled at once
+        assertThat(tenantSequenceManager.getNextId(OBJECT_w_5)).isEqualTo(200);
+        verify(sequenceDAO).updateSequence(210L, SEQUENCE_w_5);
+        takeIds(OBJECT_w_5, 9);
+        nanoTime += TimeUnit.MILLISECONDS.toNanos(10);
+        // never more than maxRangeSizeFactor times the configured size
+        assertThat(tenantSequenceManager.getNextId(OBJECT_w_5)).isEqualTo(300);
+        verify(sequenceDAO).updateSequence(320L, SEQUENCE_w_5);
+        assertThat(meterRegistry.find(TenantSequenceManagerImpl.RANGE_SIZE).gauge().value()).isEqualTo(20);
+    }
+
+    @Test
+    public void should_not_decrease_range_size_below_configured_size() throws Exception {
+        tenantSequenceManager = createTenantSequenceManager(Runnable::run, 0, 4);
+        doReturn(100L, 200L).when(sequenceDAO).selectById(SEQUENCE_w_5);
+
+        takeIds(OBJECT_w_5, 5);
+        nanoTime += TimeUnit.SECONDS.toNanos(100);
+        tenantSequenceManager.getNextId(OBJECT_w_5);
+
+        verify(sequenceDAO).updateSequence(205L, SEQUENCE_w_5);
+    }
+
+    @Test
+    public void should_record_time_spent_waiting_for_a_range() throws Exception {
+        doReturn(100L, 200L).when(sequenceDAO).selectById(SEQUENCE_w_5);
+
+        takeIds(OBJECT_w_5, 6);
+
+        assertThat(meterRegistry.find(TenantSequenceManagerImpl.RANGE_WAIT_DURATION)
+                .tag("tenant", String.valueOf(TENANT_ID)).tag("sequence", String.valueOf(SEQUENCE_w_5)).timer()
+                .count()).isEqualTo(2);
+    }
+
+    @Test
+    public void should_remove_meters() throws Exception {
+        doReturn(100L).when(sequenceDAO).selectById(SEQUENCE_w_5);
+        tenantSequenceManager.getNextId(OBJECT_w_5);
+
+        tenantSequenceManager.removeMeters();
+
+        assertThat(meterRegistry.getMeters()).isEmpty();
+    }
 }
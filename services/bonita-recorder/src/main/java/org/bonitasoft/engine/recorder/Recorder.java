@@ -13,6 +13,8 @@
  **/
 package org.bonitasoft.engine.recorder;
 
+import java.util.List;
+
 import org.bonitasoft.engine.recorder.model.DeleteAllRecord;
 import org.bonitasoft.engine.recorder.model.DeleteRecord;
 import org.bonitasoft.engine.recorder.model.InsertRecord;
@@ -31,6 +33,16 @@ public interface Recorder {
      */
     void recordInsert(InsertRecord record, String type) throws SRecorderException;
 
+    /**
+     * Add records of the same type to database in one batch, then fire the creation event of each record
+     *
+     * @param records
+     *        the records for insert
+     * @param type
+     * @throws SRecorderException
+     */
+    void recordInsertAll(List<InsertRecord> records, String type) throws SRecorderException;
+
     /**
      * Delete a record from database
      *
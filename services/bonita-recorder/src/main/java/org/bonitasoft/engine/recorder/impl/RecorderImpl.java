@@ -13,6 +13,7 @@
  **/
 package org.bonitasoft.engine.recorder.impl;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -65,6 +66,26 @@ public class RecorderImpl implements Recorder {
         }
     }
 
+    @Override
+    public void recordInsertAll(final List<InsertRecord> records, String type) throws SRecorderException {
+        if (records.isEmpty()) {
+            return;
+        }
+        final List<PersistentObject> entities = new ArrayList<>(records.size());
+        for (final InsertRecord record : records) {
+            entities.add(record.getEntity());
+        }
+        try {
+            persistenceService.insertInBatch(entities);
+            for (final PersistentObject entity : entities) {
+                eventService.fireEvent(createInsertEvent(entity, type));
+            }
+        } catch (final Exception e) {
+            logExceptionsFromHandlers(e);
+            throw new SRecorderException(e);
+        }
+    }
+
     private SInsertEvent createInsertEvent(PersistentObject entity, String type) {
         SInsertEvent sInsertEvent = new SInsertEvent(type + SEvent.CREATED);
         sInsertEvent.setObject(entity);
@@ -16,6 +16,7 @@ package org.bonitasoft.engine.recorder.impl;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.verify;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.UUID;
 
@@ -57,6 +58,17 @@ public class RecorderImplTest {
         verify(eventService).fireEvent(argThat(match("theEvent_CREATED", entity)));
     }
 
+    @Test
+    public void should_insert_in_batch_and_fire_event_of_each_entity_when_recording_inserts() throws Exception {
+        MyPersistentObject entity1 = entity();
+        MyPersistentObject entity2 = entity();
+        recorder.recordInsertAll(Arrays.asList(insertRecord(entity1), insertRecord(entity2)), "theEvent");
+
+        verify(persistenceService).insertInBatch(Arrays.asList(entity1, entity2));
+        verify(eventService).fireEvent(argThat(match("theEvent_CREATED", entity1)));
+        verify(eventService).fireEvent(argThat(match("theEvent_CREATED", entity2)));
+    }
+
     @Test
     public void should_fire_event_when_recording_an_update() throws Exception {
         MyPersistentObject entity = entity();
@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.session.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bonitasoft.engine.log.technical.TechnicalLoggerSLF4JImpl;
+import org.bonitasoft.engine.session.SessionProvider;
+import org.bonitasoft.engine.session.SessionService;
+import org.bonitasoft.engine.session.model.SSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Session handling done by the server API on each call (check the session is valid then renew it), on a random
+ * session among 1000, comparing the synchronized provider with {@link SessionProviderImpl}.
+ * Run with ./gradlew :services:bonita-session:jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionServiceBenchmark {
+
+    private static final int NUMBER_OF_SESSIONS = 1000;
+
+    @Param({ "synchronized", "concurrent" })
+    public String provider;
+
+    private SessionService sessionService;
+    private long[] sessionIds;
+
+    @Setup
+    public void setup() throws Exception {
+        SessionProvider sessionProvider = "synchronized".equals(provider) ? new SynchronizedSessionProvider()
+                : new SessionProviderImpl();
+        sessionService = new SessionServiceImpl(sessionProvider, "benchmark", new TechnicalLoggerSLF4JImpl());
+        sessionIds = new long[NUMBER_OF_SESSIONS];
+        for (int i = 0; i < NUMBER_OF_SESSIONS; i++) {
+            sessionIds[i] = sessionService.createSession(1L, i, "user" + i, false).getId();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionService.deleteSessions();
+    }
+
+    private boolean apiCall() throws Exception {
+        long sessionId = sessionIds[ThreadLocalRandom.current().nextInt(NUMBER_OF_SESSIONS)];
+        boolean valid = sessionService.isValid(sessionId);
+        sessionService.renewSession(sessionId);
+        return valid;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean apiCall_8_threads() throws Exception {
+        return apiCall();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public boolean apiCall_32_threads() throws Exception {
+        return apiCall();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public boolean apiCall_64_threads() throws Exception {
+        return apiCall();
+    }
+
+    private static final class SynchronizedSessionProvider extends AbstractSessionProvider {
+
+        private final Map<Long, SSession> sessions = new HashMap<>();
+
+        @Override
+        protected Map<Long, SSession> getSessions() {
+            return sessions;
+        }
+    }
+
+}
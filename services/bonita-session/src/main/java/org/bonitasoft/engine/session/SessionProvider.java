@@ -13,6 +13,8 @@
  **/
 package org.bonitasoft.engine.session;
 
+import java.util.Date;
+
 import org.bonitasoft.engine.session.model.SSession;
 
 public interface SessionProvider {
@@ -31,4 +33,16 @@ public interface SessionProvider {
 
     void deleteSessionsOfTenant(long tenantId, boolean keepTechnicalSessions);
 
+    /**
+     * Set the last renew date of the session to now
+     *
+     * @param sessionId
+     *        the session id
+     * @throws SSessionNotFoundException
+     *         if there is no session having this id
+     */
+    default void renewSession(final long sessionId) throws SSessionNotFoundException {
+        updateSession(getSession(sessionId).toBuilder().lastRenewDate(new Date()).build());
+    }
+
 }
@@ -24,6 +24,9 @@ import org.bonitasoft.engine.session.SessionProvider;
 import org.bonitasoft.engine.session.model.SSession;
 
 /**
+ * Session provider serializing all accesses to a map that is not thread safe.
+ * {@link SessionProviderImpl} does not use it anymore, it is kept for providers that need such a map.
+ *
  * @author Baptiste Mesta
  */
 public abstract class AbstractSessionProvider implements SessionProvider {
@@ -13,22 +13,123 @@
  **/
 package org.bonitasoft.engine.session.impl;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.bonitasoft.engine.session.SSessionAlreadyExistsException;
+import org.bonitasoft.engine.session.SSessionNotFoundException;
+import org.bonitasoft.engine.session.SessionProvider;
 import org.bonitasoft.engine.session.model.SSession;
 
 /**
+ * Keeps sessions of all tenants in a concurrent map shared by all instances.
+ * <p>
+ * Lookups never lock. Renewing a session, which is done on each API call, only updates the last renew time of its
+ * entry, the session returned by {@link #getSession(long)} is rebuilt lazily when it changed.
+ * Invalid sessions are swept while iterating the map, without blocking lookups.
+ *
  * @author Elias Ricken de Medeiros
  * @author Matthieu Chaffotte
  */
-public final class SessionProviderImpl extends AbstractSessionProvider {
+public final class SessionProviderImpl implements SessionProvider {
 
-    static Map<Long, SSession> sessions = new HashMap<Long, SSession>();
+    private static final ConcurrentHashMap<Long, SessionEntry> sessions = new ConcurrentHashMap<>();
 
     @Override
-    protected Map<Long, SSession> getSessions() {
-        return sessions;
+    public void addSession(final SSession session) throws SSessionAlreadyExistsException {
+        final long id = session.getId();
+        if (sessions.putIfAbsent(id, new SessionEntry(session)) != null) {
+            throw new SSessionAlreadyExistsException("A session wih id \"" + id + "\" already exists");
+        }
+    }
+
+    @Override
+    public void removeSession(final long sessionId) throws SSessionNotFoundException {
+        if (sessions.remove(sessionId) == null) {
+            throw new SSessionNotFoundException("No session found with id \"" + sessionId + "\"");
+        }
+    }
+
+    @Override
+    public SSession getSession(final long sessionId) throws SSessionNotFoundException {
+        return getEntry(sessionId).getSession();
+    }
+
+    @Override
+    public void updateSession(final SSession session) throws SSessionNotFoundException {
+        final long id = session.getId();
+        if (sessions.computeIfPresent(id, (key, entry) -> new SessionEntry(session)) == null) {
+            throw new SSessionNotFoundException("No session found with id \"" + id + "\"");
+        }
+    }
+
+    @Override
+    public void renewSession(final long sessionId) throws SSessionNotFoundException {
+        getEntry(sessionId).renew(System.currentTimeMillis());
+    }
+
+    private SessionEntry getEntry(final long sessionId) throws SSessionNotFoundException {
+        final SessionEntry entry = sessions.get(sessionId);
+        if (entry == null) {
+            throw new SSessionNotFoundException("No session found with id \"" + sessionId + "\"");
+        }
+        return entry;
+    }
+
+    @Override
+    public void cleanInvalidSessions() {
+        final long now = System.currentTimeMillis();
+        sessions.values().removeIf(entry -> !entry.isValid(now));
+    }
+
+    @Override
+    public void removeSessions() {
+        sessions.clear();
+    }
+
+    @Override
+    public void deleteSessionsOfTenant(final long tenantId, final boolean keepTechnicalSessions) {
+        sessions.values().removeIf(entry -> {
+            final SSession session = entry.session;
+            return tenantId == session.getTenantId() && (!keepTechnicalSessions || !session.isTechnicalUser());
+        });
+    }
+
+    private static final class SessionEntry {
+
+        private final SSession session;
+        private volatile long lastRenewTime;
+        private volatile SSession renewedSession;
+
+        SessionEntry(final SSession session) {
+            this.session = session;
+            lastRenewTime = getTime(session.getLastRenewDate());
+            renewedSession = session;
+        }
+
+        private static long getTime(final Date date) {
+            return date != null ? date.getTime() : Long.MIN_VALUE;
+        }
+
+        void renew(final long now) {
+            lastRenewTime = now;
+        }
+
+        boolean isValid(final long now) {
+            return lastRenewTime + session.getDuration() > now;
+        }
+
+        SSession getSession() {
+            final long renewTime = lastRenewTime;
+            SSession current = renewedSession;
+            if (getTime(current.getLastRenewDate()) != renewTime) {
+                // concurrent rebuilds are harmless: they produce the same session
+                current = session.toBuilder().lastRenewDate(new Date(renewTime)).build();
+                renewedSession = current;
+            }
+            return current;
+        }
+
     }
 
 }
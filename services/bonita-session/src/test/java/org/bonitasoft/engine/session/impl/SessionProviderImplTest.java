@@ -13,9 +13,13 @@
  **/
 package org.bonitasoft.engine.session.impl;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.Date;
+
 import org.bonitasoft.engine.session.SSessionNotFoundException;
 import org.bonitasoft.engine.session.SessionProvider;
 import org.bonitasoft.engine.session.model.SSession;
@@ -91,4 +95,46 @@ public class SessionProviderImplTest {
         }
     }
 
+    @Test
+    public void testRenewSession() throws Exception {
+        final Date created = new Date(System.currentTimeMillis() - 10000);
+        sessionProvider.addSession(SSession.builder().id(12L).tenantId(1).userName("john").userId(12)
+                .creationDate(created).lastRenewDate(created).duration(3600000).build());
+
+        sessionProvider.renewSession(12L);
+
+        final SSession session = sessionProvider.getSession(12L);
+        assertTrue(session.getLastRenewDate().after(created));
+        assertEquals(created, session.getCreationDate());
+        assertEquals("john", session.getUserName());
+    }
+
+    @Test(expected = SSessionNotFoundException.class)
+    public void testRenewUnexistingSession() throws Exception {
+        sessionProvider.renewSession(10L);
+    }
+
+    @Test
+    public void testCleanInvalidSessions() throws Exception {
+        final Date longAgo = new Date(System.currentTimeMillis() - 20000);
+        sessionProvider.addSession(SSession.builder().id(54L).tenantId(1).userName("john").userId(12)
+                .lastRenewDate(longAgo).duration(10000).build());
+        sessionProvider.addSession(SSession.builder().id(55L).tenantId(1).userName("jack").userId(13)
+                .lastRenewDate(longAgo).duration(10000).build());
+        sessionProvider.addSession(SSession.builder().id(56L).tenantId(1).userName("jane").userId(14)
+                .lastRenewDate(new Date()).duration(10000).build());
+        sessionProvider.renewSession(55L);
+
+        sessionProvider.cleanInvalidSessions();
+
+        sessionProvider.getSession(55L);
+        sessionProvider.getSession(56L);
+        try {
+            sessionProvider.getSession(54L);
+            fail("session 54 should be deleted because it is expired");
+        } catch (SSessionNotFoundException e) {
+
+        }
+    }
+
 }
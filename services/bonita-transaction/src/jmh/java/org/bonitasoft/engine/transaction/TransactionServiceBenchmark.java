@@ -0,0 +1,122 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.transaction;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+import javax.transaction.TransactionManager;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.apache.commons.dbcp2.managed.BasicManagedDataSource;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerSLF4JImpl;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Transactions like the ones of works: a synchronization and a before commit callable are registered, then a row is
+ * inserted in an in-memory H2 database, comparing XA transactions of Narayana on a managed data source with
+ * {@link LocalTransactionManager} on a plain connection pool, both driven by {@link JTATransactionServiceImpl}.
+ * Run with ./gradlew :services:bonita-transaction:jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionServiceBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:transactions;DB_CLOSE_DELAY=-1";
+
+    @Param({ "jta", "local" })
+    public String transactions;
+
+    private TransactionService transactionService;
+    private DataSource dataSource;
+    private BasicDataSource pool;
+
+    @Setup
+    public void setup() throws Exception {
+        TransactionManager transactionManager;
+        if ("jta".equals(transactions)) {
+            transactionManager = com.arjuna.ats.jta.TransactionManager.transactionManager();
+            final JdbcDataSource xaDataSource = new JdbcDataSource();
+            xaDataSource.setURL(URL);
+            final BasicManagedDataSource managedDataSource = new BasicManagedDataSource();
+            managedDataSource.setXaDataSourceInstance(xaDataSource);
+            managedDataSource.setTransactionManager(transactionManager);
+            managedDataSource.setDefaultAutoCommit(false);
+            pool = managedDataSource;
+            dataSource = managedDataSource;
+        } else {
+            final LocalTransactionManager localTransactionManager = new LocalTransactionManager();
+            transactionManager = localTransactionManager;
+            pool = new BasicDataSource();
+            pool.setUrl(URL);
+            pool.setDefaultAutoCommit(false);
+            pool.setEnableAutoCommitOnReturn(false);
+            dataSource = new LocalTransactionDataSource(pool, localTransactionManager);
+        }
+        pool.setMaxTotal(16);
+        transactionService = new JTATransactionServiceImpl(new TechnicalLoggerSLF4JImpl(), transactionManager);
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS flownode (id BIGINT, name VARCHAR(50))");
+            connection.commit();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE flownode");
+            connection.commit();
+        }
+        pool.close();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Integer transaction() throws Exception {
+        return transactionService.executeInTransaction(() -> {
+            transactionService.registerBonitaSynchronization(transactionState -> {
+            });
+            transactionService.registerBeforeCommitCallable(() -> null);
+            try (Connection connection = dataSource.getConnection();
+                    PreparedStatement statement = connection
+                            .prepareStatement("INSERT INTO flownode (id, name) VALUES (?, ?)")) {
+                statement.setLong(1, ThreadLocalRandom.current().nextLong());
+                statement.setString(2, "step");
+                return statement.executeUpdate();
+            }
+        });
+    }
+
+}
@@ -0,0 +1,258 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.transaction;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+import javax.transaction.HeuristicMixedException;
+import javax.transaction.RollbackException;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.SystemException;
+import javax.transaction.Transaction;
+import javax.transaction.xa.XAResource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Transaction of the {@link LocalTransactionManager}, confined to the thread that began it.
+ */
+class LocalTransaction implements Transaction {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LocalTransaction.class);
+
+    private int status = Status.STATUS_ACTIVE;
+    private final List<Synchronization> synchronizations = new ArrayList<>();
+    private final Map<DataSource, BoundConnection> connections = new LinkedHashMap<>();
+
+    @Override
+    public int getStatus() {
+        return status;
+    }
+
+    boolean acceptsConnections() {
+        return status == Status.STATUS_ACTIVE || status == Status.STATUS_MARKED_ROLLBACK;
+    }
+
+    @Override
+    public void registerSynchronization(final Synchronization synchronization) throws RollbackException {
+        if (status == Status.STATUS_MARKED_ROLLBACK) {
+            throw new RollbackException("The transaction is marked for rollback only");
+        }
+        checkActive();
+        synchronizations.add(synchronization);
+    }
+
+    @Override
+    public void setRollbackOnly() {
+        if (!acceptsConnections()) {
+            throw new IllegalStateException("The transaction is not active, its status is " + status);
+        }
+        status = Status.STATUS_MARKED_ROLLBACK;
+    }
+
+    @Override
+    public boolean enlistResource(final XAResource xaResource) throws SystemException {
+        throw new SystemException("XA resources can not take part in a local transaction");
+    }
+
+    @Override
+    public boolean delistResource(final XAResource xaResource, final int flag) throws SystemException {
+        throw new SystemException("XA resources can not take part in a local transaction");
+    }
+
+    /**
+     * @return the connection of the given data source bound to this transaction, opened on first call
+     */
+    Connection getConnection(final DataSource dataSource) throws SQLException {
+        BoundConnection boundConnection = connections.get(dataSource);
+        if (boundConnection == null) {
+            boundConnection = new BoundConnection(dataSource.getConnection());
+            connections.put(dataSource, boundConnection);
+        }
+        return boundConnection.proxy;
+    }
+
+    @Override
+    public void commit() throws RollbackException, HeuristicMixedException, SystemException {
+        if (status == Status.STATUS_MARKED_ROLLBACK) {
+            rollback();
+            throw new RollbackException("The transaction was marked for rollback only");
+        }
+        checkActive();
+        try {
+            // synchronizations registered during this phase are also called
+            for (int i = 0; i < synchronizations.size(); i++) {
+                synchronizations.get(i).beforeCompletion();
+            }
+        } catch (final RuntimeException e) {
+            status = Status.STATUS_MARKED_ROLLBACK;
+            rollback();
+            throw rollbackException("A synchronization failed before completion", e);
+        }
+        if (status == Status.STATUS_MARKED_ROLLBACK) {
+            rollback();
+            throw new RollbackException("The transaction was marked for rollback only before completion");
+        }
+        status = Status.STATUS_COMMITTING;
+        int committed = 0;
+        try {
+            for (final BoundConnection boundConnection : connections.values()) {
+                boundConnection.connection.commit();
+                committed++;
+            }
+        } catch (final SQLException e) {
+            status = Status.STATUS_ROLLING_BACK;
+            rollbackConnections();
+            completeWith(Status.STATUS_ROLLEDBACK);
+            if (committed == 0) {
+                throw rollbackException("Unable to commit the transaction", e);
+            }
+            final HeuristicMixedException heuristicMixedException = new HeuristicMixedException(
+                    committed + " of the " + connections.size() + " connections were committed");
+            heuristicMixedException.initCause(e);
+            throw heuristicMixedException;
+        }
+        completeWith(Status.STATUS_COMMITTED);
+    }
+
+    @Override
+    public void rollback() throws SystemException {
+        if (!acceptsConnections()) {
+            throw new IllegalStateException("The transaction is not active, its status is " + status);
+        }
+        status = Status.STATUS_ROLLING_BACK;
+        final SQLException failure = rollbackConnections();
+        completeWith(Status.STATUS_ROLLEDBACK);
+        if (failure != null) {
+            final SystemException systemException = new SystemException("Unable to rollback the transaction");
+            systemException.initCause(failure);
+            throw systemException;
+        }
+    }
+
+    private void checkActive() {
+        if (status != Status.STATUS_ACTIVE) {
+            throw new IllegalStateException("The transaction is not active, its status is " + status);
+        }
+    }
+
+    private SQLException rollbackConnections() {
+        SQLException failure = null;
+        for (final BoundConnection boundConnection : connections.values()) {
+            try {
+                boundConnection.connection.rollback();
+            } catch (final SQLException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        return failure;
+    }
+
+    private void completeWith(final int completionStatus) {
+        status = completionStatus;
+        for (final BoundConnection boundConnection : connections.values()) {
+            boundConnection.release();
+        }
+        connections.clear();
+        for (final Synchronization synchronization : synchronizations) {
+            try {
+                synchronization.afterCompletion(completionStatus);
+            } catch (final RuntimeException e) {
+                LOG.warn("Synchronization {} failed after completion of the transaction", synchronization, e);
+            }
+        }
+    }
+
+    private static RollbackException rollbackException(final String message, final Exception cause) {
+        final RollbackException rollbackException = new RollbackException(message + ": " + cause.getMessage());
+        rollbackException.initCause(cause);
+        return rollbackException;
+    }
+
+    /**
+     * Connection bound to the transaction. Users of the data source get a proxy on which closing the connection or
+     * changing its transaction boundaries does nothing: they are handled by the transaction.
+     */
+    private static final class BoundConnection implements InvocationHandler {
+
+        private final Connection connection;
+        private final boolean autoCommit;
+        private final Connection proxy;
+
+        BoundConnection(final Connection connection) throws SQLException {
+            this.connection = connection;
+            autoCommit = connection.getAutoCommit();
+            if (autoCommit) {
+                connection.setAutoCommit(false);
+            }
+            proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class[] { Connection.class }, this);
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                case "commit":
+                case "setAutoCommit":
+                    return null;
+                case "rollback":
+                    if (args == null) {
+                        return null;
+                    }
+                    // rolling back to a savepoint is done on the connection
+                    break;
+                case "getAutoCommit":
+                    return false;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (final InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+
+        void release() {
+            try {
+                if (autoCommit) {
+                    connection.setAutoCommit(true);
+                }
+                connection.close();
+            } catch (final SQLException e) {
+                LOG.warn("Unable to close a connection of a local transaction", e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.transaction;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * Data source giving, during a transaction of the {@link LocalTransactionManager}, the connection bound to this
+ * transaction. Outside of a transaction, connections are the ones of the target data source.
+ * <p>
+ * The target data source must not be an XA one, its connections are committed by the transaction manager.
+ */
+public class LocalTransactionDataSource implements DataSource {
+
+    private final DataSource targetDataSource;
+    private final LocalTransactionManager transactionManager;
+
+    public LocalTransactionDataSource(final DataSource targetDataSource,
+            final LocalTransactionManager transactionManager) {
+        this.targetDataSource = targetDataSource;
+        this.transactionManager = transactionManager;
+    }
+
+    public DataSource getTargetDataSource() {
+        return targetDataSource;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final LocalTransaction transaction = transactionManager.getTransactionForConnections();
+        if (transaction == null) {
+            return targetDataSource.getConnection();
+        }
+        return transaction.getConnection(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        if (transactionManager.getTransactionForConnections() != null) {
+            throw new SQLFeatureNotSupportedException(
+                    "Connections with specific credentials can not take part in a local transaction");
+        }
+        return targetDataSource.getConnection(username, password);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return targetDataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(final PrintWriter out) throws SQLException {
+        targetDataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(final int seconds) throws SQLException {
+        targetDataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return targetDataSource.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return targetDataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(final Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return targetDataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(final Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || targetDataSource.isWrapperFor(iface);
+    }
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.transaction;
+
+import javax.transaction.HeuristicMixedException;
+import javax.transaction.HeuristicRollbackException;
+import javax.transaction.InvalidTransactionException;
+import javax.transaction.NotSupportedException;
+import javax.transaction.RollbackException;
+import javax.transaction.Status;
+import javax.transaction.SystemException;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
+import javax.transaction.UserTransaction;
+
+/**
+ * Transaction manager of resource-local transactions, to use instead of an XA transaction manager when the engine
+ * only uses one database.
+ * <p>
+ * Connections obtained from a {@link LocalTransactionDataSource} during a transaction are bound to it and committed in
+ * one phase, without XA nor transaction log. Hibernate, Quartz and {@link JTATransactionServiceImpl} keep using it
+ * through the JTA interfaces, so synchronizations and before commit callables behave as with an XA transaction manager.
+ * A transaction is only atomic when a single data source takes part in it: when the business data are stored in
+ * another database, their connection is committed after the one of the engine.
+ * Transaction timeouts are not supported.
+ */
+public class LocalTransactionManager implements TransactionManager, UserTransaction {
+
+    private final ThreadLocal<LocalTransaction> currentTransaction = new ThreadLocal<>();
+
+    @Override
+    public void begin() throws NotSupportedException {
+        if (currentTransaction.get() != null) {
+            throw new NotSupportedException("Nested transactions are not supported");
+        }
+        currentTransaction.set(new LocalTransaction());
+    }
+
+    @Override
+    public void commit() throws RollbackException, HeuristicMixedException, HeuristicRollbackException,
+            SystemException {
+        final LocalTransaction transaction = getExistingTransaction();
+        try {
+            transaction.commit();
+        } finally {
+            currentTransaction.remove();
+        }
+    }
+
+    @Override
+    public void rollback() throws SystemException {
+        final LocalTransaction transaction = getExistingTransaction();
+        try {
+            transaction.rollback();
+        } finally {
+            currentTransaction.remove();
+        }
+    }
+
+    @Override
+    public void setRollbackOnly() {
+        getExistingTransaction().setRollbackOnly();
+    }
+
+    @Override
+    public int getStatus() {
+        final LocalTransaction transaction = currentTransaction.get();
+        return transaction != null ? transaction.getStatus() : Status.STATUS_NO_TRANSACTION;
+    }
+
+    @Override
+    public Transaction getTransaction() {
+        return currentTransaction.get();
+    }
+
+    @Override
+    public void setTransactionTimeout(final int seconds) {
+        // timeouts are not supported
+    }
+
+    @Override
+    public Transaction suspend() {
+        final LocalTransaction transaction = currentTransaction.get();
+        currentTransaction.remove();
+        return transaction;
+    }
+
+    @Override
+    public void resume(final Transaction transaction) throws InvalidTransactionException {
+        if (transaction == null) {
+            return;
+        }
+        if (!(transaction instanceof LocalTransaction)) {
+            throw new InvalidTransactionException("Not a local transaction: " + transaction);
+        }
+        if (currentTransaction.get() != null) {
+            throw new IllegalStateException("A transaction is already associated with the thread");
+        }
+        currentTransaction.set((LocalTransaction) transaction);
+    }
+
+    /**
+     * @return the transaction of the current thread if connections can take part in it, null otherwise
+     */
+    LocalTransaction getTransactionForConnections() {
+        final LocalTransaction transaction = currentTransaction.get();
+        return transaction != null && transaction.acceptsConnections() ? transaction : null;
+    }
+
+    private LocalTransaction getExistingTransaction() {
+        final LocalTransaction transaction = currentTransaction.get();
+        if (transaction == null) {
+            throw new IllegalStateException("No transaction associated with the thread");
+        }
+        return transaction;
+    }
+
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.transaction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+import javax.transaction.RollbackException;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LocalTransactionDataSourceTest {
+
+    @Mock
+    private DataSource targetDataSource;
+    @Mock
+    private Connection connection;
+    @Mock
+    private Synchronization synchronization;
+    private LocalTransactionManager transactionManager;
+    private LocalTransactionDataSource dataSource;
+
+    @Before
+    public void before() {
+        transactionManager = new LocalTransactionManager();
+        dataSource = new LocalTransactionDataSource(targetDataSource, transactionManager);
+    }
+
+    @After
+    public void after() {
+        transactionManager.suspend();
+    }
+
+    private void beginWithConnection() throws Exception {
+        doReturn(connection).when(targetDataSource).getConnection();
+        doReturn(true).when(connection).getAutoCommit();
+        transactionManager.begin();
+    }
+
+    @Test
+    public void should_give_connections_of_the_target_outside_of_transactions() throws Exception {
+        doReturn(connection).when(targetDataSource).getConnection();
+
+        assertThat(dataSource.getConnection()).isSameAs(connection);
+    }
+
+    @Test
+    public void should_give_the_same_connection_during_a_transaction() throws Exception {
+        beginWithConnection();
+
+        final Connection first = dataSource.getConnection();
+        first.close();
+        final Connection second = dataSource.getConnection();
+
+        assertThat(second).isSameAs(first);
+        verify(targetDataSource).getConnection();
+        verify(connection).setAutoCommit(false);
+        verify(connection, never()).close();
+    }
+
+    @Test
+    public void should_commit_the_connection_between_synchronizations() throws Exception {
+        beginWithConnection();
+        transactionManager.getTransaction().registerSynchronization(synchronization);
+        final Connection transactionConnection = dataSource.getConnection();
+        transactionConnection.commit();
+
+        transactionManager.commit();
+
+        final InOrder inOrder = inOrder(synchronization, connection);
+        inOrder.verify(synchronization).beforeCompletion();
+        inOrder.verify(connection).commit();
+        inOrder.verify(connection).setAutoCommit(true);
+        inOrder.verify(connection).close();
+        inOrder.verify(synchronization).afterCompletion(Status.STATUS_COMMITTED);
+        assertThat(transactionManager.getStatus()).isEqualTo(Status.STATUS_NO_TRANSACTION);
+    }
+
+    @Test
+    public void should_rollback_the_connection_when_transaction_is_marked_rollback_only() throws Exception {
+        beginWithConnection();
+        transactionManager.getTransaction().registerSynchronization(synchronization);
+        dataSource.getConnection();
+        transactionManager.setRollbackOnly();
+
+        assertThatThrownBy(() -> transactionManager.commit()).isInstanceOf(RollbackException.class);
+
+        verify(connection).rollback();
+        verify(connection, never()).commit();
+        verify(synchronization, never()).beforeCompletion();
+        verify(synchronization).afterCompletion(Status.STATUS_ROLLEDBACK);
+    }
+
+    @Test
+    public void should_rollback_the_transaction_when_the_connection_can_not_be_committed() throws Exception {
+        beginWithConnection();
+        transactionManager.getTransaction().registerSynchronization(synchronization);
+        dataSource.getConnection();
+        doThrow(new SQLException("connection lost")).when(connection).commit();
+
+        assertThatThrownBy(() -> transactionManager.commit()).isInstanceOf(RollbackException.class)
+                .hasMessageContaining("connection lost");
+
+        verify(connection).rollback();
+        verify(connection).close();
+        verify(synchronization).afterCompletion(Status.STATUS_ROLLEDBACK);
+    }
+
+    @Test
+    public void should_rollback_the_transaction_when_a_synchronization_fails_before_completion() throws Exception {
+        beginWithConnection();
+        transactionManager.getTransaction().registerSynchronization(synchronization);
+        dataSource.getConnection();
+        doThrow(new IllegalStateException("flush failed")).when(synchronization).beforeCompletion();
+
+        assertThatThrownBy(() -> transactionManager.commit()).isInstanceOf(RollbackException.class)
+                .hasMessageContaining("flush failed");
+
+        verify(connection).rollback();
+        verify(connection, never()).commit();
+        verify(synchronization).afterCompletion(Status.STATUS_ROLLEDBACK);
+    }
+
+}
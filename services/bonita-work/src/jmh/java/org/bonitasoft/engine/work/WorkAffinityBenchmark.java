@@ -0,0 +1,179 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import static java.time.temporal.ChronoUnit.DAYS;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bonitasoft.engine.commons.time.DefaultEngineClock;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerSLF4JImpl;
+import org.bonitasoft.engine.work.audit.WorkExecutionAuditor;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Execute a burst of works on few process instances, like a process with parallel gateways does, every work locking
+ * its process instance with a 20ms timeout like LockProcessInstanceWork. Works failing to get the lock are submitted
+ * again.
+ * Compare the default pool with the executor having one lane per thread and process instance affinity.
+ * Run with ./gradlew :services:bonita-work:jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkAffinityBenchmark {
+
+    private static final long TENANT_ID = 1L;
+    private static final int THREADS = 8;
+    private static final int WORKS_PER_INSTANCE = 50;
+    private static final String PROCESS_INSTANCE_ID = "processInstanceId";
+
+    @Param({ "default", "affinity" })
+    public String executor;
+
+    @Param({ "4", "64" })
+    public int numberOfProcessInstances;
+
+    private final Map<Long, ReentrantLock> locks = new ConcurrentHashMap<>();
+    private final AtomicLong lockFailures = new AtomicLong();
+    private BonitaExecutorService executorService;
+    private volatile CountDownLatch remainingWorks;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Contention {
+
+        public long lockFailures;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        TechnicalLoggerSLF4JImpl loggerService = new TechnicalLoggerSLF4JImpl();
+        DefaultEngineClock engineClock = new DefaultEngineClock();
+        WorkExecutionAuditor auditor = new WorkExecutionAuditor(engineClock,
+                new WorkExecutionAuditor.RegistrationDurationElapsedCheckConfig(1, DAYS),
+                new WorkExecutionAuditor.ExecutionCountCheckConfig(Integer.MAX_VALUE, 1, DAYS));
+        auditor.setActivated(false);
+        WorkExecutionCallback callback = new WorkExecutionCallback() {
+
+            @Override
+            public void onSuccess(WorkDescriptor work) {
+            }
+
+            @Override
+            public void onFailure(WorkDescriptor work, BonitaWork bonitaWork, Map<String, Object> context,
+                    Throwable thrown) {
+            }
+        };
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WorkerThreadFactory threadFactory = new WorkerThreadFactory("bench-worker", TENANT_ID, THREADS);
+        if ("affinity".equals(executor)) {
+            List<BonitaThreadPoolExecutor> lanes = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                lanes.add(new BonitaThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(100_000),
+                        threadFactory, (r, e) -> {
+                        }, this::createWork, loggerService, engineClock, callback, auditor, meterRegistry, TENANT_ID,
+                        Tags.of("lane", String.valueOf(i))));
+            }
+            executorService = new AffinityBonitaExecutorService(lanes, PROCESS_INSTANCE_ID);
+        } else {
+            executorService = new BonitaThreadPoolExecutor(THREADS, THREADS, 0, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(100_000), threadFactory, (r, e) -> {
+                    }, this::createWork, loggerService, engineClock, callback, auditor, meterRegistry, TENANT_ID);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executorService.shutdownAndEmptyQueue();
+    }
+
+    private BonitaWork createWork(WorkDescriptor descriptor) {
+        return new BonitaWork() {
+
+            @Override
+            public String getDescription() {
+                return descriptor.toString();
+            }
+
+            @Override
+            public CompletableFuture<Void> work(Map<String, Object> context) throws Exception {
+                ReentrantLock lock = locks.computeIfAbsent(descriptor.getLong(PROCESS_INSTANCE_ID),
+                        k -> new ReentrantLock());
+                if (!lock.tryLock(20, TimeUnit.MILLISECONDS)) {
+                    lockFailures.incrementAndGet();
+                    // same as the lock retry: the work is executed again later
+                    executorService.submit(descriptor);
+                    return CompletableFuture.completedFuture(null);
+                }
+                try {
+                    // executing a flow node and creating the works of its outgoing transitions
+                    TimeUnit.MICROSECONDS.sleep(200);
+                } finally {
+                    lock.unlock();
+                }
+                remainingWorks.countDown();
+                return CompletableFuture.completedFuture(null);
+            }
+
+            @Override
+            public void handleFailure(Throwable e, Map<String, Object> context) {
+                // do nothing
+            }
+        };
+    }
+
+    @Benchmark
+    public void executeGatewayHeavyWorks(Contention contention) throws Exception {
+        int numberOfWorks = numberOfProcessInstances * WORKS_PER_INSTANCE;
+        remainingWorks = new CountDownLatch(numberOfWorks);
+        long failuresBefore = lockFailures.get();
+        for (int i = 0; i < WORKS_PER_INSTANCE; i++) {
+            for (long processInstanceId = 1; processInstanceId <= numberOfProcessInstances; processInstanceId++) {
+                executorService.submit(WorkDescriptor.create("FLOW_NODE").withParameter(PROCESS_INSTANCE_ID,
+                        processInstanceId));
+            }
+        }
+        remainingWorks.await();
+        contention.lockFailures += lockFailures.get() - failuresBefore;
+    }
+
+}
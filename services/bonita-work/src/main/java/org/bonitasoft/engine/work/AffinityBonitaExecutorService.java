@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BonitaExecutorService} made of several single thread lanes. Works are routed to a lane using the value of
+ * their routing parameter (e.g. the process instance id), so that all works of a same process instance are executed
+ * one after the other, in submission order, and never compete for the same process instance lock.
+ * Works not having the routing parameter are spread on lanes using their uuid.
+ */
+public class AffinityBonitaExecutorService implements BonitaExecutorService {
+
+    private final List<BonitaThreadPoolExecutor> lanes;
+    private final String routingParameter;
+
+    public AffinityBonitaExecutorService(List<BonitaThreadPoolExecutor> lanes, String routingParameter) {
+        this.lanes = lanes;
+        this.routingParameter = routingParameter;
+    }
+
+    @Override
+    public void submit(WorkDescriptor work) {
+        lanes.get(getLane(work)).submit(work);
+    }
+
+    int getLane(WorkDescriptor work) {
+        long routingKey;
+        Serializable value = work.hasParameter(routingParameter) ? work.getParameter(routingParameter) : null;
+        if (value instanceof Number && ((Number) value).longValue() > 0) {
+            routingKey = ((Number) value).longValue();
+        } else {
+            routingKey = work.getUuid().hashCode();
+        }
+        // spread consecutive ids on all lanes
+        long h = routingKey * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(h ^ (h >>> 32), (long) lanes.size());
+    }
+
+    @Override
+    public void clearAllQueues() {
+        lanes.forEach(BonitaThreadPoolExecutor::clearAllQueues);
+    }
+
+    @Override
+    public void shutdownAndEmptyQueue() {
+        lanes.forEach(BonitaThreadPoolExecutor::shutdownAndEmptyQueue);
+    }
+
+    @Override
+    public int getNumberOfPendingWorks() {
+        int pendingWorks = 0;
+        for (BonitaThreadPoolExecutor lane : lanes) {
+            pendingWorks += lane.getNumberOfPendingWorks();
+        }
+        return pendingWorks;
+    }
+
+    @Override
+    public boolean awaitTermination(long workTerminationTimeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(workTerminationTimeout);
+        for (BonitaThreadPoolExecutor lane : lanes) {
+            if (!lane.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "AffinityBonitaExecutorService[lanes=" + lanes.size() + ", routingParameter=" + routingParameter + "]";
+    }
+}
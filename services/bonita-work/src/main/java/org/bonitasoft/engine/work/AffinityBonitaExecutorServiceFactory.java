@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.bonitasoft.engine.commons.time.EngineClock;
+import org.bonitasoft.engine.log.technical.TechnicalLogSeverity;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.bonitasoft.engine.monitoring.ExecutorServiceMetricsProvider;
+import org.bonitasoft.engine.work.audit.WorkExecutionAuditor;
+
+/**
+ * Creates an {@link AffinityBonitaExecutorService}: works are executed on a fixed number of single thread lanes and
+ * all works having the same value for the routing parameter (e.g. processInstanceId) are executed on the same lane.
+ * The queue capacity is shared between lanes.
+ * Metrics of each lane are published with a "lane" tag in addition to the tenant.
+ */
+public class AffinityBonitaExecutorServiceFactory implements BonitaExecutorServiceFactory {
+
+    private static final String EXECUTOR_NAME = "bonita-work-executor-lane-";
+
+    private final TechnicalLoggerService logger;
+    private final WorkFactory workFactory;
+    private final long tenantId;
+    private final int numberOfLanes;
+    private final int queueCapacity;
+    private final String routingParameter;
+    private final EngineClock engineClock;
+    private final WorkExecutionAuditor workExecutionAuditor;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorServiceMetricsProvider executorServiceMetricsProvider;
+
+    public AffinityBonitaExecutorServiceFactory(final TechnicalLoggerService logger, WorkFactory workFactory,
+            final long tenantId, final int numberOfLanes, final int queueCapacity, String routingParameter,
+            EngineClock engineClock, WorkExecutionAuditor workExecutionAuditor, MeterRegistry meterRegistry,
+            ExecutorServiceMetricsProvider executorServiceMetricsProvider) {
+        this.logger = logger;
+        this.workFactory = workFactory;
+        this.tenantId = tenantId;
+        this.numberOfLanes = numberOfLanes;
+        this.queueCapacity = queueCapacity;
+        this.routingParameter = routingParameter;
+        this.engineClock = engineClock;
+        this.workExecutionAuditor = workExecutionAuditor;
+        this.meterRegistry = meterRegistry;
+        this.executorServiceMetricsProvider = executorServiceMetricsProvider;
+    }
+
+    @Override
+    public BonitaExecutorService createExecutorService(WorkExecutionCallback workExecutionCallback) {
+        final WorkerThreadFactory threadFactory = new WorkerThreadFactory("Bonita-Worker", tenantId, numberOfLanes);
+        final RejectedExecutionHandler handler = new QueueRejectedExecutionHandler();
+        final int laneQueueCapacity = Math.max(1, queueCapacity / numberOfLanes);
+        List<BonitaThreadPoolExecutor> lanes = new ArrayList<>(numberOfLanes);
+        for (int i = 0; i < numberOfLanes; i++) {
+            BonitaThreadPoolExecutor lane = new BonitaThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(laneQueueCapacity), threadFactory, handler, workFactory, logger,
+                    engineClock, workExecutionCallback, workExecutionAuditor, meterRegistry, tenantId,
+                    Tags.of("lane", String.valueOf(i)));
+            executorServiceMetricsProvider.bindMetricsOnly(meterRegistry, lane, EXECUTOR_NAME + i, tenantId);
+            lanes.add(lane);
+        }
+        AffinityBonitaExecutorService executorService = new AffinityBonitaExecutorService(lanes, routingParameter);
+        logger.log(this.getClass(), TechnicalLogSeverity.INFO,
+                "Creating a new executor with affinity to handle works: " + executorService);
+        return executorService;
+    }
+
+    @Override
+    public void unbind() {
+        for (int i = 0; i < numberOfLanes; i++) {
+            executorServiceMetricsProvider.unbind(meterRegistry, EXECUTOR_NAME + i, tenantId);
+        }
+    }
+
+    private final class QueueRejectedExecutionHandler implements RejectedExecutionHandler {
+
+        @Override
+        public void rejectedExecution(final Runnable task, final ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                logger.log(getClass(), TechnicalLogSeverity.INFO, "Tried to run work " + task
+                        + " but the work service is shutdown. work will be restarted with the node");
+            } else {
+                throw new RejectedExecutionException(
+                        "Unable to run the task "
+                                + task
+                                + "\n the work queue of the lane is full you might consider changing your configuration to scale more. See parameter 'queueCapacity' in bonita.home configuration files.");
+            }
+        }
+
+    }
+
+}
@@ -40,6 +40,11 @@ public interface BonitaExecutorService {
      */
     void submit(WorkDescriptor work);
 
+    /**
+     * @return the number of works waiting for a thread
+     */
+    int getNumberOfPendingWorks();
+
     boolean awaitTermination(long workTerminationTimeout, TimeUnit seconds) throws InterruptedException;
 
 }
@@ -13,7 +13,6 @@
  **/
 package org.bonitasoft.engine.work;
 
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
@@ -43,11 +42,13 @@ public class BonitaThreadPoolExecutor extends ThreadPoolExecutor implements Boni
     public static final String NUMBER_OF_WORKS_PENDING = "bonita.bpmengine.work.pending";
     public static final String NUMBER_OF_WORKS_RUNNING = "bonita.bpmengine.work.running";
     public static final String NUMBER_OF_WORKS_EXECUTED = "bonita.bpmengine.work.executed";
+    public static final String NUMBER_OF_WORKS_DELAYED = "bonita.bpmengine.work.delayed";
+    public static final String NUMBER_OF_WORKS_DELAYED_TOTAL = "bonita.bpmengine.work.delayed.total";
 
     private final BlockingQueue<Runnable> workQueue;
     private final WorkFactory workFactory;
     private final TechnicalLogger log;
-    private final EngineClock engineClock;
+    private final DelayedWorkScheduler delayedWorkScheduler;
     private final WorkExecutionCallback workExecutionCallback;
     private WorkExecutionAuditor workExecutionAuditor;
     private MeterRegistry meterRegistry;
@@ -56,6 +57,8 @@ public class BonitaThreadPoolExecutor extends ThreadPoolExecutor implements Boni
     private final Counter executedWorkCounter;
     private final Gauge numberOfWorksPending;
     private final Gauge numberOfWorksRunning;
+    private final Gauge numberOfWorksDelayed;
+    private final Counter delayedWorkCounter;
 
     public BonitaThreadPoolExecutor(final int corePoolSize,
             final int maximumPoolSize,
@@ -66,17 +69,36 @@ public class BonitaThreadPoolExecutor extends ThreadPoolExecutor implements Boni
             final RejectedExecutionHandler handler, WorkFactory workFactory, final TechnicalLoggerService logger,
             EngineClock engineClock, WorkExecutionCallback workExecutionCallback,
             WorkExecutionAuditor workExecutionAuditor, MeterRegistry meterRegistry, long tenantId) {
+        this(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, handler, workFactory, logger,
+                engineClock, workExecutionCallback, workExecutionAuditor, meterRegistry, tenantId, Tags.empty());
+    }
+
+    /**
+     * @param additionalTags tags added to the meters of this executor, in addition to the tenant id
+     */
+    public BonitaThreadPoolExecutor(final int corePoolSize,
+            final int maximumPoolSize,
+            final long keepAliveTime,
+            final TimeUnit unit,
+            final BlockingQueue<Runnable> workQueue,
+            final ThreadFactory threadFactory,
+            final RejectedExecutionHandler handler, WorkFactory workFactory, final TechnicalLoggerService logger,
+            EngineClock engineClock, WorkExecutionCallback workExecutionCallback,
+            WorkExecutionAuditor workExecutionAuditor, MeterRegistry meterRegistry, long tenantId,
+            Tags additionalTags) {
         super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, handler);
         this.workQueue = workQueue;
         this.workFactory = workFactory;
         this.log = logger.asLogger(BonitaThreadPoolExecutor.class);
-        this.engineClock = engineClock;
+        this.delayedWorkScheduler = new DelayedWorkScheduler("Bonita-Work-Delayer-" + tenantId, engineClock,
+                this::submitDueWork, log);
         this.workExecutionCallback = workExecutionCallback;
         this.workExecutionAuditor = workExecutionAuditor;
         this.meterRegistry = meterRegistry;
 
-        Tags tags = Tags.of("tenant", String.valueOf(tenantId));
-        numberOfWorksPending = Gauge.builder(NUMBER_OF_WORKS_PENDING, workQueue, Collection::size)
+        Tags tags = Tags.of("tenant", String.valueOf(tenantId)).and(additionalTags);
+        numberOfWorksPending = Gauge.builder(NUMBER_OF_WORKS_PENDING, this,
+                BonitaThreadPoolExecutor::getNumberOfPendingWorks)
                 .tags(tags).baseUnit("works").description("Works pending in the execution queue")
                 .register(meterRegistry);
         numberOfWorksRunning = Gauge.builder(NUMBER_OF_WORKS_RUNNING, runningWorks, AtomicLong::get)
@@ -85,11 +107,25 @@ public class BonitaThreadPoolExecutor extends ThreadPoolExecutor implements Boni
         executedWorkCounter = Counter.builder(NUMBER_OF_WORKS_EXECUTED)
                 .tags(tags).baseUnit("works").description("total works executed since last server start")
                 .register(meterRegistry);
+        numberOfWorksDelayed = Gauge.builder(NUMBER_OF_WORKS_DELAYED, delayedWorkScheduler,
+                DelayedWorkScheduler::size)
+                .tags(tags).baseUnit("works").description("Works waiting for their execution threshold")
+                .register(meterRegistry);
+        delayedWorkCounter = Counter.builder(NUMBER_OF_WORKS_DELAYED_TOTAL)
+                .tags(tags).baseUnit("works").description("total works delayed since last server start")
+                .register(meterRegistry);
+        delayedWorkScheduler.start();
+    }
+
+    @Override
+    public int getNumberOfPendingWorks() {
+        return workQueue.size();
     }
 
     @Override
     public void clearAllQueues() {
         workQueue.clear();
+        delayedWorkScheduler.clear();
     }
 
     @Override
@@ -104,22 +140,31 @@ public class BonitaThreadPoolExecutor extends ThreadPoolExecutor implements Boni
     @Override
     public void shutdownAndEmptyQueue() {
         super.shutdown();
-        log.info("Clearing queue of work, had {} elements", workQueue.size());
+        delayedWorkScheduler.stop();
+        log.info("Clearing queue of work, had {} elements and {} delayed elements", workQueue.size(),
+                delayedWorkScheduler.size());
         workQueue.clear();
+        delayedWorkScheduler.clear();
         meterRegistry.remove(numberOfWorksPending);
         meterRegistry.remove(numberOfWorksRunning);
         meterRegistry.remove(executedWorkCounter);
+        meterRegistry.remove(numberOfWorksDelayed);
+        meterRegistry.remove(delayedWorkCounter);
     }
 
     @Override
     public void submit(WorkDescriptor work) {
+        if (delayedWorkScheduler.isRequiringDelayedExecution(work)) {
+            // parked until its execution threshold is reached, it does not use a worker thread meanwhile
+            delayedWorkCounter.increment();
+            delayedWorkScheduler.schedule(work);
+            return;
+        }
+        submitDueWork(work);
+    }
+
+    private void submitDueWork(WorkDescriptor work) {
         submit(() -> {
-            if (isRequiringDelayedExecution(work)) {
-                // Future implementation should use a real delay e.g. using a ScheduledThreadPoolExecutor
-                // Will be executed later
-                submit(work);
-                return;
-            }
             work.incrementExecutionCount();
             workExecutionAuditor.detectAbnormalExecutionAndNotify(work);
 
@@ -145,14 +190,10 @@ public class BonitaThreadPoolExecutor extends ThreadPoolExecutor implements Boni
                     }
                     workExecutionCallback.onFailure(work, bonitaWork, context, error);
                 } else {
-                    workExecutionCallback.onSuccess(work);
+                    workExecutionCallback.onSuccess(work, context);
                 }
                 return null;
             });
         });
     }
-
-    private boolean isRequiringDelayedExecution(WorkDescriptor work) {
-        return work.getExecutionThreshold() != null && work.getExecutionThreshold().isAfter(engineClock.now());
-    }
 }
@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.bonitasoft.engine.commons.time.EngineClock;
+import org.bonitasoft.engine.log.technical.TechnicalLogger;
+
+/**
+ * Park works having an execution threshold in the future until they are due, then hand them over to the given consumer.
+ * A single thread waits on a {@link DelayQueue}. The delay is computed using the {@link EngineClock}, that is why the
+ * thread never waits more than {@link #MAX_WAIT_MILLIS} before checking the queue again: the engine clock can move
+ * independently of the system clock.
+ */
+public class DelayedWorkScheduler {
+
+    static final long MAX_WAIT_MILLIS = 100;
+
+    private final DelayQueue<DelayedWork> delayedWorks = new DelayQueue<>();
+    private final EngineClock engineClock;
+    private final Consumer<WorkDescriptor> onWorkDue;
+    private final TechnicalLogger log;
+    private final Thread thread;
+    private volatile boolean running;
+
+    public DelayedWorkScheduler(String threadName, EngineClock engineClock, Consumer<WorkDescriptor> onWorkDue,
+            TechnicalLogger log) {
+        this.engineClock = engineClock;
+        this.onWorkDue = onWorkDue;
+        this.log = log;
+        this.thread = new Thread(this::run, threadName);
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        thread.interrupt();
+    }
+
+    /**
+     * @return true if the work has an execution threshold that is not yet reached
+     */
+    public boolean isRequiringDelayedExecution(WorkDescriptor work) {
+        return work.getExecutionThreshold() != null && work.getExecutionThreshold().isAfter(engineClock.now());
+    }
+
+    public void schedule(WorkDescriptor work) {
+        schedule(work, work.getExecutionThreshold());
+    }
+
+    /**
+     * Park the work until the given threshold is reached, the execution threshold of the work itself is ignored
+     */
+    public void schedule(WorkDescriptor work, Instant threshold) {
+        delayedWorks.put(new DelayedWork(work, threshold));
+    }
+
+    public int size() {
+        return delayedWorks.size();
+    }
+
+    public void clear() {
+        delayedWorks.clear();
+    }
+
+    private void run() {
+        while (running) {
+            DelayedWork delayedWork;
+            try {
+                delayedWork = delayedWorks.poll(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (delayedWork == null) {
+                continue;
+            }
+            try {
+                onWorkDue.accept(delayedWork.work);
+            } catch (RuntimeException e) {
+                log.warn("Unable to submit delayed work " + delayedWork.work, e);
+            }
+        }
+    }
+
+    private class DelayedWork implements Delayed {
+
+        private final WorkDescriptor work;
+        private final Instant threshold;
+
+        private DelayedWork(WorkDescriptor work, Instant threshold) {
+            this.work = work;
+            this.threshold = threshold;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(engineClock.now(), threshold).toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            return threshold.compareTo(((DelayedWork) o).threshold);
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bonitasoft.engine.commons.time.EngineClock;
+import org.bonitasoft.engine.log.technical.TechnicalLogSeverity;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.bonitasoft.engine.monitoring.ExecutorServiceMetricsProvider;
+import org.bonitasoft.engine.work.audit.WorkExecutionAuditor;
+
+/**
+ * Creates an {@link ElasticBonitaThreadPoolExecutor}: the number of works executing at the same time is limited by
+ * maxConcurrency, threads are only created when needed and released when idle for keepAliveTimeSeconds.
+ * Suited to works that spend most of their time waiting for the database or for connectors, the concurrency can then
+ * be raised without keeping a large pool of threads.
+ */
+public class ElasticBonitaExecutorServiceFactory implements BonitaExecutorServiceFactory {
+
+    private final TechnicalLoggerService logger;
+    private final WorkFactory workFactory;
+    private final long tenantId;
+    private final int maxConcurrency;
+    private final long keepAliveTimeSeconds;
+    private final EngineClock engineClock;
+    private final WorkExecutionAuditor workExecutionAuditor;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorServiceMetricsProvider executorServiceMetricsProvider;
+
+    public ElasticBonitaExecutorServiceFactory(final TechnicalLoggerService logger, WorkFactory workFactory,
+            final long tenantId, final int maxConcurrency, final long keepAliveTimeSeconds, EngineClock engineClock,
+            WorkExecutionAuditor workExecutionAuditor, MeterRegistry meterRegistry,
+            ExecutorServiceMetricsProvider executorServiceMetricsProvider) {
+        this.logger = logger;
+        this.workFactory = workFactory;
+        this.tenantId = tenantId;
+        this.maxConcurrency = maxConcurrency;
+        this.keepAliveTimeSeconds = keepAliveTimeSeconds;
+        this.engineClock = engineClock;
+        this.workExecutionAuditor = workExecutionAuditor;
+        this.meterRegistry = meterRegistry;
+        this.executorServiceMetricsProvider = executorServiceMetricsProvider;
+    }
+
+    @Override
+    public BonitaExecutorService createExecutorService(WorkExecutionCallback workExecutionCallback) {
+        final WorkerThreadFactory threadFactory = new WorkerThreadFactory("Bonita-Worker", tenantId, maxConcurrency);
+        final ElasticBonitaThreadPoolExecutor executor = new ElasticBonitaThreadPoolExecutor(maxConcurrency,
+                keepAliveTimeSeconds, TimeUnit.SECONDS, threadFactory, (task, pool) -> {
+                    // threads are created on demand, a work can only be rejected once the executor is shutdown
+                    logger.log(getClass(), TechnicalLogSeverity.INFO, "Tried to run work " + task
+                            + " but the work service is shutdown. work will be restarted with the node");
+                }, workFactory, logger, engineClock, workExecutionCallback, workExecutionAuditor, meterRegistry,
+                tenantId);
+        logger.log(this.getClass(), TechnicalLogSeverity.INFO,
+                "Creating a new elastic executor to handle works: " + executor);
+        executorServiceMetricsProvider.bindMetricsOnly(meterRegistry, executor, "bonita-work-executor", tenantId);
+        return executor;
+    }
+
+    @Override
+    public void unbind() {
+        executorServiceMetricsProvider.unbind(meterRegistry, "bonita-work-executor", tenantId);
+    }
+
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bonitasoft.engine.commons.concurrent.SemaphoreBoundedExecutor;
+import org.bonitasoft.engine.commons.time.EngineClock;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.bonitasoft.engine.work.audit.WorkExecutionAuditor;
+
+/**
+ * {@link BonitaThreadPoolExecutor} where the number of works executing at the same time is limited by a semaphore and
+ * not by the size of the pool: a thread is created when a work gets a permit and no idle thread is available, and
+ * threads are released after keepAliveTime without work.
+ * Works waiting for a permit are kept in an unbounded queue and are counted as pending works.
+ */
+public class ElasticBonitaThreadPoolExecutor extends BonitaThreadPoolExecutor {
+
+    private final SemaphoreBoundedExecutor boundedExecutor;
+
+    public ElasticBonitaThreadPoolExecutor(final int maxConcurrency, final long keepAliveTime, final TimeUnit unit,
+            final ThreadFactory threadFactory, final RejectedExecutionHandler handler, WorkFactory workFactory,
+            final TechnicalLoggerService logger, EngineClock engineClock, WorkExecutionCallback workExecutionCallback,
+            WorkExecutionAuditor workExecutionAuditor, MeterRegistry meterRegistry, long tenantId) {
+        super(0, Integer.MAX_VALUE, keepAliveTime, unit, new SynchronousQueue<>(), threadFactory, handler,
+                workFactory, logger, engineClock, workExecutionCallback, workExecutionAuditor, meterRegistry,
+                tenantId);
+        this.boundedExecutor = new SemaphoreBoundedExecutor(maxConcurrency, super::execute);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        boundedExecutor.execute(command);
+    }
+
+    @Override
+    public int getNumberOfPendingWorks() {
+        // the gauge can be read before the end of the constructor
+        return boundedExecutor == null ? 0 : boundedExecutor.getPendingTasks();
+    }
+
+    @Override
+    public void clearAllQueues() {
+        boundedExecutor.clear();
+        super.clearAllQueues();
+    }
+
+    @Override
+    public void shutdownAndEmptyQueue() {
+        boundedExecutor.clear();
+        super.shutdownAndEmptyQueue();
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + "[maxConcurrency = " + boundedExecutor.getMaxConcurrency() + ", pending works = "
+                + boundedExecutor.getPendingTasks() + "]";
+    }
+}
@@ -0,0 +1,405 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the journal of works in append-only segment files in a folder of the local file system.
+ * <p>
+ * Each record is either a serialized work that was appended or the uuid of a work that completed. Appended works are
+ * forced to disk before the transaction that registered them commits, completions are not: a completion lost in a
+ * crash only makes the work execute again on next start, which works must already support.
+ * A new segment is started on each start of the node and when the current one exceeds a maximum size. Segments are
+ * deleted, oldest first, once all the works they contain are completed, so that on start only the segments
+ * containing uncompleted works are read.
+ * Each record holds a checksum. A record partially written when the node stopped ends its segment: it was never
+ * acknowledged. When a record can't be read (corrupted, or written with a version of a work class that can't be read
+ * anymore), the segments are set aside, renamed with the suffix {@value #UNREADABLE_SUFFIX}, and the journal can't
+ * recover works: elements to restart are then searched in the database.
+ * The journal is local to the node: when several nodes share the same folder, they must not use it at the same time.
+ * It is only supported on a single node, in a cluster elements to restart are searched in the database instead.
+ */
+public class FileWorkJournal implements WorkJournal {
+
+    static final long MAX_SEGMENT_SIZE = 16L * 1024 * 1024;
+    static final String SEGMENT_PREFIX = "works-";
+    static final String SEGMENT_SUFFIX = ".journal";
+    static final String UNREADABLE_SUFFIX = ".unreadable";
+    static final byte APPENDED = 1;
+    static final byte COMPLETED = 2;
+    // kind, payload length and checksum
+    private static final int RECORD_HEADER_SIZE = 9;
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileWorkJournal.class);
+
+    private final Path folder;
+    private final long maxSegmentSize;
+    // segments still containing uncompleted works, oldest first, the last one being the one written
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final Map<String, UncompletedWork> uncompletedWorks = new LinkedHashMap<>();
+    private FileChannel channel;
+    private boolean opened;
+    private boolean canRecoverWorks;
+
+    public FileWorkJournal(final String folder, final long tenantId) {
+        this(Paths.get(folder, String.valueOf(tenantId)), MAX_SEGMENT_SIZE);
+    }
+
+    FileWorkJournal(final Path folder, final long maxSegmentSize) {
+        this.folder = folder;
+        this.maxSegmentSize = maxSegmentSize;
+    }
+
+    /**
+     * @return a journal using the given folder, or a journal doing nothing when no folder is configured, in which case
+     *         works only exist in memory
+     */
+    public static WorkJournal createIfConfigured(final String folder, final long tenantId) {
+        if (folder == null || folder.trim().isEmpty()) {
+            return new NoOpWorkJournal();
+        }
+        return new FileWorkJournal(folder.trim(), tenantId);
+    }
+
+    @Override
+    public void append(final Collection<WorkDescriptor> works) throws SWorkException {
+        if (works.isEmpty()) {
+            return;
+        }
+        // serialize outside of the lock, only writing is done while holding it
+        final List<byte[]> records = new ArrayList<>(works.size());
+        for (final WorkDescriptor work : works) {
+            records.add(serialize(work));
+        }
+        final FileChannel written;
+        try {
+            synchronized (this) {
+                open();
+                reopenIfClosed();
+                int i = 0;
+                for (final WorkDescriptor work : works) {
+                    write(APPENDED, records.get(i++));
+                    final Segment segment = segments.getLast();
+                    segment.uncompleted++;
+                    uncompletedWorks.put(work.getUuid(), new UncompletedWork(work, segment));
+                }
+                written = channel;
+                rollIfFull();
+            }
+        } catch (final IOException e) {
+            throw new SWorkException("Unable to append works to the journal in " + folder, e);
+        }
+        try {
+            // concurrent transactions force the same file: one call makes the works of all of them durable
+            written.force(false);
+        } catch (final ClosedChannelException e) {
+            if (!isRolled(written)) {
+                throw new SWorkException("Unable to force works appended to the journal in " + folder, e);
+            }
+            // the segment was forced before being closed by a roll
+        } catch (final IOException e) {
+            throw new SWorkException("Unable to force works appended to the journal in " + folder, e);
+        }
+    }
+
+    private synchronized boolean isRolled(final FileChannel written) {
+        return written != channel;
+    }
+
+    @Override
+    public synchronized void complete(final WorkDescriptor work) throws SWorkException {
+        if (!opened) {
+            return;
+        }
+        final UncompletedWork completed = uncompletedWorks.remove(work.getUuid());
+        if (completed == null) {
+            return;
+        }
+        try {
+            reopenIfClosed();
+            write(COMPLETED, work.getUuid().getBytes(StandardCharsets.UTF_8));
+            completed.segment.uncompleted--;
+            rollIfFull();
+            deleteCompletedSegments();
+        } catch (final IOException e) {
+            throw new SWorkException("Unable to write the completion of work " + work.getUuid() + " in " + folder, e);
+        }
+    }
+
+    @Override
+    public synchronized boolean canRecoverWorks() {
+        try {
+            open();
+        } catch (final IOException e) {
+            return false;
+        }
+        return canRecoverWorks;
+    }
+
+    @Override
+    public synchronized List<WorkDescriptor> getUncompletedWorks() throws SWorkException {
+        try {
+            open();
+        } catch (final IOException e) {
+            throw new SWorkException("Unable to read the journal of works in " + folder, e);
+        }
+        final List<WorkDescriptor> works = new ArrayList<>(uncompletedWorks.size());
+        for (final UncompletedWork uncompletedWork : uncompletedWorks.values()) {
+            works.add(uncompletedWork.work);
+        }
+        return works;
+    }
+
+    private void open() throws IOException {
+        if (opened) {
+            return;
+        }
+        try {
+            Files.createDirectories(folder);
+            final List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder,
+                    SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+                for (final Path file : stream) {
+                    files.add(file);
+                }
+            }
+            // sequences are zero padded: names sort in the order segments were created
+            files.sort(null);
+            canRecoverWorks = !files.isEmpty();
+            long sequence = 0;
+            for (final Path file : files) {
+                final Segment segment = new Segment(file);
+                segments.addLast(segment);
+                sequence = segment.sequence + 1;
+                if (canRecoverWorks && !read(segment)) {
+                    canRecoverWorks = false;
+                }
+            }
+            if (!files.isEmpty() && !canRecoverWorks) {
+                setAside(files);
+            }
+            startSegment(sequence);
+            deleteCompletedSegments();
+            opened = true;
+        } catch (final IOException | RuntimeException e) {
+            // nothing read is kept, the next call reads the journal again
+            reset();
+            throw e;
+        }
+    }
+
+    /**
+     * @return false when a record of the segment can't be read, works of the journal can then not be recovered
+     */
+    private boolean read(final Segment segment) throws IOException {
+        long remaining = Files.size(segment.file);
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(segment.file)))) {
+            while (remaining >= RECORD_HEADER_SIZE) {
+                final byte kind = input.readByte();
+                final int length = input.readInt();
+                final int checksum = input.readInt();
+                remaining -= RECORD_HEADER_SIZE;
+                if (length < 0) {
+                    LOGGER.warn("Record with an invalid length {} in {}", length, segment.file);
+                    return false;
+                }
+                if (length > remaining) {
+                    // record partially written when the node stopped: its transaction did not commit
+                    return true;
+                }
+                final byte[] payload = new byte[length];
+                input.readFully(payload);
+                remaining -= length;
+                if (checksum(kind, payload) != checksum) {
+                    LOGGER.warn("Record with an invalid checksum in {}", segment.file);
+                    return false;
+                }
+                if (kind == APPENDED) {
+                    final WorkDescriptor work;
+                    try {
+                        work = deserialize(payload);
+                    } catch (final IOException | ClassNotFoundException | ClassCastException e) {
+                        LOGGER.warn("Unable to read a work appended in {}: {}", segment.file, e.toString());
+                        return false;
+                    }
+                    segment.uncompleted++;
+                    uncompletedWorks.put(work.getUuid(), new UncompletedWork(work, segment));
+                } else if (kind == COMPLETED) {
+                    final UncompletedWork completed = uncompletedWorks
+                            .remove(new String(payload, StandardCharsets.UTF_8));
+                    if (completed != null) {
+                        completed.segment.uncompleted--;
+                    }
+                } else {
+                    LOGGER.warn("Record of unknown kind {} in {}", kind, segment.file);
+                    return false;
+                }
+            }
+        } catch (final EOFException e) {
+            // the segment was shortened while being read
+            return true;
+        }
+        return true;
+    }
+
+    private void setAside(final List<Path> files) throws IOException {
+        // a timestamp is added: sequences start again from zero once segments are set aside
+        final String suffix = "." + System.currentTimeMillis() + UNREADABLE_SUFFIX;
+        LOGGER.warn("The journal of works in {} can't be read, its segments are renamed with the suffix {} and "
+                + "elements to restart are searched in the database", folder, suffix);
+        for (final Path file : files) {
+            Files.move(file, file.resolveSibling(file.getFileName() + suffix));
+        }
+        segments.clear();
+        uncompletedWorks.clear();
+    }
+
+    private void reset() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (final IOException e) {
+                LOGGER.debug("Unable to close segment of the journal in {}", folder, e);
+            }
+            channel = null;
+        }
+        segments.clear();
+        uncompletedWorks.clear();
+        canRecoverWorks = false;
+    }
+
+    private void write(final byte kind, final byte[] payload) throws IOException {
+        final ByteBuffer record = record(kind, payload);
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+    }
+
+    static ByteBuffer record(final byte kind, final byte[] payload) {
+        final ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+        record.put(kind).putInt(payload.length).putInt(checksum(kind, payload)).put(payload).flip();
+        return record;
+    }
+
+    private static int checksum(final byte kind, final byte[] payload) {
+        final CRC32 crc = new CRC32();
+        crc.update(kind);
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private void rollIfFull() throws IOException {
+        if (channel.position() < maxSegmentSize) {
+            return;
+        }
+        final FileChannel full = channel;
+        full.force(false);
+        // the next segment is started before closing the full one: when it cannot be created, writing goes on in
+        // the full segment
+        startSegment(segments.getLast().sequence + 1);
+        full.close();
+    }
+
+    private void reopenIfClosed() throws IOException {
+        // the channel is closed when a thread writing or forcing it is interrupted, the closed segment can end with a
+        // partially written record, so writing goes on in a new segment
+        if (!channel.isOpen()) {
+            startSegment(segments.getLast().sequence + 1);
+        }
+    }
+
+    private void startSegment(final long sequence) throws IOException {
+        final Segment segment = new Segment(folder.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, sequence,
+                SEGMENT_SUFFIX)));
+        channel = FileChannel.open(segment.file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segments.addLast(segment);
+    }
+
+    private void deleteCompletedSegments() throws IOException {
+        // only the oldest segments are deleted: completions they contain can refer to works of older segments
+        while (segments.size() > 1 && segments.getFirst().uncompleted == 0) {
+            Files.deleteIfExists(segments.removeFirst().file);
+        }
+    }
+
+    private static byte[] serialize(final WorkDescriptor work) throws SWorkException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(work);
+        } catch (final IOException e) {
+            throw new SWorkException("Unable to serialize work " + work, e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static WorkDescriptor deserialize(final byte[] payload) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            return (WorkDescriptor) input.readObject();
+        }
+    }
+
+    private static final class Segment {
+
+        private final Path file;
+        private final long sequence;
+        private int uncompleted;
+
+        Segment(final Path file) {
+            this.file = file;
+            final String name = file.getFileName().toString();
+            this.sequence = Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                    name.length() - SEGMENT_SUFFIX.length()));
+        }
+    }
+
+    private static final class UncompletedWork {
+
+        private final WorkDescriptor work;
+        private final Segment segment;
+
+        UncompletedWork(final WorkDescriptor work, final Segment segment) {
+            this.work = work;
+            this.segment = segment;
+        }
+    }
+
+}
@@ -15,11 +15,26 @@ package org.bonitasoft.engine.work;
 
 public class LockException extends Exception {
 
+    private final String lockKey;
+
     public LockException(String message, Exception e) {
         super(message, e);
+        this.lockKey = null;
     }
 
     public LockException(String message) {
+        this(message, (String) null);
+    }
+
+    public LockException(String message, String lockKey) {
         super(message);
+        this.lockKey = lockKey;
+    }
+
+    /**
+     * @return the key of the lock that could not be acquired, or null if unknown
+     */
+    public String getLockKey() {
+        return lockKey;
     }
 }
@@ -0,0 +1,201 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.bonitasoft.engine.commons.time.EngineClock;
+import org.bonitasoft.engine.log.technical.TechnicalLogger;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+
+/**
+ * Re-executes works that failed to acquire a lock.
+ * <p>
+ * Works are retried after an exponential backoff with jitter computed from the number of times the work already failed
+ * to get its lock. When hand-off is enabled, works are also kept in a waiting list per lock key: as soon as a work
+ * holding that lock completes (it put the key in its context under {@link #ACQUIRED_LOCK_KEY}), the next waiting work
+ * is executed without waiting for the end of its backoff. The backoff stays as a fallback because the lock can be held
+ * by something else than a work, e.g. an API call.
+ */
+public class LockRetryHandler {
+
+    /**
+     * Key of the work context in which a work put the key of the lock it holds
+     */
+    public static final String ACQUIRED_LOCK_KEY = "acquiredLockKey";
+
+    public static final String NUMBER_OF_LOCK_RETRIES = "bonita.bpmengine.work.lock.retries";
+    public static final String NUMBER_OF_LOCK_HANDOFFS = "bonita.bpmengine.work.lock.handoffs";
+    public static final String NUMBER_OF_WORKS_WAITING_FOR_LOCK = "bonita.bpmengine.work.lock.waiting";
+
+    private static final int MAX_BACKOFF_EXPONENT = 20;
+
+    private final EngineClock engineClock;
+    private final TechnicalLogger logger;
+    private final MeterRegistry meterRegistry;
+    private final long tenantId;
+    private final Tags tags;
+    private final long initialDelayMillis;
+    private final long maxDelayMillis;
+    private final boolean handOffEnabled;
+
+    // uuid of works waiting to be retried -> key of the lock they wait for, removing an entry is claiming the work
+    private final Map<String, String> waitingWorks = new ConcurrentHashMap<>();
+    // lock key -> works waiting for this lock, only used when hand-off is enabled
+    private final Map<String, Queue<WorkDescriptor>> waitingWorksByLock = new ConcurrentHashMap<>();
+
+    private Consumer<WorkDescriptor> workExecutor;
+    private DelayedWorkScheduler delayedWorkScheduler;
+    private Counter lockRetryCounter;
+    private Counter lockHandOffCounter;
+    private Gauge numberOfWorksWaitingForLock;
+
+    public LockRetryHandler(TechnicalLoggerService loggerService, EngineClock engineClock, MeterRegistry meterRegistry,
+            long tenantId, long initialDelayMillis, long maxDelayMillis, boolean handOffEnabled) {
+        this.logger = loggerService.asLogger(LockRetryHandler.class);
+        this.engineClock = engineClock;
+        this.meterRegistry = meterRegistry;
+        this.tenantId = tenantId;
+        this.tags = Tags.of("tenant", String.valueOf(tenantId));
+        this.initialDelayMillis = initialDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.handOffEnabled = handOffEnabled;
+    }
+
+    public synchronized void start(Consumer<WorkDescriptor> workExecutor) {
+        this.workExecutor = workExecutor;
+        lockRetryCounter = Counter.builder(NUMBER_OF_LOCK_RETRIES)
+                .tags(tags).baseUnit("works").description("works re-executed because they failed to acquire a lock")
+                .register(meterRegistry);
+        lockHandOffCounter = Counter.builder(NUMBER_OF_LOCK_HANDOFFS)
+                .tags(tags).baseUnit("works").description("waiting works executed right after a lock was released")
+                .register(meterRegistry);
+        numberOfWorksWaitingForLock = Gauge.builder(NUMBER_OF_WORKS_WAITING_FOR_LOCK, waitingWorks, Map::size)
+                .tags(tags).baseUnit("works").description("Works waiting to be retried after a lock failure")
+                .register(meterRegistry);
+        delayedWorkScheduler = new DelayedWorkScheduler("Bonita-Work-Lock-Retry-" + tenantId, engineClock,
+                this::retryAfterBackoff, logger);
+        delayedWorkScheduler.start();
+    }
+
+    /**
+     * Stop the handler, works waiting to be retried are dropped: they will be restarted with the node
+     */
+    public synchronized void stop() {
+        if (delayedWorkScheduler == null) {
+            return;
+        }
+        delayedWorkScheduler.stop();
+        delayedWorkScheduler.clear();
+        delayedWorkScheduler = null;
+        waitingWorks.clear();
+        waitingWorksByLock.clear();
+        meterRegistry.remove(lockRetryCounter);
+        meterRegistry.remove(lockHandOffCounter);
+        meterRegistry.remove(numberOfWorksWaitingForLock);
+    }
+
+    /**
+     * Schedule the re-execution of a work that failed to acquire the lock having the given key
+     *
+     * @param lockKey key of the lock, can be null when unknown
+     */
+    public void retry(WorkDescriptor work, String lockKey) {
+        DelayedWorkScheduler scheduler = delayedWorkScheduler;
+        if (scheduler == null) {
+            logger.debug("Ignored lock retry of work (handler stopped) {}", work);
+            return;
+        }
+        lockRetryCounter.increment();
+        long delay = computeDelay(work.getRetryCount());
+        work.incrementRetryCount();
+        if (delay <= 0 && !handOffEnabled) {
+            workExecutor.accept(work);
+            return;
+        }
+        waitingWorks.put(work.getUuid(), lockKey != null ? lockKey : "");
+        if (handOffEnabled && lockKey != null) {
+            waitingWorksByLock.compute(lockKey, (k, works) -> {
+                Queue<WorkDescriptor> queue = works != null ? works : new ArrayDeque<>();
+                queue.add(work);
+                return queue;
+            });
+        }
+        scheduler.schedule(work, engineClock.now().plusMillis(delay));
+    }
+
+    /**
+     * Notify that the lock having the given key was released by a work, the next work waiting for it is executed.
+     */
+    public void released(String lockKey) {
+        if (!handOffEnabled || lockKey == null) {
+            return;
+        }
+        WorkDescriptor next;
+        do {
+            next = pollWaitingWork(lockKey);
+        } while (next != null && waitingWorks.remove(next.getUuid()) == null);
+        if (next != null) {
+            logger.debug("Lock {} released, handing it off to work {}", lockKey, next);
+            lockHandOffCounter.increment();
+            workExecutor.accept(next);
+        }
+    }
+
+    private WorkDescriptor pollWaitingWork(String lockKey) {
+        WorkDescriptor[] polled = new WorkDescriptor[1];
+        waitingWorksByLock.computeIfPresent(lockKey, (k, works) -> {
+            polled[0] = works.poll();
+            return works.isEmpty() ? null : works;
+        });
+        return polled[0];
+    }
+
+    private void retryAfterBackoff(WorkDescriptor work) {
+        String lockKey = waitingWorks.remove(work.getUuid());
+        if (lockKey == null) {
+            // already handed off
+            return;
+        }
+        if (!lockKey.isEmpty()) {
+            waitingWorksByLock.computeIfPresent(lockKey, (k, works) -> {
+                works.removeIf(w -> w == work);
+                return works.isEmpty() ? null : works;
+            });
+        }
+        workExecutor.accept(work);
+    }
+
+    /**
+     * Exponential backoff with "equal jitter": the delay is randomly taken between half and the whole of
+     * initialDelay * 2^attempt, capped to maxDelay.
+     */
+    long computeDelay(int attempt) {
+        if (initialDelayMillis <= 0) {
+            return 0;
+        }
+        long delay = Math.min(maxDelayMillis, initialDelayMillis << Math.min(attempt, MAX_BACKOFF_EXPONENT));
+        return ThreadLocalRandom.current().nextLong(delay / 2, delay + 1);
+    }
+
+}
@@ -21,4 +21,8 @@ public class LockTimeoutException extends LockException {
     public LockTimeoutException(String message) {
         super(message);
     }
+
+    public LockTimeoutException(String message, String lockKey) {
+        super(message, lockKey);
+    }
 }
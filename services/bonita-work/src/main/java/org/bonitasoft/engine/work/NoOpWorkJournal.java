@@ -0,0 +1,44 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Journal used when no work journal is configured: works only exist in memory and the elements to restart are found
+ * by the restart handlers.
+ */
+public class NoOpWorkJournal implements WorkJournal {
+
+    @Override
+    public void append(Collection<WorkDescriptor> works) {
+    }
+
+    @Override
+    public void complete(WorkDescriptor work) {
+    }
+
+    @Override
+    public boolean canRecoverWorks() {
+        return false;
+    }
+
+    @Override
+    public List<WorkDescriptor> getUncompletedWorks() {
+        return Collections.emptyList();
+    }
+
+}
@@ -29,6 +29,8 @@ import org.apache.commons.lang3.builder.ToStringStyle;
  */
 public class WorkDescriptor implements Serializable {
 
+    private static final long serialVersionUID = 1L;
+
     private String uuid = UUID.randomUUID().toString();
     private String type;
     private Long tenantId;
@@ -69,6 +71,10 @@ public class WorkDescriptor implements Serializable {
         return parameters.get(key);
     }
 
+    public boolean hasParameter(String key) {
+        return parameters.containsKey(key);
+    }
+
     public Long getLong(String key) {
         return (Long) getParameter(key);
     }
@@ -24,6 +24,13 @@ public interface WorkExecutionCallback {
 
     void onSuccess(WorkDescriptor workDescriptor);
 
+    /**
+     * Called when a work completes successfully, with the context that was given to the work
+     */
+    default void onSuccess(WorkDescriptor workDescriptor, Map<String, Object> context) {
+        onSuccess(workDescriptor);
+    }
+
     void onFailure(WorkDescriptor work, BonitaWork bonitaWork, Map<String, Object> context,
             Throwable thrown);
 
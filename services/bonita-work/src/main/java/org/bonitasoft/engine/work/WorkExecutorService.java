@@ -27,4 +27,9 @@ public interface WorkExecutorService extends TenantLifecycleService {
     void notifyNodeStopped(String nodeName);
 
     void execute(WorkDescriptor work);
+
+    /**
+     * @return the number of works waiting for a thread, 0 when the service is stopped
+     */
+    int getNumberOfPendingWorks();
 }
@@ -32,14 +32,18 @@ public class WorkExecutorServiceImpl implements WorkExecutorService, WorkExecuti
     private long workTerminationTimeout;
     private final WorkExecutionAuditor workExecutionAuditor;
     private final TechnicalLogger logger;
+    private final LockRetryHandler lockRetryHandler;
+    private final WorkJournal workJournal;
 
     public WorkExecutorServiceImpl(BonitaExecutorServiceFactory bonitaExecutorServiceFactory,
             TechnicalLoggerService loggerService, long workTerminationTimeout,
-            WorkExecutionAuditor workExecutionAuditor) {
+            WorkExecutionAuditor workExecutionAuditor, LockRetryHandler lockRetryHandler, WorkJournal workJournal) {
         this.bonitaExecutorServiceFactory = bonitaExecutorServiceFactory;
         logger = loggerService.asLogger(WorkExecutorServiceImpl.class);
         this.workTerminationTimeout = workTerminationTimeout;
         this.workExecutionAuditor = workExecutionAuditor;
+        this.lockRetryHandler = lockRetryHandler;
+        this.workJournal = workJournal;
     }
 
     @Override
@@ -55,9 +59,17 @@ public class WorkExecutorServiceImpl implements WorkExecutorService, WorkExecuti
     public void onSuccess(WorkDescriptor work) {
         logger.debug("Completed work {}", work);
         workExecutionAuditor.notifySuccess(work);
+        completeInJournal(work);
+    }
+
+    @Override
+    public void onSuccess(WorkDescriptor work, Map<String, Object> context) {
+        onSuccess(work);
+        notifyLockReleased(context);
     }
 
     public void onFailure(WorkDescriptor work, BonitaWork bonitaWork, Map<String, Object> context, Throwable thrown) {
+        notifyLockReleased(context);
         if (thrown instanceof LockException) {
             if (thrown instanceof LockTimeoutException) {
                 //Can happen frequently, only log in debug
@@ -66,18 +78,35 @@ public class WorkExecutorServiceImpl implements WorkExecutorService, WorkExecuti
                 //Caused
                 logger.warn("Tried to execute the work, but it was unable to acquire a lock " + work, thrown);
             }
-            execute(work);
+            lockRetryHandler.retry(work, ((LockException) thrown).getLockKey());
             return;
         }
         if (thrown instanceof SWorkPreconditionException) {
             logger.warn("Work was not executed because preconditions were not met, {} : {}", work, thrown.getMessage());
+            completeInJournal(work);
             return;
         }
         try {
             bonitaWork.handleFailure(thrown, context);
         } catch (Exception e) {
+            // the failure was not handled, the work stays in the journal to be executed again on next start
             logger.warn("Work failed with error {}", work, e);
+            return;
         }
+        completeInJournal(work);
+    }
+
+    private void completeInJournal(WorkDescriptor work) {
+        try {
+            workJournal.complete(work);
+        } catch (SWorkException e) {
+            logger.warn("Unable to mark work {} as completed in the journal, it will be executed on next start", work,
+                    e);
+        }
+    }
+
+    private void notifyLockReleased(Map<String, Object> context) {
+        lockRetryHandler.released((String) context.get(LockRetryHandler.ACQUIRED_LOCK_KEY));
     }
 
     @Override
@@ -88,6 +117,7 @@ public class WorkExecutorServiceImpl implements WorkExecutorService, WorkExecuti
                 return;
             }
             bonitaExecutorServiceFactory.unbind();
+            lockRetryHandler.stop();
             shutdownExecutor();
             awaitTermination();
         } catch (final SWorkException e) {
@@ -103,6 +133,7 @@ public class WorkExecutorServiceImpl implements WorkExecutorService, WorkExecuti
     public synchronized void start() {
         if (isStopped()) {
             executor = bonitaExecutorServiceFactory.createExecutorService(this);
+            lockRetryHandler.start(this::execute);
         }
     }
 
@@ -112,6 +143,7 @@ public class WorkExecutorServiceImpl implements WorkExecutorService, WorkExecuti
             return;
         }
         bonitaExecutorServiceFactory.unbind();
+        lockRetryHandler.stop();
         shutdownExecutor();
         // completely clear the queue because it's a global pause
         executor.clearAllQueues();
@@ -144,6 +176,12 @@ public class WorkExecutorServiceImpl implements WorkExecutorService, WorkExecuti
         return executor == null;
     }
 
+    @Override
+    public int getNumberOfPendingWorks() {
+        final BonitaExecutorService currentExecutor = executor;
+        return currentExecutor == null ? 0 : currentExecutor.getNumberOfPendingWorks();
+    }
+
     @Override
     public void notifyNodeStopped(String nodeName) {
     }
@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Durable log of the works registered on a tenant.
+ * <p>
+ * Works are appended when the transaction registering them commits and marked as completed once executed, so that
+ * the works that were not completed when the node stopped can be executed again on next start, without scanning the
+ * tables of the tenant to find the elements that were being executed.
+ */
+public interface WorkJournal {
+
+    /**
+     * Append the works registered by a transaction, called before the transaction commits.
+     * The works are durable when this method returns.
+     *
+     * @param works works registered by the transaction
+     * @throws SWorkException when the works can't be written, the transaction must then be rolled back
+     */
+    void append(Collection<WorkDescriptor> works) throws SWorkException;
+
+    /**
+     * Mark a work as completed: it will not be executed again on next start.
+     * Works that were not appended are ignored.
+     *
+     * @param work the completed work
+     * @throws SWorkException when the completion can't be written, the work will then be executed again on next start
+     */
+    void complete(WorkDescriptor work) throws SWorkException;
+
+    /**
+     * @return true if the journal was already written when the node last stopped, in which case
+     *         {@link #getUncompletedWorks()} returns all works that need to be executed again
+     */
+    boolean canRecoverWorks();
+
+    /**
+     * @return works appended and not completed yet, in the order they were appended
+     * @throws SWorkException when the journal can't be read
+     */
+    List<WorkDescriptor> getUncompletedWorks() throws SWorkException;
+
+}
@@ -13,6 +13,8 @@
  **/
 package org.bonitasoft.engine.work;
 
+import java.util.Collection;
+
 import org.bonitasoft.engine.commons.TenantLifecycleService;
 
 /**
@@ -34,6 +36,15 @@ public interface WorkService extends TenantLifecycleService {
      */
     void registerWork(WorkDescriptor workDescriptor) throws SWorkRegisterException;
 
+    /**
+     * Register several works at once, e.g. the execution of a chunk of children of a multi-instance. Same as calling
+     * {@link #registerWork(WorkDescriptor)} for each work, without looking up the transaction for each of them.
+     *
+     * @param workDescriptors
+     * @throws SWorkRegisterException
+     */
+    void registerWorks(Collection<WorkDescriptor> workDescriptors) throws SWorkRegisterException;
+
     /**
      * @return true if the work service is stopped
      * @since 6.3
@@ -13,6 +13,9 @@
  **/
 package org.bonitasoft.engine.work;
 
+import java.time.Instant;
+import java.util.Collection;
+
 import org.bonitasoft.engine.commons.time.EngineClock;
 import org.bonitasoft.engine.log.technical.TechnicalLogger;
 import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
@@ -43,14 +46,17 @@ public class WorkServiceImpl implements WorkService {
 
     private final EngineClock engineClock;
 
+    private final WorkJournal workJournal;
+
     public WorkServiceImpl(final UserTransactionService transactionService,
             final TechnicalLoggerService loggerService, final SessionAccessor sessionAccessor,
-            WorkExecutorService workExecutorService, final EngineClock engineClock) {
+            WorkExecutorService workExecutorService, final EngineClock engineClock, final WorkJournal workJournal) {
         this.transactionService = transactionService;
         this.log = loggerService.asLogger(WorkServiceImpl.class);
         this.sessionAccessor = sessionAccessor;
         this.workExecutorService = workExecutorService;
         this.engineClock = engineClock;
+        this.workJournal = workJournal;
     }
 
     @Override
@@ -65,11 +71,29 @@ public class WorkServiceImpl implements WorkService {
         log.debug("Work registered");
     }
 
+    @Override
+    public void registerWorks(Collection<WorkDescriptor> workDescriptors) throws SWorkRegisterException {
+        if (workDescriptors.isEmpty()) {
+            return;
+        }
+        if (isStopped()) {
+            log.warn("Tried to register {} works, but the work service is stopped.", workDescriptors.size());
+            return;
+        }
+        final Instant registrationDate = engineClock.now();
+        final WorkSynchronization synchronization = getContinuationSynchronization();
+        for (final WorkDescriptor workDescriptor : workDescriptors) {
+            workDescriptor.setRegistrationDate(registrationDate);
+            synchronization.addWork(workDescriptor);
+        }
+        log.debug("{} works registered", workDescriptors.size());
+    }
+
     private WorkSynchronization getContinuationSynchronization() throws SWorkRegisterException {
         synchronized (getSynchroLock) {
             WorkSynchronization synchro = synchronizations.get();
             if (synchro == null) {
-                synchro = new WorkSynchronization(workExecutorService, sessionAccessor, this);
+                synchro = new WorkSynchronization(workExecutorService, sessionAccessor, this, workJournal);
                 try {
                     transactionService.registerBonitaSynchronization(synchro);
                 } catch (final STransactionNotFoundException e) {
@@ -16,6 +16,7 @@ package org.bonitasoft.engine.work;
 import java.util.Collection;
 import java.util.HashSet;
 
+import org.bonitasoft.engine.commons.exceptions.SBonitaRuntimeException;
 import org.bonitasoft.engine.sessionaccessor.STenantIdNotSetException;
 import org.bonitasoft.engine.sessionaccessor.SessionAccessor;
 import org.bonitasoft.engine.transaction.BonitaTransactionSynchronization;
@@ -32,12 +33,15 @@ public class WorkSynchronization implements BonitaTransactionSynchronization {
     private final WorkExecutorService workExecutorService;
     private final WorkServiceImpl workService;
 
+    private final WorkJournal workJournal;
+
     private long tenantId;
 
     WorkSynchronization(final WorkExecutorService workExecutorService, final SessionAccessor sessionAccessor,
-            WorkServiceImpl workService) {
+            WorkServiceImpl workService, WorkJournal workJournal) {
         super();
         this.workService = workService;
+        this.workJournal = workJournal;
         works = new HashSet<>();
         try {
             // Instead of doing this which is not so clear using sessionAccessor, we should add the tenantId as a parameter of the class
@@ -59,6 +63,14 @@ public class WorkSynchronization implements BonitaTransactionSynchronization {
 
     @Override
     public void beforeCommit() {
+        for (WorkDescriptor work : works) {
+            work.setTenantId(tenantId);
+        }
+        try {
+            workJournal.append(works);
+        } catch (final SWorkException e) {
+            throw new SBonitaRuntimeException(e);
+        }
     }
 
     @Override
@@ -72,10 +84,23 @@ public class WorkSynchronization implements BonitaTransactionSynchronization {
             } else {
                 LOG.debug("Transaction completion with state {} != COMMITTED. Not triggering subsequent works: {}",
                         transactionStatus, works);
+                discardJournaledWorks();
             }
         } finally {
             workService.removeSynchronization();
         }
     }
 
+    private void discardJournaledWorks() {
+        // works of a transaction that failed after being journaled must not be executed on next start
+        try {
+            for (WorkDescriptor work : works) {
+                workJournal.complete(work);
+            }
+        } catch (final SWorkException e) {
+            LOG.warn("Unable to discard works of a rolled back transaction from the journal, "
+                    + "they will be executed on next start: {}", works, e);
+        }
+    }
+
 }
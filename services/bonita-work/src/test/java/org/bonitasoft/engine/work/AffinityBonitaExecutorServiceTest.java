@@ -0,0 +1,153 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bonitasoft.engine.commons.time.FixedEngineClock;
+import org.bonitasoft.engine.log.technical.TechnicalLogger;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.bonitasoft.engine.work.audit.WorkExecutionAuditor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+public class AffinityBonitaExecutorServiceTest {
+
+    private static final long TENANT_ID = 13L;
+    private static final int NUMBER_OF_LANES = 4;
+    private static final String PROCESS_INSTANCE_ID = "processInstanceId";
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+    @Mock
+    private TechnicalLoggerService technicalLoggerService;
+    @Mock
+    private TechnicalLogger logger;
+    @Mock
+    private WorkExecutionAuditor workExecutionAuditor;
+    @Mock
+    private WorkExecutionCallback workExecutionCallback;
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private List<String> executions = new CopyOnWriteArrayList<>();
+    private AffinityBonitaExecutorService executorService;
+
+    @Before
+    public void before() {
+        doReturn(logger).when(technicalLoggerService).asLogger(any());
+        WorkerThreadFactory threadFactory = new WorkerThreadFactory("test-worker", TENANT_ID, NUMBER_OF_LANES);
+        List<BonitaThreadPoolExecutor> lanes = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_LANES; i++) {
+            lanes.add(new BonitaThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(100),
+                    threadFactory, (r, executor) -> {
+                    }, this::createWork, technicalLoggerService, new FixedEngineClock(Instant.now()),
+                    workExecutionCallback, workExecutionAuditor, meterRegistry, TENANT_ID,
+                    Tags.of("lane", String.valueOf(i))));
+        }
+        executorService = new AffinityBonitaExecutorService(lanes, PROCESS_INSTANCE_ID);
+    }
+
+    @After
+    public void after() {
+        executorService.shutdownAndEmptyQueue();
+    }
+
+    private BonitaWork createWork(WorkDescriptor workDescriptor) {
+        return new BonitaWork() {
+
+            @Override
+            public String getDescription() {
+                return workDescriptor.toString();
+            }
+
+            @Override
+            public CompletableFuture<Void> work(Map<String, Object> context) throws Exception {
+                TimeUnit.MILLISECONDS.sleep(5);
+                executions.add(workDescriptor.getType() + "@" + Thread.currentThread().getName());
+                return CompletableFuture.completedFuture(null);
+            }
+
+            @Override
+            public void handleFailure(Throwable e, Map<String, Object> context) {
+                // do nothing
+            }
+        };
+    }
+
+    private WorkDescriptor work(String name, long processInstanceId) {
+        return WorkDescriptor.create(name).withParameter(PROCESS_INSTANCE_ID, processInstanceId);
+    }
+
+    @Test
+    public void should_route_works_of_a_same_process_instance_to_the_same_lane() {
+        assertThat(executorService.getLane(work("a", 42L))).isEqualTo(executorService.getLane(work("b", 42L)));
+    }
+
+    @Test
+    public void should_spread_consecutive_process_instances_on_all_lanes() {
+        List<Integer> usedLanes = new ArrayList<>();
+        for (long processInstanceId = 1; processInstanceId <= 100; processInstanceId++) {
+            usedLanes.add(executorService.getLane(work("a", processInstanceId)));
+        }
+
+        assertThat(usedLanes).contains(0, 1, 2, 3);
+    }
+
+    @Test
+    public void should_route_works_without_process_instance_using_their_uuid() {
+        WorkDescriptor work = WorkDescriptor.create("a");
+
+        assertThat(executorService.getLane(work)).isEqualTo(executorService.getLane(work))
+                .isBetween(0, NUMBER_OF_LANES - 1);
+    }
+
+    @Test
+    public void should_execute_works_of_a_same_process_instance_in_order_on_the_same_thread() {
+        for (int i = 0; i < 10; i++) {
+            executorService.submit(work("work" + i, 42L));
+        }
+
+        await().until(() -> executions.size() == 10);
+        String thread = executions.get(0).substring(executions.get(0).indexOf('@'));
+        for (int i = 0; i < 10; i++) {
+            assertThat(executions.get(i)).isEqualTo("work" + i + thread);
+        }
+    }
+
+    @Test
+    public void should_tag_meters_of_each_lane() {
+        assertThat(meterRegistry.find(BonitaThreadPoolExecutor.NUMBER_OF_WORKS_PENDING).gauges())
+                .hasSize(NUMBER_OF_LANES);
+        assertThat(meterRegistry.find(BonitaThreadPoolExecutor.NUMBER_OF_WORKS_PENDING).tag("lane", "2").gauge())
+                .isNotNull();
+    }
+
+}
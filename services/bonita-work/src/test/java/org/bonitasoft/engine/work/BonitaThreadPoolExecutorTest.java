@@ -118,6 +118,42 @@ public class BonitaThreadPoolExecutorTest {
         await().until(() -> workExecutionCallback.isOnSuccessCalled());
     }
 
+    @Test
+    public void should_park_delayed_work_outside_of_the_work_queue() throws Exception {
+        WorkDescriptor workDescriptor = WorkDescriptor.create("NORMAL");
+        workDescriptor.mustBeExecutedAfter(Instant.now().plus(5, SECONDS));
+
+        bonitaThreadPoolExecutor.submit(workDescriptor);
+
+        Thread.sleep(50);
+        assertThat(meterRegistry.find(BonitaThreadPoolExecutor.NUMBER_OF_WORKS_DELAYED).gauge().value())
+                .as("Delayed works number").isEqualTo(1);
+        assertThat(meterRegistry.find(BonitaThreadPoolExecutor.NUMBER_OF_WORKS_DELAYED_TOTAL).counter().count())
+                .as("Total delayed works number").isEqualTo(1);
+        assertThat(meterRegistry.find(BonitaThreadPoolExecutor.NUMBER_OF_WORKS_PENDING).gauge().value())
+                .as("Pending works number").isEqualTo(0);
+        assertThat(meterRegistry.find(BonitaThreadPoolExecutor.NUMBER_OF_WORKS_EXECUTED).counter().count())
+                .as("Executed works number").isEqualTo(0);
+
+        engineClock.addTime(6, SECONDS);
+        await().until(() -> workExecutionCallback.isOnSuccessCalled());
+        assertThat(meterRegistry.find(BonitaThreadPoolExecutor.NUMBER_OF_WORKS_DELAYED).gauge().value())
+                .as("Delayed works number").isEqualTo(0);
+    }
+
+    @Test
+    public void should_not_execute_delayed_work_when_queues_are_cleared() throws Exception {
+        WorkDescriptor workDescriptor = WorkDescriptor.create("NORMAL");
+        workDescriptor.mustBeExecutedAfter(Instant.now().plus(5, SECONDS));
+        bonitaThreadPoolExecutor.submit(workDescriptor);
+
+        bonitaThreadPoolExecutor.clearAllQueues();
+        engineClock.addTime(6, SECONDS);
+
+        Thread.sleep(3 * DelayedWorkScheduler.MAX_WAIT_MILLIS);
+        assertThat(workExecutionCallback.isOnSuccessCalled()).isFalse();
+    }
+
     @Test
     public void should_update_meter_when_work_executes() {
         Gauge currentWorkQueue = meterRegistry.find(BonitaThreadPoolExecutor.NUMBER_OF_WORKS_PENDING).gauge();
@@ -171,6 +207,10 @@ public class BonitaThreadPoolExecutorTest {
                 .tag("tenant", String.valueOf(TENANT_ID)).gauge()).isNotNull();
         assertThat(meterRegistry.find(BonitaThreadPoolExecutor.NUMBER_OF_WORKS_PENDING)
                 .tag("tenant", String.valueOf(TENANT_ID)).gauge()).isNotNull();
+        assertThat(meterRegistry.find(BonitaThreadPoolExecutor.NUMBER_OF_WORKS_DELAYED)
+                .tag("tenant", String.valueOf(TENANT_ID)).gauge()).isNotNull();
+        assertThat(meterRegistry.find(BonitaThreadPoolExecutor.NUMBER_OF_WORKS_DELAYED_TOTAL)
+                .tag("tenant", String.valueOf(TENANT_ID)).counter()).isNotNull();
     }
 
     @Test
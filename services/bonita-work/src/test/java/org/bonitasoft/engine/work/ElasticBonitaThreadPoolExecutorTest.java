@@ -0,0 +1,135 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bonitasoft.engine.commons.time.FixedEngineClock;
+import org.bonitasoft.engine.log.technical.TechnicalLogger;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.bonitasoft.engine.work.audit.WorkExecutionAuditor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+public class ElasticBonitaThreadPoolExecutorTest {
+
+    private static final long TENANT_ID = 13L;
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+    @Mock
+    private TechnicalLoggerService technicalLoggerService;
+    @Mock
+    private TechnicalLogger logger;
+    @Mock
+    private WorkExecutionAuditor workExecutionAuditor;
+    @Mock
+    private WorkExecutionCallback workExecutionCallback;
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CountDownLatch release = new CountDownLatch(1);
+    private ElasticBonitaThreadPoolExecutor executor;
+
+    @Before
+    public void before() {
+        doReturn(logger).when(technicalLoggerService).asLogger(any());
+        executor = new ElasticBonitaThreadPoolExecutor(2, 1, TimeUnit.SECONDS,
+                new WorkerThreadFactory("test-worker", TENANT_ID, 2), (r, e) -> {
+                }, this::createWork, technicalLoggerService, new FixedEngineClock(Instant.now()),
+                workExecutionCallback, workExecutionAuditor, meterRegistry, TENANT_ID);
+    }
+
+    @After
+    public void after() {
+        release.countDown();
+        executor.shutdownAndEmptyQueue();
+    }
+
+    private BonitaWork createWork(WorkDescriptor workDescriptor) {
+        return new BonitaWork() {
+
+            @Override
+            public String getDescription() {
+                return workDescriptor.toString();
+            }
+
+            @Override
+            public CompletableFuture<Void> work(Map<String, Object> context) throws Exception {
+                release.await(5, TimeUnit.SECONDS);
+                return CompletableFuture.completedFuture(null);
+            }
+
+            @Override
+            public void handleFailure(Throwable e, Map<String, Object> context) {
+                // do nothing
+            }
+        };
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.find(name).gauge().value();
+    }
+
+    @Test
+    public void should_not_execute_more_works_than_max_concurrency() {
+        for (int i = 0; i < 5; i++) {
+            executor.submit(WorkDescriptor.create("NORMAL"));
+        }
+
+        await().until(() -> gauge(BonitaThreadPoolExecutor.NUMBER_OF_WORKS_RUNNING) == 2);
+        assertThat(gauge(BonitaThreadPoolExecutor.NUMBER_OF_WORKS_PENDING)).isEqualTo(3);
+    }
+
+    @Test
+    public void should_execute_pending_works_and_notify_callback_when_permits_are_released() {
+        WorkDescriptor work = WorkDescriptor.create("NORMAL");
+        for (int i = 0; i < 4; i++) {
+            executor.submit(WorkDescriptor.create("NORMAL"));
+        }
+        executor.submit(work);
+
+        release.countDown();
+
+        verify(workExecutionCallback, timeout(5_000)).onSuccess(eq(work), any());
+        assertThat(gauge(BonitaThreadPoolExecutor.NUMBER_OF_WORKS_PENDING)).isZero();
+    }
+
+    @Test
+    public void should_remove_pending_works_on_clear() {
+        for (int i = 0; i < 5; i++) {
+            executor.submit(WorkDescriptor.create("NORMAL"));
+        }
+
+        executor.clearAllQueues();
+
+        assertThat(gauge(BonitaThreadPoolExecutor.NUMBER_OF_WORKS_PENDING)).isZero();
+    }
+
+}
@@ -0,0 +1,224 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileWorkJournalTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path folder;
+    private WorkDescriptor work1 = WorkDescriptor.create("work1").withParameter("processInstanceId", 12L);
+    private WorkDescriptor work2 = WorkDescriptor.create("work2");
+    private WorkDescriptor work3 = WorkDescriptor.create("work3");
+
+    @Before
+    public void setUp() throws Exception {
+        folder = temporaryFolder.getRoot().toPath().resolve("1");
+    }
+
+    @Test
+    public void should_not_recover_works_when_journal_was_never_used() throws Exception {
+        FileWorkJournal journal = new FileWorkJournal(folder, FileWorkJournal.MAX_SEGMENT_SIZE);
+
+        assertThat(journal.canRecoverWorks()).isFalse();
+        assertThat(journal.getUncompletedWorks()).isEmpty();
+    }
+
+    @Test
+    public void should_recover_only_uncompleted_works_after_restart() throws Exception {
+        FileWorkJournal journal = new FileWorkJournal(folder, FileWorkJournal.MAX_SEGMENT_SIZE);
+        journal.append(asList(work1, work2));
+        journal.append(singletonList(work3));
+        journal.complete(work2);
+
+        FileWorkJournal restartedJournal = new FileWorkJournal(folder, FileWorkJournal.MAX_SEGMENT_SIZE);
+
+        assertThat(restartedJournal.canRecoverWorks()).isTrue();
+        assertThat(restartedJournal.getUncompletedWorks()).extracting(WorkDescriptor::getUuid)
+                .containsExactly(work1.getUuid(), work3.getUuid());
+        assertThat(restartedJournal.getUncompletedWorks().get(0).getParameter("processInstanceId")).isEqualTo(12L);
+    }
+
+    @Test
+    public void should_forget_works_completed_after_restart() throws Exception {
+        FileWorkJournal journal = new FileWorkJournal(folder, FileWorkJournal.MAX_SEGMENT_SIZE);
+        journal.append(asList(work1, work2));
+        FileWorkJournal restartedJournal = new FileWorkJournal(folder, FileWorkJournal.MAX_SEGMENT_SIZE);
+        restartedJournal.complete(restartedJournal.getUncompletedWorks().get(0));
+
+        FileWorkJournal restartedTwiceJournal = new FileWorkJournal(folder, FileWorkJournal.MAX_SEGMENT_SIZE);
+
+        assertThat(restartedTwiceJournal.getUncompletedWorks()).extracting(WorkDescriptor::getUuid)
+                .containsExactly(work2.getUuid());
+    }
+
+    @Test
+    public void should_delete_segments_once_all_their_works_are_completed() throws Exception {
+        // each record fills a segment
+        FileWorkJournal journal = new FileWorkJournal(folder, 1);
+        journal.append(singletonList(work1));
+        journal.append(singletonList(work2));
+        journal.append(singletonList(work3));
+
+        journal.complete(work2);
+        assertThat(segments()).hasSize(5);
+
+        journal.complete(work1);
+        assertThat(segments()).hasSize(4);
+
+        FileWorkJournal restartedJournal = new FileWorkJournal(folder, 1);
+        assertThat(restartedJournal.getUncompletedWorks()).extracting(WorkDescriptor::getUuid)
+                .containsExactly(work3.getUuid());
+    }
+
+    @Test
+    public void should_write_in_a_new_segment_when_an_interrupted_thread_closed_the_segment() throws Exception {
+        FileWorkJournal journal = new FileWorkJournal(folder, FileWorkJournal.MAX_SEGMENT_SIZE);
+        journal.append(singletonList(work1));
+        Thread.currentThread().interrupt();
+        try {
+            assertThatThrownBy(() -> journal.append(singletonList(work2)))
+                    .hasCauseInstanceOf(ClosedByInterruptException.class);
+        } finally {
+            Thread.interrupted();
+        }
+
+        journal.append(singletonList(work3));
+
+        assertThat(segments()).hasSize(2);
+        FileWorkJournal restartedJournal = new FileWorkJournal(folder, FileWorkJournal.MAX_SEGMENT_SIZE);
+        assertThat(restartedJournal.getUncompletedWorks()).extracting(WorkDescriptor::getUuid)
+                .contains(work1.getUuid(), work3.getUuid());
+    }
+
+    @Test
+    public void should_recover_works_written_before_a_record_partially_written() throws Exception {
+        FileWorkJournal journal = new FileWorkJournal(folder, FileWorkJournal.MAX_SEGMENT_SIZE);
+        journal.append(singletonList(work1));
+        journal.append(singletonList(work2));
+        Path segment = segments()[0].toPath();
+        byte[] content = Files.readAllBytes(segment);
+        Files.write(segment, Arrays.copyOf(content, content.length - 3));
+
+        FileWorkJournal restartedJournal = new FileWorkJournal(folder, FileWorkJournal.MAX_SEGMENT_SIZE);
+
+        assertThat(restartedJournal.canRecoverWorks()).isTrue();
+        assertThat(restartedJournal.getUncompletedWorks()).extracting(WorkDescriptor::getUuid)
+                .containsExactly(work1.getUuid());
+    }
+
+    @Test
+    public void should_set_segments_aside_when_a_record_is_corrupted() throws Exception {
+        FileWorkJournal journal = new FileWorkJournal(folder, FileWorkJournal.MAX_SEGMENT_SIZE);
+        journal.append(asList(work1, work2));
+        Path segment = segments()[0].toPath();
+        byte[] content = Files.readAllBytes(segment);
+        // in the payload of the first record
+        content[20] ^= 0xFF;
+        Files.write(segment, content);
+
+        FileWorkJournal restartedJournal = new FileWorkJournal(folder, FileWorkJournal.MAX_SEGMENT_SIZE);
+
+        assertThat(restartedJournal.canRecoverWorks()).isFalse();
+        assertThat(restartedJournal.getUncompletedWorks()).isEmpty();
+        assertThat(unreadableSegments()).hasSize(1);
+        restartedJournal.append(singletonList(work3));
+        assertThat(new FileWorkJournal(folder, FileWorkJournal.MAX_SEGMENT_SIZE).getUncompletedWorks())
+                .extracting(WorkDescriptor::getUuid).containsExactly(work3.getUuid());
+    }
+
+    @Test
+    public void should_set_segments_aside_when_a_record_has_a_negative_length() throws Exception {
+        ByteBuffer record = FileWorkJournal.record(FileWorkJournal.APPENDED, serialize(work1));
+        record.putInt(1, -1);
+        writeSegment(record);
+
+        FileWorkJournal journal = new FileWorkJournal(folder, FileWorkJournal.MAX_SEGMENT_SIZE);
+
+        assertThat(journal.canRecoverWorks()).isFalse();
+        assertThat(journal.getUncompletedWorks()).isEmpty();
+        assertThat(unreadableSegments()).hasSize(1);
+    }
+
+    @Test
+    public void should_set_segments_aside_when_a_work_was_written_with_a_class_that_does_not_exist_anymore()
+            throws Exception {
+        byte[] payload = serialize(work1);
+        byte[] className = WorkDescriptor.class.getName().getBytes(StandardCharsets.UTF_8);
+        int index = indexOf(payload, className);
+        // same length, so that the serialized stream stays valid
+        payload[index + className.length - 1] = 'X';
+        writeSegment(FileWorkJournal.record(FileWorkJournal.APPENDED, payload));
+
+        FileWorkJournal journal = new FileWorkJournal(folder, FileWorkJournal.MAX_SEGMENT_SIZE);
+
+        assertThat(journal.canRecoverWorks()).isFalse();
+        assertThat(journal.getUncompletedWorks()).isEmpty();
+        assertThat(unreadableSegments()).hasSize(1);
+    }
+
+    private void writeSegment(ByteBuffer record) throws IOException {
+        Files.createDirectories(folder);
+        Files.write(folder.resolve(String.format("%s%019d%s", FileWorkJournal.SEGMENT_PREFIX, 0,
+                FileWorkJournal.SEGMENT_SUFFIX)), Arrays.copyOf(record.array(), record.limit()));
+    }
+
+    private static byte[] serialize(WorkDescriptor work) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(work);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static int indexOf(byte[] array, byte[] searched) {
+        for (int i = 0; i <= array.length - searched.length; i++) {
+            if (Arrays.equals(Arrays.copyOfRange(array, i, i + searched.length), searched)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("not found");
+    }
+
+    private File[] unreadableSegments() {
+        return folder.toFile().listFiles((dir, name) -> name.endsWith(FileWorkJournal.UNREADABLE_SUFFIX));
+    }
+
+    private File[] segments() {
+        return folder.toFile().listFiles((dir, name) -> name.endsWith(".journal"));
+    }
+
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright (C) 2019 Bonitasoft S.A.
+ * Bonitasoft, 32 rue Gustave Eiffel - 38000 Grenoble
+ * This library is free software; you can redistribute it and/or modify it under the terms
+ * of the GNU Lesser General Public License as published by the Free Software Foundation
+ * version 2.1 of the License.
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License along with this
+ * program; if not, write to the Free Software Foundation, Inc., 51 Franklin Street, Fifth
+ * Floor, Boston, MA 02110-1301, USA.
+ **/
+package org.bonitasoft.engine.work;
+
+import static java.time.temporal.ChronoUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bonitasoft.engine.commons.time.FixedEngineClock;
+import org.bonitasoft.engine.log.technical.TechnicalLogger;
+import org.bonitasoft.engine.log.technical.TechnicalLoggerService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+public class LockRetryHandlerTest {
+
+    private static final long TENANT_ID = 13L;
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+    @Mock
+    private TechnicalLoggerService technicalLoggerService;
+    @Mock
+    private TechnicalLogger logger;
+    private FixedEngineClock engineClock = new FixedEngineClock(Instant.now());
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private List<WorkDescriptor> executedWorks = new CopyOnWriteArrayList<>();
+    private LockRetryHandler lockRetryHandler;
+
+    @Before
+    public void before() {
+        doReturn(logger).when(technicalLoggerService).asLogger(any());
+    }
+
+    @After
+    public void after() {
+        lockRetryHandler.stop();
+    }
+
+    private void startHandler(long initialDelayMillis, boolean handOffEnabled) {
+        lockRetryHandler = new LockRetryHandler(technicalLoggerService, engineClock, meterRegistry, TENANT_ID,
+                initialDelayMillis, 10_000, handOffEnabled);
+        lockRetryHandler.start(executedWorks::add);
+    }
+
+    @Test
+    public void should_compute_exponential_delay_with_jitter_capped_to_max_delay() {
+        startHandler(10, false);
+
+        assertThat(lockRetryHandler.computeDelay(0)).isBetween(5L, 10L);
+        assertThat(lockRetryHandler.computeDelay(3)).isBetween(40L, 80L);
+        assertThat(lockRetryHandler.computeDelay(30)).isBetween(5_000L, 10_000L);
+    }
+
+    @Test
+    public void should_execute_work_immediately_when_no_delay_is_configured() {
+        startHandler(0, false);
+        WorkDescriptor work = WorkDescriptor.create("NORMAL");
+
+        lockRetryHandler.retry(work, "PROCESS_1");
+
+        assertThat(executedWorks).containsExactly(work);
+        assertThat(work.getRetryCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_execute_work_only_after_backoff() throws Exception {
+        startHandler(1_000, false);
+        WorkDescriptor work = WorkDescriptor.create("NORMAL");
+
+        lockRetryHandler.retry(work, "PROCESS_1");
+
+        Thread.sleep(3 * DelayedWorkScheduler.MAX_WAIT_MILLIS);
+        assertThat(executedWorks).isEmpty();
+        assertThat(meterRegistry.find(LockRetryHandler.NUMBER_OF_WORKS_WAITING_FOR_LOCK).gauge().value())
+                .isEqualTo(1);
+
+        engineClock.addTime(2, SECONDS);
+        await().until(() -> executedWorks.contains(work));
+        assertThat(meterRegistry.find(LockRetryHandler.NUMBER_OF_LOCK_RETRIES).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_hand_off_next_waiting_work_when_lock_is_released() {
+        startHandler(1_000, true);
+        WorkDescriptor first = WorkDescriptor.create("NORMAL");
+        WorkDescriptor second = WorkDescriptor.create("NORMAL");
+        lockRetryHandler.retry(first, "PROCESS_1");
+        lockRetryHandler.retry(second, "PROCESS_1");
+
+        lockRetryHandler.released("PROCESS_1");
+
+        assertThat(executedWorks).containsExactly(first);
+        assertThat(meterRegistry.find(LockRetryHandler.NUMBER_OF_LOCK_HANDOFFS).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_not_hand_off_work_waiting_for_an_other_lock() {
+        startHandler(1_000, true);
+        lockRetryHandler.retry(WorkDescriptor.create("NORMAL"), "PROCESS_1");
+
+        lockRetryHandler.released("PROCESS_2");
+
+        assertThat(executedWorks).isEmpty();
+    }
+
+    @Test
+    public void should_not_execute_handed_off_work_a_second_time_when_backoff_ends() throws Exception {
+        startHandler(1_000, true);
+        WorkDescriptor work = WorkDescriptor.create("NORMAL");
+        lockRetryHandler.retry(work, "PROCESS_1");
+        lockRetryHandler.released("PROCESS_1");
+
+        engineClock.addTime(2, SECONDS);
+        Thread.sleep(3 * DelayedWorkScheduler.MAX_WAIT_MILLIS);
+
+        assertThat(executedWorks).containsExactly(work);
+    }
+
+    @Test
+    public void should_remove_meters_when_stopped() {
+        startHandler(10, false);
+
+        lockRetryHandler.stop();
+
+        assertThat(meterRegistry.getMeters()).isEmpty();
+    }
+
+}
@@ -52,6 +52,10 @@ public class WorkExecutorServiceImplTest {
     private BonitaWork bonitaWork;
     @Mock
     private WorkExecutionAuditor workExecutionAuditor;
+    @Mock
+    private LockRetryHandler lockRetryHandler;
+    @Mock
+    private WorkJournal workJournal;
 
     private WorkExecutorServiceImpl workExecutorService;
 
@@ -60,7 +64,7 @@ public class WorkExecutorServiceImplTest {
         doReturn(bonitaExecutorService).when(bonitaExecutorServiceFactory).createExecutorService(any());
         doReturn(logger).when(loggerService).asLogger(any());
         workExecutorService = new WorkExecutorServiceImpl(bonitaExecutorServiceFactory, loggerService,
-                WORK_TERMINATION_TIMEOUT, workExecutionAuditor);
+                WORK_TERMINATION_TIMEOUT, workExecutionAuditor, lockRetryHandler, workJournal);
         workExecutorService.start();
         doReturn(true).when(bonitaExecutorService).awaitTermination(anyLong(), any(TimeUnit.class));
     }
@@ -229,22 +233,46 @@ public class WorkExecutorServiceImplTest {
     }
 
     @Test
-    public void should_reexecute_work_when_it_fails_because_of_lock_timeout() {
+    public void should_retry_work_when_it_fails_because_of_lock_timeout() {
         workExecutorService.onFailure(workDescriptor, bonitaWork, Collections.emptyMap(),
-                new LockTimeoutException("lock timeout"));
+                new LockTimeoutException("lock timeout", "PROCESS_12"));
 
-        verify(bonitaExecutorService).submit(eq(workDescriptor));
+        verify(lockRetryHandler).retry(workDescriptor, "PROCESS_12");
     }
 
     @Test
-    public void should_warn_and_reexecute_work_when_it_fails_because_of_lock_exception() {
+    public void should_warn_and_retry_work_when_it_fails_because_of_lock_exception() {
         workExecutorService.onFailure(workDescriptor, bonitaWork, Collections.emptyMap(),
                 new LockException("lock timeout", new Exception()));
 
-        verify(bonitaExecutorService).submit(eq(workDescriptor));
+        verify(lockRetryHandler).retry(workDescriptor, null);
         verify(logger).warn(any(), any(Exception.class));
     }
 
+    @Test
+    public void should_notify_lock_released_when_work_holding_a_lock_succeeds() {
+        workExecutorService.onSuccess(workDescriptor,
+                Collections.singletonMap(LockRetryHandler.ACQUIRED_LOCK_KEY, "PROCESS_12"));
+
+        verify(lockRetryHandler).released("PROCESS_12");
+    }
+
+    @Test
+    public void should_notify_lock_released_when_work_holding_a_lock_fails() {
+        workExecutorService.onFailure(workDescriptor, bonitaWork,
+                Collections.singletonMap(LockRetryHandler.ACQUIRED_LOCK_KEY, "PROCESS_12"), new Exception());
+
+        verify(lockRetryHandler).released("PROCESS_12");
+    }
+
+    @Test
+    public void should_start_and_stop_lock_retry_handler_with_the_executor() {
+        workExecutorService.stop();
+
+        verify(lockRetryHandler).start(any());
+        verify(lockRetryHandler).stop();
+    }
+
     @Test
     public void should_log_on_success() {
         workExecutorService.onSuccess(workDescriptor);
@@ -252,6 +280,39 @@ public class WorkExecutorServiceImplTest {
         verify(logger).debug(eq("Completed work {}"), any(Object.class));
     }
 
+    @Test
+    public void should_complete_work_in_journal_on_success() throws Exception {
+        workExecutorService.onSuccess(workDescriptor);
+
+        verify(workJournal).complete(workDescriptor);
+    }
+
+    @Test
+    public void should_complete_work_in_journal_once_failure_is_handled() throws Exception {
+        workExecutorService.onFailure(workDescriptor, bonitaWork, Collections.emptyMap(), new Exception());
+
+        InOrder inOrder = inOrder(bonitaWork, workJournal);
+        inOrder.verify(bonitaWork).handleFailure(any(), any());
+        inOrder.verify(workJournal).complete(workDescriptor);
+    }
+
+    @Test
+    public void should_not_complete_work_in_journal_when_failure_cannot_be_handled() throws Exception {
+        doThrow(new Exception("unable to handle failure")).when(bonitaWork).handleFailure(any(), any());
+
+        workExecutorService.onFailure(workDescriptor, bonitaWork, Collections.emptyMap(), new Exception());
+
+        verify(workJournal, never()).complete(any());
+    }
+
+    @Test
+    public void should_not_complete_work_in_journal_when_it_is_retried() throws Exception {
+        workExecutorService.onFailure(workDescriptor, bonitaWork, Collections.emptyMap(),
+                new LockTimeoutException("lock timeout", "PROCESS_12"));
+
+        verify(workJournal, never()).complete(any());
+    }
+
     @Test
     public void should_await_specified_time_when_stopping_the_executor() throws Exception {
 
@@ -270,4 +331,18 @@ public class WorkExecutorServiceImplTest {
         verify(logger).warn(contains("Work was not executed because preconditions were not met,"), any(), any());
     }
 
+    @Test
+    public void should_return_the_number_of_pending_works_of_the_executor() {
+        doReturn(7).when(bonitaExecutorService).getNumberOfPendingWorks();
+
+        assertThat(workExecutorService.getNumberOfPendingWorks()).isEqualTo(7);
+    }
+
+    @Test
+    public void should_return_no_pending_works_when_stopped() {
+        workExecutorService.stop();
+
+        assertThat(workExecutorService.getNumberOfPendingWorks()).isEqualTo(0);
+    }
+
 }
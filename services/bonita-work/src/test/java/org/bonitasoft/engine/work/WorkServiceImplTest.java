@@ -18,6 +18,7 @@ import static org.mockito.Mockito.*;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
 
 import org.bonitasoft.engine.commons.exceptions.SBonitaException;
 import org.bonitasoft.engine.commons.time.EngineClock;
@@ -50,13 +51,15 @@ public class WorkServiceImplTest {
     private ArgumentCaptor<WorkSynchronization> synchronizationArgumentCaptor;
     @Mock
     private EngineClock engineClock;
+    @Mock
+    private WorkJournal workJournal;
 
     @Before
     public void before() throws Exception {
         doReturn(mock(TechnicalLogger.class)).when(loggerService).asLogger(any());
         doReturn(1L).when(sessionAccessor).getTenantId();
         workService = new WorkServiceImpl(transactionService, loggerService, sessionAccessor, workExecutorService,
-                engineClock);
+                engineClock, workJournal);
     }
 
     @Test
@@ -89,6 +92,23 @@ public class WorkServiceImplTest {
         assertThat(getWorkSynchronization().getWorks()).containsOnly(workDescriptor1, workDescriptor2);
     }
 
+    @Test
+    public void should_register_works_at_once_on_the_same_transaction_synchronization() throws SBonitaException {
+        // given
+        Instant registrationInstant = Instant.now();
+        doReturn(registrationInstant).when(engineClock).now();
+        WorkDescriptor workDescriptor1 = WorkDescriptor.create("MY_WORK1");
+        WorkDescriptor workDescriptor2 = WorkDescriptor.create("MY_WORK2");
+        workService.registerWork(WorkDescriptor.create("MY_WORK0"));
+
+        // when
+        workService.registerWorks(Arrays.asList(workDescriptor1, workDescriptor2));
+
+        // then
+        assertThat(getWorkSynchronization().getWorks()).hasSize(3).contains(workDescriptor1, workDescriptor2);
+        assertThat(workDescriptor2.getRegistrationDate()).isEqualTo(registrationInstant);
+    }
+
     private WorkSynchronization getWorkSynchronization() throws STransactionNotFoundException {
         verify(transactionService).registerBonitaSynchronization(synchronizationArgumentCaptor.capture());
         return synchronizationArgumentCaptor.getValue();
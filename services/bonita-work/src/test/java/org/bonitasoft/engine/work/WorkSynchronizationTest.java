@@ -18,6 +18,9 @@ import static org.bonitasoft.engine.transaction.TransactionState.COMMITTED;
 import static org.bonitasoft.engine.transaction.TransactionState.ROLLEDBACK;
 import static org.mockito.Mockito.*;
 
+import java.util.Collection;
+
+import org.bonitasoft.engine.commons.exceptions.SBonitaRuntimeException;
 import org.bonitasoft.engine.sessionaccessor.SessionAccessor;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -39,6 +42,8 @@ public class WorkSynchronizationTest {
     private SessionAccessor sessionAccessor;
     @Mock
     private BonitaExecutorService bonitaExecutorService;
+    @Mock
+    private WorkJournal workJournal;
     @InjectMocks
     private WorkSynchronization workSynchronization;
     private WorkDescriptor workDescriptor1 = WorkDescriptor.create("myWork1");
@@ -93,4 +98,32 @@ public class WorkSynchronizationTest {
 
         verify(workService).removeSynchronization();
     }
+
+    @Test
+    public void should_append_works_to_the_journal_before_commit() throws Exception {
+        workSynchronization.addWork(workDescriptor1);
+        workSynchronization.addWork(workDescriptor2);
+
+        workSynchronization.beforeCommit();
+
+        verify(workJournal).append(argThat((Collection<WorkDescriptor> works) -> works.size() == 2
+                && works.contains(workDescriptor1) && works.contains(workDescriptor2)));
+    }
+
+    @Test
+    public void should_fail_the_commit_when_works_cannot_be_appended_to_the_journal() throws Exception {
+        workSynchronization.addWork(workDescriptor1);
+        doThrow(new SWorkException("disk full")).when(workJournal).append(any());
+
+        assertThatThrownBy(() -> workSynchronization.beforeCommit()).isInstanceOf(SBonitaRuntimeException.class);
+    }
+
+    @Test
+    public void should_complete_journaled_works_when_transaction_is_rolled_back() throws Exception {
+        workSynchronization.addWork(workDescriptor1);
+
+        workSynchronization.afterCompletion(ROLLEDBACK);
+
+        verify(workJournal).complete(workDescriptor1);
+    }
 }